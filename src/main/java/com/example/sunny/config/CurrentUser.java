@@ -0,0 +1,21 @@
+package com.example.sunny.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// =====================
+// Controller の引数にログイン中ユーザー（LoginUser）を渡す目印
+// =====================
+//
+// 使い方：
+//   public String show(@CurrentUser LoginUser loginUser, Model model) { ... }
+//
+// 未ログインなら null。値は CurrentUserArgumentResolver が用意する（DB は読まない）。
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CurrentUser {
+}
@@ -0,0 +1,82 @@
+package com.example.sunny.config;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import com.example.sunny.dto.LoginUser;
+import com.example.sunny.repository.UserRepository;
+import com.example.sunny.service.CustomUserDetails;
+
+// =====================
+// @CurrentUser LoginUser の引数を用意する
+// =====================
+//
+// 以前は各 Controller とヘッダー表示（GlobalModelAdvice）が、
+// リクエストのたびに users テーブルを email → name の順で検索していた。
+//
+// 今はログイン時に CustomUserDetails が作った LoginUser をそのまま返すので、
+// 画面を表示するだけならユーザー検索の SQL は出ない。
+//
+// ・未ログイン（匿名）なら null
+// ・CustomUserDetails 以外の principal（テストの仮ユーザーなど）の場合だけ、
+//   email → name の順で1回検索し、同じリクエスト内では使い回す
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+	private static final String REQUEST_ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".LOGIN_USER";
+
+	private final UserRepository userRepository;
+
+	public CurrentUserArgumentResolver(UserRepository userRepository) {
+		this.userRepository = userRepository;
+	}
+
+	@Override
+	public boolean supportsParameter(MethodParameter parameter) {
+		return parameter.hasParameterAnnotation(CurrentUser.class)
+				&& LoginUser.class.isAssignableFrom(parameter.getParameterType());
+	}
+
+	@Override
+	public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+			NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+		return resolve(webRequest);
+	}
+
+	// GlobalModelAdvice からも使う
+	public LoginUser resolve(RequestAttributes request) {
+		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+		if (authentication == null || !authentication.isAuthenticated()
+				|| authentication instanceof AnonymousAuthenticationToken) {
+			return null;
+		}
+
+		// 通常のログイン：ログイン時の控えを返す（DB は読まない）
+		if (authentication.getPrincipal() instanceof CustomUserDetails details) {
+			return details.getLoginUser();
+		}
+
+		// それ以外の principal：1回だけ検索してリクエストに覚えておく
+		Object cached = request.getAttribute(REQUEST_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+		if (cached instanceof LoginUser loginUser) {
+			return loginUser;
+		}
+		String username = authentication.getName();
+		LoginUser loginUser = userRepository.findByEmail(username)
+				.or(() -> userRepository.findByName(username))
+				.map(LoginUser::of)
+				.orElse(null);
+		if (loginUser != null) {
+			request.setAttribute(REQUEST_ATTRIBUTE, loginUser, RequestAttributes.SCOPE_REQUEST);
+		}
+		return loginUser;
+	}
+}
@@ -1,13 +1,11 @@
 package com.example.sunny.config;
 
-import java.security.Principal;
-import java.util.Optional;
-
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.context.request.WebRequest;
+import org.thymeleaf.context.LazyContextVariable;
 
-import com.example.sunny.entity.User;
-import com.example.sunny.repository.UserRepository;
+import com.example.sunny.dto.LoginUser;
 
 // =====================
 // 全画面共通：ログイン中ユーザー名をテンプレートに渡す仕組み
@@ -21,40 +19,33 @@ import com.example.sunny.repository.UserRepository;
 // loginUserName という値を全画面で使えるようにしている。
 //
 // 【処理の流れ】
-// 1. Spring Security が保持しているログイン情報（Principal）を取得
-// 2. principal.getName() でログインID（メールアドレス）を取得
-// 3. usersテーブルから該当ユーザーを検索
-// 4. 見つかったユーザーの name を loginUserName として返す
-// 5. Thymeleaf側では ${loginUserName} でどの画面でも使用可能になる
+// 1. CurrentUserArgumentResolver からログイン中ユーザー（LoginUser）を取得
+//    （ログイン時の控えなので DB は読まない）
+// 2. その name を loginUserName として返す
+// 3. Thymeleaf側では ${loginUserName} でどの画面でも使用可能になる
+//
+// 値は LazyContextVariable で包み、テンプレートが実際に参照した時だけ求める。
+// リダイレクトや JSON を返す処理では何もしない。
 //
 // これにより、各Controllerで毎回ユーザー名を渡す処理を書く必要がなくなる。
 @ControllerAdvice
 public class GlobalModelAdvice {
 
-	private final UserRepository userRepository;
+	private final CurrentUserArgumentResolver currentUserArgumentResolver;
 
-	public GlobalModelAdvice(UserRepository userRepository) {
-		this.userRepository = userRepository;
+	public GlobalModelAdvice(CurrentUserArgumentResolver currentUserArgumentResolver) {
+		this.currentUserArgumentResolver = currentUserArgumentResolver;
 	}
 
 	@ModelAttribute("loginUserName")
-	public String loginUserName(Principal principal) {
-		// 未ログイン時は null を返す
-		if (principal == null)
-			return null;
-
-		// Spring Security が管理しているログインID（通常は email）
-		String username = principal.getName();
-
-		// emailでユーザー検索
-		Optional<User> userOpt = userRepository.findByEmail(username);
-
-		// 万が一emailで見つからなければ name でも検索
-		if (userOpt.isEmpty()) {
-			userOpt = userRepository.findByName(username);
-		}
-
-		// ユーザーが見つかれば name を返す
-		return userOpt.map(User::getName).orElse(null);
+	public LazyContextVariable<String> loginUserName(WebRequest request) {
+		return new LazyContextVariable<>() {
+			@Override
+			protected String loadValue() {
+				// 未ログイン時は null
+				LoginUser loginUser = currentUserArgumentResolver.resolve(request);
+				return loginUser != null ? loginUser.getName() : null;
+			}
+		};
 	}
 }
@@ -0,0 +1,389 @@
+package com.example.sunny.config;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.sunny.service.JdbcSession;
+import com.example.sunny.service.JdbcSessionRepository;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import jakarta.servlet.http.HttpSession;
+
+// =====================
+// HTTP セッションを DB に置き換えるフィルタ（app.session.store=jdbc の時だけ有効）
+// =====================
+//
+// Spring Security より前で request.getSession() を差し替え、
+// Tomcat のメモリ上のセッションの代わりに JdbcSessionRepository のセッションを返す。
+//
+// ・セッション ID は Cookie（app.session.jdbc.cookie-name）で受け渡す
+// ・DB を読むのは getSession() が呼ばれた時だけ（静的ファイルなどでは読まない）
+// ・書き戻しはリクエストの最後に1回。ただし応答がブラウザに送られ始める時は、その前に書く
+//   （リダイレクト・エラー応答・flush・close・バッファが一杯になった時。
+//     ブラウザが次のリクエストを別のサーバーに送っても、変更が見えるように）
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 50)
+@ConditionalOnProperty(name = "app.session.store", havingValue = "jdbc")
+public class JdbcSessionFilter extends OncePerRequestFilter {
+
+	// ブラウザを閉じるまでの Cookie（期限は DB 側で管理する）
+	private static final Duration SESSION_COOKIE = Duration.ofSeconds(-1);
+
+	private final JdbcSessionRepository sessionRepository;
+	private final String cookieName;
+
+	public JdbcSessionFilter(
+			JdbcSessionRepository sessionRepository,
+			@Value("${app.session.jdbc.cookie-name:SESSION}") String cookieName) {
+		this.sessionRepository = sessionRepository;
+		this.cookieName = cookieName;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		SessionRequest sessionRequest = new SessionRequest(request, response);
+		try {
+			chain.doFilter(sessionRequest, sessionRequest.response);
+		} finally {
+			sessionRequest.commit();
+		}
+	}
+
+	// 非同期処理（SSE / CSV 出力）やエラー画面でも同じセッションを使う
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return false;
+	}
+
+	@Override
+	protected boolean shouldNotFilterErrorDispatch() {
+		return false;
+	}
+
+	// =====================
+	// getSession() を差し替えたリクエスト
+	// =====================
+	private final class SessionRequest extends HttpServletRequestWrapper {
+
+		private final HttpServletResponse originalResponse;
+		private final HttpServletResponse response;
+		private final String requestedSessionId;
+
+		private JdbcSession session;
+		private boolean requestedSessionLoaded;
+		private boolean requestedSessionValid;
+
+		SessionRequest(HttpServletRequest request, HttpServletResponse response) {
+			super(request);
+			this.originalResponse = response;
+			this.requestedSessionId = readCookie(request);
+			this.response = new CommitAwareResponse(response, this::commit);
+		}
+
+		@Override
+		public HttpSession getSession(boolean create) {
+			if (session != null && !session.isInvalidated()) {
+				return session;
+			}
+			if (session == null && !requestedSessionLoaded) {
+				requestedSessionLoaded = true;
+				if (requestedSessionId != null) {
+					session = sessionRepository.find(requestedSessionId, getServletContext());
+					requestedSessionValid = session != null;
+					if (session != null) {
+						return session;
+					}
+				}
+			}
+			if (!create) {
+				return null;
+			}
+
+			// 無効化済みのセッションはここで消してから作り直す（ログアウト直後など）
+			if (session != null) {
+				sessionRepository.save(session);
+			}
+			session = sessionRepository.create(getServletContext());
+			writeCookie(session.getId(), SESSION_COOKIE);
+			return session;
+		}
+
+		@Override
+		public HttpSession getSession() {
+			return getSession(true);
+		}
+
+		// ログイン時のセッション固定攻撃対策
+		@Override
+		public String changeSessionId() {
+			HttpSession current = getSession(false);
+			if (current == null) {
+				throw new IllegalStateException("セッションがありません");
+			}
+			String newId = sessionRepository.changeSessionId(session);
+			writeCookie(newId, SESSION_COOKIE);
+			return newId;
+		}
+
+		@Override
+		public String getRequestedSessionId() {
+			return requestedSessionId;
+		}
+
+		@Override
+		public boolean isRequestedSessionIdValid() {
+			if (requestedSessionId == null) {
+				return false;
+			}
+			getSession(false);
+			return requestedSessionValid && session != null && !session.isInvalidated()
+					&& requestedSessionId.equals(session.getId());
+		}
+
+		@Override
+		public boolean isRequestedSessionIdFromCookie() {
+			return requestedSessionId != null;
+		}
+
+		@Override
+		public boolean isRequestedSessionIdFromURL() {
+			return false;
+		}
+
+		// 変更を DB に書き、無効化されたセッションの Cookie を消す
+		void commit() {
+			if (session == null) {
+				return;
+			}
+			sessionRepository.save(session);
+			if (session.isInvalidated()) {
+				session = null;
+				if (!originalResponse.isCommitted()) {
+					writeCookie("", Duration.ZERO);
+				}
+			}
+		}
+
+		private String readCookie(HttpServletRequest request) {
+			Cookie[] cookies = request.getCookies();
+			if (cookies == null) {
+				return null;
+			}
+			for (Cookie cookie : cookies) {
+				if (cookieName.equals(cookie.getName()) && StringUtils.hasText(cookie.getValue())) {
+					return cookie.getValue();
+				}
+			}
+			return null;
+		}
+
+		private void writeCookie(String value, Duration maxAge) {
+			String contextPath = getContextPath();
+			ResponseCookie cookie = ResponseCookie.from(cookieName, value)
+					.path(StringUtils.hasLength(contextPath) ? contextPath : "/")
+					.httpOnly(true)
+					.secure(isSecure())
+					.sameSite("Lax")
+					.maxAge(maxAge)
+					.build();
+			originalResponse.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+		}
+	}
+
+	// =====================
+	// 応答が送られ始める直前に onCommit を呼ぶレスポンス
+	// =====================
+	//
+	// Spring Session の OnCommittedResponseWrapper と同じ考え方。送られ始めるのは
+	// ・sendRedirect / sendError
+	// ・flushBuffer、出力（OutputStream / Writer）の flush・close
+	// ・書いた量がバッファの大きさ、または Content-Length に達した時
+	// onCommit は最初の1回だけ（SSE のように何度も flush しても毎回 DB には書かない）。
+	// Writer の文字数はバイト数が分からないので、UTF-8 の最大（1文字3バイト）で数える（早めに書くだけで害はない）。
+	private static final class CommitAwareResponse extends HttpServletResponseWrapper {
+
+		private static final int MAX_BYTES_PER_CHAR = 3;
+
+		private final Runnable onCommit;
+		private boolean committed;
+		private long written;
+		private long contentLength = -1;
+
+		private ServletOutputStream outputStream;
+		private PrintWriter writer;
+
+		CommitAwareResponse(HttpServletResponse response, Runnable onCommit) {
+			super(response);
+			this.onCommit = onCommit;
+		}
+
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			beforeCommit();
+			super.sendRedirect(location);
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			beforeCommit();
+			super.sendError(sc);
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			beforeCommit();
+			super.sendError(sc, msg);
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			beforeCommit();
+			super.flushBuffer();
+		}
+
+		@Override
+		public void setContentLength(int len) {
+			setContentLengthLong(len);
+		}
+
+		@Override
+		public void setContentLengthLong(long len) {
+			contentLength = len;
+			super.setContentLengthLong(len);
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			if (outputStream == null) {
+				outputStream = new CommitAwareOutputStream(super.getOutputStream());
+			}
+			return outputStream;
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			if (writer == null) {
+				writer = new PrintWriter(new CommitAwareWriter(super.getWriter()));
+			}
+			return writer;
+		}
+
+		// これから bytes バイト書く。バッファか Content-Length に達するなら先に onCommit
+		private void beforeWrite(long bytes) {
+			written += bytes;
+			if (written >= getBufferSize() || (contentLength >= 0 && written >= contentLength)) {
+				beforeCommit();
+			}
+		}
+
+		private void beforeCommit() {
+			if (!committed) {
+				committed = true;
+				onCommit.run();
+			}
+		}
+
+		private final class CommitAwareOutputStream extends ServletOutputStream {
+
+			private final ServletOutputStream delegate;
+
+			CommitAwareOutputStream(ServletOutputStream delegate) {
+				this.delegate = delegate;
+			}
+
+			@Override
+			public void write(int b) throws IOException {
+				beforeWrite(1);
+				delegate.write(b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				beforeWrite(len);
+				delegate.write(b, off, len);
+			}
+
+			@Override
+			public void flush() throws IOException {
+				beforeCommit();
+				delegate.flush();
+			}
+
+			@Override
+			public void close() throws IOException {
+				beforeCommit();
+				delegate.close();
+			}
+
+			@Override
+			public boolean isReady() {
+				return delegate.isReady();
+			}
+
+			@Override
+			public void setWriteListener(WriteListener listener) {
+				delegate.setWriteListener(listener);
+			}
+		}
+
+		private final class CommitAwareWriter extends Writer {
+
+			private final PrintWriter delegate;
+
+			CommitAwareWriter(PrintWriter delegate) {
+				this.delegate = delegate;
+			}
+
+			@Override
+			public void write(char[] cbuf, int off, int len) {
+				beforeWrite((long) len * MAX_BYTES_PER_CHAR);
+				delegate.write(cbuf, off, len);
+			}
+
+			@Override
+			public void write(String str, int off, int len) {
+				beforeWrite((long) len * MAX_BYTES_PER_CHAR);
+				delegate.write(str, off, len);
+			}
+
+			@Override
+			public void write(int c) {
+				beforeWrite(MAX_BYTES_PER_CHAR);
+				delegate.write(c);
+			}
+
+			@Override
+			public void flush() {
+				beforeCommit();
+				delegate.flush();
+			}
+
+			@Override
+			public void close() {
+				beforeCommit();
+				delegate.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.example.sunny.config;
+
+import java.io.IOException;
+
+import org.springframework.http.HttpMethod;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.sunny.service.LoginThrottle;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+// =====================
+// ログイン試行の回数制限フィルタ
+// =====================
+//
+// SecurityConfig がログイン処理（UsernamePasswordAuthenticationFilter）の直前に入れる。
+// POST /login だけを見て、LoginThrottle が断ったらユーザー検索・パスワード照合をせずに
+// /login?throttled=true へ戻す。
+//
+// IP は request.getRemoteAddr()。ロードバランサの後ろでも利用者の IP になるよう、
+// application.properties で server.forward-headers-strategy=native にしてある（X-Forwarded-For を Tomcat が反映する）。
+//
+// ※ Bean にすると Spring Security の外でも動いてしまうため、@Component にはしない
+public class LoginThrottleFilter extends OncePerRequestFilter {
+
+	// SecurityConfig の loginProcessingUrl と同じ
+	private static final RequestMatcher LOGIN = PathPatternRequestMatcher.withDefaults().matcher(HttpMethod.POST, "/login");
+
+	private final LoginThrottle loginThrottle;
+
+	public LoginThrottleFilter(LoginThrottle loginThrottle) {
+		this.loginThrottle = loginThrottle;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !LOGIN.matches(request);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		if (!loginThrottle.tryAcquire(request.getRemoteAddr(), request.getParameter("username"))) {
+			response.sendRedirect(request.getContextPath() + "/login?throttled=true");
+			return;
+		}
+		chain.doFilter(request, response);
+	}
+}
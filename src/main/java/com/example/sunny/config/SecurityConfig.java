@@ -13,6 +13,11 @@ import org.springframework.security.crypto.factory.PasswordEncoderFactories;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.AuthenticationFailureHandler;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.context.SecurityContextHolderFilter;
+
+import com.example.sunny.service.LoginThrottle;
+import com.example.sunny.service.SessionRevocationService;
 
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -30,6 +35,8 @@ import jakarta.servlet.http.HttpServletResponse;
 // ・それ以外はログイン必須
 //
 // また、ログイン失敗した時に理由別（BAN / 停止）でURLを変える処理も入っている。
+// ログイン中に BAN / 停止された場合は SessionRevocationFilter がセッションを切る。
+// ログインの試行回数は LoginThrottleFilter が制限する（パスワード照合の前に断る）。
 @Configuration
 @EnableMethodSecurity
 public class SecurityConfig {
@@ -38,7 +45,8 @@ public class SecurityConfig {
 	// セキュリティ全体のルール設定（URLごとの許可/拒否、ログイン/ログアウト）
 	// =====================
 	@Bean
-	SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+	SecurityFilterChain filterChain(HttpSecurity http, SessionRevocationService revocationService,
+			LoginThrottle loginThrottle) throws Exception {
 
 		http
 				// =====================
@@ -85,7 +93,19 @@ public class SecurityConfig {
 				// =====================
 				// CSRF（フォーム送信の保護）
 				// =====================
-				.csrf(Customizer.withDefaults());
+				.csrf(Customizer.withDefaults())
+
+				// =====================
+				// ログイン中に BAN / 停止されたユーザーのセッションを切る
+				// =====================
+				//
+				// セッションからログイン情報を読んだ直後に判定する
+				.addFilterAfter(new SessionRevocationFilter(revocationService), SecurityContextHolderFilter.class)
+
+				// =====================
+				// ログイン試行の回数制限（IP ごと・ログインIDごと）
+				// =====================
+				.addFilterBefore(new LoginThrottleFilter(loginThrottle), UsernamePasswordAuthenticationFilter.class);
 
 		return http.build();
 	}
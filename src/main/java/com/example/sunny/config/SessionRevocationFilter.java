@@ -0,0 +1,65 @@
+package com.example.sunny.config;
+
+import java.io.IOException;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.example.sunny.entity.UserStatus;
+import com.example.sunny.service.CustomUserDetails;
+import com.example.sunny.service.SessionRevocationService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+// =====================
+// BAN / 停止されたユーザーのセッションを切るフィルタ
+// =====================
+//
+// SecurityConfig が Spring Security のフィルタの中（セッションからログイン情報を読む直後）に入れる。
+// ログイン中のユーザーが SessionRevocationService の対象なら、
+// セッションを無効にしてログイン画面（/login?banned=true など）へ戻す。
+//
+// 判定はメモリ上の対象と ID で照らし合わせるだけで、DB は見ない。
+// 対象が1人もいない間は、ログイン情報も読まずに次へ進む。
+//
+// ※ Bean にすると Spring Security の外でも動いてしまうため、@Component にはしない
+public class SessionRevocationFilter extends OncePerRequestFilter {
+
+	private final SessionRevocationService revocationService;
+
+	public SessionRevocationFilter(SessionRevocationService revocationService) {
+		this.revocationService = revocationService;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		if (!revocationService.isEmpty()) {
+			Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+			if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails principal) {
+				UserStatus status = revocationService.revokedStatus(principal.getLoginUser().getId());
+				if (status != null) {
+					revoke(request, response, status);
+					return;
+				}
+			}
+		}
+		chain.doFilter(request, response);
+	}
+
+	private void revoke(HttpServletRequest request, HttpServletResponse response, UserStatus status)
+			throws IOException {
+		HttpSession session = request.getSession(false);
+		if (session != null) {
+			session.invalidate();
+		}
+		SecurityContextHolder.clearContext();
+		String reason = status == UserStatus.BANNED ? "banned" : "suspended";
+		response.sendRedirect(request.getContextPath() + "/login?" + reason + "=true");
+	}
+}
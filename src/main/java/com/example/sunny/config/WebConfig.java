@@ -1,12 +1,19 @@
 package com.example.sunny.config;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.PathResourceResolver;
+
+import com.example.sunny.service.ImageVariantService;
 
 // =====================
 // アップロード画像の表示を有効にする設定
@@ -20,6 +27,11 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 // 表示URL： http://localhost:8080/uploads/abc.png
 //
 // これが無いと、MultipartFileで保存しても「ブラウザから画像が見れない」状態になる。
+//
+// 縮小版（ImageVariantService）も同じ /uploads/variants/... で配信する。
+// 縮小版がまだ作られていない場合は、元画像を返す。
+//
+// あわせて、Controller の引数 @CurrentUser LoginUser を使えるようにする（CurrentUserArgumentResolver）。
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
 
@@ -27,6 +39,17 @@ public class WebConfig implements WebMvcConfigurer {
 	@Value("${app.upload.dir:uploads}")
 	private String uploadDir;
 
+	private final CurrentUserArgumentResolver currentUserArgumentResolver;
+
+	public WebConfig(CurrentUserArgumentResolver currentUserArgumentResolver) {
+		this.currentUserArgumentResolver = currentUserArgumentResolver;
+	}
+
+	@Override
+	public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+		resolvers.add(currentUserArgumentResolver);
+	}
+
 	@Override
 	public void addResourceHandlers(ResourceHandlerRegistry registry) {
 
@@ -38,6 +61,25 @@ public class WebConfig implements WebMvcConfigurer {
 
 		// /uploads/** でアクセスが来たら、上の location（uploadsフォルダ）から探して返す
 		registry.addResourceHandler("/uploads/**")
-				.addResourceLocations(location);
+				.addResourceLocations(location)
+				.resourceChain(false)
+				.addResolver(new VariantFallbackResolver());
+	}
+
+	// 縮小版が無ければ元画像を探す
+	// 例：variants/thumb/abc.png.jpg が無い → abc.png
+	static class VariantFallbackResolver extends PathResourceResolver {
+
+		@Override
+		protected Resource getResource(String resourcePath, Resource location) throws IOException {
+			Resource resource = super.getResource(resourcePath, location);
+			if (resource == null) {
+				String original = ImageVariantService.originalFilename(resourcePath);
+				if (original != null) {
+					return super.getResource(original, location);
+				}
+			}
+			return resource;
+		}
 	}
 }
@@ -2,8 +2,10 @@ package com.example.sunny.controller;
 
 import java.util.List;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -14,6 +16,7 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.example.sunny.entity.User;
 import com.example.sunny.entity.UserStatus;
+import com.example.sunny.event.UserStatusChangedEvent;
 import com.example.sunny.repository.UserRepository;
 
 // =====================
@@ -38,10 +41,12 @@ import com.example.sunny.repository.UserRepository;
 public class AdminUserController {
 
 	private final UserRepository userRepository;
+	private final ApplicationEventPublisher eventPublisher;
 
 	// UserRepository を DI（依存性注入）
-	public AdminUserController(UserRepository userRepository) {
+	public AdminUserController(UserRepository userRepository, ApplicationEventPublisher eventPublisher) {
 		this.userRepository = userRepository;
+		this.eventPublisher = eventPublisher;
 	}
 
 	// =====================
@@ -84,6 +89,10 @@ public class AdminUserController {
 	// ・規約違反ユーザーの停止（SUSPENDED）
 	// ・悪質ユーザーの永久BAN（BANNED）
 	//
+	// SUSPENDED / BANNED にしたユーザーがログイン中なら、次のリクエストでセッションが切れる
+	// （UserStatusChangedEvent → SessionRevocationService。他のサーバーにも伝わる）
+	//
+	@Transactional
 	@PostMapping("/users/{id}/status")
 	public String changeStatus(
 			@PathVariable Long id,
@@ -109,6 +118,7 @@ public class AdminUserController {
 
 		// DBに保存
 		userRepository.save(user);
+		eventPublisher.publishEvent(new UserStatusChangedEvent(user.getId(), status));
 
 		// 完了メッセージをリダイレクト先へ渡す
 		ra.addFlashAttribute(
@@ -3,13 +3,14 @@ package com.example.sunny.controller;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 
-import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 
+import com.example.sunny.config.CurrentUser;
+import com.example.sunny.dto.LoginUser;
 import com.example.sunny.entity.Attendance;
 import com.example.sunny.entity.User;
 import com.example.sunny.repository.AttendanceRepository;
@@ -49,22 +50,16 @@ public class AttendanceController {
 	 * 共通処理：ログイン中ユーザーの取得
 	 * =====================
 	 *
-	 * Spring Security から渡される Authentication には
-	 * ログインID（email）が入っている。
+	 * @CurrentUser で受け取る LoginUser は、ログイン時に作った控え（ID・名前など）。
 	 *
-	 * 1. email で users テーブルを検索
-	 * 2. 見つからなければ name でも検索
-	 * 3. ログインユーザーの User エンティティを返す
+	 * 勤怠の検索・保存には User の参照（ID だけ持つ）を使うので、
+	 * users テーブルを検索する SQL は出ない。
 	 *
 	 * 各勤怠処理で毎回同じ取得処理を書くのを防ぐため、
 	 * 共通メソッドとして切り出している。
 	 */
-	private User getLoginUser(Authentication authentication) {
-		String username = authentication.getName(); // 通常は email
-
-		return userRepository.findByEmail(username)
-				.orElseGet(() -> userRepository.findByName(username)
-						.orElseThrow(() -> new IllegalArgumentException("ユーザーが見つかりません name=" + username)));
+	private User getLoginUser(LoginUser loginUser) {
+		return userRepository.getReferenceById(loginUser.getId());
 	}
 
 	/*
@@ -81,9 +76,9 @@ public class AttendanceController {
 	 * 4. あれば画面に渡す（なければ null）
 	 */
 	@GetMapping("/attendance")
-	public String showAttendance(Authentication authentication, Model model) {
+	public String showAttendance(@CurrentUser LoginUser loginUser, Model model) {
 
-		User user = getLoginUser(authentication);
+		User user = getLoginUser(loginUser);
 
 		LocalDate today = LocalDate.now();
 		Attendance todayAttendance = attendanceRepository
@@ -103,9 +98,9 @@ public class AttendanceController {
 	 * すでに存在する場合は何もしない。
 	 */
 	@PostMapping("/attendance/clockin")
-	public String clockIn(Authentication authentication) {
+	public String clockIn(@CurrentUser LoginUser loginUser) {
 
-		User user = getLoginUser(authentication);
+		User user = getLoginUser(loginUser);
 		LocalDate today = LocalDate.now();
 
 		attendanceRepository.findByUserAndWorkDate(user, today)
@@ -123,9 +118,9 @@ public class AttendanceController {
 	 * 出勤していない場合はエラーとする。
 	 */
 	@PostMapping("/attendance/clockout")
-	public String clockOut(Authentication authentication) {
+	public String clockOut(@CurrentUser LoginUser loginUser) {
 
-		User user = getLoginUser(authentication);
+		User user = getLoginUser(loginUser);
 		LocalDate today = LocalDate.now();
 
 		Attendance att = attendanceRepository
@@ -147,9 +142,9 @@ public class AttendanceController {
 	 * ・すでに休憩中の場合は何もしない
 	 */
 	@PostMapping("/attendance/breakstart")
-	public String breakStart(Authentication authentication) {
+	public String breakStart(@CurrentUser LoginUser loginUser) {
 
-		User user = getLoginUser(authentication);
+		User user = getLoginUser(loginUser);
 		LocalDate today = LocalDate.now();
 
 		Attendance att = attendanceRepository
@@ -178,9 +173,9 @@ public class AttendanceController {
 	 * ・すでに休憩終了済みの場合も何もしない
 	 */
 	@PostMapping("/attendance/breakend")
-	public String breakEnd(Authentication authentication) {
+	public String breakEnd(@CurrentUser LoginUser loginUser) {
 
-		User user = getLoginUser(authentication);
+		User user = getLoginUser(loginUser);
 		LocalDate today = LocalDate.now();
 
 		Attendance att = attendanceRepository
@@ -0,0 +1,189 @@
+package com.example.sunny.controller;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import com.example.sunny.config.CurrentUser;
+import com.example.sunny.dto.LoginUser;
+import com.example.sunny.entity.CartItem;
+import com.example.sunny.entity.Item;
+import com.example.sunny.repository.CartItemRepository;
+import com.example.sunny.repository.ItemRepository;
+import com.example.sunny.repository.UserRepository;
+import com.example.sunny.service.CheckoutService;
+import com.example.sunny.service.OutOfStockException;
+
+// =====================
+// カート機能
+// =====================
+//
+// できること：
+// ・商品詳細画面からカートに追加（同じ商品は数量を足す）
+// ・カートの表示・数量変更・削除
+// ・カートの商品をまとめて購入（CheckoutService）
+//
+// カートは DB（cart_items）に保存するので、ログアウトしても消えない。
+//
+// 使用画面：
+// ・cart.html
+//
+
+@Controller
+public class CartController {
+
+	private final CartItemRepository cartItemRepository;
+	private final ItemRepository itemRepository;
+	private final UserRepository userRepository;
+	private final CheckoutService checkoutService;
+
+	public CartController(
+			CartItemRepository cartItemRepository,
+			ItemRepository itemRepository,
+			UserRepository userRepository,
+			CheckoutService checkoutService) {
+		this.cartItemRepository = cartItemRepository;
+		this.itemRepository = itemRepository;
+		this.userRepository = userRepository;
+		this.checkoutService = checkoutService;
+	}
+
+	// =====================
+	// カート表示
+	// =====================
+	@GetMapping("/cart")
+	public String showCart(
+			@CurrentUser LoginUser loginUser,
+			Model model) {
+
+		List<CartItem> lines = cartItemRepository.findWithItemByUserId(loginUser.getId());
+
+		BigDecimal totalPrice = BigDecimal.ZERO;
+		for (CartItem line : lines) {
+			totalPrice = totalPrice.add(line.getItem().getPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+		}
+
+		model.addAttribute("lines", lines);
+		model.addAttribute("totalPrice", totalPrice);
+		return "cart";
+	}
+
+	// =====================
+	// カートに追加
+	// =====================
+	//
+	// URL例：
+	// POST /cart/add/{itemId}（quantity）
+	//
+	// 在庫はここでは確保しない（購入時にまとめて確保する）。
+	//
+	@PostMapping("/cart/add/{itemId}")
+	@Transactional
+	public String addToCart(
+			@PathVariable Long itemId,
+			@RequestParam("quantity") int quantity,
+			@CurrentUser LoginUser loginUser,
+			RedirectAttributes redirectAttributes) {
+
+		if (quantity <= 0) {
+			return "redirect:/items/" + itemId;
+		}
+
+		Item item = itemRepository.findById(itemId)
+				.orElseThrow(() -> new IllegalArgumentException("商品が見つかりません id=" + itemId));
+
+		CartItem line = cartItemRepository.findByUserIdAndItemId(loginUser.getId(), itemId)
+				.orElseGet(() -> {
+					CartItem c = new CartItem();
+					c.setUser(userRepository.getReferenceById(loginUser.getId()));
+					c.setItem(item);
+					c.setCreatedAt(LocalDateTime.now());
+					return c;
+				});
+		line.setQuantity(line.getQuantity() + quantity);
+		cartItemRepository.save(line);
+
+		redirectAttributes.addFlashAttribute("successMessage", "カートに追加しました。");
+		return "redirect:/cart";
+	}
+
+	// =====================
+	// 数量変更（0 以下なら削除）
+	// =====================
+	@PostMapping("/cart/update/{cartItemId}")
+	@Transactional
+	public String updateQuantity(
+			@PathVariable Long cartItemId,
+			@RequestParam("quantity") int quantity,
+			@CurrentUser LoginUser loginUser) {
+
+		CartItem line = findOwnLine(cartItemId, loginUser);
+		if (quantity <= 0) {
+			cartItemRepository.delete(line);
+		} else {
+			line.setQuantity(quantity);
+			cartItemRepository.save(line);
+		}
+		return "redirect:/cart";
+	}
+
+	// =====================
+	// カートから削除
+	// =====================
+	@PostMapping("/cart/remove/{cartItemId}")
+	@Transactional
+	public String removeLine(
+			@PathVariable Long cartItemId,
+			@CurrentUser LoginUser loginUser) {
+
+		cartItemRepository.delete(findOwnLine(cartItemId, loginUser));
+		return "redirect:/cart";
+	}
+
+	// =====================
+	// まとめて購入
+	// =====================
+	//
+	// 1つでも在庫が足りない商品・数量が不正な行があれば、何も購入せずカートに戻る。
+	//
+	@PostMapping("/cart/checkout")
+	public String checkout(
+			@CurrentUser LoginUser loginUser,
+			RedirectAttributes redirectAttributes) {
+
+		try {
+			int ordered = checkoutService.checkout(loginUser);
+			if (ordered == 0) {
+				redirectAttributes.addFlashAttribute("errorMessage", "カートが空です。");
+			} else {
+				redirectAttributes.addFlashAttribute("successMessage", ordered + " 件の注文を確定しました。");
+			}
+		} catch (OutOfStockException e) {
+			redirectAttributes.addFlashAttribute("errorMessage", e.getMessage() + "（数量を減らしてください）");
+		} catch (IllegalArgumentException e) {
+			// 数量が 0 以下の行（CheckoutService が確保の前に弾く）
+			redirectAttributes.addFlashAttribute("errorMessage", e.getMessage() + "（数量を直してください）");
+		}
+		return "redirect:/cart";
+	}
+
+	// 本人のカートの行かチェック（user_id だけで比べるので users テーブルは読まない）
+	private CartItem findOwnLine(Long cartItemId, LoginUser loginUser) {
+		CartItem line = cartItemRepository.findById(cartItemId)
+				.orElseThrow(() -> new IllegalArgumentException("カートの商品が見つかりません id=" + cartItemId));
+		if (!line.getUser().getId().equals(loginUser.getId())) {
+			throw new AccessDeniedException("他人のカートは操作できません");
+		}
+		return line;
+	}
+}
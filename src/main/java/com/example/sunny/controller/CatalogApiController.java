@@ -0,0 +1,102 @@
+package com.example.sunny.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.WebRequest;
+
+import com.example.sunny.dto.FacetSelection;
+import com.example.sunny.dto.ItemJson;
+import com.example.sunny.dto.ItemPage;
+import com.example.sunny.repository.ItemRepository;
+import com.example.sunny.service.CatalogCache;
+import com.example.sunny.service.CatalogService;
+import com.example.sunny.service.CatalogSnapshot;
+
+// =====================
+// 商品カタログの JSON API（読み取り専用）
+// =====================
+//
+// アプリや連携先が home.html を読み取らなくて済むよう、
+// 商品一覧・商品詳細を JSON で返す。
+//
+// ・GET /api/items        … 商品一覧（トップページと同じカーソル・絞り込みパラメータ）
+// ・GET /api/items/{id}   … 商品詳細
+//
+// 【ETag（強い ETag）】
+// ・一覧 … カタログスナップショットの version（起動ごとの識別子つき）
+// ・詳細 … items.version（商品の保存・レビュー集計の更新で増える）
+//
+// If-None-Match が一致した場合は 304 を返し、本文は作らない。
+// 一覧はメモリ上の version を見るだけ、詳細は version 列を1つ読むだけで済む。
+//
+
+@Controller
+@RequestMapping("/api/items")
+public class CatalogApiController {
+
+	// 再起動でスナップショットの version が 1 に戻っても ETag が被らないようにする
+	private static final String BOOT_ID = Long.toString(System.currentTimeMillis(), 36);
+
+	private final ItemRepository itemRepository;
+	private final CatalogService catalogService;
+	private final CatalogCache catalogCache;
+
+	public CatalogApiController(ItemRepository itemRepository, CatalogService catalogService,
+			CatalogCache catalogCache) {
+		this.itemRepository = itemRepository;
+		this.catalogService = catalogService;
+		this.catalogCache = catalogCache;
+	}
+
+	// =====================
+	// 商品一覧
+	// =====================
+	@GetMapping
+	@ResponseBody
+	public ItemPage list(
+			@RequestParam(required = false) String after,
+			@RequestParam(required = false) String before,
+			@RequestParam(defaultValue = "" + CatalogService.DEFAULT_PAGE_SIZE) int size,
+			@RequestParam(required = false) String price,
+			@RequestParam(required = false) String status,
+			@RequestParam(required = false) String stock,
+			WebRequest request) {
+
+		CatalogSnapshot snapshot = catalogCache.snapshot();
+
+		// 一致すれば 304（checkNotModified がステータスと ETag ヘッダーを設定する）
+		if (request.checkNotModified("\"catalog-" + BOOT_ID + "-" + snapshot.getVersion() + "\"")) {
+			return null;
+		}
+		return catalogService.findSnapshotPage(snapshot, after, before, size,
+				FacetSelection.of(price, status, stock));
+	}
+
+	// =====================
+	// 商品詳細
+	// =====================
+	@GetMapping("/{id}")
+	@ResponseBody
+	public ResponseEntity<ItemJson> detail(@PathVariable Long id, WebRequest request) {
+
+		// version 列だけ読んで ETag を判定する
+		Long version = itemRepository.findVersionById(id).orElse(null);
+		if (version == null) {
+			return ResponseEntity.notFound().build();
+		}
+		if (request.checkNotModified("\"item-" + id + "-" + version + "\"")) {
+			return null;
+		}
+
+		// 判定後に更新された場合、本文の方が新しくなるが
+		// 次回のリクエストで ETag が一致せず取り直されるだけなので問題ない
+		return itemRepository.findJsonById(id)
+				.map(ResponseEntity::ok)
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
+}
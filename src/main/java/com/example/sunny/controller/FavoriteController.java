@@ -3,8 +3,6 @@ package com.example.sunny.controller;
 import java.time.LocalDateTime;
 import java.util.List;
 
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
@@ -13,6 +11,8 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.example.sunny.config.CurrentUser;
+import com.example.sunny.dto.LoginUser;
 import com.example.sunny.entity.Favorite;
 import com.example.sunny.entity.Item;
 import com.example.sunny.entity.User;
@@ -33,7 +33,7 @@ import com.example.sunny.repository.UserRepository;
 // ・マイページでお気に入り一覧を表示
 //
 // 特徴：
-// ・ログインユーザーは Spring Security から取得
+// ・ログインユーザーは @CurrentUser で受け取る（ユーザー検索の SQL は出ない）
 // ・お気に入りの重複登録を防止
 // ・処理後は RedirectAttributes でメッセージを表示
 //
@@ -67,7 +67,7 @@ public class FavoriteController {
 	// POST /favorites/add/{itemId}
 	//
 	// 処理の流れ：
-	// 1. ログイン中ユーザーを取得（email で検索）
+	// 1. ログイン中ユーザーの参照を取得（ID だけ持つ）
 	// 2. 対象の商品を取得
 	// 3. すでにお気に入り登録済みかチェック
 	// 4. 未登録の場合のみ Favorite を作成して保存
@@ -77,13 +77,11 @@ public class FavoriteController {
 	@Transactional
 	public String addFavorite(
 			@PathVariable Long itemId,
-			@AuthenticationPrincipal UserDetails loginUser,
+			@CurrentUser LoginUser loginUser,
 			RedirectAttributes redirectAttributes) {
 
-		// ログインユーザー取得（loginUser.getUsername() = email）
-		User user = userRepository.findByEmail(loginUser.getUsername())
-				.orElseThrow(() -> new IllegalArgumentException(
-						"ユーザーが見つかりません email=" + loginUser.getUsername()));
+		// ログインユーザーの参照（SELECT は出ない）
+		User user = userRepository.getReferenceById(loginUser.getId());
 
 		// 対象商品を取得
 		Item item = itemRepository.findById(itemId)
@@ -125,12 +123,10 @@ public class FavoriteController {
 	@Transactional
 	public String removeFavorite(
 			@PathVariable Long itemId,
-			@AuthenticationPrincipal UserDetails loginUser,
+			@CurrentUser LoginUser loginUser,
 			RedirectAttributes redirectAttributes) {
 
-		User user = userRepository.findByEmail(loginUser.getUsername())
-				.orElseThrow(() -> new IllegalArgumentException(
-						"ユーザーが見つかりません email=" + loginUser.getUsername()));
+		User user = userRepository.getReferenceById(loginUser.getId());
 
 		Item item = itemRepository.findById(itemId)
 				.orElseThrow(() -> new IllegalArgumentException(
@@ -157,16 +153,14 @@ public class FavoriteController {
 	//
 	@GetMapping("/mypage/favorites")
 	public String myFavorites(
-			@AuthenticationPrincipal UserDetails loginUser,
+			@CurrentUser LoginUser loginUser,
 			Model model) {
 
-		User user = userRepository.findByEmail(loginUser.getUsername())
-				.orElseThrow(() -> new IllegalArgumentException(
-						"ユーザーが見つかりません email=" + loginUser.getUsername()));
+		User user = userRepository.getReferenceById(loginUser.getId());
 
 		List<Favorite> favorites = favoriteRepository.findByUserOrderByCreatedAtDesc(user);
 
-		model.addAttribute("user", user);
+		model.addAttribute("user", loginUser);
 		model.addAttribute("favorites", favorites);
 
 		return "mypage_favorites";
@@ -2,18 +2,14 @@
 
 package com.example.sunny.controller;
 
-import java.util.List;
-
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
-import com.example.sunny.entity.Item;
-import com.example.sunny.entity.User;
-import com.example.sunny.repository.ItemRepository;
-import com.example.sunny.repository.UserRepository;
+import com.example.sunny.dto.FacetSelection;
+import com.example.sunny.dto.ItemPage;
+import com.example.sunny.service.CatalogService;
 
 // =====================
 // トップページ：商品一覧表示機能
@@ -23,8 +19,9 @@ import com.example.sunny.repository.UserRepository;
 // トップページ（/）を担当する。
 //
 // 主な役割：
-// ・商品一覧を取得して画面に表示する
-// ・ログイン中ユーザーの名前を取得し、ヘッダー表示用に渡す
+// ・商品一覧を1ページずつ取得して画面に表示する（キーセットページング）
+// ・価格帯・状態・在庫で絞り込み、各条件の件数を表示する
+// ・ヘッダーのログイン中ユーザー名は GlobalModelAdvice が渡す（ここではユーザーを検索しない）
 //
 // 使用画面：
 // ・home.html
@@ -33,13 +30,11 @@ import com.example.sunny.repository.UserRepository;
 @Controller
 public class HomeController {
 
-	private final ItemRepository itemRepository;
-	private final UserRepository userRepository;
+	private final CatalogService catalogService;
 
-	// Repository を DI（依存性注入）
-	public HomeController(ItemRepository itemRepository, UserRepository userRepository) {
-		this.itemRepository = itemRepository;
-		this.userRepository = userRepository;
+	// Service を DI（依存性注入）
+	public HomeController(CatalogService catalogService) {
+		this.catalogService = catalogService;
 	}
 
 	// =====================
@@ -48,46 +43,50 @@ public class HomeController {
 	//
 	// URL：
 	// ・GET /
+	// ・GET /?after=カーソル  … 次ページ
+	// ・GET /?before=カーソル … 前ページ
+	// ・GET /?price=FROM_3000&status=PUBLIC&stock=IN_STOCK … 絞り込み（どれも任意）
 	//
 	// 機能概要：
-	// ・商品一覧を取得して表示
-	// ・ログイン中ユーザーがいる場合は、その「名前」を取得して画面に渡す
+	// ・商品一覧を新しい順に1ページ分取得して表示
+	// ・絞り込み条件ごとの件数を表示（メモリ上のビット集合で数えるので SQL は出ない）
 	//
 	@GetMapping("/")
 	public String home(
-			@AuthenticationPrincipal UserDetails loginUser,
+			@RequestParam(required = false) String after,
+			@RequestParam(required = false) String before,
+			@RequestParam(defaultValue = "" + CatalogService.DEFAULT_PAGE_SIZE) int size,
+			@RequestParam(required = false) String price,
+			@RequestParam(required = false) String status,
+			@RequestParam(required = false) String stock,
 			Model model) {
 
 		// ---------------------
-		// 商品一覧を取得
+		// 商品一覧を取得（1ページ分）
 		// ---------------------
 		//
-		// items テーブルから全商品を取得し、
-		// Thymeleaf（home.html）で一覧表示するため model に渡す
+		// 全件ではなく、カーソル位置から size 件だけ取得する。
+		// 何ページ目でも1ページ目と同じコストで取れる。
 		//
-		List<Item> items = itemRepository.findAll();
-		model.addAttribute("items", items);
+		FacetSelection selection = FacetSelection.of(price, status, stock);
+		ItemPage page = catalogService.findStorefrontPage(after, before, size, selection);
+		model.addAttribute("items", page.getItems());
+		model.addAttribute("page", page);
 
 		// ---------------------
-		// ログイン中ユーザー名の取得
+		// 絞り込みリンク（件数つき）
 		// ---------------------
 		//
-		// Spring Security から取得できる loginUser には
-		// ログインID（email または name）が入っている
+		// filterPrefix は現在の絞り込み条件（例："price=FROM_3000&"）
 		//
-		if (loginUser != null) {
-
-			String username = loginUser.getUsername(); // email or name
-
-			// email → name の順でユーザーを検索
-			User user = userRepository.findByEmail(username)
-					.orElseGet(() -> userRepository.findByName(username).orElse(null));
+		model.addAttribute("facets", catalogService.findFacetCounts(selection));
+		String filterPrefix = selection.isEmpty() ? "" : selection.toQueryString() + "&";
+		model.addAttribute("filterPrefix", filterPrefix);
 
-			// ユーザーが存在する場合のみ、名前を画面へ渡す
-			if (user != null) {
-				model.addAttribute("loginUserName", user.getName());
-			}
-		}
+		// ページ送りのリンクでは件数も保つ（既定の件数なら付けない）
+		int pageSize = CatalogService.pageSize(size);
+		model.addAttribute("pagePrefix", filterPrefix
+				+ (pageSize != CatalogService.DEFAULT_PAGE_SIZE ? "size=" + pageSize + "&" : ""));
 
 		// home.html を表示
 		return "home";
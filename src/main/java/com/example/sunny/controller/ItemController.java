@@ -1,18 +1,19 @@
 package com.example.sunny.controller;
 
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
-import com.example.sunny.entity.Item;
-import com.example.sunny.entity.User;
-import com.example.sunny.repository.FavoriteRepository;
+import com.example.sunny.config.CurrentUser;
+import com.example.sunny.dto.ItemDetailView;
+import com.example.sunny.dto.LoginUser;
+import com.example.sunny.dto.ReviewPage;
 import com.example.sunny.repository.ItemRepository;
-import com.example.sunny.repository.ReviewRepository;
-import com.example.sunny.repository.UserRepository;
+import com.example.sunny.service.ReviewPageService;
+import com.example.sunny.service.StockHoldService;
 
 // =====================
 // 商品詳細画面：表示用コントローラー
@@ -23,7 +24,15 @@ import com.example.sunny.repository.UserRepository;
 // 主な役割：
 // ・商品情報の取得
 // ・ログインユーザーのお気に入り状態の判定
+// ・購入できる数（在庫 − 他の人が注文確認中に確保している数）の計算
 // ・レビュー情報（平均評価・件数・一覧）の取得
+//   ※ 平均評価・件数は商品に持たせた集計値を使う（AVG / COUNT は発行しない）
+//   ※ レビュー一覧は最新の数件だけ。続きは「もっと見る」で JSON 取得する
+//
+// アクセスが最も多い画面なので、DB への問い合わせは
+// ・商品＋お気に入り状態＋レビュー集計（1クエリ）
+// ・最新レビュー（1クエリ）
+// の2回だけにしている。
 //
 // 使用画面：
 // ・item_detail.html
@@ -33,20 +42,17 @@ import com.example.sunny.repository.UserRepository;
 public class ItemController {
 
 	private final ItemRepository itemRepository;
-	private final UserRepository userRepository;
-	private final FavoriteRepository favoriteRepository;
-	private final ReviewRepository reviewRepository;
+	private final ReviewPageService reviewPageService;
+	private final StockHoldService stockHoldService;
 
-	// Repository を DI（依存性注入）
+	// Repository / Service を DI（依存性注入）
 	public ItemController(
 			ItemRepository itemRepository,
-			UserRepository userRepository,
-			FavoriteRepository favoriteRepository,
-			ReviewRepository reviewRepository) {
+			ReviewPageService reviewPageService,
+			StockHoldService stockHoldService) {
 		this.itemRepository = itemRepository;
-		this.userRepository = userRepository;
-		this.favoriteRepository = favoriteRepository;
-		this.reviewRepository = reviewRepository;
+		this.reviewPageService = reviewPageService;
+		this.stockHoldService = stockHoldService;
 	}
 
 	// =====================
@@ -57,63 +63,61 @@ public class ItemController {
 	// /items/1
 	//
 	// 処理の流れ：
-	// 1. 商品IDから商品情報を取得
-	// 2. ログイン中ユーザーがいる場合
-	//    ・お気に入り登録済みかを判定
-	//    ・ユーザーIDを取得
-	// 3. レビューの平均評価・件数・一覧を取得
-	// 4. 画面（item_detail.html）に必要な情報を渡す
+	// 1. 商品情報・レビュー集計・お気に入り状態を1クエリで取得
+	//    （ユーザーID はログイン時の控え LoginUser から取るので、ユーザー検索は不要）
+	// 2. 最新のレビューを数件取得
+	// 3. 画面（item_detail.html）に必要な情報を渡す
 	//
 	@GetMapping("/items/{id}")
 	public String showItemDetail(
 			@PathVariable Long id,
-			@AuthenticationPrincipal UserDetails loginUser,
+			@CurrentUser LoginUser loginUser,
 			Model model) {
 
-		// 商品情報を取得（存在しなければエラー）
-		Item item = itemRepository.findById(id)
-				.orElseThrow(() -> new IllegalArgumentException("商品が見つかりません id=" + id));
-
-		boolean isFavorite = false; // お気に入り登録済みかどうか
-		Long loginUserId = null; // ログインユーザーID（未ログイン時は null）
-
-		// ログインしている場合のみユーザー情報を取得
-		if (loginUser != null) {
-			String username = loginUser.getUsername(); // email or name
-
-			User user = userRepository.findByEmail(username)
-					.orElseGet(() -> userRepository.findByName(username).orElse(null));
+		// ログインユーザーの ID・ログインID（email）。未ログイン時は null
+		Long userId = loginUser != null ? loginUser.getId() : null;
+		String email = loginUser != null ? loginUser.getEmail() : null;
 
-			if (user != null) {
-				// お気に入り登録済みか判定
-				isFavorite = favoriteRepository.existsByUserAndItem(user, item);
-				loginUserId = user.getId();
-			}
-		}
+		// 商品情報＋お気に入り状態＋レビュー集計を取得（存在しなければエラー）
+		ItemDetailView item = itemRepository.findDetailView(id, userId)
+				.orElseThrow(() -> new IllegalArgumentException("商品が見つかりません id=" + id));
 
 		// 商品情報とお気に入り状態を画面に渡す
 		model.addAttribute("item", item);
-		model.addAttribute("isFavorite", isFavorite);
-		model.addAttribute("loginUserId", loginUserId);
-
-		// =====================
-		// レビュー情報の取得
-		// =====================
+		model.addAttribute("isFavorite", item.isFavorite());
+		model.addAttribute("loginUserId", userId);
 
-		// 平均評価（レビューが無い場合は null になる）
-		Double avgRating = reviewRepository.findAverageRatingByItemId(id);
+		// 購入できる数（一時確保はメモリ上なので SQL は出ない）
+		model.addAttribute("availableStock", Math.max(0, item.getStock() - stockHoldService.heldByOthers(id, email)));
 
-		// レビュー件数
-		long reviewCount = reviewRepository.countByItemId(id);
+		// 平均評価・レビュー件数（レビューが無い場合は 0）
+		model.addAttribute("avgRating", item.getAverageRating());
+		model.addAttribute("reviewCount", item.getRatingCount());
 
-		model.addAttribute("avgRating", avgRating == null ? 0.0 : avgRating);
-		model.addAttribute("reviewCount", reviewCount);
-
-		// レビュー一覧（新しい順）
-		model.addAttribute(
-				"reviews",
-				reviewRepository.findByItemOrderByCreatedAtDesc(item));
+		// レビュー一覧（新しい順・最初の数件だけ）
+		ReviewPage reviewPage = reviewPageService.findPage(id, null, ReviewPageService.FIRST_PAGE_SIZE);
+		model.addAttribute("reviews", reviewPage.getReviews());
+		model.addAttribute("reviewNextCursor", reviewPage.getNextCursor());
 
 		return "item_detail";
 	}
+
+	// =====================
+	// レビュー一覧の続き（「もっと見る」用 JSON）
+	// =====================
+	//
+	// URL例：
+	// /items/1/reviews?after=カーソル&size=10
+	//
+	// 応答：
+	// { "reviews": [...], "nextCursor": "…" or null, "hasNext": true/false }
+	//
+	@GetMapping("/items/{id}/reviews")
+	@ResponseBody
+	public ReviewPage moreReviews(
+			@PathVariable Long id,
+			@RequestParam(required = false) String after,
+			@RequestParam(defaultValue = "" + ReviewPageService.FIRST_PAGE_SIZE) int size) {
+		return reviewPageService.findPage(id, after, size);
+	}
 }
@@ -3,19 +3,22 @@ package com.example.sunny.controller;
 import java.util.List;
 
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 
+import com.example.sunny.config.CurrentUser;
+import com.example.sunny.dto.KeysetCursor;
+import com.example.sunny.dto.LoginUser;
+import com.example.sunny.dto.OrderHistoryPage;
 import com.example.sunny.entity.Favorite;
 import com.example.sunny.entity.Order;
 import com.example.sunny.entity.User;
 import com.example.sunny.repository.FavoriteRepository;
-import com.example.sunny.repository.OrderRepository;
 import com.example.sunny.repository.UserRepository;
+import com.example.sunny.service.OrderHistoryService;
 
 // =====================
 // マイページ機能：注文履歴・注文詳細表示
@@ -37,16 +40,16 @@ import com.example.sunny.repository.UserRepository;
 public class MyPageController {
 
 	private final UserRepository userRepository;
-	private final OrderRepository orderRepository;
+	private final OrderHistoryService orderHistoryService;
 	private final FavoriteRepository favoriteRepository;
 
-	// Repository を DI（依存性注入）
+	// Repository / Service を DI（依存性注入）
 	public MyPageController(
 			UserRepository userRepository,
-			OrderRepository orderRepository,
+			OrderHistoryService orderHistoryService,
 			FavoriteRepository favoriteRepository) {
 		this.userRepository = userRepository;
-		this.orderRepository = orderRepository;
+		this.orderHistoryService = orderHistoryService;
 		this.favoriteRepository = favoriteRepository;
 	}
 
@@ -56,7 +59,8 @@ public class MyPageController {
 	//
 	// 機能概要：
 	// ・ログイン中ユーザーの注文履歴を一覧表示する
-	// ・注文は作成日時の降順（新しい順）で表示
+	// ・注文は作成日時の降順（新しい順）で、1ページずつ表示（after で次のページへ）
+	// ・保管済みの古い注文も続けて表示する（OrderHistoryService が必要な時だけ読む）
 	// ・同時に「お気に入り一覧」も取得して画面に渡す
 	//
 	// 使用画面：
@@ -64,22 +68,22 @@ public class MyPageController {
 	//
 	@GetMapping("/mypage/orders")
 	public String showMyOrders(
-			@AuthenticationPrincipal UserDetails loginUser,
+			@RequestParam(value = "after", required = false) String after,
+			@CurrentUser LoginUser loginUser,
 			Model model) {
 
-		// Spring Security のログインIDは email 想定
-		User user = userRepository.findByEmail(loginUser.getUsername())
-				.orElseThrow(() -> new IllegalArgumentException("ユーザーが見つかりません email=" + loginUser.getUsername()));
-
-		// 注文履歴を新しい順で取得
-		List<Order> orders = orderRepository.findByUserOrderByCreatedAtDesc(user);
+		// 注文履歴を新しい順で1ページ分取得（ユーザーID はログイン時の控えから）
+		OrderHistoryPage page = orderHistoryService.findPage(loginUser.getId(), after);
 
 		// ★お気に入り一覧も取得（マイページ表示用）
+		User user = userRepository.getReferenceById(loginUser.getId());
 		List<Favorite> favorites = favoriteRepository.findByUserOrderByCreatedAtDesc(user);
 
 		// 画面に渡すデータ
-		model.addAttribute("user", user);
-		model.addAttribute("orders", orders);
+		model.addAttribute("user", loginUser);
+		model.addAttribute("orders", page.getOrders());
+		model.addAttribute("page", page);
+		model.addAttribute("after", KeysetCursor.decode(after) != null ? after : null);
 		model.addAttribute("favorites", favorites);
 
 		return "mypage_orders";
@@ -103,19 +107,15 @@ public class MyPageController {
 	@GetMapping("/mypage/orders/{orderId}")
 	public String showMyOrderDetail(
 			@PathVariable Long orderId,
-			@AuthenticationPrincipal UserDetails loginUser,
+			@CurrentUser LoginUser loginUser,
 			Model model) {
 
-		// 注文を取得
-		Order order = orderRepository.findById(orderId)
+		// 注文を取得（保管済みの注文も）
+		Order order = orderHistoryService.findOrder(orderId)
 				.orElseThrow(() -> new IllegalArgumentException("注文が見つかりません id=" + orderId));
 
-		// ログインユーザーを取得（email 前提）
-		User login = userRepository.findByEmail(loginUser.getUsername())
-				.orElseThrow(() -> new IllegalArgumentException("ユーザーが見つかりません email=" + loginUser.getUsername()));
-
 		// ★自分の注文でなければ閲覧不可
-		if (!order.getUser().getId().equals(login.getId())) {
+		if (!order.getUser().getId().equals(loginUser.getId())) {
 			throw new AccessDeniedException("他人の注文は閲覧できません");
 		}
 
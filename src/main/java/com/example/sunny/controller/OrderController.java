@@ -3,11 +3,12 @@
 package com.example.sunny.controller;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
 
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
@@ -17,65 +18,118 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.example.sunny.config.CurrentUser;
+import com.example.sunny.dto.LoginUser;
+import com.example.sunny.dto.OrderEventPayload;
+import com.example.sunny.dto.OrderReceipt;
 import com.example.sunny.entity.Item;
 import com.example.sunny.entity.Order;
-import com.example.sunny.entity.User;
+import com.example.sunny.entity.OutboxEvent;
+import com.example.sunny.event.ItemChangedEvent;
+import com.example.sunny.event.OrderChangedEvent;
 import com.example.sunny.repository.ItemRepository;
 import com.example.sunny.repository.OrderRepository;
-import com.example.sunny.repository.UserRepository;
+import com.example.sunny.service.IdempotencyKeyCache;
+import com.example.sunny.service.OrderCompletionService;
+import com.example.sunny.service.OrderHistoryService;
+import com.example.sunny.service.OutboxService;
+import com.example.sunny.service.StockHoldService;
 
 // =====================
 // 注文機能（予約/購入）
 // =====================
 //
 // できること：
-// ・注文確認（数量チェック、合計金額計算）
-// ・注文確定（注文保存、在庫減算、在庫0ならSOLD）
+// ・注文確認（POST で数量チェック・在庫の一時確保 → GET で確認画面）
+// ・注文確定（在庫確保＝条件付き減算、在庫0ならSOLD、注文保存、二重送信の判定）
 // ・注文詳細表示（本人チェック）
 // ・キャンセル確認/確定（本人チェック、在庫戻し、注文ステータス更新）
 //
 // ポイント：
-// ・ログインIDは email 想定なので findByEmail() を使う
-// ・DB更新がある処理は @Transactional を付けている
+// ・ログインユーザーは @CurrentUser で受け取る（ユーザー検索の SQL は出ない）
+// ・DB更新がある処理は @Transactional を付けている（注文確定は OrderCompletionService 側）
+// ・在庫を変えたら ItemChangedEvent を publish（コミット後にカタログへ反映）
+// ・注文を作った・キャンセルしたら OrderChangedEvent を publish（スタッフ注文管理のライブ更新）
 //
 
 @Controller
 public class OrderController {
 
 	private final ItemRepository itemRepository;
-	private final UserRepository userRepository;
 	private final OrderRepository orderRepository;
+	private final ApplicationEventPublisher eventPublisher;
+	private final StockHoldService stockHoldService;
+	private final OrderCompletionService orderCompletionService;
+	private final IdempotencyKeyCache idempotencyKeyCache;
+	private final OutboxService outboxService;
+	private final OrderHistoryService orderHistoryService;
 
 	public OrderController(
 			ItemRepository itemRepository,
-			UserRepository userRepository,
-			OrderRepository orderRepository) {
+			OrderRepository orderRepository,
+			ApplicationEventPublisher eventPublisher,
+			StockHoldService stockHoldService,
+			OrderCompletionService orderCompletionService,
+			IdempotencyKeyCache idempotencyKeyCache,
+			OutboxService outboxService,
+			OrderHistoryService orderHistoryService) {
 		this.itemRepository = itemRepository;
-		this.userRepository = userRepository;
 		this.orderRepository = orderRepository;
+		this.eventPublisher = eventPublisher;
+		this.stockHoldService = stockHoldService;
+		this.orderCompletionService = orderCompletionService;
+		this.idempotencyKeyCache = idempotencyKeyCache;
+		this.outboxService = outboxService;
+		this.orderHistoryService = orderHistoryService;
 	}
 
 	// =====================
-	// 注文確認ページ
+	// 在庫の一時確保（注文確認へ進む）
 	// =====================
 	//
-	// ・数量が 1〜在庫数 の範囲内なら確認画面へ
+	// ・数量が 1〜購入できる数（在庫 − 他の人の確保数）なら在庫を一時確保して確認画面へ
 	// ・範囲外なら商品詳細へ戻す
 	//
-	@GetMapping("/orders/confirm/{itemId}")
-	public String showConfirm(
+	// 在庫を押さえる処理なので POST で受ける（GET だと先読み・再読み込み・クローラーでも確保されてしまう）。
+	// 確保は app.stock-hold.ttl-seconds の間有効（期限を過ぎると自動で解放）。
+	//
+	@PostMapping("/orders/confirm/{itemId}")
+	public String hold(
 			@PathVariable Long itemId,
 			@RequestParam("quantity") int quantity,
-			@AuthenticationPrincipal UserDetails loginUser,
-			Model model) {
+			@CurrentUser LoginUser loginUser) {
 
-		Item item = itemRepository.findById(itemId)
+		itemRepository.findById(itemId)
 				.orElseThrow(() -> new IllegalArgumentException("商品が見つかりません id=" + itemId));
 
-		// 数量チェック
-		if (quantity <= 0 || quantity > item.getStock()) {
+		// 数量チェック＋在庫の一時確保（在庫は確保する時に行をロックして読み直す）
+		StockHoldService.Hold hold = stockHoldService.hold(itemId, loginUser.getEmail(), quantity);
+		if (hold == null) {
 			return "redirect:/items/" + itemId;
 		}
+		return "redirect:/orders/confirm/" + itemId;
+	}
+
+	// =====================
+	// 注文確認ページ（確保済みの内容を表示するだけ）
+	// =====================
+	//
+	// 有効な確保が無ければ（期限切れ・直接開いた）商品詳細へ戻す。
+	//
+	@GetMapping("/orders/confirm/{itemId}")
+	public String showConfirm(
+			@PathVariable Long itemId,
+			@CurrentUser LoginUser loginUser,
+			Model model) {
+
+		StockHoldService.Hold hold = stockHoldService.find(itemId, loginUser.getEmail());
+		if (hold == null) {
+			return "redirect:/items/" + itemId;
+		}
+
+		Item item = itemRepository.findById(itemId)
+				.orElseThrow(() -> new IllegalArgumentException("商品が見つかりません id=" + itemId));
+		int quantity = hold.getQuantity();
 
 		// 合計金額
 		BigDecimal totalPrice = item.getPrice().multiply(BigDecimal.valueOf(quantity));
@@ -83,9 +137,13 @@ public class OrderController {
 		model.addAttribute("item", item);
 		model.addAttribute("quantity", quantity);
 		model.addAttribute("totalPrice", totalPrice);
+		model.addAttribute("holdExpiresAt", hold.getExpiresAt());
+
+		// 二重送信対策の冪等キー（確認画面を開くたびに新しく発行）
+		model.addAttribute("idempotencyKey", UUID.randomUUID().toString());
 
 		// ログインID（email想定）
-		model.addAttribute("username", loginUser.getUsername());
+		model.addAttribute("username", loginUser.getEmail());
 
 		return "order_confirm";
 	}
@@ -94,72 +152,99 @@ public class OrderController {
 	// 注文確定処理
 	// =====================
 	//
-	// ・注文(Order)を保存
-	// ・在庫を減らす
-	// ・在庫が0以下になったら商品ステータスを SOLD にする
+	// ・在庫を確保（足りる時だけ減らす。在庫0なら同時に SOLD にする）
+	// ・確保できたら注文(Order)を保存
+	//   （在庫確保〜注文保存は OrderCompletionService の1トランザクション）
+	//
+	// 在庫の確認と減算は ItemRepository.reserveStock() の UPDATE 1文で行う。
+	// 画面で見た在庫を信じて減らすと、同時購入で売り越すため。
+	// 他の人が注文確認中に確保している数は残す（自分の確保分は使える）。
+	//
+	// 【二重送信の対策】
+	// 注文確認画面で発行した冪等キー（idempotencyKey）を一緒に送ってもらい、
+	// 同じキーで2回目以降に来たら、注文を作らず最初の注文の完了画面を返す。
+	// 1. 最近のキー（IdempotencyKeyCache）にあれば DB に触らずに返す
+	// 2. なければ orders を (user_id, idempotency_key) で探す
+	// 3. 同時に届いた場合は一意制約で2件目の INSERT が失敗するので、最初の注文を読み直す
 	//
 	@PostMapping("/orders/complete")
-	@Transactional
 	public String completeOrder(
 			@RequestParam("itemId") Long itemId,
 			@RequestParam("quantity") int quantity,
-			@AuthenticationPrincipal UserDetails loginUser,
+			@RequestParam("idempotencyKey") String idempotencyKey,
+			@CurrentUser LoginUser loginUser,
 			Model model) {
 
-		Item item = itemRepository.findById(itemId)
-				.orElseThrow(() -> new IllegalArgumentException("商品が見つかりません id=" + itemId));
+		String email = loginUser.getEmail();
 
-		// ログインユーザー取得（email）
-		User user = userRepository.findByEmail(loginUser.getUsername())
-				.orElseThrow(() -> new IllegalArgumentException("ユーザーが見つかりません email=" + loginUser.getUsername()));
+		// キーの形式チェック（確認画面で発行した UUID のみ）
+		if (!isValidIdempotencyKey(idempotencyKey)) {
+			return "redirect:/items/" + itemId;
+		}
+
+		// 再送：最近確定したキー（DB に触らない）
+		OrderReceipt receipt = idempotencyKeyCache.get(email, idempotencyKey);
+		if (receipt != null) {
+			return showComplete(receipt, model);
+		}
+
+		// 再送：キャッシュから外れた古いキー
+		receipt = orderRepository.findReceiptByIdempotencyKey(email, idempotencyKey).orElse(null);
+		if (receipt != null) {
+			idempotencyKeyCache.put(email, idempotencyKey, receipt);
+			return showComplete(receipt, model);
+		}
 
 		// 数量チェック
-		if (quantity <= 0 || quantity > item.getStock()) {
+		if (quantity <= 0) {
 			return "redirect:/items/" + itemId;
 		}
 
-		BigDecimal totalPrice = item.getPrice().multiply(BigDecimal.valueOf(quantity));
+		try {
+			receipt = orderCompletionService.complete(loginUser, itemId, quantity, idempotencyKey);
+		} catch (DataIntegrityViolationException e) {
+			// 同じキーの注文が先に確定していた（こちらはロールバック済み）
+			receipt = orderRepository.findReceiptByIdempotencyKey(email, idempotencyKey)
+					.orElseThrow(() -> e);
+		}
 
-		// 注文を作成して保存
-		Order order = new Order();
-		order.setUser(user);
-		order.setItem(item);
-		order.setQuantity(quantity);
-		order.setTotalPrice(totalPrice.intValue());
-		order.setStatus("CREATED");
-		order.setCreatedAt(LocalDateTime.now());
-		orderRepository.save(order);
-
-		// 在庫減算
-		item.setStock(item.getStock() - quantity);
-
-		// 在庫0なら SOLD
-		if (item.getStock() <= 0) {
-			item.setStatus("SOLD");
+		// 在庫不足 or 商品なし
+		if (receipt == null) {
+			return "redirect:/items/" + itemId;
 		}
-		itemRepository.save(item);
 
-		model.addAttribute("item", item);
-		model.addAttribute("quantity", quantity);
-		model.addAttribute("totalPrice", totalPrice);
+		idempotencyKeyCache.put(email, idempotencyKey, receipt);
+		return showComplete(receipt, model);
+	}
 
+	private String showComplete(OrderReceipt receipt, Model model) {
+		model.addAttribute("receipt", receipt);
 		return "order_complete";
 	}
 
+	private static boolean isValidIdempotencyKey(String key) {
+		try {
+			return key != null && key.length() == 36 && UUID.fromString(key) != null;
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
 	// =====================
 	// 注文詳細（本人チェック）
 	// =====================
 	@GetMapping("/orders/detail/{orderId}")
 	public String orderDetail(
 			@PathVariable Long orderId,
-			@AuthenticationPrincipal UserDetails loginUser,
+			@CurrentUser LoginUser loginUser,
 			Model model) {
 
-		Order order = orderRepository.findById(orderId)
+		// 保管済みの注文も表示できる
+		Order order = orderHistoryService.findOrder(orderId)
 				.orElseThrow(() -> new IllegalArgumentException("注文が見つかりません id=" + orderId));
 
-		// 本人の注文かチェック（ログインIDは email）
-		if (!order.getUser().getEmail().equals(loginUser.getUsername())) {
+		// 本人の注文かチェック
+		if (!order.getUser().getId().equals(loginUser.getId())) {
 			throw new AccessDeniedException("あなたの注文ではありません");
 		}
 
@@ -173,13 +258,13 @@ public class OrderController {
 	@GetMapping("/mypage/orders/cancel/confirm/{orderId}")
 	public String cancelConfirm(
 			@PathVariable Long orderId,
-			@AuthenticationPrincipal UserDetails loginUser,
+			@CurrentUser LoginUser loginUser,
 			Model model) {
 
 		Order order = orderRepository.findById(orderId)
 				.orElseThrow(() -> new IllegalArgumentException("注文が見つかりません id=" + orderId));
 
-		if (!order.getUser().getEmail().equals(loginUser.getUsername())) {
+		if (!order.getUser().getId().equals(loginUser.getId())) {
 			throw new AccessDeniedException("他人の注文は操作できません");
 		}
 
@@ -194,40 +279,46 @@ public class OrderController {
 	// ・CREATED の注文だけキャンセル可能
 	// ・在庫を戻す
 	// ・注文ステータスを CANCELLED にする
+	// ・ORDER_CANCELLED をアウトボックスに書く
+	//
+	// CREATED かどうかの判定と変更は UPDATE 1文（OrderRepository.cancelIfCreated）。
+	// 変更できた時だけ在庫を戻すので、同時に2回押されても、スタッフが先に発送へ進めていても、
+	// 在庫を2回戻したり発送済みの注文をキャンセルにしたりしない。
 	//
 	@PostMapping("/mypage/orders/cancel/{orderId}")
 	@Transactional
 	public String cancelMyOrder(
 			@PathVariable Long orderId,
-			@AuthenticationPrincipal UserDetails loginUser,
+			@CurrentUser LoginUser loginUser,
 			RedirectAttributes redirectAttributes) {
 
 		Order order = orderRepository.findById(orderId)
 				.orElseThrow(() -> new IllegalArgumentException("注文が見つかりません id=" + orderId));
 
-		if (!order.getUser().getEmail().equals(loginUser.getUsername())) {
+		if (!order.getUser().getId().equals(loginUser.getId())) {
 			throw new AccessDeniedException("他人の注文はキャンセルできません");
 		}
 
-		// CREATED 以外はキャンセル不可
-		if (!"CREATED".equals(order.getStatus())) {
-			return "redirect:/mypage/orders";
-		}
-
-		// 在庫を戻す
-		Item item = order.getItem();
-		item.setStock(item.getStock() + order.getQuantity());
+		// 後で使う値（cancelIfCreated の後は order を読み直さない）
+		Long itemId = order.getItem().getId();
+		OrderEventPayload payload = new OrderEventPayload(
+				order.getId(), order.getUser().getId(), itemId,
+				order.getQuantity(), order.getTotalPrice(), order.getCreatedAt());
 
-		// SOLD だった商品を販売に戻す（※ここはあなたの設計次第）
-		if ("SOLD".equals(item.getStatus()) && item.getStock() > 0) {
-			item.setStatus("販売中");
+		// CREATED の時だけキャンセル状態にする（それ以外・既にキャンセル済みなら何もしない）
+		if (orderRepository.cancelIfCreated(orderId, loginUser.getId()) == 0) {
+			return "redirect:/mypage/orders";
 		}
 
-		// 注文をキャンセル状態にする
-		order.setStatus("CANCELLED");
+		// 後続の処理（メール・集計など）用に ORDER_CANCELLED をアウトボックスへ
+		outboxService.recordOrderEvent(OutboxEvent.ORDER_CANCELLED, payload);
+		eventPublisher.publishEvent(OrderChangedEvent.statusChanged(List.of(orderId)));
 
-		itemRepository.save(item);
-		orderRepository.save(order);
+		// 在庫を戻す（SOLD だった商品は販売に戻す ※ここはあなたの設計次第）
+		// 注文確定と同じく UPDATE 1文で加算する
+		itemRepository.releaseStock(itemId, payload.getQuantity());
+		itemRepository.findById(itemId)
+				.ifPresent(item -> eventPublisher.publishEvent(ItemChangedEvent.saved(item)));
 
 		// 成功メッセージ（IDを渡して表示できる）
 		redirectAttributes.addFlashAttribute("successMessage", orderId);
@@ -2,8 +2,6 @@ package com.example.sunny.controller;
 
 import java.time.LocalDateTime;
 
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
@@ -13,6 +11,8 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.example.sunny.config.CurrentUser;
+import com.example.sunny.dto.LoginUser;
 import com.example.sunny.entity.Item;
 import com.example.sunny.entity.Report;
 import com.example.sunny.entity.Review;
@@ -34,8 +34,9 @@ import com.example.sunny.repository.UserRepository;
 // ・二重通報も防止できる
 //
 // ポイント：
-// ・ログインユーザーは email 優先で取得（なければ name）
+// ・ログインユーザーは @CurrentUser で受け取る（ユーザー検索の SQL は出ない）
 // ・@Transactional で DB処理をまとめて実行し安全にする
+// ・商品のレビュー集計（rating_sum / rating_count）も同じトランザクションで加減算する
 //
 @Controller
 public class ReviewController {
@@ -57,17 +58,15 @@ public class ReviewController {
 	}
 
 	// =====================
-	// ログインユーザー取得（email優先 → name）
+	// ログインユーザー取得
 	// =====================
-	private User getLoginUser(UserDetails loginUser) {
+	//
+	// レビュー・通報の保存や検索に使う User の参照（ID だけ持つので SELECT は出ない）
+	private User getLoginUser(LoginUser loginUser) {
 		if (loginUser == null) {
 			throw new IllegalArgumentException("ログインユーザー情報が取得できません");
 		}
-
-		String username = loginUser.getUsername(); // email のことが多い
-		return userRepository.findByEmail(username)
-				.orElseGet(() -> userRepository.findByName(username)
-						.orElseThrow(() -> new IllegalArgumentException("ユーザーが見つかりません name=" + username)));
+		return userRepository.getReferenceById(loginUser.getId());
 	}
 
 	// =====================
@@ -79,7 +78,7 @@ public class ReviewController {
 			@PathVariable Long itemId,
 			@RequestParam int rating,
 			@RequestParam(required = false) String comment,
-			@AuthenticationPrincipal UserDetails loginUser,
+			@CurrentUser LoginUser loginUser,
 			RedirectAttributes ra) {
 
 		// 評価値チェック
@@ -108,6 +107,9 @@ public class ReviewController {
 		review.setCreatedAt(LocalDateTime.now());
 		reviewRepository.save(review);
 
+		// 商品のレビュー集計に加算
+		itemRepository.addRating(itemId, rating, 1);
+
 		ra.addFlashAttribute("reviewMessage", "レビューを投稿しました");
 		return "redirect:/items/" + itemId;
 	}
@@ -118,7 +120,7 @@ public class ReviewController {
 	@GetMapping("/reviews/edit/{reviewId}")
 	public String editReviewForm(
 			@PathVariable Long reviewId,
-			@AuthenticationPrincipal UserDetails loginUser,
+			@CurrentUser LoginUser loginUser,
 			Model model,
 			RedirectAttributes ra) {
 
@@ -146,7 +148,7 @@ public class ReviewController {
 			@PathVariable Long reviewId,
 			@RequestParam int rating,
 			@RequestParam(required = false) String comment,
-			@AuthenticationPrincipal UserDetails loginUser,
+			@CurrentUser LoginUser loginUser,
 			RedirectAttributes ra) {
 
 		Review review = reviewRepository.findById(reviewId)
@@ -167,9 +169,14 @@ public class ReviewController {
 			return "redirect:/reviews/edit/" + reviewId;
 		}
 
-		review.setRating(rating);
-		review.setComment(comment);
-		reviewRepository.save(review);
+		// 読んだ時の評価のままなら書き換え、変わった分だけ商品のレビュー集計を補正する
+		// （同時に2画面から編集されても、差分は実際に書き換えた評価から計算される）
+		int previousRating = review.getRating();
+		if (reviewRepository.updateIfRatingIs(reviewId, previousRating, rating, comment) == 0) {
+			ra.addFlashAttribute("reviewMessage", "レビューが他の画面で更新されました。もう一度編集してください");
+			return "redirect:/reviews/edit/" + reviewId;
+		}
+		itemRepository.addRating(itemId, rating - previousRating, 0);
 
 		ra.addFlashAttribute("reviewMessage", "レビューを更新しました");
 		return "redirect:/items/" + itemId;
@@ -182,7 +189,7 @@ public class ReviewController {
 	@Transactional
 	public String deleteMyReview(
 			@PathVariable Long reviewId,
-			@AuthenticationPrincipal UserDetails loginUser,
+			@CurrentUser LoginUser loginUser,
 			RedirectAttributes ra) {
 
 		Review review = reviewRepository.findById(reviewId)
@@ -198,6 +205,9 @@ public class ReviewController {
 		}
 
 		reviewRepository.delete(review);
+
+		// 商品のレビュー集計から減算
+		itemRepository.addRating(itemId, -review.getRating(), -1);
 		ra.addFlashAttribute("reviewMessage", "レビューを削除しました");
 		return "redirect:/items/" + itemId;
 	}
@@ -208,7 +218,7 @@ public class ReviewController {
 	@GetMapping("/reviews/report/{reviewId}")
 	public String showReportPage(
 			@PathVariable Long reviewId,
-			@AuthenticationPrincipal UserDetails loginUser,
+			@CurrentUser LoginUser loginUser,
 			Model model,
 			RedirectAttributes ra) {
 
@@ -243,7 +253,7 @@ public class ReviewController {
 	public String reportReview(
 			@PathVariable Long reviewId,
 			@RequestParam("reason") String reason,
-			@AuthenticationPrincipal UserDetails loginUser,
+			@CurrentUser LoginUser loginUser,
 			RedirectAttributes ra) {
 
 		User user = getLoginUser(loginUser);
@@ -0,0 +1,67 @@
+package com.example.sunny.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import com.example.sunny.dto.ItemSummary;
+import com.example.sunny.service.CatalogCache;
+import com.example.sunny.service.CatalogSnapshot;
+import com.example.sunny.service.SearchIndex;
+
+// =====================
+// 商品検索
+// =====================
+//
+// URL：
+// ・GET /search?q=キーワード
+//
+// 機能概要：
+// ・商品名・説明文をキーワードで検索し、関連度の高い順に表示する
+// ・検索はメモリ上のインデックス（SearchIndex）で行い、DB は使わない
+// ・日本語は 2文字以上で検索する（バイグラム方式のため）
+//
+// 使用画面：
+// ・search.html
+//
+
+@Controller
+public class SearchController {
+
+	private static final int MAX_RESULTS = 50;
+
+	private final SearchIndex searchIndex;
+	private final CatalogCache catalogCache;
+
+	public SearchController(SearchIndex searchIndex, CatalogCache catalogCache) {
+		this.searchIndex = searchIndex;
+		this.catalogCache = catalogCache;
+	}
+
+	@GetMapping("/search")
+	public String search(
+			@RequestParam(name = "q", required = false) String q,
+			Model model) {
+
+		List<ItemSummary> items = new ArrayList<>();
+
+		if (q != null && !q.isBlank()) {
+			// ID → 表示用データはカタログのスナップショットから引く
+			CatalogSnapshot snapshot = catalogCache.snapshot();
+			for (Long id : searchIndex.search(q, MAX_RESULTS)) {
+				ItemSummary item = snapshot.get(id);
+				if (item != null) {
+					items.add(item);
+				}
+			}
+		}
+
+		model.addAttribute("q", q);
+		model.addAttribute("items", items);
+		return "search";
+	}
+}
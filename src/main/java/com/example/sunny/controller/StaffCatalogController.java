@@ -0,0 +1,57 @@
+package com.example.sunny.controller;
+
+import java.util.Map;
+
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import com.example.sunny.service.CatalogCache;
+import com.example.sunny.service.RatingRebuildJob;
+
+// =====================
+// スタッフ専用：商品カタログキャッシュの確認
+// =====================
+//
+// メモリ上のカタログ（CatalogCache）の状態を JSON で返す。
+//
+// ・GET  /staff/catalog/stats   … hit/miss 件数、再構築時間など
+// ・POST /staff/catalog/rebuild … DB を直接書き換えた時などに全件読み直す
+// ・POST /staff/catalog/ratings/rebuild … 商品のレビュー集計を reviews から作り直す
+//
+// /staff/** なので STAFF / ADMIN のみアクセス可能。
+//
+
+@Controller
+@RequestMapping("/staff/catalog")
+public class StaffCatalogController {
+
+	private final CatalogCache catalogCache;
+	private final RatingRebuildJob ratingRebuildJob;
+
+	public StaffCatalogController(CatalogCache catalogCache, RatingRebuildJob ratingRebuildJob) {
+		this.catalogCache = catalogCache;
+		this.ratingRebuildJob = ratingRebuildJob;
+	}
+
+	@GetMapping("/stats")
+	@ResponseBody
+	public Map<String, Object> stats() {
+		return catalogCache.getStats();
+	}
+
+	@PostMapping("/rebuild")
+	@ResponseBody
+	public Map<String, Object> rebuild() {
+		catalogCache.rebuild();
+		return catalogCache.getStats();
+	}
+
+	@PostMapping("/ratings/rebuild")
+	@ResponseBody
+	public Map<String, Object> rebuildRatings() {
+		return Map.of("updatedItems", ratingRebuildJob.rebuild());
+	}
+}
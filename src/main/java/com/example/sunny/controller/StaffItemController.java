@@ -1,7 +1,7 @@
 package com.example.sunny.controller;
 
-import java.util.List;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -13,8 +13,10 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.example.sunny.entity.Item;
+import com.example.sunny.event.ItemChangedEvent;
 import com.example.sunny.form.ItemForm;
 import com.example.sunny.repository.ItemRepository;
+import com.example.sunny.service.CatalogService;
 import com.example.sunny.service.UploadService;
 
 import jakarta.validation.Valid;
@@ -22,6 +24,14 @@ import jakarta.validation.Valid;
 // =====================
 // スタッフ機能：商品管理（登録・編集・一覧・削除）
 // =====================
+//
+// 一覧はメモリ上のカタログ（CatalogService）から表示する。
+// 登録・更新・削除のあとは ItemChangedEvent を publish し、
+// カタログへ変更を反映させる。
+//
+// 編集は楽観ロック（Item.version）。編集画面を開いてから保存するまでに
+// 注文・キャンセルで在庫が動いた（または他のスタッフが保存した）場合は上書きせず、
+// 入力内容を残したまま最新の在庫を添えて編集画面に戻す。
 
 @Controller
 @RequestMapping("/staff/items")
@@ -29,10 +39,18 @@ public class StaffItemController {
 
 	private final ItemRepository itemRepository;
 	private final UploadService uploadService;
-
-	public StaffItemController(ItemRepository itemRepository, UploadService uploadService) {
+	private final CatalogService catalogService;
+	private final ApplicationEventPublisher eventPublisher;
+
+	public StaffItemController(
+			ItemRepository itemRepository,
+			UploadService uploadService,
+			CatalogService catalogService,
+			ApplicationEventPublisher eventPublisher) {
 		this.itemRepository = itemRepository;
 		this.uploadService = uploadService;
+		this.catalogService = catalogService;
+		this.eventPublisher = eventPublisher;
 	}
 
 	// =====================
@@ -40,8 +58,7 @@ public class StaffItemController {
 	// =====================
 	@GetMapping
 	public String staffItems(Model model) {
-		List<Item> items = itemRepository.findAll();
-		model.addAttribute("items", items);
+		model.addAttribute("items", catalogService.findAll());
 		return "staff_items";
 	}
 
@@ -51,7 +68,7 @@ public class StaffItemController {
 	@GetMapping("/new")
 	public String newItem(Model model) {
 		model.addAttribute("itemForm", new ItemForm());
-		model.addAttribute("items", itemRepository.findAll());
+		model.addAttribute("items", catalogService.findAll());
 		return "staff_item_new";
 	}
 
@@ -66,7 +83,7 @@ public class StaffItemController {
 			RedirectAttributes ra) {
 
 		if (result.hasErrors()) {
-			model.addAttribute("items", itemRepository.findAll());
+			model.addAttribute("items", catalogService.findAll());
 			return "staff_item_new";
 		}
 
@@ -83,6 +100,7 @@ public class StaffItemController {
 		}
 
 		itemRepository.save(item);
+		eventPublisher.publishEvent(ItemChangedEvent.saved(item));
 
 		ra.addFlashAttribute("successMessage", "商品を登録しました。");
 		return "redirect:/staff/items";
@@ -105,6 +123,7 @@ public class StaffItemController {
 		form.setStock(item.getStock());
 		form.setStatus(item.getStatus());
 		form.setImageUrl(item.getImageUrl());
+		form.setVersion(item.getVersion());
 
 		model.addAttribute("itemId", item.getId());
 		model.addAttribute("itemForm", form);
@@ -131,6 +150,11 @@ public class StaffItemController {
 		Item item = itemRepository.findById(id)
 				.orElseThrow(() -> new IllegalArgumentException("商品が見つかりません id=" + id));
 
+		// 編集画面を開いた後に変わっていたら、保存しない
+		if (form.getVersion() != null && form.getVersion() != item.getVersion()) {
+			return editConflict(id, form, item, model);
+		}
+
 		item.setName(form.getName());
 		item.setDescription(form.getDescription());
 		item.setPrice(form.getPrice());
@@ -144,12 +168,30 @@ public class StaffItemController {
 			item.setImageUrl(form.getImageUrl());
 		}
 
-		itemRepository.save(item);
+		try {
+			item = itemRepository.save(item);
+		} catch (ObjectOptimisticLockingFailureException e) {
+			// 読んでから保存するまでの間に変わった
+			form.setImageUrl(item.getImageUrl());
+			Item latest = itemRepository.findById(id)
+					.orElseThrow(() -> new IllegalArgumentException("商品が見つかりません id=" + id));
+			return editConflict(id, form, latest, model);
+		}
+		eventPublisher.publishEvent(ItemChangedEvent.saved(item));
 
 		ra.addFlashAttribute("successMessage", "商品ID " + id + " を更新しました。");
 		return "redirect:/staff/items";
 	}
 
+	// 入力内容は残し、更新番号だけ最新にして編集画面に戻す（もう一度保存すれば最新の内容に上書きできる）
+	private String editConflict(Long id, ItemForm form, Item latest, Model model) {
+		form.setVersion(latest.getVersion());
+		model.addAttribute("itemId", id);
+		model.addAttribute("errorMessage", "編集中に注文などで商品が更新されました（現在の在庫：" + latest.getStock()
+				+ "）。内容を確認して、もう一度保存してください。");
+		return "staff_item_edit";
+	}
+
 	// =====================
 	// スタッフ：商品削除処理
 	// =====================
@@ -162,6 +204,7 @@ public class StaffItemController {
 		}
 
 		itemRepository.deleteById(id);
+		eventPublisher.publishEvent(ItemChangedEvent.deleted(id));
 		ra.addFlashAttribute("successMessage", "商品ID " + id + " を削除しました。");
 
 		return "redirect:/staff/items";
@@ -1,9 +1,21 @@
 package com.example.sunny.controller;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
@@ -11,10 +23,37 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.example.sunny.config.CurrentUser;
+import com.example.sunny.dto.BulkStatusResult;
+import com.example.sunny.dto.KeysetCursor;
+import com.example.sunny.dto.LoginUser;
+import com.example.sunny.dto.OrderEventPayload;
+import com.example.sunny.dto.StaffOrderFilter;
+import com.example.sunny.dto.StaffOrderPage;
+import com.example.sunny.dto.BulkStatusResult.Outcome;
 import com.example.sunny.entity.Order;
+import com.example.sunny.entity.OutboxEvent;
+import com.example.sunny.event.ItemChangedEvent;
+import com.example.sunny.event.OrderChangedEvent;
+import com.example.sunny.repository.ItemRepository;
 import com.example.sunny.repository.OrderRepository;
+import com.example.sunny.service.OrderCsvExportService;
+import com.example.sunny.service.OrderEventHub;
+import com.example.sunny.service.OutboxService;
+import com.example.sunny.service.StaffOrderBoardService;
+import com.example.sunny.service.StaffOrderBulkService;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 // =====================
 // スタッフ専用：注文管理機能
@@ -24,8 +63,10 @@ import com.example.sunny.repository.OrderRepository;
 // 注文状況を確認・更新するための機能を提供する。
 //
 // 主な役割：
-// ・全注文の一覧表示
-// ・注文ステータスの更新（例：CREATED → SHIPPED など）
+// ・注文の一覧表示（ページング・ステータス／注文日での絞り込み）
+// ・注文ステータスの更新（例：CREATED → SHIPPED など。1件ずつ／チェックした注文の一括）
+// ・一覧のライブ更新（Server-Sent Events。新しい注文・ステータス変更を画面へ流す）
+// ・注文の CSV 出力（絞り込みはそのまま。全件でもメモリを使わずに流す）
 //
 // アクセス制御：
 // ・/staff/** は SecurityConfig により STAFF / ADMIN のみアクセス可能
@@ -34,11 +75,35 @@ import com.example.sunny.repository.OrderRepository;
 @Controller
 public class StaffOrderController {
 
+	private static final String CSV_EXPORT_INTERCEPTOR = StaffOrderController.class.getName() + ".csvExport";
+
 	private final OrderRepository orderRepository;
+	private final ItemRepository itemRepository;
+	private final StaffOrderBoardService staffOrderBoardService;
+	private final StaffOrderBulkService staffOrderBulkService;
+	private final OrderEventHub orderEventHub;
+	private final OrderCsvExportService orderCsvExportService;
+	private final OutboxService outboxService;
+	private final ApplicationEventPublisher eventPublisher;
 
-	// OrderRepository を DI（依存性注入）
-	public StaffOrderController(OrderRepository orderRepository) {
+	// Repository / Service を DI（依存性注入）
+	public StaffOrderController(
+			OrderRepository orderRepository,
+			ItemRepository itemRepository,
+			StaffOrderBoardService staffOrderBoardService,
+			StaffOrderBulkService staffOrderBulkService,
+			OrderEventHub orderEventHub,
+			OrderCsvExportService orderCsvExportService,
+			OutboxService outboxService,
+			ApplicationEventPublisher eventPublisher) {
 		this.orderRepository = orderRepository;
+		this.itemRepository = itemRepository;
+		this.staffOrderBoardService = staffOrderBoardService;
+		this.staffOrderBulkService = staffOrderBulkService;
+		this.orderEventHub = orderEventHub;
+		this.orderCsvExportService = orderCsvExportService;
+		this.outboxService = outboxService;
+		this.eventPublisher = eventPublisher;
 	}
 
 	// =====================
@@ -46,29 +111,149 @@ public class StaffOrderController {
 	// =====================
 	//
 	// 機能概要：
-	// ・すべての注文を作成日時の降順で一覧表示
+	// ・注文を作成日時の降順で、1ページずつ表示（キーセット方式。after / before で前後へ）
+	// ・ステータス・注文日の範囲で絞り込み（サーバー側で WHERE に足す）
 	// ・最新の注文が上に表示される
 	//
+	// 全件を Order エンティティで読むと user / item が1件ずつ追加で読まれるため、
+	// 一覧は StaffOrderBoardService の DTO 1クエリで取る。
+	//
 	// 使用画面：
 	// ・staff_orders.html
 	//
 	@GetMapping("/staff/orders")
 	public String staffOrders(
-			@AuthenticationPrincipal UserDetails loginUser,
+			@RequestParam(value = "status", required = false) String status,
+			@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(value = "after", required = false) String after,
+			@RequestParam(value = "before", required = false) String before,
+			@RequestParam(value = "size", defaultValue = "" + StaffOrderBoardService.DEFAULT_PAGE_SIZE) int size,
+			@CurrentUser LoginUser loginUser,
 			Model model) {
 
-		// 全注文を作成日時の降順で取得
-		List<Order> orders = orderRepository.findAllByOrderByCreatedAtDesc();
+		StaffOrderFilter filter = StaffOrderFilter.of(status, from, to);
+		String query = filter.toQueryString();
 
 		// 画面へデータを渡す
-		model.addAttribute("orders", orders);
+		StaffOrderPage page = staffOrderBoardService.findPage(filter, after, before, size);
+		model.addAttribute("page", page);
+		model.addAttribute("filter", filter);
+		model.addAttribute("statuses", StaffOrderFilter.STATUSES);
+		model.addAttribute("filterPrefix", query.isEmpty() ? "" : query + "&");
+
+		// ページ送り・更新後の戻り先で、件数と今のページを保つ（件数は既定値なら付けない）
+		int pageSize = StaffOrderBoardService.pageSize(size);
+		Integer sizeParam = pageSize != StaffOrderBoardService.DEFAULT_PAGE_SIZE ? pageSize : null;
+		model.addAttribute("pagePrefix", (query.isEmpty() ? "" : query + "&")
+				+ (sizeParam != null ? "size=" + sizeParam + "&" : ""));
+		model.addAttribute("size", sizeParam);
+		model.addAttribute("after", KeysetCursor.decode(after) != null ? after : null);
+		model.addAttribute("before", KeysetCursor.decode(before) != null ? before : null);
+		model.addAttribute("bulkTargets", StaffOrderBulkService.ALLOWED_FROM.keySet());
+
+		// ライブ更新で新しい注文を先頭に足すのは、先頭ページで今日の注文が入る絞り込みの時だけ
+		LocalDate today = LocalDate.now();
+		model.addAttribute("liveInsert", !page.isHasPrev()
+				&& (filter.getFrom() == null || !filter.getFrom().isAfter(today))
+				&& (filter.getTo() == null || !filter.getTo().isBefore(today)));
 
 		// ログイン中スタッフのユーザー名（表示用）
-		model.addAttribute("username", loginUser.getUsername());
+		model.addAttribute("username", loginUser.getEmail());
 
 		return "staff_orders";
 	}
 
+	// =====================
+	// スタッフ：注文管理画面のライブ更新（Server-Sent Events）
+	// =====================
+	//
+	// staff_orders.html が EventSource で開く。
+	// ・order-created        … 新しい注文（StaffOrderRow の JSON）
+	// ・order-status-changed … ステータス・追跡番号が変わった注文（同上）
+	// ・resync               … 取りこぼしが出たので一覧を読み直してほしい
+	//
+	// 接続数には上限があり（app.staff-board.sse.max-subscribers）、超えたら 503。
+	// 画面は手動の再読み込みで今まで通り使える。
+	//
+	@GetMapping(value = "/staff/orders/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	@ResponseBody
+	public SseEmitter streamOrders() {
+		SseEmitter emitter = orderEventHub.subscribe();
+		if (emitter == null) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "ライブ更新の接続数が上限です");
+		}
+		return emitter;
+	}
+
+	// =====================
+	// スタッフ：注文の CSV 出力
+	// =====================
+	//
+	// 機能概要：
+	// ・一覧と同じ絞り込み（ステータス・注文日）で、該当する注文を全件 CSV にする
+	// ・gzip=true なら .csv.gz で出力する
+	//
+	// 書き出しは StreamingResponseBody（リクエストのスレッドを返してから、別スレッドで DB から流す）。
+	// 同時に出力できる数を超えたら 503。
+	//
+	// 取った出力の枠は、非同期処理の終わり（完了・タイムアウト・エラー）で必ず返す。
+	// 書き出しが始まる前にタイムアウトや切断で終わっても、枠は漏れない。
+	// タイムアウトは app.orders.export.timeout をこのリクエストだけに設定する。
+	//
+	@GetMapping("/staff/orders/export.csv")
+	public ResponseEntity<StreamingResponseBody> exportCsv(
+			@RequestParam(value = "status", required = false) String status,
+			@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(value = "gzip", defaultValue = "false") boolean gzip,
+			HttpServletRequest request) {
+
+		StaffOrderFilter filter = StaffOrderFilter.of(status, from, to);
+		if (!orderCsvExportService.tryAcquire()) {
+			throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "CSV 出力が混み合っています");
+		}
+
+		// 枠を返すのは1回だけ（書き出しの終わりと非同期処理の終わりの、先に来た方）
+		AtomicBoolean released = new AtomicBoolean();
+		Runnable release = () -> {
+			if (released.compareAndSet(false, true)) {
+				orderCsvExportService.release();
+			}
+		};
+		long timeoutMillis = orderCsvExportService.getTimeout().toMillis();
+		WebAsyncUtils.getAsyncManager(request).registerCallableInterceptor(CSV_EXPORT_INTERCEPTOR,
+				new CallableProcessingInterceptor() {
+					@Override
+					public <T> void beforeConcurrentHandling(NativeWebRequest webRequest, Callable<T> task) {
+						if (webRequest instanceof AsyncWebRequest asyncRequest) {
+							asyncRequest.setTimeout(timeoutMillis);
+						}
+					}
+
+					@Override
+					public <T> void afterCompletion(NativeWebRequest webRequest, Callable<T> task) {
+						release.run();
+					}
+				});
+
+		StreamingResponseBody body = out -> {
+			try {
+				orderCsvExportService.export(filter, gzip, out);
+			} finally {
+				release.run();
+			}
+		};
+
+		String filename = "orders-" + LocalDate.now().format(DateTimeFormatter.BASIC_ISO_DATE) + (gzip ? ".csv.gz" : ".csv");
+		return ResponseEntity.ok()
+				.contentType(gzip ? MediaType.parseMediaType("application/gzip")
+						: new MediaType("text", "csv", StandardCharsets.UTF_8))
+				.header(HttpHeaders.CONTENT_DISPOSITION,
+						ContentDisposition.attachment().filename(filename).build().toString())
+				.body(body);
+	}
+
 	// =====================
 	// スタッフ：注文ステータス更新
 	// =====================
@@ -80,39 +265,135 @@ public class StaffOrderController {
 	// 業務ルール：
 	// ・CANCELLED / COMPLETED の注文は変更不可
 	// （実務的な制御が入っている点がポイント）
+	// ・キャンセルにした時は在庫を戻す
+	//
+	// 更新後は、更新前に見ていた一覧（絞り込み・ページ・件数）に戻す。
 	//
 	@PostMapping("/staff/orders/update/{orderId}")
 	@Transactional
 	public String updateStatus(
 			@PathVariable Long orderId,
 			@RequestParam("status") String status,
+			@RequestParam(value = "filterStatus", required = false) String filterStatus,
+			@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(value = "after", required = false) String after,
+			@RequestParam(value = "before", required = false) String before,
+			@RequestParam(value = "size", required = false) Integer size,
 			RedirectAttributes redirectAttributes) {
 
-		// 対象注文を取得
+		String back = boardUrl(StaffOrderFilter.of(filterStatus, from, to), after, before, size);
+
+		// 対象注文を取得（後で使う値。updateStatusIfOpen の後は order を読み直さない）
 		Order order = orderRepository.findById(orderId)
 				.orElseThrow(() -> new IllegalArgumentException("注文が見つかりません id=" + orderId));
+		Long itemId = order.getItem().getId();
+		OrderEventPayload payload = new OrderEventPayload(
+				order.getId(), order.getUser().getId(), itemId,
+				order.getQuantity(), order.getTotalPrice(), order.getCreatedAt());
 
-		// キャンセル済み・完了済みの注文は更新不可
-		if ("CANCELLED".equals(order.getStatus())
-				|| "CANCELED".equals(order.getStatus())
-				|| "COMPLETED".equals(order.getStatus())) {
+		// ステータス更新（キャンセル済み・完了済みの注文は更新不可。判定は UPDATE の条件で行う）
+		if (orderRepository.updateStatusIfOpen(orderId, status) == 0) {
 
 			redirectAttributes.addFlashAttribute(
 					"errorMessage",
 					"この注文は更新できません。");
 
-			return "redirect:/staff/orders";
+			return back;
 		}
 
-		// ステータス更新
-		order.setStatus(status);
-		orderRepository.save(order);
+		// キャンセルにした時は在庫を戻し、売上の集計などの後続処理用に ORDER_CANCELLED をアウトボックスへ
+		// （キャンセル済みの注文は上の UPDATE で飛ばされるので、在庫を2回戻すことはない）
+		if ("CANCELLED".equals(status)) {
+			outboxService.recordOrderEvent(OutboxEvent.ORDER_CANCELLED, payload);
+			itemRepository.releaseStock(itemId, payload.getQuantity());
+			itemRepository.findById(itemId)
+					.ifPresent(item -> eventPublisher.publishEvent(ItemChangedEvent.saved(item)));
+		}
+		eventPublisher.publishEvent(OrderChangedEvent.statusChanged(List.of(orderId)));
 
 		// 完了メッセージを表示
 		redirectAttributes.addFlashAttribute(
 				"successMessage",
 				"注文ID " + orderId + " を更新しました。");
 
-		return "redirect:/staff/orders";
+		return back;
+	}
+
+	// =====================
+	// スタッフ：注文ステータスの一括変更
+	// =====================
+	//
+	// 機能概要：
+	// ・一覧でチェックした注文を、まとめて次のステータスへ進める
+	// ・発送時は注文ごとの追跡番号（tracking_{注文ID}）も一緒に保存する
+	// ・変更は StaffOrderBulkService の UPDATE 1文。1注文ごとの結果を一覧画面に表示する
+	//
+	@PostMapping("/staff/orders/bulk-status")
+	public String bulkUpdateStatus(
+			@RequestParam(value = "orderIds", required = false) List<Long> orderIds,
+			@RequestParam("toStatus") String toStatus,
+			@RequestParam(value = "filterStatus", required = false) String filterStatus,
+			@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			@RequestParam(value = "after", required = false) String after,
+			@RequestParam(value = "before", required = false) String before,
+			@RequestParam(value = "size", required = false) Integer size,
+			@RequestParam Map<String, String> params,
+			RedirectAttributes redirectAttributes) {
+
+		String back = boardUrl(StaffOrderFilter.of(filterStatus, from, to), after, before, size);
+
+		if (orderIds == null || orderIds.isEmpty()) {
+			redirectAttributes.addFlashAttribute("errorMessage", "注文が選択されていません。");
+			return back;
+		}
+		if (!StaffOrderBulkService.ALLOWED_FROM.containsKey(toStatus)) {
+			redirectAttributes.addFlashAttribute("errorMessage", "このステータスには一括変更できません。");
+			return back;
+		}
+		if (orderIds.size() > StaffOrderBulkService.MAX_ORDERS) {
+			redirectAttributes.addFlashAttribute("errorMessage",
+					"一度に変更できるのは " + StaffOrderBulkService.MAX_ORDERS + " 件までです。");
+			return back;
+		}
+
+		// 追跡番号（選択された注文の分だけ）
+		Map<Long, String> trackingNumbers = new HashMap<>();
+		for (Long orderId : orderIds) {
+			String number = params.get("tracking_" + orderId);
+			if (number != null) {
+				trackingNumbers.put(orderId, number);
+			}
+		}
+
+		BulkStatusResult result = staffOrderBulkService.transition(orderIds, toStatus, trackingNumbers);
+		List<Long> updatedIds = result.getRows().stream()
+				.filter(row -> row.getOutcome() == Outcome.UPDATED)
+				.map(BulkStatusResult.Row::getOrderId)
+				.toList();
+		if (!updatedIds.isEmpty()) {
+			// transition のコミット後なので、そのまま配信される
+			eventPublisher.publishEvent(OrderChangedEvent.statusChanged(updatedIds));
+		}
+		redirectAttributes.addFlashAttribute("bulkResult", result);
+		redirectAttributes.addFlashAttribute("successMessage",
+				result.getUpdatedCount() + " 件を「" + Order.statusLabel(toStatus) + "」に更新しました。"
+						+ (result.getSkippedCount() > 0 ? "（" + result.getSkippedCount() + " 件は対象外）" : ""));
+		return back;
+	}
+
+	// 一覧へ戻る URL（値は検証済みのステータス・日付と、読めるカーソルだけ）
+	private static String boardUrl(StaffOrderFilter filter, String after, String before, Integer size) {
+		StringBuilder query = new StringBuilder(filter.toQueryString());
+		if (size != null && StaffOrderBoardService.pageSize(size) != StaffOrderBoardService.DEFAULT_PAGE_SIZE) {
+			query.append(query.length() > 0 ? "&" : "").append("size=").append(StaffOrderBoardService.pageSize(size));
+		}
+		if (KeysetCursor.decode(after) != null) {
+			query.append(query.length() > 0 ? "&" : "").append("after=").append(after);
+		} else if (KeysetCursor.decode(before) != null) {
+			query.append(query.length() > 0 ? "&" : "").append("before=").append(before);
+		}
+		return "redirect:/staff/orders" + (query.length() > 0 ? "?" + query : "");
 	}
 }
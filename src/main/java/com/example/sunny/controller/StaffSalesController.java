@@ -0,0 +1,117 @@
+package com.example.sunny.controller;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import com.example.sunny.dto.DailySalesTotal;
+import com.example.sunny.repository.DailyItemSalesRepository;
+import com.example.sunny.service.SalesRollupRebuildJob;
+
+// =====================
+// スタッフ専用：売上画面
+// =====================
+//
+// 主な役割：
+// ・期間中の売上（金額・数量・注文数・キャンセル数）を日ごとに表示
+// ・期間中によく売れた商品の一覧
+// ・日次集計の作り直し（初回移行・ずれの補正）
+//
+// orders は集計せず、日次集計（daily_item_sales）だけを読む。
+// 期間は最大 MAX_DAYS 日（それ以上は開始日を詰める）。
+//
+// アクセス制御：
+// ・/staff/** は SecurityConfig により STAFF / ADMIN のみアクセス可能
+//
+
+@Controller
+public class StaffSalesController {
+
+	static final int DEFAULT_DAYS = 30;
+	static final int MAX_DAYS = 366;
+	static final int TOP_ITEMS = 50;
+
+	private final DailyItemSalesRepository dailyItemSalesRepository;
+	private final SalesRollupRebuildJob salesRollupRebuildJob;
+
+	// Repository / Service を DI（依存性注入）
+	public StaffSalesController(
+			DailyItemSalesRepository dailyItemSalesRepository,
+			SalesRollupRebuildJob salesRollupRebuildJob) {
+		this.dailyItemSalesRepository = dailyItemSalesRepository;
+		this.salesRollupRebuildJob = salesRollupRebuildJob;
+	}
+
+	// =====================
+	// スタッフ：売上画面
+	// =====================
+	//
+	// 使用画面：
+	// ・staff_sales.html
+	//
+	@GetMapping("/staff/sales")
+	public String sales(
+			@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+			@RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+			Model model) {
+
+		// 期間（未指定なら今日までの30日）
+		if (to == null) {
+			to = LocalDate.now();
+		}
+		if (from == null || from.isAfter(to)) {
+			from = to.minusDays(DEFAULT_DAYS - 1);
+		}
+		if (ChronoUnit.DAYS.between(from, to) >= MAX_DAYS) {
+			from = to.minusDays(MAX_DAYS - 1);
+		}
+
+		List<DailySalesTotal> daily = dailyItemSalesRepository.findDailyTotals(from, to);
+
+		// 期間全体の合計（日ごとの行を足すだけ）
+		long orderCount = 0, units = 0, revenue = 0, cancelledCount = 0;
+		for (DailySalesTotal d : daily) {
+			orderCount += d.getOrderCount();
+			units += d.getUnits();
+			revenue += d.getRevenue();
+			cancelledCount += d.getCancelledCount();
+		}
+
+		model.addAttribute("from", from);
+		model.addAttribute("to", to);
+		model.addAttribute("daily", daily);
+		model.addAttribute("total", new DailySalesTotal(null, orderCount, units, revenue, cancelledCount));
+		model.addAttribute("items", dailyItemSalesRepository.findItemTotals(from, to, Limit.of(TOP_ITEMS)));
+		model.addAttribute("topItems", TOP_ITEMS);
+		model.addAttribute("rebuildRunning", salesRollupRebuildJob.isRunning());
+
+		return "staff_sales";
+	}
+
+	// =====================
+	// スタッフ：日次集計の作り直し
+	// =====================
+	//
+	// orders を全件読むので、注文の少ない時間帯に押すこと。
+	// 作り直しは裏のスレッドで行い、ここではすぐに売上画面へ戻す（画面を開き直すと反映される）。
+	//
+	@PostMapping("/staff/sales/rebuild")
+	public String rebuild(RedirectAttributes redirectAttributes) {
+		if (salesRollupRebuildJob.requestRebuild()) {
+			redirectAttributes.addFlashAttribute("successMessage",
+					"売上の集計の作り直しを始めました。終わったら画面を開き直すと反映されます。");
+		} else {
+			redirectAttributes.addFlashAttribute("errorMessage", "売上の集計は作り直し中です。終わるまでお待ちください。");
+		}
+		return "redirect:/staff/sales";
+	}
+}
@@ -0,0 +1,81 @@
+package com.example.sunny.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+// =====================
+// スタッフ注文管理：一括ステータス変更の結果（1注文ごと）
+// =====================
+//
+// 変更後の一覧画面にフラッシュ属性で渡すので Serializable にしておく。
+public class BulkStatusResult implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	public enum Outcome {
+		UPDATED("更新しました"),
+		SKIPPED("このステータスからは変更できません"),
+		NOT_FOUND("注文が見つかりません");
+
+		private final String label;
+
+		Outcome(String label) {
+			this.label = label;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	public static class Row implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Long orderId;
+		private final String previousStatus;
+		private final Outcome outcome;
+
+		public Row(Long orderId, String previousStatus, Outcome outcome) {
+			this.orderId = orderId;
+			this.previousStatus = previousStatus;
+			this.outcome = outcome;
+		}
+
+		public Long getOrderId() {
+			return orderId;
+		}
+
+		public String getPreviousStatus() {
+			return previousStatus;
+		}
+
+		public Outcome getOutcome() {
+			return outcome;
+		}
+	}
+
+	private final String toStatus;
+	private final List<Row> rows;
+
+	public BulkStatusResult(String toStatus, List<Row> rows) {
+		this.toStatus = toStatus;
+		this.rows = rows;
+	}
+
+	public String getToStatus() {
+		return toStatus;
+	}
+
+	public List<Row> getRows() {
+		return rows;
+	}
+
+	public long getUpdatedCount() {
+		return rows.stream().filter(r -> r.getOutcome() == Outcome.UPDATED).count();
+	}
+
+	public long getSkippedCount() {
+		return rows.size() - getUpdatedCount();
+	}
+}
@@ -0,0 +1,45 @@
+package com.example.sunny.dto;
+
+import java.time.LocalDate;
+
+// =====================
+// 売上画面：1日分の合計（全商品）
+// =====================
+//
+// daily_item_sales をその日の分だけ足したもの（DailyItemSalesRepository の JPQL で作る）。
+public class DailySalesTotal {
+
+	private final LocalDate salesDate;
+	private final long orderCount;
+	private final long units;
+	private final long revenue;
+	private final long cancelledCount;
+
+	public DailySalesTotal(LocalDate salesDate, Long orderCount, Long units, Long revenue, Long cancelledCount) {
+		this.salesDate = salesDate;
+		this.orderCount = orderCount;
+		this.units = units;
+		this.revenue = revenue;
+		this.cancelledCount = cancelledCount;
+	}
+
+	public LocalDate getSalesDate() {
+		return salesDate;
+	}
+
+	public long getOrderCount() {
+		return orderCount;
+	}
+
+	public long getUnits() {
+		return units;
+	}
+
+	public long getRevenue() {
+		return revenue;
+	}
+
+	public long getCancelledCount() {
+		return cancelledCount;
+	}
+}
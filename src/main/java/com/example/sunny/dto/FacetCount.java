@@ -0,0 +1,49 @@
+package com.example.sunny.dto;
+
+// =====================
+// 絞り込みリンク1つ分（値・表示名・件数・選択状態）
+// =====================
+//
+// queryString はこのリンクを押した後の絞り込み条件（選択中なら解除した条件）。
+public class FacetCount {
+
+	private final String group;
+	private final String value;
+	private final String label;
+	private final int count;
+	private final boolean selected;
+	private final String queryString;
+
+	public FacetCount(String group, String value, String label, int count, boolean selected, String queryString) {
+		this.group = group;
+		this.value = value;
+		this.label = label;
+		this.count = count;
+		this.selected = selected;
+		this.queryString = queryString;
+	}
+
+	public String getGroup() {
+		return group;
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	public String getLabel() {
+		return label;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public boolean isSelected() {
+		return selected;
+	}
+
+	public String getQueryString() {
+		return queryString;
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.sunny.dto;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// =====================
+// トップページの絞り込み条件（ファセット）
+// =====================
+//
+// グループ（price / status / stock）ごとに選択中の値を1つ持つ。
+// 例：price=FROM_3000, stock=IN_STOCK
+//
+// 変更不可。toggled() で「1つだけ切り替えた条件」を新しく作り、
+// 画面の絞り込みリンク（クエリ文字列）に使う。
+public final class FacetSelection {
+
+	public static final String PRICE = "price";
+	public static final String STATUS = "status";
+	public static final String STOCK = "stock";
+
+	private static final FacetSelection EMPTY = new FacetSelection(Map.of());
+
+	private final Map<String, String> values;
+
+	private FacetSelection(Map<String, String> values) {
+		this.values = values;
+	}
+
+	public static FacetSelection of(String price, String status, String stock) {
+		Map<String, String> map = new LinkedHashMap<>();
+		put(map, PRICE, price);
+		put(map, STATUS, status);
+		put(map, STOCK, stock);
+		return map.isEmpty() ? EMPTY : new FacetSelection(Collections.unmodifiableMap(map));
+	}
+
+	public static FacetSelection empty() {
+		return EMPTY;
+	}
+
+	private static void put(Map<String, String> map, String group, String value) {
+		if (value != null && !value.isBlank()) {
+			map.put(group, value);
+		}
+	}
+
+	public boolean isEmpty() {
+		return values.isEmpty();
+	}
+
+	public String get(String group) {
+		return values.get(group);
+	}
+
+	public boolean isSelected(String group, String value) {
+		return value.equals(values.get(group));
+	}
+
+	public Map<String, String> getValues() {
+		return values;
+	}
+
+	// 指定グループの値を切り替えた条件（選択中なら解除、未選択なら選択）
+	public FacetSelection toggled(String group, String value) {
+		Map<String, String> map = new LinkedHashMap<>(values);
+		if (value.equals(map.get(group))) {
+			map.remove(group);
+		} else {
+			map.put(group, value);
+		}
+		return of(map.get(PRICE), map.get(STATUS), map.get(STOCK));
+	}
+
+	// クエリ文字列（例：price=FROM_3000&stock=IN_STOCK）
+	public String toQueryString() {
+		StringBuilder sb = new StringBuilder();
+		values.forEach((group, value) -> {
+			if (sb.length() > 0) {
+				sb.append('&');
+			}
+			sb.append(group).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+		});
+		return sb.toString();
+	}
+}
@@ -0,0 +1,82 @@
+package com.example.sunny.dto;
+
+import java.math.BigDecimal;
+
+// =====================
+// 商品詳細画面用：1回のクエリで取得する表示データ
+// =====================
+//
+// 商品情報・レビュー集計・「閲覧中ユーザーのお気に入り状態」を
+// ItemRepository.findDetailView() の1クエリでまとめて取得する。
+//
+// getter 名は Item と同じなので、テンプレート側は item.name などのまま使える。
+public class ItemDetailView {
+
+	private final Long id;
+	private final String name;
+	private final String description;
+	private final BigDecimal price;
+	private final int stock;
+	private final String status;
+	private final String imageUrl;
+	private final long ratingSum;
+	private final long ratingCount;
+	private final boolean favorite;
+
+	public ItemDetailView(Long id, String name, String description, BigDecimal price, Integer stock,
+			String status, String imageUrl, Long ratingSum, Long ratingCount,
+			Boolean favorite) {
+		this.id = id;
+		this.name = name;
+		this.description = description;
+		this.price = price;
+		this.stock = stock;
+		this.status = status;
+		this.imageUrl = imageUrl;
+		this.ratingSum = ratingSum;
+		this.ratingCount = ratingCount;
+		this.favorite = Boolean.TRUE.equals(favorite);
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public BigDecimal getPrice() {
+		return price;
+	}
+
+	public int getStock() {
+		return stock;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public String getImageUrl() {
+		return imageUrl;
+	}
+
+	public long getRatingCount() {
+		return ratingCount;
+	}
+
+	// 平均評価（レビューが無い場合は 0.0）
+	public double getAverageRating() {
+		return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+	}
+
+	// 閲覧中ユーザーがお気に入り登録済みか
+	public boolean isFavorite() {
+		return favorite;
+	}
+}
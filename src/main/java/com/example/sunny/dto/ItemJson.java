@@ -0,0 +1,85 @@
+package com.example.sunny.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// =====================
+// JSON API 用：商品詳細
+// =====================
+//
+// ItemRepository.findJsonById() の1クエリで取得する。
+// version は ETag の元になる更新番号。
+public class ItemJson {
+
+	private final Long id;
+	private final String name;
+	private final String description;
+	private final BigDecimal price;
+	private final int stock;
+	private final String status;
+	private final String imageUrl;
+	private final LocalDateTime createdAt;
+	private final long ratingSum;
+	private final long ratingCount;
+	private final long version;
+
+	public ItemJson(Long id, String name, String description, BigDecimal price, Integer stock,
+			String status, String imageUrl, LocalDateTime createdAt, Long ratingSum, Long ratingCount, Long version) {
+		this.id = id;
+		this.name = name;
+		this.description = description;
+		this.price = price;
+		this.stock = stock;
+		this.status = status;
+		this.imageUrl = imageUrl;
+		this.createdAt = createdAt;
+		this.ratingSum = ratingSum;
+		this.ratingCount = ratingCount;
+		this.version = version;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public BigDecimal getPrice() {
+		return price;
+	}
+
+	public int getStock() {
+		return stock;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public String getImageUrl() {
+		return imageUrl;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public long getRatingCount() {
+		return ratingCount;
+	}
+
+	// 平均評価（レビューが無い場合は 0.0）
+	public double getAverageRating() {
+		return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+}
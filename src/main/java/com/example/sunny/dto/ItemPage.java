@@ -0,0 +1,41 @@
+package com.example.sunny.dto;
+
+import java.util.List;
+
+// =====================
+// トップページ用：1ページ分の商品と前後ページのカーソル
+// =====================
+//
+// nextCursor / prevCursor が null の場合、そちら方向のページは無い。
+public class ItemPage {
+
+	private final List<ItemSummary> items;
+	private final String nextCursor;
+	private final String prevCursor;
+
+	public ItemPage(List<ItemSummary> items, String nextCursor, String prevCursor) {
+		this.items = items;
+		this.nextCursor = nextCursor;
+		this.prevCursor = prevCursor;
+	}
+
+	public List<ItemSummary> getItems() {
+		return items;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public String getPrevCursor() {
+		return prevCursor;
+	}
+
+	public boolean isHasNext() {
+		return nextCursor != null;
+	}
+
+	public boolean isHasPrev() {
+		return prevCursor != null;
+	}
+}
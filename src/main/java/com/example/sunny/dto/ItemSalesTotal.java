@@ -0,0 +1,43 @@
+package com.example.sunny.dto;
+
+// =====================
+// 売上画面：期間中の商品ごとの合計
+// =====================
+//
+// 商品が削除されていれば itemName は null。
+public class ItemSalesTotal {
+
+	private final Long itemId;
+	private final String itemName;
+	private final long orderCount;
+	private final long units;
+	private final long revenue;
+
+	public ItemSalesTotal(Long itemId, String itemName, Long orderCount, Long units, Long revenue) {
+		this.itemId = itemId;
+		this.itemName = itemName;
+		this.orderCount = orderCount;
+		this.units = units;
+		this.revenue = revenue;
+	}
+
+	public Long getItemId() {
+		return itemId;
+	}
+
+	public String getItemName() {
+		return itemName;
+	}
+
+	public long getOrderCount() {
+		return orderCount;
+	}
+
+	public long getUnits() {
+		return units;
+	}
+
+	public long getRevenue() {
+		return revenue;
+	}
+}
@@ -0,0 +1,91 @@
+package com.example.sunny.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.example.sunny.entity.Item;
+
+// =====================
+// 商品一覧表示用：読み取り専用の商品データ
+// =====================
+//
+// メモリ上のカタログ（CatalogSnapshot）に保持するため、
+// JPA の Item エンティティではなく、変更できない値オブジェクトにしている。
+// （複数リクエストから同時に読まれても安全）
+//
+// getter 名は Item と同じなので、テンプレート側は item.name などのまま使える。
+// version は Item の更新番号（コミット後に届く変更の新旧を見分けるのに使う）。
+public final class ItemSummary {
+
+	private final Long id;
+	private final String name;
+	private final String description;
+	private final BigDecimal price;
+	private final int stock;
+	private final String status;
+	private final String imageUrl;
+	private final LocalDateTime createdAt;
+	private final long version;
+
+	public ItemSummary(Long id, String name, String description, BigDecimal price,
+			int stock, String status, String imageUrl, LocalDateTime createdAt, long version) {
+		this.id = id;
+		this.name = name;
+		this.description = description;
+		this.price = price;
+		this.stock = stock;
+		this.status = status;
+		this.imageUrl = imageUrl;
+		this.createdAt = createdAt;
+		this.version = version;
+	}
+
+	public static ItemSummary of(Item item) {
+		return new ItemSummary(
+				item.getId(),
+				item.getName(),
+				item.getDescription(),
+				item.getPrice(),
+				item.getStock(),
+				item.getStatus(),
+				item.getImageUrl(),
+				item.getCreatedAt(),
+				item.getVersion());
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getDescription() {
+		return description;
+	}
+
+	public BigDecimal getPrice() {
+		return price;
+	}
+
+	public int getStock() {
+		return stock;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public String getImageUrl() {
+		return imageUrl;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+}
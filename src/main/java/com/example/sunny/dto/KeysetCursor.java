@@ -0,0 +1,80 @@
+package com.example.sunny.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import com.example.sunny.entity.Item;
+
+// =====================
+// キーセットページング用カーソル
+// =====================
+//
+// 「どの行の次（前）から表示するか」を (createdAt, id) の組で表す。
+// 商品一覧・レビュー一覧・スタッフ注文管理・注文履歴など「新しい順」に並べる一覧で共通に使う。
+// URL には Base64URL 文字列として載せる（例：/?after=MjAyNi0...）。
+//
+// 不正な文字列が来た場合は decode() が null を返し、
+// 呼び出し側は 1ページ目を表示する。
+public class KeysetCursor {
+
+	private final LocalDateTime createdAt;
+	private final Long id;
+
+	public KeysetCursor(LocalDateTime createdAt, Long id) {
+		this.createdAt = createdAt;
+		this.id = id;
+	}
+
+	public static KeysetCursor of(Item item) {
+		return new KeysetCursor(item.getCreatedAt(), item.getId());
+	}
+
+	public static KeysetCursor of(ItemSummary item) {
+		return new KeysetCursor(item.getCreatedAt(), item.getId());
+	}
+
+	public static KeysetCursor of(ReviewView review) {
+		return new KeysetCursor(review.getCreatedAt(), review.getId());
+	}
+
+	public static KeysetCursor of(StaffOrderRow order) {
+		return new KeysetCursor(order.getCreatedAt(), order.getId());
+	}
+
+	public static KeysetCursor of(OrderHistoryRow order) {
+		return new KeysetCursor(order.getCreatedAt(), order.getId());
+	}
+
+	public String encode() {
+		String raw = createdAt + "_" + id;
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public static KeysetCursor decode(String token) {
+		if (token == null || token.isBlank()) {
+			return null;
+		}
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+			int sep = raw.lastIndexOf('_');
+			if (sep < 0) {
+				return null;
+			}
+			return new KeysetCursor(
+					LocalDateTime.parse(raw.substring(0, sep)),
+					Long.valueOf(raw.substring(sep + 1)));
+		} catch (RuntimeException e) {
+			return null;
+		}
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public Long getId() {
+		return id;
+	}
+}
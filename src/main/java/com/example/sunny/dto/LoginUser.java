@@ -0,0 +1,53 @@
+package com.example.sunny.dto;
+
+import java.io.Serializable;
+
+import com.example.sunny.entity.User;
+
+// =====================
+// ログイン中ユーザーの情報（ログイン時点の控え・変更不可）
+// =====================
+//
+// ログイン時に CustomUserDetails が作り、以後のリクエストではこれを使う。
+// Controller では @CurrentUser LoginUser loginUser で受け取れる（DB は読まない）。
+//
+// ・email はログインID（principal.getUsername() と同じ）
+// ・名前・権限をログイン後に変えた場合、反映は次回ログインから
+// ・注文・お気に入りなどの関連に User が必要な時は
+//   userRepository.getReferenceById(loginUser.getId()) を使う（SELECT は出ない）
+public final class LoginUser implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Long id;
+	private final String name;
+	private final String email;
+	private final String role;
+
+	public LoginUser(Long id, String name, String email, String role) {
+		this.id = id;
+		this.name = name;
+		this.email = email;
+		this.role = role;
+	}
+
+	public static LoginUser of(User user) {
+		return new LoginUser(user.getId(), user.getName(), user.getEmail(), user.getRole());
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getEmail() {
+		return email;
+	}
+
+	public String getRole() {
+		return role;
+	}
+}
@@ -0,0 +1,81 @@
+package com.example.sunny.dto;
+
+import java.time.LocalDateTime;
+
+// =====================
+// アウトボックスの注文イベント（ORDER_PLACED / ORDER_CANCELLED）の中身
+// =====================
+//
+// 注文時点の値をそのまま残す（後で注文が変わっても、イベントの内容は変わらない）。
+// OutboxEvent.payload に JSON で入れ、ハンドラーは OutboxService.readPayload で読み戻す。
+public class OrderEventPayload {
+
+	private Long orderId;
+	private Long userId;
+	private Long itemId;
+	private int quantity;
+	private int totalPrice;
+	private LocalDateTime orderedAt;
+
+	// JSON から読み戻す用
+	public OrderEventPayload() {
+	}
+
+	public OrderEventPayload(Long orderId, Long userId, Long itemId, int quantity, int totalPrice,
+			LocalDateTime orderedAt) {
+		this.orderId = orderId;
+		this.userId = userId;
+		this.itemId = itemId;
+		this.quantity = quantity;
+		this.totalPrice = totalPrice;
+		this.orderedAt = orderedAt;
+	}
+
+	public Long getOrderId() {
+		return orderId;
+	}
+
+	public void setOrderId(Long orderId) {
+		this.orderId = orderId;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public void setUserId(Long userId) {
+		this.userId = userId;
+	}
+
+	public Long getItemId() {
+		return itemId;
+	}
+
+	public void setItemId(Long itemId) {
+		this.itemId = itemId;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public void setQuantity(int quantity) {
+		this.quantity = quantity;
+	}
+
+	public int getTotalPrice() {
+		return totalPrice;
+	}
+
+	public void setTotalPrice(int totalPrice) {
+		this.totalPrice = totalPrice;
+	}
+
+	public LocalDateTime getOrderedAt() {
+		return orderedAt;
+	}
+
+	public void setOrderedAt(LocalDateTime orderedAt) {
+		this.orderedAt = orderedAt;
+	}
+}
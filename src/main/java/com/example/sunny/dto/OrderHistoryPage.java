@@ -0,0 +1,31 @@
+package com.example.sunny.dto;
+
+import java.util.List;
+
+// =====================
+// マイページの注文履歴：1ページ分
+// =====================
+//
+// nextCursor は次ページ（より古い注文）の after。最後のページなら null。
+public class OrderHistoryPage {
+
+	private final List<OrderHistoryRow> orders;
+	private final String nextCursor;
+
+	public OrderHistoryPage(List<OrderHistoryRow> orders, String nextCursor) {
+		this.orders = orders;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<OrderHistoryRow> getOrders() {
+		return orders;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public boolean isHasNext() {
+		return nextCursor != null;
+	}
+}
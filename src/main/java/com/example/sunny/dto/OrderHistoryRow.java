@@ -0,0 +1,59 @@
+package com.example.sunny.dto;
+
+import java.time.LocalDateTime;
+
+import com.example.sunny.entity.Order;
+
+// =====================
+// マイページの注文履歴：1行分
+// =====================
+//
+// 稼働中の注文（orders）・保管済みの注文（orders_archive）のどちらからも
+// 同じ形で取る（OrderRepository / ArchivedOrderRepository のコンストラクタ式）。
+public class OrderHistoryRow {
+
+	private final Long id;
+	private final LocalDateTime createdAt;
+	private final String itemName;
+	private final int quantity;
+	private final int totalPrice;
+	private final String status;
+
+	public OrderHistoryRow(Long id, LocalDateTime createdAt, String itemName, int quantity, int totalPrice,
+			String status) {
+		this.id = id;
+		this.createdAt = createdAt;
+		this.itemName = itemName;
+		this.quantity = quantity;
+		this.totalPrice = totalPrice;
+		this.status = status;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public String getItemName() {
+		return itemName;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public int getTotalPrice() {
+		return totalPrice;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public String getStatusLabel() {
+		return Order.statusLabel(status);
+	}
+}
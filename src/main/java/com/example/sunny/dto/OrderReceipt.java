@@ -0,0 +1,53 @@
+package com.example.sunny.dto;
+
+import java.math.BigDecimal;
+
+// =====================
+// 注文完了画面用：表示に必要な項目だけのデータ
+// =====================
+//
+// 二重送信（同じ冪等キーでの再送）の時は、最初の注文のこのデータで完了画面を出し直す。
+// IdempotencyKeyCache にもこのまま入れるので、変更不可にしておく。
+public class OrderReceipt {
+
+	private final Long orderId;
+	private final Long itemId;
+	private final String itemName;
+	private final BigDecimal itemPrice;
+	private final int quantity;
+	private final int totalPrice;
+
+	public OrderReceipt(Long orderId, Long itemId, String itemName, BigDecimal itemPrice, int quantity,
+			int totalPrice) {
+		this.orderId = orderId;
+		this.itemId = itemId;
+		this.itemName = itemName;
+		this.itemPrice = itemPrice;
+		this.quantity = quantity;
+		this.totalPrice = totalPrice;
+	}
+
+	public Long getOrderId() {
+		return orderId;
+	}
+
+	public Long getItemId() {
+		return itemId;
+	}
+
+	public String getItemName() {
+		return itemName;
+	}
+
+	public BigDecimal getItemPrice() {
+		return itemPrice;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public int getTotalPrice() {
+		return totalPrice;
+	}
+}
@@ -0,0 +1,31 @@
+package com.example.sunny.dto;
+
+import java.util.List;
+
+// =====================
+// 商品詳細のレビュー一覧：1ページ分と次ページのカーソル
+// =====================
+//
+// nextCursor が null の場合、これより古いレビューは無い。
+public class ReviewPage {
+
+	private final List<ReviewView> reviews;
+	private final String nextCursor;
+
+	public ReviewPage(List<ReviewView> reviews, String nextCursor) {
+		this.reviews = reviews;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<ReviewView> getReviews() {
+		return reviews;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public boolean isHasNext() {
+		return nextCursor != null;
+	}
+}
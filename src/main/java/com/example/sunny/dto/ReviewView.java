@@ -0,0 +1,61 @@
+package com.example.sunny.dto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// =====================
+// 商品詳細のレビュー一覧用：表示に必要な項目だけのデータ
+// =====================
+//
+// Review エンティティをそのまま読むと User / Item も一緒に取得されるため、
+// JPQL のコンストラクタ式で必要な列だけを1回のクエリで取る。
+// 「もっと見る」の JSON 応答にもそのまま使う。
+public class ReviewView {
+
+	private static final DateTimeFormatter LABEL_FORMAT = DateTimeFormatter.ofPattern("yyyy/MM/dd HH:mm");
+
+	private final Long id;
+	private final int rating;
+	private final String comment;
+	private final LocalDateTime createdAt;
+	private final Long userId;
+	private final String userName;
+
+	public ReviewView(Long id, int rating, String comment, LocalDateTime createdAt, Long userId, String userName) {
+		this.id = id;
+		this.rating = rating;
+		this.comment = comment;
+		this.createdAt = createdAt;
+		this.userId = userId;
+		this.userName = userName;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public int getRating() {
+		return rating;
+	}
+
+	public String getComment() {
+		return comment;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	// 画面表示用（yyyy/MM/dd HH:mm）
+	public String getCreatedAtLabel() {
+		return createdAt == null ? "" : createdAt.format(LABEL_FORMAT);
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public String getUserName() {
+		return userName;
+	}
+}
@@ -0,0 +1,69 @@
+package com.example.sunny.dto;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+// =====================
+// スタッフ注文管理の絞り込み条件
+// =====================
+//
+// ・status … 注文ステータス（未指定なら全部）。一致するものだけ（旧表記の CANCELED は「全部」でだけ出る）
+// ・from / to … 注文日の範囲（どちらも指定日を含む。未指定ならその側は無制限）
+//
+// 変更不可。知らないステータスは未指定として扱う。
+public final class StaffOrderFilter {
+
+	public static final List<String> STATUSES = List.of(
+			"CREATED", "PAID", "SHIPPING", "DELIVERING", "COMPLETED", "CANCELLED");
+
+	private final String status;
+	private final LocalDate from;
+	private final LocalDate to;
+
+	private StaffOrderFilter(String status, LocalDate from, LocalDate to) {
+		this.status = status;
+		this.from = from;
+		this.to = to;
+	}
+
+	public static StaffOrderFilter of(String status, LocalDate from, LocalDate to) {
+		return new StaffOrderFilter(status != null && STATUSES.contains(status) ? status : null, from, to);
+	}
+
+	public boolean isEmpty() {
+		return status == null && from == null && to == null;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public LocalDate getFrom() {
+		return from;
+	}
+
+	public LocalDate getTo() {
+		return to;
+	}
+
+	// 例：status=PAID&from=2026-01-01（条件が無ければ空文字）
+	public String toQueryString() {
+		StringBuilder sb = new StringBuilder();
+		append(sb, "status", status);
+		append(sb, "from", from == null ? null : from.toString());
+		append(sb, "to", to == null ? null : to.toString());
+		return sb.toString();
+	}
+
+	private static void append(StringBuilder sb, String name, String value) {
+		if (value == null) {
+			return;
+		}
+		if (sb.length() > 0) {
+			sb.append('&');
+		}
+		sb.append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,41 @@
+package com.example.sunny.dto;
+
+import java.util.List;
+
+// =====================
+// スタッフ注文管理：1ページ分の注文と前後ページのカーソル
+// =====================
+//
+// nextCursor / prevCursor が null の場合、そちら方向のページは無い。
+public class StaffOrderPage {
+
+	private final List<StaffOrderRow> orders;
+	private final String nextCursor;
+	private final String prevCursor;
+
+	public StaffOrderPage(List<StaffOrderRow> orders, String nextCursor, String prevCursor) {
+		this.orders = orders;
+		this.nextCursor = nextCursor;
+		this.prevCursor = prevCursor;
+	}
+
+	public List<StaffOrderRow> getOrders() {
+		return orders;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public String getPrevCursor() {
+		return prevCursor;
+	}
+
+	public boolean isHasNext() {
+		return nextCursor != null;
+	}
+
+	public boolean isHasPrev() {
+		return prevCursor != null;
+	}
+}
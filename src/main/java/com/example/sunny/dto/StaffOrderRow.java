@@ -0,0 +1,71 @@
+package com.example.sunny.dto;
+
+import java.time.LocalDateTime;
+
+import com.example.sunny.entity.Order;
+
+// =====================
+// スタッフ注文管理の一覧用：表示に必要な項目だけのデータ
+// =====================
+//
+// Order エンティティを読むと user / item（EAGER）が1件ずつ追加で読まれるため、
+// JPQL のコンストラクタ式で、注文・ユーザー名・商品名を1回のクエリで取る。
+public class StaffOrderRow {
+
+	private final Long id;
+	private final LocalDateTime createdAt;
+	private final String userName;
+	private final String itemName;
+	private final int quantity;
+	private final int totalPrice;
+	private final String status;
+	private final String trackingNumber;
+
+	public StaffOrderRow(Long id, LocalDateTime createdAt, String userName, String itemName, int quantity,
+			int totalPrice, String status, String trackingNumber) {
+		this.id = id;
+		this.createdAt = createdAt;
+		this.userName = userName;
+		this.itemName = itemName;
+		this.quantity = quantity;
+		this.totalPrice = totalPrice;
+		this.status = status;
+		this.trackingNumber = trackingNumber;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public String getUserName() {
+		return userName;
+	}
+
+	public String getItemName() {
+		return itemName;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public int getTotalPrice() {
+		return totalPrice;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public String getTrackingNumber() {
+		return trackingNumber;
+	}
+
+	public String getStatusLabel() {
+		return Order.statusLabel(status);
+	}
+}
@@ -0,0 +1,128 @@
+package com.example.sunny.entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+// =====================
+// 保管済みの注文（orders_archive）
+// =====================
+//
+// 配達完了・キャンセルから一定期間（app.orders.archive.min-age-days）経った注文を
+// OrderArchiveService が orders から移した先。列は orders と同じで、注文IDもそのまま引き継ぐ。
+// orders（稼働中の注文）には、まだ動きのある注文と最近の注文だけが残る。
+//
+// 保管後は変更しないので setter は持たない（書き込みは OrderArchiveService の SQL だけ）。
+// 画面には toOrder() で Order に詰め替えて渡す（テンプレートは稼働中の注文と共通）。
+@Entity
+@Table(name = "orders_archive", indexes = {
+		// マイページの注文履歴（本人の注文を新しい順に）
+		@Index(name = "idx_orders_archive_user_created_at_id", columnList = "user_id, created_at, id"),
+		// CSV 出力（全件を新しい順に）
+		@Index(name = "idx_orders_archive_created_at_id", columnList = "created_at, id") })
+public class ArchivedOrder {
+
+	// orders で採番された ID をそのまま使う
+	@Id
+	private Long id;
+
+	@ManyToOne
+	@JoinColumn(name = "user_id", nullable = false)
+	private User user;
+
+	@ManyToOne
+	@JoinColumn(name = "item_id", nullable = false)
+	private Item item;
+
+	@Column(nullable = false)
+	private int quantity;
+
+	@Column(name = "total_price", nullable = false)
+	private int totalPrice;
+
+	@Column(nullable = false)
+	private String status;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+
+	@Column(name = "delivery_date")
+	private LocalDate deliveryDate;
+
+	@Column(name = "tracking_number")
+	private String trackingNumber;
+
+	@Column(name = "idempotency_key", length = 36)
+	private String idempotencyKey;
+
+	// ─ 保管した日時 ─
+	@Column(name = "archived_at", nullable = false)
+	private LocalDateTime archivedAt;
+
+	// 画面用：稼働中の注文と同じ形に詰め替える（保存はしない）
+	public Order toOrder() {
+		Order order = new Order();
+		order.setId(id);
+		order.setUser(user);
+		order.setItem(item);
+		order.setQuantity(quantity);
+		order.setTotalPrice(totalPrice);
+		order.setStatus(status);
+		order.setCreatedAt(createdAt);
+		order.setDeliveryDate(deliveryDate);
+		order.setTrackingNumber(trackingNumber);
+		order.setIdempotencyKey(idempotencyKey);
+		return order;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public User getUser() {
+		return user;
+	}
+
+	public Item getItem() {
+		return item;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public int getTotalPrice() {
+		return totalPrice;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public LocalDate getDeliveryDate() {
+		return deliveryDate;
+	}
+
+	public String getTrackingNumber() {
+		return trackingNumber;
+	}
+
+	public String getIdempotencyKey() {
+		return idempotencyKey;
+	}
+
+	public LocalDateTime getArchivedAt() {
+		return archivedAt;
+	}
+}
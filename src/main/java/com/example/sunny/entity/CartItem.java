@@ -0,0 +1,83 @@
+package com.example.sunny.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+// カートの1行（ユーザー × 商品 × 数量）
+// 同じ商品を追加した場合は行を増やさず数量を足す
+@Entity
+@Table(name = "cart_items", uniqueConstraints = @UniqueConstraint(name = "uk_cart_items_user_item", columnNames = {
+		"user_id", "item_id" }))
+public class CartItem {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	// ─ ユーザー ─
+	// 本人チェックは user_id だけで足りるので、users は読みに行かない（LAZY）
+	@ManyToOne(fetch = FetchType.LAZY)
+	@JoinColumn(name = "user_id", nullable = false)
+	private User user;
+
+	// ─ 商品 ─
+	@ManyToOne
+	@JoinColumn(name = "item_id", nullable = false)
+	private Item item;
+
+	// ─ 数量 ─
+	@Column(nullable = false)
+	private int quantity;
+
+	// ─ 追加日時 ─
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+
+	// ====== getter / setter ======
+
+	public Long getId() {
+		return id;
+	}
+
+	public User getUser() {
+		return user;
+	}
+
+	public void setUser(User user) {
+		this.user = user;
+	}
+
+	public Item getItem() {
+		return item;
+	}
+
+	public void setItem(Item item) {
+		this.item = item;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public void setQuantity(int quantity) {
+		this.quantity = quantity;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(LocalDateTime createdAt) {
+		this.createdAt = createdAt;
+	}
+}
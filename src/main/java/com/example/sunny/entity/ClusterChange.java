@@ -0,0 +1,66 @@
+package com.example.sunny.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// =====================
+// 商品・注文の変更の記録（複数台構成で他のサーバーへ知らせる用）
+// =====================
+//
+// 商品・注文を変えたトランザクションで、変わった商品・注文1つにつき1行 INSERT する。
+// 各サーバーの ClusterChangeFeed が id の続きから読み、メモリ上のカタログ・検索索引・
+// スタッフ注文管理のライブ更新に反映する。
+//
+// ・kind … ITEM_SAVED / ITEM_DELETED / ORDER_CREATED / ORDER_STATUS_CHANGED
+// ・ref_id … 商品ID または 注文ID
+// ・node_id … 書いたサーバー（自分が書いた行は読み飛ばす）
+// ・起動時は DB から全件読むので、古い行は retention-hours で消してよい
+//
+// 書き込み・削除は ClusterChangeFeed が JdbcTemplate で直接行う。
+@Entity
+@Table(name = "cluster_changes", indexes = @Index(name = "idx_cluster_changes_created_at", columnList = "created_at"))
+public class ClusterChange {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(nullable = false, length = 32)
+	private String kind;
+
+	@Column(name = "ref_id", nullable = false)
+	private Long refId;
+
+	@Column(name = "node_id", nullable = false, length = 36)
+	private String nodeId;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getKind() {
+		return kind;
+	}
+
+	public Long getRefId() {
+		return refId;
+	}
+
+	public String getNodeId() {
+		return nodeId;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+}
@@ -0,0 +1,80 @@
+package com.example.sunny.entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+// =====================
+// 売上の日次集計（注文日 × 商品）
+// =====================
+//
+// 売上画面は orders を集計せず、この表だけを読む。
+// 注文の確定・キャンセルのたびに SalesRollupService が該当の1行を加減算する（コミット後、アウトボックス経由）。
+//
+// ・sales_date はキャンセルされても注文日のまま（その日の売上から引く）
+// ・order_count / units / revenue はキャンセル分を引いた数
+// ・cancelled_count はその日の注文のうちキャンセルされた件数
+//
+// 書き込みは SalesRollupService が JdbcTemplate で直接行う。
+@Entity
+@Table(name = "daily_item_sales", uniqueConstraints = @UniqueConstraint(
+		name = "uk_daily_item_sales_date_item", columnNames = { "sales_date", "item_id" }))
+public class DailyItemSales {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "sales_date", nullable = false)
+	private LocalDate salesDate;
+
+	// 商品が削除されても集計は残すので、外部キーにはしない
+	@Column(name = "item_id", nullable = false)
+	private Long itemId;
+
+	@Column(name = "order_count", nullable = false)
+	private long orderCount;
+
+	@Column(nullable = false)
+	private long units;
+
+	@Column(nullable = false)
+	private long revenue;
+
+	@Column(name = "cancelled_count", nullable = false)
+	private long cancelledCount;
+
+	public Long getId() {
+		return id;
+	}
+
+	public LocalDate getSalesDate() {
+		return salesDate;
+	}
+
+	public Long getItemId() {
+		return itemId;
+	}
+
+	public long getOrderCount() {
+		return orderCount;
+	}
+
+	public long getUnits() {
+		return units;
+	}
+
+	public long getRevenue() {
+		return revenue;
+	}
+
+	public long getCancelledCount() {
+		return cancelledCount;
+	}
+}
@@ -3,16 +3,21 @@ package com.example.sunny.entity;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 
 @Entity
-@Table(name = "items")
+// (created_at, id) はトップページのキーセットページング用
+@Table(name = "items", indexes = @Index(name = "idx_items_created_at_id", columnList = "created_at, id"))
 public class Item {
 
 	@Id
@@ -41,6 +46,27 @@ public class Item {
 	@Column(nullable = false)
 	private LocalDateTime createdAt;
 
+	// ★レビュー集計（評価の合計・件数）
+	// 詳細画面で毎回 AVG / COUNT しないよう、レビューの投稿・更新・削除時に
+	// ItemRepository.addRating() で加減算する。
+	// エンティティ保存時に古い値で上書きしないよう insertable / updatable = false。
+	@ColumnDefault("0")
+	@Column(name = "rating_sum", nullable = false, insertable = false, updatable = false)
+	private long ratingSum;
+
+	@ColumnDefault("0")
+	@Column(name = "rating_count", nullable = false, insertable = false, updatable = false)
+	private long ratingCount;
+
+	// ★更新番号（JSON API の ETag 用）
+	// 商品を保存するたび（JPA が自動で）、レビュー集計を加減算するたび（addRating で）1 増える。
+	// 楽観ロックも兼ねるので、古い内容で上書き保存しようとすると例外になり、
+	// 「同じ番号なのに中身が違う」状態は起きない。
+	@Version
+	@ColumnDefault("0")
+	@Column(nullable = false)
+	private long version;
+
 	@PrePersist
 	public void onCreate() {
 		this.createdAt = LocalDateTime.now();
@@ -106,4 +132,21 @@ public class Item {
 	public LocalDateTime getCreatedAt() {
 		return createdAt;
 	}
+
+	public long getRatingSum() {
+		return ratingSum;
+	}
+
+	public long getRatingCount() {
+		return ratingCount;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	// 平均評価（レビューが無い場合は 0.0）
+	public double getAverageRating() {
+		return ratingCount == 0 ? 0.0 : (double) ratingSum / ratingCount;
+	}
 }
@@ -8,12 +8,21 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", uniqueConstraints = @UniqueConstraint(
+		name = "uk_orders_user_idempotency_key", columnNames = { "user_id", "idempotency_key" }),
+		indexes = {
+				// スタッフ注文管理：新しい順のキーセットページング（全件／ステータス絞り込み）
+				@Index(name = "idx_orders_created_at_id", columnList = "created_at, id"),
+				@Index(name = "idx_orders_status_created_at_id", columnList = "status, created_at, id"),
+				// マイページの注文履歴：本人の注文を新しい順に（OrderHistoryService）
+				@Index(name = "idx_orders_user_created_at_id", columnList = "user_id, created_at, id") })
 public class Order {
 
 	@Id
@@ -54,6 +63,11 @@ public class Order {
 	@Column(name = "tracking_number")
 	private String trackingNumber;
 
+	// ─ 冪等キー（注文確認画面で発行。同じキーでの再送は同じ注文として扱う）─
+	// カート一括購入など、キーを使わない注文は null
+	@Column(name = "idempotency_key", length = 36)
+	private String idempotencyKey;
+
 	// ====== getter / setter ======
 
 	public Long getId() {
@@ -131,6 +145,11 @@ public class Order {
 	// ====== 画面表示用：日本語ステータス ======
 
 	public String getStatusLabel() {
+		return statusLabel(status);
+	}
+
+	// 一覧の DTO（StaffOrderRow）でも同じ表示名を使う
+	public static String statusLabel(String status) {
 		if (status == null)
 			return "";
 		switch (status) {
@@ -152,4 +171,11 @@ public class Order {
 		}
 	}
 
+	public String getIdempotencyKey() {
+		return idempotencyKey;
+	}
+
+	public void setIdempotencyKey(String idempotencyKey) {
+		this.idempotencyKey = idempotencyKey;
+	}
 }
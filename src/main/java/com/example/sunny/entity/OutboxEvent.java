@@ -0,0 +1,178 @@
+package com.example.sunny.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// =====================
+// トランザクショナル・アウトボックス（注文などの「後でやる処理」の予約）
+// =====================
+//
+// 注文を保存するのと同じトランザクションでこの行を INSERT しておき、
+// メール送信・売上集計などはコミット後に OutboxDispatcher が裏で行う。
+// 注文がロールバックされればこの行も消えるので、「注文が無いのにメールが飛ぶ」ことはない。
+//
+// 書き込み・状態の更新は OutboxService / OutboxDispatcher が JdbcTemplate で直接行う。
+@Entity
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_events_status_next", columnList = "status, next_attempt_at"))
+public class OutboxEvent {
+
+	// ─ 種類 ─
+	public static final String ORDER_PLACED = "ORDER_PLACED";
+	public static final String ORDER_CANCELLED = "ORDER_CANCELLED";
+
+	// ─ 状態 ─
+	public static final String PENDING = "PENDING";
+	public static final String PROCESSING = "PROCESSING";
+	public static final String DONE = "DONE";
+	public static final String FAILED = "FAILED";
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	// ─ 種類（ORDER_PLACED など）─
+	@Column(name = "event_type", nullable = false, length = 50)
+	private String eventType;
+
+	// ─ 対象のID（注文IDなど）─
+	@Column(name = "aggregate_id", nullable = false)
+	private Long aggregateId;
+
+	// ─ 内容（JSON）─
+	@Column(nullable = false, length = 2000)
+	private String payload;
+
+	// ─ 状態（PENDING / PROCESSING / DONE / FAILED）─
+	@Column(nullable = false, length = 16)
+	private String status;
+
+	// ─ 失敗した回数 ─
+	@Column(nullable = false)
+	private int attempts;
+
+	// ─ 次に処理してよい日時（失敗時は後ろにずらす）─
+	@Column(name = "next_attempt_at", nullable = false)
+	private LocalDateTime nextAttemptAt;
+
+	// ─ 処理中の印（取り出した dispatcher ごとの UUID）─
+	@Column(name = "claim_token", length = 36)
+	private String claimToken;
+
+	@Column(name = "claimed_at")
+	private LocalDateTime claimedAt;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+
+	@Column(name = "processed_at")
+	private LocalDateTime processedAt;
+
+	// ─ 最後の失敗理由 ─
+	@Column(name = "last_error", length = 500)
+	private String lastError;
+
+	// ====== getter / setter ======
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getEventType() {
+		return eventType;
+	}
+
+	public void setEventType(String eventType) {
+		this.eventType = eventType;
+	}
+
+	public Long getAggregateId() {
+		return aggregateId;
+	}
+
+	public void setAggregateId(Long aggregateId) {
+		this.aggregateId = aggregateId;
+	}
+
+	public String getPayload() {
+		return payload;
+	}
+
+	public void setPayload(String payload) {
+		this.payload = payload;
+	}
+
+	public String getStatus() {
+		return status;
+	}
+
+	public void setStatus(String status) {
+		this.status = status;
+	}
+
+	public int getAttempts() {
+		return attempts;
+	}
+
+	public void setAttempts(int attempts) {
+		this.attempts = attempts;
+	}
+
+	public LocalDateTime getNextAttemptAt() {
+		return nextAttemptAt;
+	}
+
+	public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+		this.nextAttemptAt = nextAttemptAt;
+	}
+
+	public String getClaimToken() {
+		return claimToken;
+	}
+
+	public void setClaimToken(String claimToken) {
+		this.claimToken = claimToken;
+	}
+
+	public LocalDateTime getClaimedAt() {
+		return claimedAt;
+	}
+
+	public void setClaimedAt(LocalDateTime claimedAt) {
+		this.claimedAt = claimedAt;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(LocalDateTime createdAt) {
+		this.createdAt = createdAt;
+	}
+
+	public LocalDateTime getProcessedAt() {
+		return processedAt;
+	}
+
+	public void setProcessedAt(LocalDateTime processedAt) {
+		this.processedAt = processedAt;
+	}
+
+	public String getLastError() {
+		return lastError;
+	}
+
+	public void setLastError(String lastError) {
+		this.lastError = lastError;
+	}
+}
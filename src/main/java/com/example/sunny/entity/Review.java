@@ -7,12 +7,14 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "reviews")
+// (item_id, created_at, id) は商品詳細のレビュー一覧（新しい順のページング）用
+@Table(name = "reviews", indexes = @Index(name = "idx_reviews_item_created_at_id", columnList = "item_id, created_at, id"))
 public class Review {
 
 	@Id
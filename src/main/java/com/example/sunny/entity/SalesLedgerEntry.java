@@ -0,0 +1,39 @@
+package com.example.sunny.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// =====================
+// 売上集計の台帳（注文1件ごとに「集計に入っているか」）
+// =====================
+//
+// アウトボックスは同じイベントを2回届けることがあり、
+// 再実行の順番によってはキャンセルが確定より先に届くこともある。
+// 注文ごとに counted を持っておき、変わった時だけ daily_item_sales を加減算する。
+//
+//   確定   … 行が無ければ counted=true で作って加算（既にあれば何もしない）
+//   キャンセル … counted=true なら false にして減算／行が無ければ counted=false で作る
+//              （後から届いた確定は、行があるので加算されない）
+//
+// 書き込みは SalesRollupService が JdbcTemplate で直接行う。
+@Entity
+@Table(name = "sales_ledger")
+public class SalesLedgerEntry {
+
+	@Id
+	@Column(name = "order_id")
+	private Long orderId;
+
+	@Column(nullable = false)
+	private boolean counted;
+
+	public Long getOrderId() {
+		return orderId;
+	}
+
+	public boolean isCounted() {
+		return counted;
+	}
+}
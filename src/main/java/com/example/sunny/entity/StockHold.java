@@ -0,0 +1,61 @@
+package com.example.sunny.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// =====================
+// 在庫の一時確保（注文確認〜注文確定の間）
+// =====================
+//
+// app.stock-hold.store=memory：確保の本体はメモリ上（StockHoldService）にあり、このテーブルは再起動時の復元用。
+// app.stock-hold.store=jdbc：このテーブルが台帳そのもの（複数台で共有）。
+// 書き込み・削除は StockHoldService が JdbcTemplate で直接行う。
+// ID は StockHoldService で採番した UUID。
+@Entity
+@Table(name = "stock_holds", indexes = {
+		@Index(name = "idx_stock_holds_expires_at", columnList = "expires_at"),
+		@Index(name = "idx_stock_holds_item_user", columnList = "item_id, username") })
+public class StockHold {
+
+	@Id
+	@Column(length = 36)
+	private String id;
+
+	@Column(name = "item_id", nullable = false)
+	private Long itemId;
+
+	// ログインID（email）
+	@Column(nullable = false)
+	private String username;
+
+	@Column(nullable = false)
+	private int quantity;
+
+	@Column(name = "expires_at", nullable = false)
+	private LocalDateTime expiresAt;
+
+	public String getId() {
+		return id;
+	}
+
+	public Long getItemId() {
+		return itemId;
+	}
+
+	public String getUsername() {
+		return username;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public LocalDateTime getExpiresAt() {
+		return expiresAt;
+	}
+}
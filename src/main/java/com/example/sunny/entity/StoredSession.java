@@ -0,0 +1,79 @@
+package com.example.sunny.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// =====================
+// HTTP セッション（DB 保存モード：app.session.store=jdbc の時だけ使う）
+// =====================
+//
+// どのサーバーに来たリクエストでも同じセッションを読めるよう、セッションをアプリの DB に置く。
+// 属性は http_session_attributes に1属性1行で持つ（変わった属性だけ書き直せるように）。
+//
+// ・primary_id … 行の ID（変わらない。属性はこれで紐づける）
+// ・session_id … Cookie に載る ID（ログイン時などに付け替える）
+// ・時刻はすべてエポックミリ秒。expiry_time を過ぎたら無効（JdbcSessionRepository がまとめて消す）
+// ・principal_name … ログイン中ユーザーのログインID（email）。未ログインは null
+//
+// 書き込み・削除は JdbcSessionRepository が JdbcTemplate で直接行う。
+@Entity
+@Table(name = "http_sessions", indexes = {
+		@Index(name = "uk_http_sessions_session_id", columnList = "session_id", unique = true),
+		@Index(name = "idx_http_sessions_expiry_time", columnList = "expiry_time"),
+		@Index(name = "idx_http_sessions_principal_name", columnList = "principal_name") })
+public class StoredSession {
+
+	@Id
+	@Column(name = "primary_id", length = 36)
+	private String primaryId;
+
+	@Column(name = "session_id", nullable = false, length = 64)
+	private String sessionId;
+
+	@Column(name = "creation_time", nullable = false)
+	private long creationTime;
+
+	@Column(name = "last_access_time", nullable = false)
+	private long lastAccessTime;
+
+	// 秒
+	@Column(name = "max_inactive_interval", nullable = false)
+	private int maxInactiveInterval;
+
+	@Column(name = "expiry_time", nullable = false)
+	private long expiryTime;
+
+	@Column(name = "principal_name")
+	private String principalName;
+
+	public String getPrimaryId() {
+		return primaryId;
+	}
+
+	public String getSessionId() {
+		return sessionId;
+	}
+
+	public long getCreationTime() {
+		return creationTime;
+	}
+
+	public long getLastAccessTime() {
+		return lastAccessTime;
+	}
+
+	public int getMaxInactiveInterval() {
+		return maxInactiveInterval;
+	}
+
+	public long getExpiryTime() {
+		return expiryTime;
+	}
+
+	public String getPrincipalName() {
+		return principalName;
+	}
+}
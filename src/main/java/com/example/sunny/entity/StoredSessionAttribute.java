@@ -0,0 +1,52 @@
+package com.example.sunny.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+// =====================
+// HTTP セッションの属性（1属性1行・値は Java シリアライズしたバイト列）
+// =====================
+//
+// セッション（http_sessions）の primary_id で紐づける。
+// セッションを消す時は JdbcSessionRepository が属性も一緒に消すので、外部キーにはしない。
+//
+// 書き込み・削除は JdbcSessionRepository が JdbcTemplate で直接行う。
+@Entity
+@Table(name = "http_session_attributes", uniqueConstraints = @UniqueConstraint(
+		name = "uk_http_session_attributes_session_name", columnNames = { "session_primary_id", "attribute_name" }))
+public class StoredSessionAttribute {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "session_primary_id", nullable = false, length = 36)
+	private String sessionPrimaryId;
+
+	@Column(name = "attribute_name", nullable = false, length = 200)
+	private String attributeName;
+
+	@Column(name = "attribute_bytes", nullable = false, length = 1_048_576)
+	private byte[] attributeBytes;
+
+	public Long getId() {
+		return id;
+	}
+
+	public String getSessionPrimaryId() {
+		return sessionPrimaryId;
+	}
+
+	public String getAttributeName() {
+		return attributeName;
+	}
+
+	public byte[] getAttributeBytes() {
+		return attributeBytes;
+	}
+}
@@ -0,0 +1,60 @@
+package com.example.sunny.entity;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// =====================
+// ユーザーのステータス変更の記録（全サーバーへ知らせる用）
+// =====================
+//
+// 管理者がステータスを変えたトランザクションで1行 INSERT する。
+// 各サーバーの SessionRevocationService が id の続きから読み、
+// BAN / 停止されたユーザーのログイン中セッションを切る。
+//
+// ・id は増えていく番号（どこまで読んだかの目印）
+// ・起動時は users テーブルから今の状態を読むので、古い行は retention-hours で消してよい
+//
+// 書き込み・削除は SessionRevocationService が JdbcTemplate で直接行う。
+@Entity
+@Table(name = "user_status_changes", indexes = @Index(name = "idx_user_status_changes_created_at", columnList = "created_at"))
+public class UserStatusChange {
+
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	private Long id;
+
+	@Column(name = "user_id", nullable = false)
+	private Long userId;
+
+	@Enumerated(EnumType.STRING)
+	@Column(nullable = false, length = 16)
+	private UserStatus status;
+
+	@Column(name = "created_at", nullable = false)
+	private LocalDateTime createdAt;
+
+	public Long getId() {
+		return id;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public UserStatus getStatus() {
+		return status;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+}
@@ -0,0 +1,58 @@
+package com.example.sunny.event;
+
+import com.example.sunny.dto.ItemSummary;
+import com.example.sunny.entity.Item;
+
+// =====================
+// 商品の登録・更新・削除・在庫変動を知らせるイベント
+// =====================
+//
+// 商品を書き換えた Controller が publish し、
+// メモリ上のカタログなどがコミット後に受け取って自分の内容を更新する。
+//
+// ・item が入っている … 登録 or 更新（在庫変動を含む）
+// ・item が null       … itemId の商品が削除された
+//
+// 複数台構成では ClusterChangeFeed が他のサーバーでの変更を読み、replicated() を付けて publish し直す
+// （付いているイベントは記録し直さない）。
+public class ItemChangedEvent {
+
+	private final Long itemId;
+	private final ItemSummary item;
+	private final boolean replicated;
+
+	private ItemChangedEvent(Long itemId, ItemSummary item, boolean replicated) {
+		this.itemId = itemId;
+		this.item = item;
+		this.replicated = replicated;
+	}
+
+	public static ItemChangedEvent saved(Item item) {
+		return new ItemChangedEvent(item.getId(), ItemSummary.of(item), false);
+	}
+
+	public static ItemChangedEvent deleted(Long itemId) {
+		return new ItemChangedEvent(itemId, null, false);
+	}
+
+	// 他のサーバーでの変更として publish し直す用
+	public ItemChangedEvent replicated() {
+		return new ItemChangedEvent(itemId, item, true);
+	}
+
+	public Long getItemId() {
+		return itemId;
+	}
+
+	public ItemSummary getItem() {
+		return item;
+	}
+
+	public boolean isDeleted() {
+		return item == null;
+	}
+
+	public boolean isReplicated() {
+		return replicated;
+	}
+}
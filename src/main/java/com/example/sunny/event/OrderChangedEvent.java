@@ -0,0 +1,56 @@
+package com.example.sunny.event;
+
+import java.util.List;
+
+// =====================
+// 注文の作成・ステータス変更を知らせるイベント
+// =====================
+//
+// 注文を作った・ステータスを変えた処理が publish し、
+// スタッフ注文管理のライブ更新（OrderEventHub）がコミット後に受け取って画面へ流す。
+//
+// 中身は注文IDだけ。表示用の行は受け取った側が（見ている人がいる時だけ）まとめて読む。
+//
+// 複数台構成では ClusterChangeFeed が他のサーバーでの変更を読み、replicated() を付けて publish し直す
+// （付いているイベントは記録し直さない）。
+public class OrderChangedEvent {
+
+	public enum Type {
+		CREATED, STATUS_CHANGED
+	}
+
+	private final Type type;
+	private final List<Long> orderIds;
+	private final boolean replicated;
+
+	private OrderChangedEvent(Type type, List<Long> orderIds, boolean replicated) {
+		this.type = type;
+		this.orderIds = orderIds;
+		this.replicated = replicated;
+	}
+
+	public static OrderChangedEvent created(List<Long> orderIds) {
+		return new OrderChangedEvent(Type.CREATED, List.copyOf(orderIds), false);
+	}
+
+	public static OrderChangedEvent statusChanged(List<Long> orderIds) {
+		return new OrderChangedEvent(Type.STATUS_CHANGED, List.copyOf(orderIds), false);
+	}
+
+	// 他のサーバーでの変更として publish し直す用
+	public OrderChangedEvent replicated() {
+		return new OrderChangedEvent(type, orderIds, true);
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public List<Long> getOrderIds() {
+		return orderIds;
+	}
+
+	public boolean isReplicated() {
+		return replicated;
+	}
+}
@@ -0,0 +1,15 @@
+package com.example.sunny.event;
+
+// =====================
+// アウトボックスに行が追加されたことを知らせるイベント
+// =====================
+//
+// OutboxService が publish し、OutboxDispatcher がコミット後に受け取って
+// 次のポーリングを待たずに処理を始める（中身は持たない。合図だけ）。
+public class OutboxRecordedEvent {
+
+	public static final OutboxRecordedEvent INSTANCE = new OutboxRecordedEvent();
+
+	private OutboxRecordedEvent() {
+	}
+}
@@ -0,0 +1,29 @@
+package com.example.sunny.event;
+
+import com.example.sunny.entity.UserStatus;
+
+// =====================
+// ユーザーのステータス変更（ACTIVE / SUSPENDED / BANNED）を知らせるイベント
+// =====================
+//
+// 管理者のユーザー管理画面が publish し、
+// SessionRevocationService が変更の記録（user_status_changes）と、
+// このサーバーのセッション切断の対象の更新を行う。
+public class UserStatusChangedEvent {
+
+	private final Long userId;
+	private final UserStatus status;
+
+	public UserStatusChangedEvent(Long userId, UserStatus status) {
+		this.userId = userId;
+		this.status = status;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public UserStatus getStatus() {
+		return status;
+	}
+}
@@ -35,6 +35,10 @@ public class ItemForm {
 	// ★追加：既存画像を保持する（編集で画像を変えない時に必要）
 	private String imageUrl;
 
+	// 編集画面を開いた時の商品の更新番号（Item.version）。
+	// 保存までの間に注文などで商品が変わっていたら、上書きせずに画面へ戻す
+	private Long version;
+
 	public ItemForm() {
 		this.status = "PUBLIC";
 	}
@@ -102,4 +106,12 @@ public class ItemForm {
 	public void setImageUrl(String imageUrl) {
 		this.imageUrl = imageUrl;
 	}
+
+	public Long getVersion() {
+		return version;
+	}
+
+	public void setVersion(Long version) {
+		this.version = version;
+	}
 }
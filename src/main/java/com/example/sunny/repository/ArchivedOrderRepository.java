@@ -0,0 +1,45 @@
+package com.example.sunny.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.sunny.dto.OrderHistoryRow;
+import com.example.sunny.entity.ArchivedOrder;
+
+// =====================
+// 保管済みの注文（orders_archive）の読み込み
+// =====================
+//
+// 画面からは直接使わず、OrderHistoryService 経由で読む
+// （稼働中の注文だけで足りる間は、こちらは読まない）。
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+	// マイページの注文履歴（OrderRepository.findHistory と同じ形）
+	@Query("SELECT new com.example.sunny.dto.OrderHistoryRow("
+			+ " o.id, o.createdAt, i.name, o.quantity, o.totalPrice, o.status)"
+			+ " FROM ArchivedOrder o LEFT JOIN o.item i WHERE o.user.id = :userId"
+			+ " ORDER BY o.createdAt DESC, o.id DESC")
+	List<OrderHistoryRow> findHistory(@Param("userId") Long userId, Limit limit);
+
+	@Query("SELECT new com.example.sunny.dto.OrderHistoryRow("
+			+ " o.id, o.createdAt, i.name, o.quantity, o.totalPrice, o.status)"
+			+ " FROM ArchivedOrder o LEFT JOIN o.item i WHERE o.user.id = :userId"
+			+ " AND o.createdAt <= :createdAt AND (o.createdAt < :createdAt OR o.id < :id)"
+			+ " ORDER BY o.createdAt DESC, o.id DESC")
+	List<OrderHistoryRow> findHistoryOlderThan(
+			@Param("userId") Long userId,
+			@Param("createdAt") LocalDateTime createdAt,
+			@Param("id") Long id,
+			Limit limit);
+
+	// このユーザーの保管済みの注文で一番新しい注文日時（無ければ空）
+	// idx_orders_archive_user_created_at_id の端を読むだけなので、毎回呼んでも軽い
+	@Query("SELECT MAX(o.createdAt) FROM ArchivedOrder o WHERE o.user.id = :userId")
+	Optional<LocalDateTime> findNewestCreatedAt(@Param("userId") Long userId);
+}
@@ -0,0 +1,26 @@
+package com.example.sunny.repository;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.sunny.entity.CartItem;
+
+public interface CartItemRepository extends JpaRepository<CartItem, Long> {
+
+	// カートの中身（商品も一緒に取得。商品ID順＝購入時に在庫を確保する順番）
+	@Query("SELECT c FROM CartItem c JOIN FETCH c.item WHERE c.user.id = :userId ORDER BY c.item.id")
+	List<CartItem> findWithItemByUserId(@Param("userId") Long userId);
+
+	// 同じ商品がカートにあるか（数量を足す用）
+	Optional<CartItem> findByUserIdAndItemId(Long userId, Long itemId);
+
+	// 購入後にカートを空にする
+	@Modifying
+	@Query("DELETE FROM CartItem c WHERE c.user.id = :userId")
+	int deleteByUserId(@Param("userId") Long userId);
+}
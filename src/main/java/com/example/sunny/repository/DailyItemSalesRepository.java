@@ -0,0 +1,37 @@
+package com.example.sunny.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import com.example.sunny.dto.DailySalesTotal;
+import com.example.sunny.dto.ItemSalesTotal;
+import com.example.sunny.entity.DailyItemSales;
+
+// =====================
+// 売上画面用：日次集計（daily_item_sales）だけを読む
+// =====================
+//
+// orders は読まない。読む行数は「期間の日数 × その日に売れた商品数」までで、
+// 注文の総数が増えても変わらない（(sales_date, item_id) の一意制約のインデックスで期間を絞る）。
+public interface DailyItemSalesRepository extends JpaRepository<DailyItemSales, Long> {
+
+	// 日ごとの合計（新しい日が上）
+	@Query("SELECT new com.example.sunny.dto.DailySalesTotal("
+			+ " s.salesDate, SUM(s.orderCount), SUM(s.units), SUM(s.revenue), SUM(s.cancelledCount))"
+			+ " FROM DailyItemSales s WHERE s.salesDate BETWEEN :from AND :to"
+			+ " GROUP BY s.salesDate ORDER BY s.salesDate DESC")
+	List<DailySalesTotal> findDailyTotals(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+	// 期間中の商品ごとの合計（売上の多い順）
+	@Query("SELECT new com.example.sunny.dto.ItemSalesTotal("
+			+ " s.itemId, i.name, SUM(s.orderCount), SUM(s.units), SUM(s.revenue))"
+			+ " FROM DailyItemSales s LEFT JOIN Item i ON i.id = s.itemId"
+			+ " WHERE s.salesDate BETWEEN :from AND :to"
+			+ " GROUP BY s.itemId, i.name ORDER BY SUM(s.revenue) DESC, s.itemId")
+	List<ItemSalesTotal> findItemTotals(@Param("from") LocalDate from, @Param("to") LocalDate to, Limit limit);
+}
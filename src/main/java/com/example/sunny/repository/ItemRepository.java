@@ -1,13 +1,132 @@
 package com.example.sunny.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.example.sunny.dto.ItemDetailView;
+import com.example.sunny.dto.ItemJson;
 import com.example.sunny.entity.Item;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
 
 	// 公開中の商品だけ取る用
 	List<Item> findByStatus(String status);
+
+	// =====================
+	// トップページ用：キーセット（createdAt, id）ページング
+	// =====================
+	//
+	// OFFSET を使わず「前ページの最後の行」を起点に取るので、
+	// 何ページ目でも (created_at, id) インデックスを辿るだけで済む。
+
+	// 1ページ目（新しい順）
+	@Query("SELECT i FROM Item i ORDER BY i.createdAt DESC, i.id DESC")
+	List<Item> findNewest(Limit limit);
+
+	// 次ページ：カーソルより古い商品（新しい順）
+	@Query("SELECT i FROM Item i"
+			+ " WHERE i.createdAt < :createdAt OR (i.createdAt = :createdAt AND i.id < :id)"
+			+ " ORDER BY i.createdAt DESC, i.id DESC")
+	List<Item> findOlderThan(
+			@Param("createdAt") LocalDateTime createdAt,
+			@Param("id") Long id,
+			Limit limit);
+
+	// 前ページ：カーソルより新しい商品（古い順で取り、呼び出し側で反転する）
+	@Query("SELECT i FROM Item i"
+			+ " WHERE i.createdAt > :createdAt OR (i.createdAt = :createdAt AND i.id > :id)"
+			+ " ORDER BY i.createdAt ASC, i.id ASC")
+	List<Item> findNewerThan(
+			@Param("createdAt") LocalDateTime createdAt,
+			@Param("id") Long id,
+			Limit limit);
+
+	// =====================
+	// 商品詳細画面用：商品・レビュー集計・お気に入り状態を1クエリで取得
+	// =====================
+	//
+	// userId は閲覧中ユーザーの ID（未ログインなら null → お気に入りは false）。
+	// favorites の user_id をそのまま比べるので users テーブルは読まない。
+	@Query("SELECT new com.example.sunny.dto.ItemDetailView("
+			+ " i.id, i.name, i.description, i.price, i.stock, i.status, i.imageUrl,"
+			+ " i.ratingSum, i.ratingCount,"
+			+ " CASE WHEN EXISTS (SELECT 1 FROM Favorite f WHERE f.item.id = i.id AND f.user.id = :userId)"
+			+ " THEN true ELSE false END)"
+			+ " FROM Item i WHERE i.id = :id")
+	Optional<ItemDetailView> findDetailView(@Param("id") Long id, @Param("userId") Long userId);
+
+	// =====================
+	// JSON API 用：ETag の判定と詳細データ
+	// =====================
+	//
+	// findVersionById は version 列だけを読む（エンティティは読み込まない）。
+	// If-None-Match が一致すれば、これだけで 304 を返せる。
+	@Query("SELECT i.version FROM Item i WHERE i.id = :id")
+	Optional<Long> findVersionById(@Param("id") Long id);
+
+	@Query("SELECT new com.example.sunny.dto.ItemJson("
+			+ " i.id, i.name, i.description, i.price, i.stock, i.status, i.imageUrl,"
+			+ " i.createdAt, i.ratingSum, i.ratingCount, i.version)"
+			+ " FROM Item i WHERE i.id = :id")
+	Optional<ItemJson> findJsonById(@Param("id") Long id);
+
+	// =====================
+	// 在庫の確保・戻し（注文確定・キャンセル）
+	// =====================
+	//
+	// 「在庫が足りる時だけ減らす」を UPDATE 1文で行う。
+	// 同時に何人が買っても、DB が行単位で順番に判定するので売り越しは起きない。
+	// 戻り値 1＝確保できた、0＝在庫不足（または商品なし）。
+	//
+	// held は他の人が注文確認中で一時確保している数（StockHoldService）。
+	// その分は残して減らす。確保を気にしない場合は 0。
+	//
+	// SET 句の右辺は更新前の値で評価されるので、SOLD への切り替えも同じ文で判定できる。
+	// 実行後は永続化コンテキストをクリアするので、最新の商品は findById で読み直すこと。
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Item i SET i.stock = i.stock - :quantity,"
+			+ " i.status = CASE WHEN i.stock - :quantity <= 0 THEN 'SOLD' ELSE i.status END,"
+			+ " i.version = i.version + 1"
+			+ " WHERE i.id = :itemId AND i.stock - :held >= :quantity")
+	int reserveStock(@Param("itemId") Long itemId, @Param("quantity") int quantity, @Param("held") int held);
+
+	// キャンセル時に在庫を戻す（SOLD だった商品は販売中に戻す）
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Item i SET i.stock = i.stock + :quantity,"
+			+ " i.status = CASE WHEN i.status = 'SOLD' AND i.stock + :quantity > 0 THEN '販売中' ELSE i.status END,"
+			+ " i.version = i.version + 1"
+			+ " WHERE i.id = :itemId")
+	int releaseStock(@Param("itemId") Long itemId, @Param("quantity") int quantity);
+
+	// =====================
+	// レビュー集計（rating_sum / rating_count）の更新
+	// =====================
+	//
+	// 読み込み→計算→保存ではなく UPDATE 1文で加減算するので、
+	// 同時にレビューが投稿されても集計がずれない。
+	// 平均評価は JSON API に出すので version も一緒に増やす。
+	// 呼び出し側のトランザクション内で実行すること。
+	@Modifying
+	@Query("UPDATE Item i SET i.ratingSum = i.ratingSum + :sumDelta,"
+			+ " i.ratingCount = i.ratingCount + :countDelta,"
+			+ " i.version = i.version + 1 WHERE i.id = :itemId")
+	int addRating(
+			@Param("itemId") Long itemId,
+			@Param("sumDelta") long sumDelta,
+			@Param("countDelta") long countDelta);
+
+	// 全商品の集計を reviews テーブルから作り直す（初回移行・ずれ補正用）
+	@Modifying
+	@Query("UPDATE Item i SET"
+			+ " i.ratingSum = (SELECT COALESCE(SUM(r.rating), 0) FROM Review r WHERE r.item.id = i.id),"
+			+ " i.ratingCount = (SELECT COUNT(r) FROM Review r WHERE r.item.id = i.id),"
+			+ " i.version = i.version + 1")
+	int rebuildRatingAggregates();
 }
@@ -1,17 +1,77 @@
 package com.example.sunny.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.example.sunny.dto.OrderHistoryRow;
+import com.example.sunny.dto.OrderReceipt;
 import com.example.sunny.entity.Order;
 import com.example.sunny.entity.User;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
-	// ログインユーザーの注文履歴を新しい順に取得
+	// ログインユーザーの注文履歴を新しい順に取得（全件。画面はページ単位の findHistory を使う）
 	List<Order> findByUserOrderByCreatedAtDesc(User user);
 
-	// ★追加：全注文を新しい順で表示（スタッフ用）
-	List<Order> findAllByOrderByCreatedAtDesc();
-}
\ No newline at end of file
+	// =====================
+	// マイページの注文履歴（稼働中の注文）：キーセットページング
+	// =====================
+	//
+	// 保管済みの注文と合わせた並べ替えは OrderHistoryService が行う。
+	// (user_id, created_at, id) インデックスを新しい順に辿る。
+	@Query("SELECT new com.example.sunny.dto.OrderHistoryRow("
+			+ " o.id, o.createdAt, i.name, o.quantity, o.totalPrice, o.status)"
+			+ " FROM Order o LEFT JOIN o.item i WHERE o.user.id = :userId"
+			+ " ORDER BY o.createdAt DESC, o.id DESC")
+	List<OrderHistoryRow> findHistory(@Param("userId") Long userId, Limit limit);
+
+	@Query("SELECT new com.example.sunny.dto.OrderHistoryRow("
+			+ " o.id, o.createdAt, i.name, o.quantity, o.totalPrice, o.status)"
+			+ " FROM Order o LEFT JOIN o.item i WHERE o.user.id = :userId"
+			+ " AND o.createdAt <= :createdAt AND (o.createdAt < :createdAt OR o.id < :id)"
+			+ " ORDER BY o.createdAt DESC, o.id DESC")
+	List<OrderHistoryRow> findHistoryOlderThan(
+			@Param("userId") Long userId,
+			@Param("createdAt") LocalDateTime createdAt,
+			@Param("id") Long id,
+			Limit limit);
+
+	// 冪等キーで確定済みの注文を探す（注文確定の再送時。完了画面に要る列だけ取る）
+	@Query("SELECT new com.example.sunny.dto.OrderReceipt("
+			+ " o.id, i.id, i.name, i.price, o.quantity, o.totalPrice)"
+			+ " FROM Order o JOIN o.item i"
+			+ " WHERE o.user.email = :email AND o.idempotencyKey = :key")
+	Optional<OrderReceipt> findReceiptByIdempotencyKey(@Param("email") String email, @Param("key") String key);
+
+	// =====================
+	// 利用者によるキャンセル（CREATED の時だけ。UPDATE 1文で判定と変更をする）
+	// =====================
+	//
+	// 戻り値 1＝キャンセルした、0＝既にキャンセル済み・スタッフが進めた・他人の注文。
+	// 読んでから書く形にすると、同時に2回押された時やスタッフの変更と重なった時に
+	// 在庫を2回戻したり、発送済みの注文をキャンセルに戻したりする。
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Order o SET o.status = 'CANCELLED'"
+			+ " WHERE o.id = :orderId AND o.user.id = :userId AND o.status = 'CREATED'")
+	int cancelIfCreated(@Param("orderId") Long orderId, @Param("userId") Long userId);
+
+	// =====================
+	// スタッフ：1件ずつのステータス変更（キャンセル済み・完了済みでない時だけ）
+	// =====================
+	//
+	// 戻り値 1＝変更した、0＝キャンセル済み・完了済み（または注文なし）。
+	// 判定と変更を UPDATE 1文にし、変えるのはステータスだけにする。
+	// 読んでからエンティティごと保存すると、その間に一括変更で進んだステータスや
+	// 追跡番号を読んだ時の値で上書きしてしまう。
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Order o SET o.status = :status"
+			+ " WHERE o.id = :orderId AND o.status NOT IN ('CANCELLED', 'CANCELED', 'COMPLETED')")
+	int updateStatusIfOpen(@Param("orderId") Long orderId, @Param("status") String status);
+}
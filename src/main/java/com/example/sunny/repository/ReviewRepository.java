@@ -1,11 +1,15 @@
 package com.example.sunny.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import com.example.sunny.dto.ReviewView;
 import com.example.sunny.entity.Item;
 import com.example.sunny.entity.Review;
 import com.example.sunny.entity.User;
@@ -27,4 +31,45 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
 
 	// （必要なら）直近のレビューを取りたい時用
 	Review findFirstByUserAndItemOrderByCreatedAtDesc(User user, Item item);
+
+	// =====================
+	// 商品詳細用：レビューのキーセットページング
+	// =====================
+	//
+	// 表示に必要な列だけを ReviewView に詰めて取得する（User / Item を丸ごと読まない）。
+	// (item_id, created_at, id) インデックスを辿るので、何ページ目でも同じコスト。
+
+	// 最新のレビューから
+	@Query("SELECT new com.example.sunny.dto.ReviewView(r.id, r.rating, r.comment, r.createdAt, u.id, u.name)"
+			+ " FROM Review r JOIN r.user u"
+			+ " WHERE r.item.id = :itemId"
+			+ " ORDER BY r.createdAt DESC, r.id DESC")
+	List<ReviewView> findNewestViews(@Param("itemId") Long itemId, Limit limit);
+
+	// カーソルより古いレビュー
+	@Query("SELECT new com.example.sunny.dto.ReviewView(r.id, r.rating, r.comment, r.createdAt, u.id, u.name)"
+			+ " FROM Review r JOIN r.user u"
+			+ " WHERE r.item.id = :itemId"
+			+ " AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id < :id))"
+			+ " ORDER BY r.createdAt DESC, r.id DESC")
+	List<ReviewView> findOlderViews(
+			@Param("itemId") Long itemId,
+			@Param("createdAt") LocalDateTime createdAt,
+			@Param("id") Long id,
+			Limit limit);
+
+	// =====================
+	// レビュー編集：読んだ時の評価のままなら書き換える
+	// =====================
+	//
+	// 更新できた件数を返す。0 なら読んだ後に他の画面で書き換えられている。
+	// 評価そのものを比べるので、1 の時は「新しい評価 − expected」が集計に足すべき差分になる。
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Review r SET r.rating = :rating, r.comment = :comment"
+			+ " WHERE r.id = :reviewId AND r.rating = :expected")
+	int updateIfRatingIs(
+			@Param("reviewId") Long reviewId,
+			@Param("expected") int expected,
+			@Param("rating") int rating,
+			@Param("comment") String comment);
 }
@@ -0,0 +1,158 @@
+package com.example.sunny.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.sunny.dto.ItemSummary;
+import com.example.sunny.event.ItemChangedEvent;
+import com.example.sunny.repository.ItemRepository;
+
+// =====================
+// 商品カタログのメモリキャッシュ
+// =====================
+//
+// 商品一覧（トップページ・スタッフ商品管理）を表示するたびに
+// DB へ問い合わせないよう、全商品のスナップショットをメモリに持つ。
+//
+// 【読み取り】
+// ・volatile フィールドを読むだけなのでロック不要
+// ・一度作られた後は SQL を一切発行しない
+//
+// 【更新】
+// ・商品を書き換えた処理が ItemChangedEvent を publish する
+// ・トランザクションのコミット後に、その1商品だけを差し替えた
+//   新しいスナップショットを作って入れ替える（全件の再読み込みはしない）
+// ・コミット後のイベントは、同じ商品について順番どおりに届くとは限らない
+//   （同時に買われた人気商品など）。ItemSummary の version（Item の更新番号）が
+//   持っているもの以下なら古い変更なので捨てる。削除済みの商品への変更も捨てる
+//
+// 【統計】
+// ・hit / miss 件数、全件再構築の回数と所要時間を getStats() で返す
+//
+// ※ メモリはアプリ（JVM）ごと。複数台構成（app.session.store=jdbc）では、
+//   他のサーバーでの変更を ClusterChangeFeed が読んで ItemChangedEvent を publish し直す
+@Service
+public class CatalogCache {
+
+	private final ItemRepository itemRepository;
+
+	// 現在のスナップショット（未作成なら null）
+	private volatile CatalogSnapshot snapshot;
+
+	// 削除された商品の ID（ID は使い回されないので、後から届いた古い変更で復活させない）
+	private final Set<Long> deletedIds = ConcurrentHashMap.newKeySet();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder patches = new LongAdder();
+	private final LongAdder stalePatches = new LongAdder();
+	private final LongAdder rebuilds = new LongAdder();
+	private final LongAdder rebuildNanosTotal = new LongAdder();
+	private volatile long lastRebuildNanos;
+
+	public CatalogCache(ItemRepository itemRepository) {
+		this.itemRepository = itemRepository;
+	}
+
+	// =====================
+	// 起動完了時に1回だけ全件読み込む
+	// =====================
+	@EventListener(ApplicationReadyEvent.class)
+	public void warmUp() {
+		rebuild();
+	}
+
+	// =====================
+	// 現在のスナップショットを返す
+	// =====================
+	public CatalogSnapshot snapshot() {
+		CatalogSnapshot current = snapshot;
+		if (current != null) {
+			hits.increment();
+			return current;
+		}
+		misses.increment();
+		return rebuild();
+	}
+
+	// =====================
+	// 全件読み込みでスナップショットを作り直す
+	// =====================
+	public synchronized CatalogSnapshot rebuild() {
+		long start = System.nanoTime();
+
+		List<ItemSummary> items = itemRepository.findAll().stream()
+				.map(ItemSummary::of)
+				.toList();
+		CatalogSnapshot current = snapshot;
+		CatalogSnapshot next = CatalogSnapshot.build(current == null ? 1 : current.getVersion() + 1, items);
+		snapshot = next;
+
+		long elapsed = System.nanoTime() - start;
+		lastRebuildNanos = elapsed;
+		rebuildNanosTotal.add(elapsed);
+		rebuilds.increment();
+		return next;
+	}
+
+	// =====================
+	// 商品変更をコミット後に反映（1商品だけ差し替え）
+	// =====================
+	//
+	// fallbackExecution = true：トランザクション外で publish された場合も即反映する
+	@TransactionalEventListener(fallbackExecution = true)
+	public synchronized void onItemChanged(ItemChangedEvent event) {
+		if (event.isDeleted()) {
+			deletedIds.add(event.getItemId());
+		}
+		CatalogSnapshot current = snapshot;
+		if (current == null) {
+			// まだ作られていなければ、次の読み取りで全件作るので何もしない
+			return;
+		}
+		if (event.isDeleted()) {
+			snapshot = current.without(event.getItemId());
+			patches.increment();
+			return;
+		}
+
+		// 古い変更（後の変更が先に反映済み・削除済み）は捨てる
+		ItemSummary cached = current.get(event.getItemId());
+		if (deletedIds.contains(event.getItemId())
+				|| (cached != null && event.getItem().getVersion() <= cached.getVersion())) {
+			stalePatches.increment();
+			return;
+		}
+		snapshot = current.with(event.getItem());
+		patches.increment();
+	}
+
+	// =====================
+	// 統計情報（スタッフ向けの確認用）
+	// =====================
+	public Map<String, Object> getStats() {
+		CatalogSnapshot current = snapshot;
+		long rebuildCount = rebuilds.sum();
+
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("version", current == null ? 0 : current.getVersion());
+		stats.put("items", current == null ? 0 : current.size());
+		stats.put("hits", hits.sum());
+		stats.put("misses", misses.sum());
+		stats.put("patches", patches.sum());
+		stats.put("stalePatches", stalePatches.sum());
+		stats.put("rebuilds", rebuildCount);
+		stats.put("lastRebuildMillis", lastRebuildNanos / 1_000_000.0);
+		stats.put("avgRebuildMillis", rebuildCount == 0 ? 0.0 : rebuildNanosTotal.sum() / 1_000_000.0 / rebuildCount);
+		return stats;
+	}
+}
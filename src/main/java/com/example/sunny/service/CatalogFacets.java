@@ -0,0 +1,282 @@
+package com.example.sunny.service;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
+
+import com.example.sunny.dto.FacetCount;
+import com.example.sunny.dto.FacetSelection;
+import com.example.sunny.dto.ItemSummary;
+
+// =====================
+// 商品の絞り込み用インデックス（ファセット）
+// =====================
+//
+// スナップショット内の並び順（新しい順）の位置を「商品番号」として、
+// 絞り込みの値ごとに「該当する商品番号のビット集合」を持つ。
+//
+//   price  … 価格帯（PriceBand）
+//   status … 商品の状態（PUBLIC / SOLD など、商品にある値をそのまま使う）
+//   stock  … 在庫あり / 在庫なし
+//
+// 絞り込みはビット集合の AND だけで済み、件数は cardinality() で数える。
+// SQL は一切出ない。
+//
+// CatalogSnapshot と同じく変更不可。全件から作るのは build() だけで、
+// 1商品の追加・更新・削除は withChange() で差分だけを当てた新しいインデックスを作る。
+// （商品の登録・更新、注文による在庫の増減は ItemChangedEvent → スナップショット差し替えで反映される）
+public final class CatalogFacets {
+
+	// =====================
+	// 価格帯
+	// =====================
+	public enum PriceBand {
+		UNDER_3000("〜2,999円", null, new BigDecimal("3000")),
+		FROM_3000("3,000〜4,999円", new BigDecimal("3000"), new BigDecimal("5000")),
+		FROM_5000("5,000〜9,999円", new BigDecimal("5000"), new BigDecimal("10000")),
+		FROM_10000("10,000円〜", new BigDecimal("10000"), null);
+
+		private final String label;
+		private final BigDecimal min;
+		private final BigDecimal max;
+
+		PriceBand(String label, BigDecimal min, BigDecimal max) {
+			this.label = label;
+			this.min = min;
+			this.max = max;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+
+		static PriceBand of(BigDecimal price) {
+			for (PriceBand band : values()) {
+				if ((band.min == null || price.compareTo(band.min) >= 0)
+						&& (band.max == null || price.compareTo(band.max) < 0)) {
+					return band;
+				}
+			}
+			return UNDER_3000;
+		}
+	}
+
+	public static final String IN_STOCK = "IN_STOCK";
+	public static final String SOLD_OUT = "SOLD_OUT";
+
+	private final int size;
+
+	// グループ → (値 → 商品番号のビット集合)。値の並びは画面の表示順。
+	private final Map<String, Map<String, BitSet>> groups;
+
+	private CatalogFacets(int size, Map<String, Map<String, BitSet>> groups) {
+		this.size = size;
+		this.groups = groups;
+	}
+
+	// =====================
+	// 新しい順に並んだ商品一覧から作る
+	// =====================
+	static CatalogFacets build(List<ItemSummary> items) {
+		Map<String, BitSet> price = new LinkedHashMap<>();
+		for (PriceBand band : PriceBand.values()) {
+			price.put(band.name(), new BitSet(items.size()));
+		}
+		Map<String, BitSet> status = new TreeMap<>();
+		Map<String, BitSet> stock = new LinkedHashMap<>();
+		stock.put(IN_STOCK, new BitSet(items.size()));
+		stock.put(SOLD_OUT, new BitSet(items.size()));
+
+		for (int i = 0; i < items.size(); i++) {
+			ItemSummary item = items.get(i);
+			if (item.getPrice() != null) {
+				price.get(PriceBand.of(item.getPrice()).name()).set(i);
+			}
+			if (item.getStatus() != null) {
+				status.computeIfAbsent(item.getStatus(), k -> new BitSet(items.size())).set(i);
+			}
+			stock.get(item.getStock() > 0 ? IN_STOCK : SOLD_OUT).set(i);
+		}
+
+		Map<String, Map<String, BitSet>> groups = new LinkedHashMap<>();
+		groups.put(FacetSelection.PRICE, Collections.unmodifiableMap(price));
+		groups.put(FacetSelection.STATUS, Collections.unmodifiableMap(status));
+		groups.put(FacetSelection.STOCK, Collections.unmodifiableMap(stock));
+		return new CatalogFacets(items.size(), Collections.unmodifiableMap(groups));
+	}
+
+	// =====================
+	// 1商品分の差分を当てた新しいインデックス
+	// =====================
+	//
+	// removed … 取り除く商品（removedAt は今の並びでの位置）。無ければ null / -1
+	// added   … 入れる商品（addedAt は変更後の並びでの位置）。無ければ null / -1
+	//
+	// 同じ位置での差し替え（在庫・状態・価格の更新。登録日時は変わらない）なら、
+	// 値が変わったビット集合だけを複製し、他はそのまま共有する。
+	// 位置がずれる場合（追加・削除・並び替え）は、ずれた分をワード単位でシフトする（1ビットずつは触らない）。
+	CatalogFacets withChange(ItemSummary removed, int removedAt, ItemSummary added, int addedAt) {
+		boolean inPlace = removed != null && added != null && removedAt == addedAt;
+		int nextSize = size - (removed == null ? 0 : 1) + (added == null ? 0 : 1);
+
+		Map<String, Map<String, BitSet>> next = new LinkedHashMap<>();
+		for (Map.Entry<String, Map<String, BitSet>> group : groups.entrySet()) {
+			Map<String, BitSet> values = FacetSelection.STATUS.equals(group.getKey())
+					? new TreeMap<>()
+					: new LinkedHashMap<>();
+			for (Map.Entry<String, BitSet> value : group.getValue().entrySet()) {
+				BitSet bits = value.getValue();
+				if (!inPlace) {
+					bits = removed == null ? bits : withoutBit(bits, removedAt);
+					bits = added == null ? bits : withGap(bits, addedAt);
+				}
+				values.put(value.getKey(), bits);
+			}
+			next.put(group.getKey(), values);
+		}
+
+		// 同じ位置での差し替え：前の値のビットを落とす（ずらした場合はもう消えている）
+		if (inPlace) {
+			forEachValue(removed, (group, value) -> {
+				Map<String, BitSet> values = next.get(group);
+				BitSet bits = (BitSet) values.get(value).clone();
+				bits.clear(removedAt);
+				values.put(value, bits);
+			});
+		}
+		if (added != null) {
+			forEachValue(added, (group, value) -> {
+				Map<String, BitSet> values = next.get(group);
+				BitSet current = values.get(value);
+				BitSet bits = current == null ? new BitSet(nextSize) : (BitSet) current.clone();
+				bits.set(addedAt);
+				values.put(value, bits);
+			});
+		}
+		// 商品の無くなった状態は build() と同じく項目ごと消す
+		next.get(FacetSelection.STATUS).values().removeIf(BitSet::isEmpty);
+
+		Map<String, Map<String, BitSet>> frozen = new LinkedHashMap<>();
+		for (Map.Entry<String, Map<String, BitSet>> group : next.entrySet()) {
+			frozen.put(group.getKey(), Collections.unmodifiableMap(group.getValue()));
+		}
+		return new CatalogFacets(nextSize, Collections.unmodifiableMap(frozen));
+	}
+
+	// 商品が属する（グループ, 値）。build() の振り分けと同じ
+	private static void forEachValue(ItemSummary item, BiConsumer<String, String> action) {
+		if (item.getPrice() != null) {
+			action.accept(FacetSelection.PRICE, PriceBand.of(item.getPrice()).name());
+		}
+		if (item.getStatus() != null) {
+			action.accept(FacetSelection.STATUS, item.getStatus());
+		}
+		action.accept(FacetSelection.STOCK, item.getStock() > 0 ? IN_STOCK : SOLD_OUT);
+	}
+
+	// ---------------------
+	// ビット集合のずらし（ワード単位）
+	// ---------------------
+
+	// pos のビットを取り除き、それより後ろを1つ前に詰める
+	private static BitSet withoutBit(BitSet bits, int pos) {
+		BitSet result = bits.get(0, pos);
+		result.or(shiftUp(bits.get(pos + 1, Math.max(bits.length(), pos + 1)), pos));
+		return result;
+	}
+
+	// pos に 0 のビットを1つ差し込み、それより後ろを1つ後ろへずらす
+	private static BitSet withGap(BitSet bits, int pos) {
+		BitSet result = bits.get(0, pos);
+		result.or(shiftUp(bits.get(pos, Math.max(bits.length(), pos)), pos + 1));
+		return result;
+	}
+
+	// 全ビットを n だけ後ろ（大きい番号）へ
+	private static BitSet shiftUp(BitSet bits, int n) {
+		long[] words = bits.toLongArray();
+		if (words.length == 0) {
+			return bits;
+		}
+		int wordShift = n >>> 6;
+		int bitShift = n & 63;
+		long[] shifted = new long[words.length + wordShift + 1];
+		for (int i = 0; i < words.length; i++) {
+			shifted[i + wordShift] |= words[i] << bitShift;
+			if (bitShift != 0) {
+				shifted[i + wordShift + 1] |= words[i] >>> (64 - bitShift);
+			}
+		}
+		return BitSet.valueOf(shifted);
+	}
+
+	// =====================
+	// 条件に合う商品番号（新しいビット集合を返す）
+	// =====================
+	//
+	// 知らない値が指定された場合は 0件。
+	public BitSet match(FacetSelection selection) {
+		return matchExcept(selection, null);
+	}
+
+	// exceptGroup の条件だけ無視して AND する（件数表示用）
+	private BitSet matchExcept(FacetSelection selection, String exceptGroup) {
+		BitSet result = new BitSet(size);
+		result.set(0, size);
+		for (Map.Entry<String, String> e : selection.getValues().entrySet()) {
+			if (e.getKey().equals(exceptGroup)) {
+				continue;
+			}
+			Map<String, BitSet> values = groups.get(e.getKey());
+			BitSet bits = values == null ? null : values.get(e.getValue());
+			if (bits == null) {
+				result.clear();
+				return result;
+			}
+			result.and(bits);
+		}
+		return result;
+	}
+
+	// =====================
+	// グループごとの件数（画面の絞り込みリンク用）
+	// =====================
+	//
+	// 件数は「他のグループの条件をかけた上で、その値を選んだら何件になるか」。
+	// 同じグループ内の選択は切り替えになるので、自グループの条件は外して数える。
+	public Map<String, List<FacetCount>> counts(FacetSelection selection) {
+		Map<String, List<FacetCount>> result = new LinkedHashMap<>();
+		for (Map.Entry<String, Map<String, BitSet>> group : groups.entrySet()) {
+			String name = group.getKey();
+			BitSet base = matchExcept(selection, name);
+
+			List<FacetCount> list = new ArrayList<>(group.getValue().size());
+			for (Map.Entry<String, BitSet> value : group.getValue().entrySet()) {
+				BitSet bits = (BitSet) base.clone();
+				bits.and(value.getValue());
+				list.add(new FacetCount(name, value.getKey(), label(name, value.getKey()), bits.cardinality(),
+						selection.isSelected(name, value.getKey()),
+						selection.toggled(name, value.getKey()).toQueryString()));
+			}
+			result.put(name, Collections.unmodifiableList(list));
+		}
+		return result;
+	}
+
+	private static String label(String group, String value) {
+		switch (group) {
+		case FacetSelection.PRICE:
+			return PriceBand.valueOf(value).getLabel();
+		case FacetSelection.STOCK:
+			return IN_STOCK.equals(value) ? "在庫あり" : "在庫なし";
+		default:
+			return "PUBLIC".equals(value) ? "販売中" : value;
+		}
+	}
+}
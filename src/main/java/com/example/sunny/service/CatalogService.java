@@ -0,0 +1,231 @@
+package com.example.sunny.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import com.example.sunny.dto.FacetCount;
+import com.example.sunny.dto.FacetSelection;
+import com.example.sunny.dto.ItemPage;
+import com.example.sunny.dto.ItemSummary;
+import com.example.sunny.dto.KeysetCursor;
+import com.example.sunny.entity.Item;
+import com.example.sunny.repository.ItemRepository;
+
+// =====================
+// 商品カタログ：トップページの一覧取得
+// =====================
+//
+// 商品を「新しい順（createdAt DESC, id DESC）」に、
+// キーセット方式で1ページずつ取得する。
+//
+// ・after  … このカーソルより古い商品（次ページ）
+// ・before … このカーソルより新しい商品（前ページ）
+// ・どちらも無い … 1ページ目
+//
+// 通常はメモリ上のスナップショット（CatalogCache）から切り出すので SQL は出ない。
+// app.catalog.cache.enabled=false の場合は DB へのキーセットクエリで取得する。
+// どちらも1件多く取得して「その先があるか」を判定するため、COUNT は不要。
+//
+// 絞り込み（価格帯・状態・在庫）がある場合は、設定に関わらず
+// スナップショットのビット集合（CatalogFacets）で絞ってから切り出す。
+@Service
+public class CatalogService {
+
+	public static final int DEFAULT_PAGE_SIZE = 20;
+	public static final int MAX_PAGE_SIZE = 100;
+
+	private final ItemRepository itemRepository;
+	private final CatalogCache catalogCache;
+
+	@Value("${app.catalog.cache.enabled:true}")
+	private boolean cacheEnabled;
+
+	public CatalogService(ItemRepository itemRepository, CatalogCache catalogCache) {
+		this.itemRepository = itemRepository;
+		this.catalogCache = catalogCache;
+	}
+
+	// 1ページの件数（1〜MAX_PAGE_SIZE に収める）
+	public static int pageSize(int size) {
+		return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+	}
+
+	// =====================
+	// 全商品（新しい順）：スタッフ商品管理などで使用
+	// =====================
+	public List<ItemSummary> findAll() {
+		if (cacheEnabled) {
+			return catalogCache.snapshot().getItems();
+		}
+		return toSummaries(itemRepository.findAll());
+	}
+
+	public ItemPage findStorefrontPage(String after, String before, int size) {
+		return findStorefrontPage(after, before, size, FacetSelection.empty());
+	}
+
+	public ItemPage findStorefrontPage(String after, String before, int size, FacetSelection selection) {
+		int pageSize = pageSize(size);
+		KeysetCursor afterCursor = KeysetCursor.decode(after);
+		KeysetCursor beforeCursor = KeysetCursor.decode(before);
+
+		if (!selection.isEmpty()) {
+			CatalogSnapshot snapshot = catalogCache.snapshot();
+			return pageFromSnapshot(snapshot, snapshot.getFacets().match(selection), afterCursor, beforeCursor,
+					pageSize);
+		}
+		if (cacheEnabled) {
+			return pageFromSnapshot(catalogCache.snapshot(), afterCursor, beforeCursor, pageSize);
+		}
+		return pageFromDatabase(afterCursor, beforeCursor, pageSize);
+	}
+
+	// =====================
+	// 指定したスナップショットから切り出す（JSON API 用）
+	// =====================
+	//
+	// ETag に使ったスナップショットと同じ版から返すため、呼び出し側で snapshot を渡す。
+	public ItemPage findSnapshotPage(CatalogSnapshot snapshot, String after, String before, int size,
+			FacetSelection selection) {
+		int pageSize = pageSize(size);
+		KeysetCursor afterCursor = KeysetCursor.decode(after);
+		KeysetCursor beforeCursor = KeysetCursor.decode(before);
+
+		if (!selection.isEmpty()) {
+			return pageFromSnapshot(snapshot, snapshot.getFacets().match(selection), afterCursor, beforeCursor,
+					pageSize);
+		}
+		return pageFromSnapshot(snapshot, afterCursor, beforeCursor, pageSize);
+	}
+
+	// =====================
+	// メモリ上のスナップショットから切り出す
+	// =====================
+	private ItemPage pageFromSnapshot(CatalogSnapshot snapshot, KeysetCursor afterCursor, KeysetCursor beforeCursor,
+			int pageSize) {
+
+		List<ItemSummary> all = snapshot.getItems();
+
+		if (beforeCursor != null) {
+			int end = snapshot.countNewerThan(beforeCursor);
+			int start = Math.max(0, end - pageSize);
+			List<ItemSummary> rows = all.subList(start, end);
+
+			String next = end < all.size() && !rows.isEmpty() ? KeysetCursor.of(rows.get(rows.size() - 1)).encode() : null;
+			String prev = start > 0 ? KeysetCursor.of(rows.get(0)).encode() : null;
+			return new ItemPage(rows, next, prev);
+		}
+
+		int start = afterCursor == null ? 0 : snapshot.indexOlderThan(afterCursor);
+		int end = Math.min(all.size(), start + pageSize);
+		List<ItemSummary> rows = all.subList(start, end);
+
+		String next = end < all.size() ? KeysetCursor.of(rows.get(rows.size() - 1)).encode() : null;
+		String prev = start > 0 && !rows.isEmpty() ? KeysetCursor.of(rows.get(0)).encode() : null;
+		return new ItemPage(rows, next, prev);
+	}
+
+	// =====================
+	// 絞り込み結果（ビット集合）から切り出す
+	// =====================
+	//
+	// matches の i ビット目 = スナップショットの i 番目の商品が条件に合う。
+	// カーソル位置は絞り込み無しと同じ二分探索で求め、そこから合う商品だけを拾う。
+	private ItemPage pageFromSnapshot(CatalogSnapshot snapshot, BitSet matches, KeysetCursor afterCursor,
+			KeysetCursor beforeCursor, int pageSize) {
+
+		List<ItemSummary> all = snapshot.getItems();
+		List<ItemSummary> rows = new ArrayList<>(pageSize);
+
+		if (beforeCursor != null) {
+			// 前ページ：カーソルの手前から新しい側へ拾って反転する
+			int end = snapshot.countNewerThan(beforeCursor);
+			int first = end;
+			for (int i = matches.previousSetBit(end - 1); i >= 0 && rows.size() < pageSize;
+					i = matches.previousSetBit(i - 1)) {
+				rows.add(all.get(i));
+				first = i;
+			}
+			Collections.reverse(rows);
+
+			String next = !rows.isEmpty() && matches.nextSetBit(end) >= 0
+					? KeysetCursor.of(rows.get(rows.size() - 1)).encode()
+					: null;
+			String prev = !rows.isEmpty() && matches.previousSetBit(first - 1) >= 0
+					? KeysetCursor.of(rows.get(0)).encode()
+					: null;
+			return new ItemPage(rows, next, prev);
+		}
+
+		int start = afterCursor == null ? 0 : snapshot.indexOlderThan(afterCursor);
+		int last = start - 1;
+		for (int i = matches.nextSetBit(start); i >= 0 && rows.size() < pageSize; i = matches.nextSetBit(i + 1)) {
+			rows.add(all.get(i));
+			last = i;
+		}
+
+		String next = !rows.isEmpty() && matches.nextSetBit(last + 1) >= 0
+				? KeysetCursor.of(rows.get(rows.size() - 1)).encode()
+				: null;
+		String prev = !rows.isEmpty() && matches.previousSetBit(start - 1) >= 0
+				? KeysetCursor.of(rows.get(0)).encode()
+				: null;
+		return new ItemPage(rows, next, prev);
+	}
+
+	// =====================
+	// 絞り込みリンクの件数（グループ → 値ごとの件数）
+	// =====================
+	public Map<String, List<FacetCount>> findFacetCounts(FacetSelection selection) {
+		return catalogCache.snapshot().getFacets().counts(selection);
+	}
+
+	// =====================
+	// DB のキーセットクエリで取得する
+	// =====================
+	private ItemPage pageFromDatabase(KeysetCursor afterCursor, KeysetCursor beforeCursor, int pageSize) {
+
+		Limit limit = Limit.of(pageSize + 1);
+
+		if (beforeCursor != null) {
+			// 前ページ：古い順で取ってから反転する
+			List<Item> rows = new ArrayList<>(itemRepository.findNewerThan(
+					beforeCursor.getCreatedAt(), beforeCursor.getId(), limit));
+			boolean hasPrev = rows.size() > pageSize;
+			if (hasPrev) {
+				rows = rows.subList(0, pageSize);
+			}
+			Collections.reverse(rows);
+
+			// before で来た＝さらに古い商品は必ずある
+			String next = rows.isEmpty() ? null : KeysetCursor.of(rows.get(rows.size() - 1)).encode();
+			String prev = hasPrev ? KeysetCursor.of(rows.get(0)).encode() : null;
+			return new ItemPage(toSummaries(rows), next, prev);
+		}
+
+		List<Item> rows = afterCursor == null
+				? itemRepository.findNewest(limit)
+				: itemRepository.findOlderThan(afterCursor.getCreatedAt(), afterCursor.getId(), limit);
+
+		boolean hasNext = rows.size() > pageSize;
+		if (hasNext) {
+			rows = rows.subList(0, pageSize);
+		}
+
+		String next = hasNext ? KeysetCursor.of(rows.get(rows.size() - 1)).encode() : null;
+		// after で来た＝それより新しい商品（前ページ）がある
+		String prev = afterCursor != null && !rows.isEmpty() ? KeysetCursor.of(rows.get(0)).encode() : null;
+		return new ItemPage(toSummaries(rows), next, prev);
+	}
+
+	private static List<ItemSummary> toSummaries(List<Item> items) {
+		return items.stream().map(ItemSummary::of).toList();
+	}
+}
@@ -0,0 +1,164 @@
+package com.example.sunny.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.example.sunny.dto.ItemSummary;
+import com.example.sunny.dto.KeysetCursor;
+
+// =====================
+// 商品カタログのスナップショット
+// =====================
+//
+// ある時点の全商品を「新しい順（createdAt DESC, id DESC）」で保持する。
+// 更新時は with() / without() で新しいスナップショットを作って差し替える。
+//
+// ・並びが変わらない変更（在庫・ステータス・価格など。登録日時は変わらない）は、
+//   配列とマップを前のスナップショットと共有し、その1件の欄だけを新しい ItemSummary に書き換える。
+//   注文のたびに全件をコピーしない。
+// ・追加・削除・登録日時の変更は、並びが変わるので配列とマップを作り直す（コピーオンライト）
+//
+// 書くのは CatalogCache（synchronized）だけ。ItemSummary は変更不可なので、
+// 読み取り側はロック無しで、どの欄も「変更前か変更後のどちらか」の1商品として読める。
+// version は差し替えのたびに 1 ずつ増える。
+//
+// 絞り込み用のビット集合（CatalogFacets）も同じ並び順で持つ。
+// 全件から作るのは build() の時だけで、with() / without() では変わった1商品分の差分だけを当てる。
+public final class CatalogSnapshot {
+
+	// 新しい順
+	static final Comparator<ItemSummary> NEWEST_FIRST = Comparator
+			.comparing(ItemSummary::getCreatedAt, Comparator.reverseOrder())
+			.thenComparing(ItemSummary::getId, Comparator.reverseOrder());
+
+	private final long version;
+	// 並び順の配列（並びが変わらない変更では、次のスナップショットと共有して欄だけ書き換える）
+	private final ItemSummary[] slots;
+	private final List<ItemSummary> items;
+	private final Map<Long, ItemSummary> byId;
+	private final CatalogFacets facets;
+
+	private CatalogSnapshot(long version, ItemSummary[] slots, Map<Long, ItemSummary> byId, CatalogFacets facets) {
+		this.version = version;
+		this.slots = slots;
+		this.items = Collections.unmodifiableList(Arrays.asList(slots));
+		this.byId = byId;
+		this.facets = facets;
+	}
+
+	private static CatalogSnapshot of(long version, List<ItemSummary> sortedItems, CatalogFacets facets) {
+		Map<Long, ItemSummary> map = new ConcurrentHashMap<>(sortedItems.size() * 2);
+		for (ItemSummary item : sortedItems) {
+			map.put(item.getId(), item);
+		}
+		return new CatalogSnapshot(version, sortedItems.toArray(new ItemSummary[0]), map, facets);
+	}
+
+	// DB から読んだ商品一覧で作る（並び順はここで揃える）
+	public static CatalogSnapshot build(long version, List<ItemSummary> items) {
+		List<ItemSummary> sorted = new ArrayList<>(items);
+		sorted.sort(NEWEST_FIRST);
+		return of(version, sorted, CatalogFacets.build(sorted));
+	}
+
+	// 1商品を追加 or 差し替えた新しいスナップショット
+	public CatalogSnapshot with(ItemSummary item) {
+		ItemSummary previous = byId.get(item.getId());
+		int previousAt = previous == null ? -1 : Arrays.binarySearch(slots, previous, NEWEST_FIRST);
+
+		if (previous != null && previous.getCreatedAt().equals(item.getCreatedAt())) {
+			// 並びは変わらない：その欄だけ書き換えて、配列とマップは共有する
+			slots[previousAt] = item;
+			byId.put(item.getId(), item);
+			return new CatalogSnapshot(version + 1, slots, byId,
+					facets.withChange(previous, previousAt, item, previousAt));
+		}
+
+		List<ItemSummary> next = new ArrayList<>(slots.length + 1);
+		for (ItemSummary it : slots) {
+			if (!it.getId().equals(item.getId())) {
+				next.add(it);
+			}
+		}
+		int pos = Collections.binarySearch(next, item, NEWEST_FIRST);
+		int at = pos < 0 ? -pos - 1 : pos;
+		next.add(at, item);
+		return of(version + 1, next, facets.withChange(previous, previousAt, item, at));
+	}
+
+	// 1商品を取り除いた新しいスナップショット
+	public CatalogSnapshot without(Long itemId) {
+		if (!byId.containsKey(itemId)) {
+			return this;
+		}
+		ItemSummary removed = byId.get(itemId);
+		int removedAt = Arrays.binarySearch(slots, removed, NEWEST_FIRST);
+		List<ItemSummary> next = new ArrayList<>(slots.length);
+		for (ItemSummary it : slots) {
+			if (!it.getId().equals(itemId)) {
+				next.add(it);
+			}
+		}
+		return of(version + 1, next, facets.withChange(removed, removedAt, null, -1));
+	}
+
+	// =====================
+	// カーソル位置の検索（二分探索）
+	// =====================
+	//
+	// cursor より「新しい」商品の件数を返す。
+	// つまり items[0, 戻り値) が cursor より前（新しい側）。
+	public int countNewerThan(KeysetCursor cursor) {
+		int lo = 0;
+		int hi = items.size();
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (isNewer(items.get(mid), cursor)) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		return lo;
+	}
+
+	// cursor より「古い」商品の開始位置を返す。
+	// つまり items[戻り値, size) が cursor より後（古い側）。
+	public int indexOlderThan(KeysetCursor cursor) {
+		int pos = countNewerThan(cursor);
+		if (pos < items.size() && items.get(pos).getId().equals(cursor.getId())) {
+			pos++;
+		}
+		return pos;
+	}
+
+	private static boolean isNewer(ItemSummary item, KeysetCursor cursor) {
+		int c = item.getCreatedAt().compareTo(cursor.getCreatedAt());
+		return c > 0 || (c == 0 && item.getId() > cursor.getId());
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public List<ItemSummary> getItems() {
+		return items;
+	}
+
+	public ItemSummary get(Long itemId) {
+		return byId.get(itemId);
+	}
+
+	public CatalogFacets getFacets() {
+		return facets;
+	}
+
+	public int size() {
+		return items.size();
+	}
+}
@@ -0,0 +1,196 @@
+package com.example.sunny.service;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.sunny.dto.LoginUser;
+import com.example.sunny.dto.OrderEventPayload;
+import com.example.sunny.entity.CartItem;
+import com.example.sunny.entity.Item;
+import com.example.sunny.entity.OutboxEvent;
+import com.example.sunny.event.ItemChangedEvent;
+import com.example.sunny.event.OrderChangedEvent;
+import com.example.sunny.repository.CartItemRepository;
+import com.example.sunny.repository.ItemRepository;
+
+import jakarta.persistence.EntityManager;
+
+// =====================
+// カートの一括購入
+// =====================
+//
+// カートの全商品を1トランザクションで購入する。
+//
+// 1. カートの中身を商品ID順に取得
+// 2. 全商品の在庫を確保（条件付き UPDATE を JDBC バッチで実行）
+//    → 1つでも足りなければ例外でロールバック（どの在庫も減らない）
+// 3. 注文（orders）を JDBC バッチで INSERT し、ORDER_PLACED をアウトボックスへ
+// 4. カートを空にする
+//
+// 【商品ID順にする理由】
+// 在庫確保の前に商品の行をロックする（StockHoldService.lockAndCountHeldByOthers）。
+// 同じ商品を含むカートが同時に購入されても、ロックを取る順番が全員同じなので
+// お互いに待ち合ってデッドロックすることがない。
+//
+// 【JDBC バッチを使う理由】
+// Order の ID は IDENTITY 採番なので、JPA の save では1行ずつ INSERT される。
+// JdbcTemplate.batchUpdate なら何行でも1回の往復で送れる。
+@Service
+public class CheckoutService {
+
+	// ItemRepository.reserveStock と同じ条件
+	// （他の人の一時確保分を残して足りる時だけ減らし、0 になったら SOLD）
+	private static final String RESERVE_SQL = "UPDATE items SET stock = stock - ?,"
+			+ " status = CASE WHEN stock - ? <= 0 THEN 'SOLD' ELSE status END,"
+			+ " version = version + 1"
+			+ " WHERE id = ? AND stock - ? >= ?";
+
+	// Order エンティティの対応（@Column）と同じ列に書く。JPA を通さないので、
+	// Order に NOT NULL の列を足した時はここにも足すこと（CheckoutBatchInsertTest が OrderRepository で読み直して確かめる）。
+	// 書かない列（delivery_date / tracking_number / idempotency_key）は、new Order() で保存した時と同じく NULL。
+	private static final String INSERT_ORDER_SQL = "INSERT INTO orders"
+			+ " (user_id, item_id, quantity, total_price, status, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+	private final CartItemRepository cartItemRepository;
+	private final ItemRepository itemRepository;
+	private final JdbcTemplate jdbcTemplate;
+	private final EntityManager entityManager;
+	private final ApplicationEventPublisher eventPublisher;
+	private final StockHoldService stockHoldService;
+	private final OutboxService outboxService;
+
+	public CheckoutService(
+			CartItemRepository cartItemRepository,
+			ItemRepository itemRepository,
+			JdbcTemplate jdbcTemplate,
+			EntityManager entityManager,
+			ApplicationEventPublisher eventPublisher,
+			StockHoldService stockHoldService,
+			OutboxService outboxService) {
+		this.cartItemRepository = cartItemRepository;
+		this.itemRepository = itemRepository;
+		this.jdbcTemplate = jdbcTemplate;
+		this.entityManager = entityManager;
+		this.eventPublisher = eventPublisher;
+		this.stockHoldService = stockHoldService;
+		this.outboxService = outboxService;
+	}
+
+	// 購入した注文の件数を返す（カートが空なら 0）
+	// 使うのは ID とログインID（email）だけなので、ログイン時の控え（LoginUser）を受け取る
+	@Transactional
+	public int checkout(LoginUser user) {
+
+		// ---------------------
+		// 1. カートの中身（商品ID順）
+		// ---------------------
+		List<CartItem> lines = cartItemRepository.findWithItemByUserId(user.getId());
+		if (lines.isEmpty()) {
+			return 0;
+		}
+
+		// ---------------------
+		// 2. 在庫確保（商品ID順に一括）
+		// ---------------------
+		List<Object[]> reserveArgs = new ArrayList<>(lines.size());
+		for (CartItem line : lines) {
+			if (line.getQuantity() <= 0) {
+				throw new IllegalArgumentException("数量が不正です：" + line.getItem().getName());
+			}
+			int q = line.getQuantity();
+			Long itemId = line.getItem().getId();
+			int held = stockHoldService.lockAndCountHeldByOthers(itemId, user.getEmail());
+			reserveArgs.add(new Object[] { q, q, itemId, held, q });
+		}
+		int[] reserved = jdbcTemplate.batchUpdate(RESERVE_SQL, reserveArgs);
+		for (int i = 0; i < reserved.length; i++) {
+			// 0 件＝在庫不足（SUCCESS_NO_INFO などの負の値はドライバが件数を返さない場合）
+			if (reserved[i] == 0) {
+				Item item = lines.get(i).getItem();
+				throw new OutOfStockException(item.getId(), item.getName());
+			}
+		}
+
+		// ---------------------
+		// 3. 注文を一括 INSERT（採番された ID も受け取る）
+		// ---------------------
+		LocalDateTime orderedAt = LocalDateTime.now();
+		Timestamp now = Timestamp.valueOf(orderedAt);
+		int[] totalPrices = new int[lines.size()];
+		for (int i = 0; i < lines.size(); i++) {
+			CartItem line = lines.get(i);
+			totalPrices[i] = line.getItem().getPrice().multiply(BigDecimal.valueOf(line.getQuantity())).intValue();
+		}
+		KeyHolder orderIds = new GeneratedKeyHolder();
+		jdbcTemplate.batchUpdate(
+				con -> con.prepareStatement(INSERT_ORDER_SQL, new String[] { "id" }),
+				new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						CartItem line = lines.get(i);
+						ps.setLong(1, user.getId());
+						ps.setLong(2, line.getItem().getId());
+						ps.setInt(3, line.getQuantity());
+						ps.setInt(4, totalPrices[i]);
+						ps.setString(5, "CREATED");
+						ps.setTimestamp(6, now);
+					}
+
+					@Override
+					public int getBatchSize() {
+						return lines.size();
+					}
+				},
+				orderIds);
+
+		// 後続の処理（メール・集計など）用に ORDER_PLACED をアウトボックスへ（これもバッチ1回）
+		List<Map<String, Object>> keys = orderIds.getKeyList();
+		List<OrderEventPayload> placed = new ArrayList<>(lines.size());
+		List<Long> createdIds = new ArrayList<>(lines.size());
+		for (int i = 0; i < lines.size(); i++) {
+			CartItem line = lines.get(i);
+			Long orderId = ((Number) keys.get(i).values().iterator().next()).longValue();
+			createdIds.add(orderId);
+			placed.add(new OrderEventPayload(orderId, user.getId(), line.getItem().getId(),
+					line.getQuantity(), totalPrices[i], orderedAt));
+		}
+		outboxService.recordOrderEvents(OutboxEvent.ORDER_PLACED, placed);
+
+		// ---------------------
+		// 4. カートを空にする
+		// ---------------------
+		cartItemRepository.deleteByUserId(user.getId());
+
+		// 注文確認画面で一時確保していた分は不要になる（外すのはコミット後）
+		for (CartItem line : lines) {
+			stockHoldService.release(line.getItem().getId(), user.getEmail());
+		}
+
+		// ---------------------
+		// カタログへの反映（コミット後に ItemChangedEvent で差し替え）
+		// ---------------------
+		// 在庫は SQL で直接変えたので、読み込み済みの商品は古い。捨ててから読み直す。
+		List<Long> itemIds = lines.stream().map(line -> line.getItem().getId()).toList();
+		entityManager.clear();
+		for (Item item : itemRepository.findAllById(itemIds)) {
+			eventPublisher.publishEvent(ItemChangedEvent.saved(item));
+		}
+		// スタッフ注文管理のライブ更新（コミット後）
+		eventPublisher.publishEvent(OrderChangedEvent.created(createdIds));
+		return lines.size();
+	}
+}
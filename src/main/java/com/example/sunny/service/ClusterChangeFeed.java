@@ -0,0 +1,246 @@
+package com.example.sunny.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.sunny.event.ItemChangedEvent;
+import com.example.sunny.event.OrderChangedEvent;
+import com.example.sunny.repository.ItemRepository;
+
+import jakarta.annotation.PreDestroy;
+
+// =====================
+// 複数台構成：商品・注文の変更を他のサーバーへ知らせる（app.session.store=jdbc の時だけ有効）
+// =====================
+//
+// カタログ（CatalogCache・絞り込み・一覧の ETag）、検索索引（SearchIndex）、
+// スタッフ注文管理のライブ更新（OrderEventHub）はサーバーごとのメモリにあり、
+// ItemChangedEvent / OrderChangedEvent を受け取って更新する。
+// イベントは publish したサーバーにしか届かないので、他のサーバーのメモリは古いままになる。
+//
+// 【記録】
+// ・このサーバーでの変更 … 同じトランザクションで cluster_changes に1行ずつ書く
+//   （ロールバックされれば記録も残らない）
+//
+// 【取り込み】SessionRevocationService と同じ読み方
+// ・poll-interval-ms ごとに「前回読んだ id の続き」と「直近 lookback-seconds に入った行」を読む
+//   （後者は id の順にコミットされなかった行の拾い直し）。自分が書いた行は読まない
+// ・商品は DB から読み直して ItemChangedEvent を publish し直す。
+//   CatalogCache は version で新旧を見るので、何度読み直しても古い内容には戻らない
+// ・注文は OrderChangedEvent を publish し直す。lookback で読み直した行を二度流さないよう、
+//   取り込んだ行の id を lookback-seconds の間だけ覚えておく
+// ・publish し直すイベントには replicated() を付け、記録し直さない
+@Service
+@ConditionalOnProperty(name = "app.session.store", havingValue = "jdbc")
+public class ClusterChangeFeed {
+
+	private static final Logger log = LoggerFactory.getLogger(ClusterChangeFeed.class);
+
+	static final String ITEM_SAVED = "ITEM_SAVED";
+	static final String ITEM_DELETED = "ITEM_DELETED";
+	static final String ORDER_CREATED = "ORDER_CREATED";
+	static final String ORDER_STATUS_CHANGED = "ORDER_STATUS_CHANGED";
+
+	private static final String INSERT_SQL = "INSERT INTO cluster_changes (kind, ref_id, node_id, created_at)"
+			+ " VALUES (?, ?, ?, ?)";
+
+	// このサーバーの目印（起動ごとに変わる）
+	private final String nodeId = UUID.randomUUID().toString();
+
+	private final JdbcTemplate jdbcTemplate;
+	private final ItemRepository itemRepository;
+	private final ApplicationEventPublisher eventPublisher;
+	private final long pollIntervalMs;
+	private final int batchSize;
+	private final long lookbackSeconds;
+	private final long retentionHours;
+
+	// cluster_changes をどこまで読んだか・取り込んだ行の id → 取り込んだ時刻（poll の中だけで触る）
+	private long lastSeenId;
+	private final Map<Long, Long> appliedAt = new LinkedHashMap<>();
+
+	private final ScheduledExecutorService executor;
+
+	public ClusterChangeFeed(
+			JdbcTemplate jdbcTemplate,
+			ItemRepository itemRepository,
+			ApplicationEventPublisher eventPublisher,
+			@Value("${app.cluster.change-feed.poll-interval-ms:1000}") long pollIntervalMs,
+			@Value("${app.cluster.change-feed.batch-size:500}") int batchSize,
+			@Value("${app.cluster.change-feed.lookback-seconds:300}") long lookbackSeconds,
+			@Value("${app.cluster.change-feed.retention-hours:24}") long retentionHours) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.itemRepository = itemRepository;
+		this.eventPublisher = eventPublisher;
+		this.pollIntervalMs = pollIntervalMs;
+		this.batchSize = batchSize;
+		this.lookbackSeconds = lookbackSeconds;
+		this.retentionHours = retentionHours;
+		this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "cluster-change-feed");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	// =====================
+	// 起動時：今の位置から取り込みを始める
+	// =====================
+	//
+	// カタログ・検索索引は起動時に DB から全件作るので、それより前の記録は要らない
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		lastSeenId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM cluster_changes", Long.class);
+		executor.scheduleWithFixedDelay(this::pollSafely, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+		executor.scheduleWithFixedDelay(this::purgeSafely, 1, 1, TimeUnit.HOURS);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	// =====================
+	// このサーバーでの変更を記録（変更と同じトランザクション）
+	// =====================
+	@TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+	public void recordItem(ItemChangedEvent event) {
+		if (event.isReplicated()) {
+			return;
+		}
+		jdbcTemplate.update(INSERT_SQL, event.isDeleted() ? ITEM_DELETED : ITEM_SAVED, event.getItemId(), nodeId,
+				Timestamp.valueOf(LocalDateTime.now()));
+	}
+
+	@TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+	public void recordOrders(OrderChangedEvent event) {
+		if (event.isReplicated() || event.getOrderIds().isEmpty()) {
+			return;
+		}
+		String kind = event.getType() == OrderChangedEvent.Type.CREATED ? ORDER_CREATED : ORDER_STATUS_CHANGED;
+		Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+		List<Object[]> rows = new ArrayList<>(event.getOrderIds().size());
+		for (Long orderId : event.getOrderIds()) {
+			rows.add(new Object[] { kind, orderId, nodeId, now });
+		}
+		jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+	}
+
+	// =====================
+	// 他のサーバーでの変更：前回の続き＋直近の行を読んで反映する
+	// =====================
+	//
+	// 取り込んだ件数を返す。
+	public synchronized int poll() {
+		long nowMillis = System.currentTimeMillis();
+		Timestamp recent = Timestamp.valueOf(LocalDateTime.now().minusSeconds(lookbackSeconds));
+		long cursor = 0;
+		int total = 0;
+		int read;
+		do {
+			List<Object[]> rows = jdbcTemplate.query(
+					"SELECT id, kind, ref_id FROM cluster_changes"
+							+ " WHERE id > ? AND (id > ? OR created_at > ?) AND node_id <> ?"
+							+ " ORDER BY id FETCH FIRST ? ROWS ONLY",
+					(rs, n) -> new Object[] { rs.getLong("id"), rs.getString("kind"), rs.getLong("ref_id") },
+					cursor, lastSeenId, recent, nodeId, batchSize);
+			Set<Long> items = new LinkedHashSet<>();
+			List<Long> created = new ArrayList<>();
+			List<Long> statusChanged = new ArrayList<>();
+			List<Long> fresh = new ArrayList<>();
+			for (Object[] row : rows) {
+				cursor = (Long) row[0];
+				if (appliedAt.containsKey(cursor)) {
+					continue;
+				}
+				fresh.add(cursor);
+				Long refId = (Long) row[2];
+				switch ((String) row[1]) {
+				case ITEM_SAVED, ITEM_DELETED -> items.add(refId);
+				case ORDER_CREATED -> created.add(refId);
+				default -> statusChanged.add(refId);
+				}
+				total++;
+			}
+			apply(items, created, statusChanged);
+			for (Long id : fresh) {
+				appliedAt.put(id, nowMillis);
+			}
+			lastSeenId = Math.max(lastSeenId, cursor);
+			read = rows.size();
+		} while (read == batchSize);
+
+		forgetOlderThan(nowMillis - TimeUnit.SECONDS.toMillis(lookbackSeconds));
+		return total;
+	}
+
+	// 商品は今の内容を読み直す（無ければ削除済み）。保存と削除のどちらの記録でも同じ
+	private void apply(Set<Long> itemIds, List<Long> created, List<Long> statusChanged) {
+		for (Long itemId : itemIds) {
+			ItemChangedEvent event = itemRepository.findById(itemId)
+					.map(ItemChangedEvent::saved)
+					.orElseGet(() -> ItemChangedEvent.deleted(itemId));
+			eventPublisher.publishEvent(event.replicated());
+		}
+		if (!created.isEmpty()) {
+			eventPublisher.publishEvent(OrderChangedEvent.created(created).replicated());
+		}
+		if (!statusChanged.isEmpty()) {
+			eventPublisher.publishEvent(OrderChangedEvent.statusChanged(statusChanged).replicated());
+		}
+	}
+
+	// lookback より前に取り込んだ行は、もう読み直されないので忘れる（取り込んだ順に並んでいる）
+	private void forgetOlderThan(long thresholdMillis) {
+		Iterator<Long> it = appliedAt.values().iterator();
+		while (it.hasNext() && it.next() < thresholdMillis) {
+			it.remove();
+		}
+	}
+
+	private void pollSafely() {
+		try {
+			poll();
+		} catch (RuntimeException e) {
+			// 次の回に同じ所から読み直す
+			log.warn("他のサーバーでの商品・注文の変更の取り込みに失敗しました: {}", e.getMessage());
+		}
+	}
+
+	// 取り込み済みの古い記録を消す（どのサーバーも起動時は DB から全件読むので要らない）
+	public int purge() {
+		return jdbcTemplate.update("DELETE FROM cluster_changes WHERE created_at < ?",
+				Timestamp.valueOf(LocalDateTime.now().minusHours(retentionHours)));
+	}
+
+	private void purgeSafely() {
+		try {
+			purge();
+		} catch (RuntimeException e) {
+			log.warn("商品・注文の変更の記録の削除に失敗しました: {}", e.getMessage());
+		}
+	}
+}
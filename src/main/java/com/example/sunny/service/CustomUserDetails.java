@@ -1,42 +1,81 @@
 package com.example.sunny.service;
 
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
 import java.util.Collection;
 import java.util.List;
 
+import org.springframework.security.core.CredentialsContainer;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import com.example.sunny.dto.LoginUser;
 import com.example.sunny.entity.User;
 
-public class CustomUserDetails implements UserDetails {
+// =====================
+// ログイン中ユーザー（Spring Security の principal）
+// =====================
+//
+// ログイン後は HTTP セッションの SecurityContext に入り、セッションが続く間ずっと残る。
+// そのため User エンティティは持たず、必要な値だけを控えておく。
+//
+// ・id / email / 名前 / 権限 … LoginUser（変更不可）
+// ・enabled               … ログイン判定用
+// ・パスワード            … ログイン判定の間だけ。認証後に eraseCredentials() で消える
+//
+// シリアライズ（セッションの保存・複製）では SerializedForm に置き換え、
+// id・email・名前・権限・enabled だけを書く（パスワードは書かない）。
+public final class CustomUserDetails implements UserDetails, CredentialsContainer {
 
-	private final User user;
+	private static final long serialVersionUID = 2L;
+
+	private final LoginUser loginUser;
+	private final boolean enabled;
+
+	// ログイン判定の間だけ持つ（セッションには残さない）
+	private transient String password;
 
 	public CustomUserDetails(User user) {
-		this.user = user;
+		this(LoginUser.of(user), user.getPassword(), user.isEnabled());
+	}
+
+	private CustomUserDetails(LoginUser loginUser, String password, boolean enabled) {
+		this.loginUser = loginUser;
+		this.password = password;
+		this.enabled = enabled;
 	}
 
 	/** 画面表示用（Thymeleafで #authentication.principal.name が使える） */
 	public String getName() {
-		return user.getName();
+		return loginUser.getName();
 	}
 
 	/** 重要：principal.getUsername() は常に email にする（コントローラが安定する） */
 	@Override
 	public String getUsername() {
-		return user.getEmail();
+		return loginUser.getEmail();
 	}
 
 	@Override
 	public String getPassword() {
-		return user.getPassword();
+		return password;
+	}
+
+	// 認証が終わったら ProviderManager が呼ぶ
+	@Override
+	public void eraseCredentials() {
+		password = null;
 	}
 
 	@Override
 	public Collection<? extends GrantedAuthority> getAuthorities() {
 		// DBの role が "ADMIN" "STAFF" "CUSTOMER" なら → "ROLE_ADMIN" にする
-		return List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole()));
+		return List.of(new SimpleGrantedAuthority("ROLE_" + loginUser.getRole()));
 	}
 
 	@Override
@@ -56,10 +95,87 @@ public class CustomUserDetails implements UserDetails {
 
 	@Override
 	public boolean isEnabled() {
-		return user.isEnabled();
+		return enabled;
+	}
+
+	public LoginUser getLoginUser() {
+		return loginUser;
+	}
+
+	// 同じユーザーなら同じ principal（セッション管理で principal ごとにまとめる時に使われる）
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof CustomUserDetails other && loginUser.getId().equals(other.loginUser.getId());
 	}
 
-	public User getUser() {
-		return user;
+	@Override
+	public int hashCode() {
+		return loginUser.getId().hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return "CustomUserDetails[id=" + loginUser.getId() + ", email=" + loginUser.getEmail() + "]";
+	}
+
+	// =====================
+	// シリアライズ：SerializedForm に置き換える
+	// =====================
+	private Object writeReplace() {
+		return new SerializedForm(this);
+	}
+
+	private void readObject(ObjectInputStream in) throws InvalidObjectException {
+		throw new InvalidObjectException("SerializedForm から復元すること");
+	}
+
+	// フィールド名などの説明を書かず、値だけを順に書く
+	private static final class SerializedForm implements Externalizable {
+
+		private static final long serialVersionUID = 2L;
+
+		private CustomUserDetails details;
+
+		public SerializedForm() {
+		}
+
+		SerializedForm(CustomUserDetails details) {
+			this.details = details;
+		}
+
+		@Override
+		public void writeExternal(ObjectOutput out) throws IOException {
+			LoginUser u = details.loginUser;
+			out.writeLong(u.getId());
+			out.writeUTF(u.getEmail());
+			writeNullableUTF(out, u.getName());
+			writeNullableUTF(out, u.getRole());
+			out.writeBoolean(details.enabled);
+		}
+
+		@Override
+		public void readExternal(ObjectInput in) throws IOException {
+			long id = in.readLong();
+			String email = in.readUTF();
+			String name = readNullableUTF(in);
+			String role = readNullableUTF(in);
+			details = new CustomUserDetails(new LoginUser(id, name, email, role), null, in.readBoolean());
+		}
+
+		private Object readResolve() {
+			return details;
+		}
+
+		// 名前・ロールは未設定（null）のこともある。writeUTF は null を書けないので、有無を先に書く
+		private static void writeNullableUTF(ObjectOutput out, String value) throws IOException {
+			out.writeBoolean(value != null);
+			if (value != null) {
+				out.writeUTF(value);
+			}
+		}
+
+		private static String readNullableUTF(ObjectInput in) throws IOException {
+			return in.readBoolean() ? in.readUTF() : null;
+		}
 	}
 }
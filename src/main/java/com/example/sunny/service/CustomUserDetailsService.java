@@ -82,9 +82,10 @@ public class CustomUserDetailsService implements UserDetailsService {
 		//
 		// CustomUserDetails は
 		// ・権限（ROLE_ADMIN / ROLE_STAFF など）
-		// ・パスワード
-		// ・ユーザー情報
+		// ・パスワード（認証が終わったら消える）
+		// ・ユーザー情報（id / email / 名前 / 権限の控え）
 		// を Spring Security に渡すためのクラス
+		// （User エンティティそのものはセッションに残さない）
 		//
 		return new CustomUserDetails(user);
 	}
@@ -0,0 +1,47 @@
+package com.example.sunny.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.sunny.dto.OrderReceipt;
+
+// =====================
+// 注文確定の冪等キー：最近使われたキーのキャッシュ
+// =====================
+//
+// ダブルクリックやブラウザの再送は直後に来るので、最近確定したキーだけをメモリに持ち、
+// DB に触らずに最初の注文の完了画面を返す。
+//
+// ・上限（app.orders.idempotency-cache-size）を超えたら古いものから捨てる
+// ・捨てられたキーの再送は orders の (user_id, idempotency_key) で判定する
+// ・キーはユーザーごと（ログインID＋キー）なので、他人のキーで注文は見えない
+@Service
+public class IdempotencyKeyCache {
+
+	private final Map<String, OrderReceipt> recent;
+
+	public IdempotencyKeyCache(@Value("${app.orders.idempotency-cache-size:10000}") int maxSize) {
+		// アクセス順の LinkedHashMap（最後に使われたものほど残る）
+		this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, OrderReceipt> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	public synchronized OrderReceipt get(String username, String key) {
+		return recent.get(cacheKey(username, key));
+	}
+
+	public synchronized void put(String username, String key, OrderReceipt receipt) {
+		recent.put(cacheKey(username, key), receipt);
+	}
+
+	private static String cacheKey(String username, String key) {
+		return username + "\n" + key;
+	}
+}
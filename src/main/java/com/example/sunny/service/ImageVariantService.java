@@ -0,0 +1,329 @@
+package com.example.sunny.service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+// =====================
+// アップロード画像のサイズ違い（バリアント）作成
+// =====================
+//
+// 一覧のサムネイルに元画像（数百KBの PNG）をそのまま出さないよう、
+// アップロード後に縮小・再圧縮した JPEG を裏で作る。
+//
+//   thumb … 幅 160px（一覧の 72px 表示用。高解像度画面でも足りる大きさ）
+//   card  … 幅 640px（商品詳細の 320px 表示用）
+//   full  … 幅 1280px（拡大表示用）
+//
+// 保存先：uploads/variants/{バリアント}/{元のファイル名}.jpg
+// URL   ：/uploads/variants/{バリアント}/{元のファイル名}.jpg
+//
+// ・画素だけを書き出すので、Exif などのメタデータは残らない
+// ・元画像より大きくはしない（小さい画像は再圧縮だけ）
+// ・作成は少数スレッド＋上限付きキューで行う
+//   アップロード直後の分は、キューが溢れたら捨てる（画面は待たせない。次回起動時の補完で作られる）
+//   起動時の補完は専用スレッドから流し込み、同時に入れるのはスレッド数までにする（キューはアップロード用に空けておく）。
+//   それでも入らなければ補完スレッドで自分で作る。どちらも捨てずに、空くまで待つ
+// ・作成前に表示された場合は WebConfig が元画像を返す
+@Service
+public class ImageVariantService {
+
+	private static final Logger log = LoggerFactory.getLogger(ImageVariantService.class);
+
+	public enum Variant {
+		THUMB("thumb", 160),
+		CARD("card", 640),
+		FULL("full", 1280);
+
+		private final String dir;
+		private final int width;
+
+		Variant(String dir, int width) {
+			this.dir = dir;
+			this.width = width;
+		}
+
+		public String getDir() {
+			return dir;
+		}
+
+		public int getWidth() {
+			return width;
+		}
+	}
+
+	public static final String VARIANTS_DIR = "variants";
+
+	private static final String UPLOAD_URL_PREFIX = "/uploads/";
+	private static final float JPEG_QUALITY = 0.8f;
+
+	private final Path uploadPath;
+	private final boolean backfillOnStartup;
+	private final ThreadPoolExecutor executor;
+	private final ExecutorService backfiller;
+
+	// 補完がキューに入れてよい数（作り終わったら返す）
+	private final Semaphore backfillSlots;
+
+	public ImageVariantService(
+			@Value("${app.upload.dir:uploads}") String uploadDir,
+			@Value("${app.upload.variants.threads:2}") int threads,
+			@Value("${app.upload.variants.queue-size:100}") int queueSize,
+			@Value("${app.upload.variants.backfill-on-startup:true}") boolean backfillOnStartup) {
+
+		this.uploadPath = Paths.get(uploadDir).toAbsolutePath().normalize();
+		this.backfillOnStartup = backfillOnStartup;
+
+		AtomicInteger seq = new AtomicInteger();
+		this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(queueSize),
+				r -> {
+					Thread t = new Thread(r, "image-variants-" + seq.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				},
+				(r, pool) -> {
+					if (r instanceof BackfillTask && !pool.isShutdown()) {
+						// 補完は捨てずに、呼んだ補完スレッドで作る
+						r.run();
+					} else {
+						log.warn("画像バリアント作成のキューが一杯のため、スキップしました");
+					}
+				});
+		this.backfillSlots = new Semaphore(threads);
+		this.backfiller = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "image-variants-backfill");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	// =====================
+	// アップロード直後に呼ぶ：バリアント作成を予約
+	// =====================
+	public void schedule(String filename) {
+		executor.execute(() -> generate(filename));
+	}
+
+	// =====================
+	// 起動時：バリアントが無い既存画像の分を作る
+	// =====================
+	@EventListener(ApplicationReadyEvent.class)
+	public void backfill() {
+		if (!backfillOnStartup || !Files.isDirectory(uploadPath)) {
+			return;
+		}
+		backfiller.execute(this::backfillAll);
+	}
+
+	// 補完スレッド：枠が空くのを待ちながら1画像ずつ流し込む
+	void backfillAll() {
+		int count = 0;
+		try (Stream<Path> files = Files.list(uploadPath)) {
+			Iterator<String> names = files.filter(Files::isRegularFile)
+					.map(p -> p.getFileName().toString())
+					.filter(name -> !Files.exists(variantPath(name, Variant.FULL)))
+					.iterator();
+			while (names.hasNext()) {
+				backfillSlots.acquire();
+				executor.execute(new BackfillTask(names.next()));
+				count++;
+			}
+			if (count > 0) {
+				log.info("画像バリアントの補完を {} 件流し込みました", count);
+			}
+		} catch (IOException | UncheckedIOException e) {
+			log.warn("画像バリアントの補完に失敗しました: {}", e.getMessage());
+		} catch (InterruptedException e) {
+			// 停止時
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// 補完の1画像分（作り終わったら枠を返す）
+	private final class BackfillTask implements Runnable {
+
+		private final String filename;
+
+		BackfillTask(String filename) {
+			this.filename = filename;
+		}
+
+		@Override
+		public void run() {
+			try {
+				generate(filename);
+			} finally {
+				backfillSlots.release();
+			}
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		backfiller.shutdownNow();
+		executor.shutdownNow();
+	}
+
+	// =====================
+	// 画面用：URL と srcset
+	// =====================
+	//
+	// アップロード画像以外（/images/... など）は元の URL のまま、srcset は null（属性を出さない）。
+	public String url(String imageUrl, Variant variant) {
+		String filename = uploadedFilename(imageUrl);
+		if (filename == null) {
+			return imageUrl;
+		}
+		return UPLOAD_URL_PREFIX + VARIANTS_DIR + "/" + variant.getDir() + "/" + filename + ".jpg";
+	}
+
+	public String thumbUrl(String imageUrl) {
+		return url(imageUrl, Variant.THUMB);
+	}
+
+	public String cardUrl(String imageUrl) {
+		return url(imageUrl, Variant.CARD);
+	}
+
+	// 例：/uploads/variants/thumb/a.png.jpg 160w, /uploads/variants/card/a.png.jpg 640w, ...
+	public String srcset(String imageUrl) {
+		if (uploadedFilename(imageUrl) == null) {
+			return null;
+		}
+		StringBuilder sb = new StringBuilder();
+		for (Variant v : Variant.values()) {
+			if (sb.length() > 0) {
+				sb.append(", ");
+			}
+			sb.append(url(imageUrl, v)).append(' ').append(v.getWidth()).append('w');
+		}
+		return sb.toString();
+	}
+
+	// /uploads/xxx.png → xxx.png（サブフォルダを含むものは対象外）
+	private static String uploadedFilename(String imageUrl) {
+		if (imageUrl == null || !imageUrl.startsWith(UPLOAD_URL_PREFIX)) {
+			return null;
+		}
+		String filename = imageUrl.substring(UPLOAD_URL_PREFIX.length());
+		return filename.isEmpty() || filename.contains("/") ? null : filename;
+	}
+
+	// =====================
+	// バリアント作成（1画像分）
+	// =====================
+	private void generate(String filename) {
+		Path source = uploadPath.resolve(filename);
+		try {
+			BufferedImage original = ImageIO.read(source.toFile());
+			if (original == null) {
+				// ImageIO で読めない形式（webp など）はそのまま元画像を使う
+				log.info("画像バリアントを作れない形式のためスキップしました: {}", filename);
+				return;
+			}
+			for (Variant v : Variant.values()) {
+				writeJpeg(resize(original, v.getWidth()), variantPath(filename, v));
+			}
+		} catch (IOException | RuntimeException e) {
+			log.warn("画像バリアントの作成に失敗しました: {} ({})", filename, e.getMessage());
+		}
+	}
+
+	private Path variantPath(String filename, Variant variant) {
+		return uploadPath.resolve(VARIANTS_DIR).resolve(variant.getDir()).resolve(filename + ".jpg");
+	}
+
+	// 幅 maxWidth に収まるよう縮小する（拡大はしない）。
+	// 一気に縮めると荒くなるので半分ずつ縮め、透過部分は白で塗る（JPEG は透過できないため）。
+	static BufferedImage resize(BufferedImage src, int maxWidth) {
+		int targetW = Math.min(maxWidth, src.getWidth());
+		int targetH = Math.max(1, Math.round((float) src.getHeight() * targetW / src.getWidth()));
+
+		BufferedImage current = src;
+		int w = src.getWidth();
+		int h = src.getHeight();
+		do {
+			w = Math.max(targetW, w / 2);
+			h = Math.max(targetH, h / 2);
+			BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g = next.createGraphics();
+			try {
+				g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+				g.setColor(Color.WHITE);
+				g.fillRect(0, 0, w, h);
+				g.drawImage(current, 0, 0, w, h, null);
+			} finally {
+				g.dispose();
+			}
+			current = next;
+		} while (w != targetW || h != targetH);
+		return current;
+	}
+
+	// 一時ファイルに書いてから置き換えるので、書きかけのファイルが配信されることはない
+	private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+		Files.createDirectories(target.getParent());
+		Path tmp = Files.createTempFile(target.getParent(), "tmp-", ".jpg");
+		try {
+			Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+			ImageWriter writer = writers.next();
+			ImageWriteParam param = writer.getDefaultWriteParam();
+			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+			param.setCompressionQuality(JPEG_QUALITY);
+			param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+			try (ImageOutputStream out = ImageIO.createImageOutputStream(tmp.toFile())) {
+				writer.setOutput(out);
+				writer.write(null, new IIOImage(image, null, null), param);
+			} finally {
+				writer.dispose();
+			}
+			Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(tmp);
+		}
+	}
+
+	// WebConfig 用：バリアントの相対パス（variants/thumb/a.png.jpg）から元のファイル名（a.png）を返す
+	public static String originalFilename(String variantPath) {
+		String[] parts = variantPath.split("/");
+		if (parts.length != 3 || !VARIANTS_DIR.equals(parts[0])
+				|| !parts[2].toLowerCase(Locale.ROOT).endsWith(".jpg")) {
+			return null;
+		}
+		return parts[2].substring(0, parts[2].length() - ".jpg".length());
+	}
+}
@@ -0,0 +1,274 @@
+package com.example.sunny.service;
+
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+
+import jakarta.servlet.ServletContext;
+import jakarta.servlet.http.HttpSession;
+
+// =====================
+// DB に保存する HTTP セッション（1リクエストの間だけ使う）
+// =====================
+//
+// JdbcSessionFilter がリクエストの最初に JdbcSessionRepository から読み、
+// 最後に「このリクエストで変わった所だけ」を書き戻す。
+//
+// ・属性は読んだ時点ではバイト列のまま。getAttribute された時に初めて復元する
+// ・setAttribute / removeAttribute した属性だけを書き戻す
+//   （getAttribute で取り出したオブジェクトを書き換えただけでは保存されない。setAttribute し直すこと）
+// ・値のシリアライズは書き戻す時に行う（setAttribute 後の変更も反映される）
+// ・同じセッションへの同時リクエストは、属性ごとに後から書いた方が残る
+public class JdbcSession implements HttpSession {
+
+	private final String primaryId;
+	private final long creationTime;
+	private final boolean isNew;
+	private final Function<byte[], Object> deserializer;
+	private ServletContext servletContext;
+
+	private String id;
+	private long lastAccessedTime;
+	private int maxInactiveInterval;
+	private String principalName;
+
+	// DB に入っている値（書き戻しが必要かの判定用）
+	private long storedLastAccessedTime;
+
+	private final Map<String, Object> values = new HashMap<>();
+	private final Map<String, byte[]> serialized = new HashMap<>();
+	private final Set<String> changedAttributes = new LinkedHashSet<>();
+	private boolean stored;
+	private boolean idChanged;
+	private boolean metadataChanged;
+	private boolean invalidated;
+
+	// 新しいセッション
+	JdbcSession(String primaryId, String id, long now, int maxInactiveInterval, Function<byte[], Object> deserializer) {
+		this.primaryId = primaryId;
+		this.id = id;
+		this.creationTime = now;
+		this.lastAccessedTime = now;
+		this.storedLastAccessedTime = now;
+		this.maxInactiveInterval = maxInactiveInterval;
+		this.isNew = true;
+		this.deserializer = deserializer;
+	}
+
+	// DB から読んだセッション
+	JdbcSession(String primaryId, String id, long creationTime, long lastAccessedTime, int maxInactiveInterval,
+			String principalName, Map<String, byte[]> attributes, Function<byte[], Object> deserializer) {
+		this.primaryId = primaryId;
+		this.id = id;
+		this.creationTime = creationTime;
+		this.lastAccessedTime = lastAccessedTime;
+		this.storedLastAccessedTime = lastAccessedTime;
+		this.maxInactiveInterval = maxInactiveInterval;
+		this.principalName = principalName;
+		this.serialized.putAll(attributes);
+		this.isNew = false;
+		this.stored = true;
+		this.deserializer = deserializer;
+	}
+
+	// =====================
+	// HttpSession
+	// =====================
+
+	@Override
+	public long getCreationTime() {
+		checkValid();
+		return creationTime;
+	}
+
+	@Override
+	public String getId() {
+		return id;
+	}
+
+	@Override
+	public long getLastAccessedTime() {
+		checkValid();
+		return lastAccessedTime;
+	}
+
+	@Override
+	public ServletContext getServletContext() {
+		return servletContext;
+	}
+
+	@Override
+	public void setMaxInactiveInterval(int interval) {
+		if (interval != maxInactiveInterval) {
+			maxInactiveInterval = interval;
+			metadataChanged = true;
+		}
+	}
+
+	@Override
+	public int getMaxInactiveInterval() {
+		return maxInactiveInterval;
+	}
+
+	@Override
+	public Object getAttribute(String name) {
+		checkValid();
+		Object value = values.get(name);
+		if (value == null) {
+			byte[] bytes = serialized.remove(name);
+			if (bytes != null) {
+				value = deserializer.apply(bytes);
+				values.put(name, value);
+			}
+		}
+		return value;
+	}
+
+	@Override
+	public Enumeration<String> getAttributeNames() {
+		checkValid();
+		Set<String> names = new HashSet<>(values.keySet());
+		names.addAll(serialized.keySet());
+		return Collections.enumeration(names);
+	}
+
+	@Override
+	public void setAttribute(String name, Object value) {
+		checkValid();
+		if (value == null) {
+			removeAttribute(name);
+			return;
+		}
+		values.put(name, value);
+		serialized.remove(name);
+		changedAttributes.add(name);
+		if (HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY.equals(name)) {
+			updatePrincipalName(value);
+		}
+	}
+
+	@Override
+	public void removeAttribute(String name) {
+		checkValid();
+		boolean present = values.remove(name) != null | serialized.remove(name) != null;
+		if (present) {
+			changedAttributes.add(name);
+		}
+		if (HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY.equals(name)) {
+			updatePrincipalName(null);
+		}
+	}
+
+	@Override
+	public void invalidate() {
+		checkValid();
+		invalidated = true;
+	}
+
+	@Override
+	public boolean isNew() {
+		checkValid();
+		return isNew;
+	}
+
+	private void checkValid() {
+		if (invalidated) {
+			throw new IllegalStateException("セッションは無効化されています");
+		}
+	}
+
+	private void updatePrincipalName(Object securityContext) {
+		Authentication authentication = securityContext instanceof SecurityContext context
+				? context.getAuthentication()
+				: null;
+		String name = authentication != null ? authentication.getName() : null;
+		if (name == null ? principalName != null : !name.equals(principalName)) {
+			principalName = name;
+			metadataChanged = true;
+		}
+	}
+
+	// =====================
+	// JdbcSessionFilter / JdbcSessionRepository 用
+	// =====================
+
+	void setServletContext(ServletContext servletContext) {
+		this.servletContext = servletContext;
+	}
+
+	// リクエストが来た時に呼ぶ
+	void access(long now) {
+		lastAccessedTime = now;
+	}
+
+	// セッション固定攻撃対策（ログイン時に Spring Security が呼ぶ）
+	void changeId(String newId) {
+		id = newId;
+		idChanged = true;
+	}
+
+	boolean isExpired(long now) {
+		return maxInactiveInterval > 0 && now >= expiryTime();
+	}
+
+	long expiryTime() {
+		return maxInactiveInterval > 0 ? lastAccessedTime + maxInactiveInterval * 1000L : Long.MAX_VALUE;
+	}
+
+	String getPrimaryId() {
+		return primaryId;
+	}
+
+	String getPrincipalName() {
+		return principalName;
+	}
+
+	// DB に行があるか（新しいセッションは最初の書き戻しまで無い）
+	boolean isStored() {
+		return stored;
+	}
+
+	// invalidate() 済みか（JdbcSessionFilter が作り直しの判定に使う）
+	public boolean isInvalidated() {
+		return invalidated;
+	}
+
+	boolean isIdChanged() {
+		return idChanged;
+	}
+
+	boolean isMetadataChanged() {
+		return metadataChanged;
+	}
+
+	long getStoredLastAccessedTime() {
+		return storedLastAccessedTime;
+	}
+
+	Set<String> getChangedAttributes() {
+		return changedAttributes;
+	}
+
+	// 書き戻す値（削除された属性は null）
+	Object changedValue(String name) {
+		return values.get(name);
+	}
+
+	// 書き戻した後に呼ぶ
+	void saved() {
+		stored = true;
+		changedAttributes.clear();
+		idChanged = false;
+		metadataChanged = false;
+		storedLastAccessedTime = lastAccessedTime;
+	}
+}
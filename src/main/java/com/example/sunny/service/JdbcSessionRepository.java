@@ -0,0 +1,293 @@
+package com.example.sunny.service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.ServletContext;
+
+// =====================
+// HTTP セッションの DB 保存（app.session.store=jdbc の時だけ有効）
+// =====================
+//
+// セッションを http_sessions / http_session_attributes に置き、
+// どのサーバーでも同じセッションを読めるようにする（ロードバランサの後ろに複数台・再起動してもログインが続く）。
+//
+// 【読み込み】
+// ・セッション＋全属性を1クエリで読む。属性はバイト列のまま持ち、使われた時に復元する（JdbcSession）
+//
+// 【書き戻し（リクエストの最後に1回）】
+// ・変わった所だけ書く：setAttribute / removeAttribute した属性、ID の付け替え、ログインユーザーの変化
+// ・最終アクセス時刻は、前回書いてから app.session.jdbc.touch-interval-seconds 以上経った時だけ更新する
+//   （画面を見ているだけなら、ほとんどのリクエストで書き込みは無い。期限はその分だけ早く切れることがある）
+//
+// 【期限切れ】
+// ・読み込み時に期限を過ぎていれば無いものとして扱う
+// ・行の削除は1台ごとのタイマーで、期限切れを batch-size 件ずつまとめて消す（複数台で同時に動いても問題ない）
+@Service
+@ConditionalOnProperty(name = "app.session.store", havingValue = "jdbc")
+public class JdbcSessionRepository {
+
+	private static final Logger log = LoggerFactory.getLogger(JdbcSessionRepository.class);
+
+	private static final String SELECT_SQL = "SELECT s.primary_id, s.creation_time, s.last_access_time,"
+			+ " s.max_inactive_interval, s.principal_name, a.attribute_name, a.attribute_bytes"
+			+ " FROM http_sessions s LEFT JOIN http_session_attributes a ON a.session_primary_id = s.primary_id"
+			+ " WHERE s.session_id = ?";
+
+	private static final String INSERT_SESSION_SQL = "INSERT INTO http_sessions (primary_id, session_id,"
+			+ " creation_time, last_access_time, max_inactive_interval, expiry_time, principal_name)"
+			+ " VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+	private static final String UPDATE_SESSION_SQL = "UPDATE http_sessions SET session_id = ?,"
+			+ " last_access_time = ?, max_inactive_interval = ?, expiry_time = ?, principal_name = ?"
+			+ " WHERE primary_id = ?";
+
+	private static final String UPDATE_ATTRIBUTE_SQL = "UPDATE http_session_attributes SET attribute_bytes = ?"
+			+ " WHERE session_primary_id = ? AND attribute_name = ?";
+
+	private static final String INSERT_ATTRIBUTE_SQL = "INSERT INTO http_session_attributes"
+			+ " (session_primary_id, attribute_name, attribute_bytes) VALUES (?, ?, ?)";
+
+	private static final String DELETE_ATTRIBUTE_SQL = "DELETE FROM http_session_attributes"
+			+ " WHERE session_primary_id = ? AND attribute_name = ?";
+
+	private static final String DELETE_ATTRIBUTES_SQL = "DELETE FROM http_session_attributes WHERE session_primary_id = ?";
+
+	private static final String DELETE_SESSION_SQL = "DELETE FROM http_sessions WHERE primary_id = ?";
+
+	private static final String SELECT_EXPIRED_SQL = "SELECT primary_id FROM http_sessions WHERE expiry_time < ?"
+			+ " ORDER BY expiry_time FETCH FIRST ? ROWS ONLY";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final int maxInactiveSeconds;
+	private final long touchIntervalMillis;
+	private final long cleanupIntervalSeconds;
+	private final int cleanupBatchSize;
+
+	private final SecureRandom random = new SecureRandom();
+	private final SerializingConverter serializer = new SerializingConverter();
+	private final DeserializingConverter deserializer = new DeserializingConverter(getClass().getClassLoader());
+	private final ScheduledExecutorService cleaner;
+
+	public JdbcSessionRepository(
+			JdbcTemplate jdbcTemplate,
+			TransactionTemplate transactionTemplate,
+			@Value("${server.servlet.session.timeout:30m}") Duration timeout,
+			@Value("${app.session.jdbc.touch-interval-seconds:60}") long touchIntervalSeconds,
+			@Value("${app.session.jdbc.cleanup-interval-seconds:60}") long cleanupIntervalSeconds,
+			@Value("${app.session.jdbc.cleanup-batch-size:500}") int cleanupBatchSize) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.maxInactiveSeconds = (int) timeout.toSeconds();
+		this.touchIntervalMillis = TimeUnit.SECONDS.toMillis(touchIntervalSeconds);
+		this.cleanupIntervalSeconds = cleanupIntervalSeconds;
+		this.cleanupBatchSize = cleanupBatchSize;
+		this.cleaner = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "session-cleanup");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		cleaner.scheduleWithFixedDelay(this::deleteExpired, cleanupIntervalSeconds, cleanupIntervalSeconds,
+				TimeUnit.SECONDS);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		cleaner.shutdownNow();
+	}
+
+	// =====================
+	// 作成・読み込み
+	// =====================
+
+	// 新しいセッション（DB にはリクエストの最後に書く）
+	public JdbcSession create(ServletContext servletContext) {
+		JdbcSession session = new JdbcSession(UUID.randomUUID().toString(), newSessionId(),
+				System.currentTimeMillis(), maxInactiveSeconds, deserializer::convert);
+		session.setServletContext(servletContext);
+		return session;
+	}
+
+	// Cookie の ID からセッションを読む。無い・期限切れなら null
+	public JdbcSession find(String sessionId, ServletContext servletContext) {
+		// セッションの列は全行同じ。1行目で控え、属性は行ごとに集める
+		Object[] row = new Object[5];
+		Map<String, byte[]> attributes = new HashMap<>();
+		jdbcTemplate.query(SELECT_SQL, rs -> {
+			if (row[0] == null) {
+				row[0] = rs.getString("primary_id");
+				row[1] = rs.getLong("creation_time");
+				row[2] = rs.getLong("last_access_time");
+				row[3] = rs.getInt("max_inactive_interval");
+				row[4] = rs.getString("principal_name");
+			}
+			String name = rs.getString("attribute_name");
+			if (name != null) {
+				attributes.put(name, rs.getBytes("attribute_bytes"));
+			}
+		}, sessionId);
+		if (row[0] == null) {
+			return null;
+		}
+
+		JdbcSession session = new JdbcSession((String) row[0], sessionId, (Long) row[1], (Long) row[2],
+				(Integer) row[3], (String) row[4], attributes, deserializer::convert);
+		long now = System.currentTimeMillis();
+		if (session.isExpired(now)) {
+			return null;
+		}
+		session.setServletContext(servletContext);
+		session.access(now);
+		return session;
+	}
+
+	// ログイン時の ID 付け替え（書き込みはリクエストの最後）
+	public String changeSessionId(JdbcSession session) {
+		session.changeId(newSessionId());
+		return session.getId();
+	}
+
+	// =====================
+	// 書き戻し（変わった所だけ）
+	// =====================
+	public void save(JdbcSession session) {
+		if (session.isInvalidated()) {
+			if (session.isStored()) {
+				transactionTemplate.executeWithoutResult(status -> delete(session.getPrimaryId()));
+			}
+			return;
+		}
+
+		boolean touch = session.getLastAccessedTime() - session.getStoredLastAccessedTime() >= touchIntervalMillis;
+		boolean sessionRow = !session.isStored() || session.isIdChanged() || session.isMetadataChanged() || touch;
+		if (!sessionRow && session.getChangedAttributes().isEmpty()) {
+			return;
+		}
+
+		// 値のシリアライズはトランザクションの外で（シリアライズできない値ならここで止める）
+		List<Object[]> upserts = new ArrayList<>();
+		List<Object[]> deletes = new ArrayList<>();
+		for (String name : session.getChangedAttributes()) {
+			Object value = session.changedValue(name);
+			if (value == null) {
+				deletes.add(new Object[] { session.getPrimaryId(), name });
+			} else {
+				upserts.add(new Object[] { serialize(name, value), session.getPrimaryId(), name });
+			}
+		}
+
+		transactionTemplate.executeWithoutResult(status -> {
+			if (!session.isStored()) {
+				jdbcTemplate.update(INSERT_SESSION_SQL, session.getPrimaryId(), session.getId(),
+						session.getCreationTime(), session.getLastAccessedTime(), session.getMaxInactiveInterval(),
+						session.expiryTime(), session.getPrincipalName());
+			} else if (sessionRow) {
+				jdbcTemplate.update(UPDATE_SESSION_SQL, session.getId(), session.getLastAccessedTime(),
+						session.getMaxInactiveInterval(), session.expiryTime(), session.getPrincipalName(),
+						session.getPrimaryId());
+			}
+			if (!deletes.isEmpty()) {
+				jdbcTemplate.batchUpdate(DELETE_ATTRIBUTE_SQL, deletes);
+			}
+			if (!upserts.isEmpty()) {
+				// 既にある属性は UPDATE、無かったものだけ INSERT
+				int[] updated = session.isStored()
+						? jdbcTemplate.batchUpdate(UPDATE_ATTRIBUTE_SQL, upserts)
+						: new int[upserts.size()];
+				List<Object[]> inserts = new ArrayList<>();
+				for (int i = 0; i < updated.length; i++) {
+					if (updated[i] == 0) {
+						Object[] u = upserts.get(i);
+						inserts.add(new Object[] { u[1], u[2], u[0] });
+					}
+				}
+				if (!inserts.isEmpty()) {
+					jdbcTemplate.batchUpdate(INSERT_ATTRIBUTE_SQL, inserts);
+				}
+			}
+		});
+		session.saved();
+	}
+
+	private byte[] serialize(String name, Object value) {
+		try {
+			return serializer.convert(value);
+		} catch (RuntimeException e) {
+			throw new IllegalStateException("セッション属性をシリアライズできません: " + name
+					+ " (" + value.getClass().getName() + ")", e);
+		}
+	}
+
+	// =====================
+	// 期限切れの削除（まとめて）
+	// =====================
+	//
+	// 期限の古い順に batch-size 件ずつ、1トランザクションで属性とセッションを消す。
+	// 消した件数を返す。
+	public int deleteExpired() {
+		int total = 0;
+		try {
+			while (true) {
+				Integer deleted = transactionTemplate.execute(status -> {
+					List<Object[]> ids = jdbcTemplate.query(SELECT_EXPIRED_SQL,
+							(rs, n) -> new Object[] { rs.getString(1) }, System.currentTimeMillis(), cleanupBatchSize);
+					if (!ids.isEmpty()) {
+						jdbcTemplate.batchUpdate(DELETE_ATTRIBUTES_SQL, ids);
+						jdbcTemplate.batchUpdate(DELETE_SESSION_SQL, ids);
+					}
+					return ids.size();
+				});
+				total += deleted;
+				if (deleted < cleanupBatchSize) {
+					break;
+				}
+			}
+			if (total > 0) {
+				log.info("期限切れのセッションを {} 件削除しました", total);
+			}
+		} catch (RuntimeException e) {
+			// 次の実行で続きを消せるよう、スレッドは止めない
+			log.warn("期限切れのセッションの削除に失敗しました: {}", e.getMessage());
+		}
+		return total;
+	}
+
+	private void delete(String primaryId) {
+		jdbcTemplate.update(DELETE_ATTRIBUTES_SQL, primaryId);
+		jdbcTemplate.update(DELETE_SESSION_SQL, primaryId);
+	}
+
+	// 推測できない ID（32 バイトの乱数）
+	private String newSessionId() {
+		byte[] bytes = new byte[32];
+		random.nextBytes(bytes);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+}
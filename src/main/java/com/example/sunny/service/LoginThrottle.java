@@ -0,0 +1,61 @@
+package com.example.sunny.service;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+// =====================
+// ログイン試行の回数制限（パスワード照合の CPU を守る）
+// =====================
+//
+// パスワードの照合（bcrypt など）はわざと重く作られている。
+// 大量のログイン試行（リスト型攻撃）がそのまま照合まで進むと、CPU を使い切ってしまう。
+// そこで LoginThrottleFilter が、照合の前にここで回数を確かめる。
+//
+// ・IP アドレスごと … 1か所からの大量試行を止める
+// ・ログインIDごと  … 多くの IP から1アカウントを狙う試行を止める
+// どちらも TokenBucketTable（大きさ固定・メモリのみ）で数える。サーバーごとの制限。
+//
+// IP で断った試行は、ログインIDのトークンを減らさない（他人のアカウントを締め出しにくくする）。
+@Service
+public class LoginThrottle {
+
+	private final boolean enabled;
+	private final TokenBucketTable byIp;
+	private final TokenBucketTable byAccount;
+
+	private final LongAdder rejected = new LongAdder();
+
+	public LoginThrottle(
+			@Value("${app.login-throttle.enabled:true}") boolean enabled,
+			@Value("${app.login-throttle.ip.capacity:20}") int ipCapacity,
+			@Value("${app.login-throttle.ip.refill-per-minute:60}") double ipRefillPerMinute,
+			@Value("${app.login-throttle.account.capacity:5}") int accountCapacity,
+			@Value("${app.login-throttle.account.refill-per-minute:5}") double accountRefillPerMinute,
+			@Value("${app.login-throttle.slots:16384}") int slots,
+			@Value("${app.login-throttle.stripes:64}") int stripes) {
+		this.enabled = enabled;
+		this.byIp = new TokenBucketTable(ipCapacity, ipRefillPerMinute / 60d, slots, stripes);
+		this.byAccount = new TokenBucketTable(accountCapacity, accountRefillPerMinute / 60d, slots, stripes);
+	}
+
+	// ログインを試してよければ true（username は空でもよい）
+	public boolean tryAcquire(String remoteAddr, String username) {
+		if (!enabled) {
+			return true;
+		}
+		long now = System.nanoTime();
+		boolean allowed = byIp.tryAcquire(remoteAddr != null ? remoteAddr : "", now)
+				&& (username == null || username.isEmpty() || byAccount.tryAcquire(username, now));
+		if (!allowed) {
+			rejected.increment();
+		}
+		return allowed;
+	}
+
+	// 起動してから断った回数
+	public long getRejectedCount() {
+		return rejected.sum();
+	}
+}
@@ -0,0 +1,135 @@
+package com.example.sunny.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+// =====================
+// 終わった注文の保管（orders → orders_archive）
+// =====================
+//
+// orders には全期間の注文が溜まり続け、マイページもスタッフ画面も同じ表を読む。
+// 配達完了・キャンセルから min-age-days 日経った注文を orders_archive に移し、
+// orders の件数を「今動いている注文＋最近の注文」程度に保つ。
+//
+// ・interval-minutes ごとに裏のスレッドで動く。1回のトランザクションで batch-size 件ずつ移す
+//   （対象の行を FOR UPDATE で押さえてから INSERT … SELECT と DELETE。途中で落ちても二重にはならない）
+// ・経過日数は注文日時（created_at）で数える（完了日時は持っていないため）
+// ・配達完了・キャンセルの注文はスタッフ画面でも変更できないので、移した後に更新されることはない
+//
+// 保管済みの注文は OrderHistoryService がマイページから読む。
+@Service
+public class OrderArchiveService {
+
+	private static final Logger log = LoggerFactory.getLogger(OrderArchiveService.class);
+
+	private static final String FINISHED = "status IN ('COMPLETED', 'CANCELLED', 'CANCELED')";
+
+	private static final String COLUMNS = "id, user_id, item_id, quantity, total_price, status, created_at,"
+			+ " delivery_date, tracking_number, idempotency_key";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final boolean enabled;
+	private final long minAgeDays;
+	private final int batchSize;
+	private final long intervalMinutes;
+
+	private final ScheduledExecutorService executor;
+
+	public OrderArchiveService(
+			JdbcTemplate jdbcTemplate,
+			PlatformTransactionManager transactionManager,
+			@Value("${app.orders.archive.enabled:true}") boolean enabled,
+			@Value("${app.orders.archive.min-age-days:90}") long minAgeDays,
+			@Value("${app.orders.archive.batch-size:500}") int batchSize,
+			@Value("${app.orders.archive.interval-minutes:60}") long intervalMinutes) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.enabled = enabled;
+		this.minAgeDays = minAgeDays;
+		this.batchSize = batchSize;
+		this.intervalMinutes = intervalMinutes;
+		this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "order-archiver");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	// =====================
+	// 起動時：定期実行を始める
+	// =====================
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (enabled) {
+			executor.scheduleWithFixedDelay(this::runSafely, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	private void runSafely() {
+		try {
+			archive();
+		} catch (RuntimeException e) {
+			// 次の回にやり直す（移し終えた分はコミット済み）
+			log.warn("注文の保管に失敗しました: {}", e.getMessage());
+		}
+	}
+
+	// =====================
+	// 対象が無くなるまで batch-size 件ずつ移す（移した件数を返す）
+	// =====================
+	public int archive() {
+		LocalDateTime cutoff = LocalDateTime.now().minusDays(minAgeDays);
+		int total = 0;
+		int moved;
+		do {
+			moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+			total += moved;
+		} while (moved == batchSize);
+		if (total > 0) {
+			log.info("{} 日より前の終わった注文を {} 件保管しました", minAgeDays, total);
+		}
+		return total;
+	}
+
+	// 1トランザクション分
+	private int archiveBatch(LocalDateTime cutoff) {
+		List<Long> ids = jdbcTemplate.queryForList(
+				"SELECT id FROM orders WHERE " + FINISHED + " AND created_at < ? LIMIT ? FOR UPDATE",
+				Long.class, Timestamp.valueOf(cutoff), batchSize);
+		if (ids.isEmpty()) {
+			return 0;
+		}
+		String in = String.join(", ", Collections.nCopies(ids.size(), "?"));
+		Object[] args = ids.toArray();
+
+		Object[] insertArgs = new Object[ids.size() + 1];
+		insertArgs[0] = Timestamp.valueOf(LocalDateTime.now());
+		System.arraycopy(args, 0, insertArgs, 1, args.length);
+		jdbcTemplate.update("INSERT INTO orders_archive (" + COLUMNS + ", archived_at)"
+				+ " SELECT " + COLUMNS + ", ? FROM orders WHERE id IN (" + in + ")", insertArgs);
+		return jdbcTemplate.update("DELETE FROM orders WHERE id IN (" + in + ")", args);
+	}
+}
@@ -0,0 +1,109 @@
+package com.example.sunny.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.sunny.dto.LoginUser;
+import com.example.sunny.dto.OrderEventPayload;
+import com.example.sunny.dto.OrderReceipt;
+import com.example.sunny.entity.Item;
+import com.example.sunny.entity.Order;
+import com.example.sunny.entity.OutboxEvent;
+import com.example.sunny.event.ItemChangedEvent;
+import com.example.sunny.event.OrderChangedEvent;
+import com.example.sunny.repository.ItemRepository;
+import com.example.sunny.repository.OrderRepository;
+import com.example.sunny.repository.UserRepository;
+
+// =====================
+// 注文確定（1商品）
+// =====================
+//
+// 1. 在庫を確保（商品の行をロックして他の人の一時確保分を数え、ItemRepository.reserveStock の UPDATE 1文で残して減らす）
+// 2. 注文（冪等キー付き）を保存
+// 3. 後続の処理（メール・集計など）用に ORDER_PLACED をアウトボックスへ（同じトランザクション）
+// 4. 注文確認画面での一時確保を外す
+//
+// 同じキーの注文が同時に確定された場合、2件目は orders の一意制約
+// (user_id, idempotency_key) で INSERT が失敗し、在庫の確保ごとロールバックされる。
+// その DataIntegrityViolationException はそのまま呼び出し側へ投げる
+// （呼び出し側で最初の注文を読み直して完了画面を出す）。
+@Service
+public class OrderCompletionService {
+
+	private final ItemRepository itemRepository;
+	private final OrderRepository orderRepository;
+	private final UserRepository userRepository;
+	private final StockHoldService stockHoldService;
+	private final OutboxService outboxService;
+	private final ApplicationEventPublisher eventPublisher;
+
+	public OrderCompletionService(
+			ItemRepository itemRepository,
+			OrderRepository orderRepository,
+			UserRepository userRepository,
+			StockHoldService stockHoldService,
+			OutboxService outboxService,
+			ApplicationEventPublisher eventPublisher) {
+		this.itemRepository = itemRepository;
+		this.orderRepository = orderRepository;
+		this.userRepository = userRepository;
+		this.stockHoldService = stockHoldService;
+		this.outboxService = outboxService;
+		this.eventPublisher = eventPublisher;
+	}
+
+	// 在庫不足（または商品なし）なら null
+	@Transactional
+	public OrderReceipt complete(LoginUser user, Long itemId, int quantity, String idempotencyKey) {
+
+		// ---------------------
+		// 1. 在庫確保（0件＝在庫不足 or 商品なし）
+		// ---------------------
+		int heldByOthers = stockHoldService.lockAndCountHeldByOthers(itemId, user.getEmail());
+		if (itemRepository.reserveStock(itemId, quantity, heldByOthers) == 0) {
+			return null;
+		}
+
+		// 確保後の最新状態（在庫・ステータス）を読み直す
+		Item item = itemRepository.findById(itemId)
+				.orElseThrow(() -> new IllegalArgumentException("商品が見つかりません id=" + itemId));
+
+		BigDecimal totalPrice = item.getPrice().multiply(BigDecimal.valueOf(quantity));
+
+		// ---------------------
+		// 2. 注文を保存（IDENTITY 採番なのでここで INSERT され、キーの重複もここで分かる）
+		// ---------------------
+		Order order = new Order();
+		order.setUser(userRepository.getReferenceById(user.getId()));
+		order.setItem(item);
+		order.setQuantity(quantity);
+		order.setTotalPrice(totalPrice.intValue());
+		order.setStatus("CREATED");
+		order.setCreatedAt(LocalDateTime.now());
+		order.setIdempotencyKey(idempotencyKey);
+		orderRepository.save(order);
+
+		// ---------------------
+		// 3. 後続の処理はアウトボックスに書くだけ（コミット後に OutboxDispatcher が行う）
+		// ---------------------
+		outboxService.recordOrderEvent(OutboxEvent.ORDER_PLACED, new OrderEventPayload(
+				order.getId(), user.getId(), item.getId(), quantity, order.getTotalPrice(), order.getCreatedAt()));
+
+		// ---------------------
+		// 4. 注文確認画面での一時確保は不要になる（外すのはコミット後）
+		// ---------------------
+		stockHoldService.release(itemId, user.getEmail());
+
+		eventPublisher.publishEvent(ItemChangedEvent.saved(item));
+		eventPublisher.publishEvent(OrderChangedEvent.created(List.of(order.getId())));
+
+		return new OrderReceipt(order.getId(), item.getId(), item.getName(), item.getPrice(),
+				order.getQuantity(), order.getTotalPrice());
+	}
+}
@@ -0,0 +1,250 @@
+package com.example.sunny.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.sunny.dto.StaffOrderFilter;
+import com.example.sunny.entity.Order;
+
+// =====================
+// 注文の CSV 出力（経理向けの全件出力）
+// =====================
+//
+// 注文をエンティティに読み込まず、JDBC の結果セットを1行ずつ読んでそのまま書き出す。
+// 出力件数が 1千件でも 1千万件でも、メモリに載るのは fetch-size 行分と書き込みバッファだけ。
+//
+// ・結果セットは前進のみ・読み取り専用、fetch-size 行ずつ DB から受け取る
+//   （PostgreSQL などはトランザクション内でないとカーソルにならないので、読み取り専用トランザクションで囲む）
+// ・H2（組み込み）は fetch-size を見ず、結果を全件メモリに作ってから返す。
+//   出力中だけ、その接続で LAZY_QUERY_EXECUTION を有効にする（100万件で確認：
+//   無効だと出力中にヒープが約 70MB 増え、有効なら 1万件の時と変わらない）
+// ・絞り込みはスタッフ注文管理と同じ（StaffOrderFilter）。並びも同じ新しい順で、同じインデックスを使う
+// ・稼働中の注文（orders）を出し終えたら、続けて保管済みの注文（orders_archive）を出す
+//   （1つの結果にまとめて並べ替えると全件を溜めることになるため、表ごとに新しい順）
+//   2つの表を別々に読むので、トランザクションは REPEATABLE READ にして同じ時点の内容を読む。
+//   READ COMMITTED だと、間に保管へ移された注文が両方に出る（または、どちらにも出ない）
+// ・gzip=true なら圧縮しながら書く
+// ・Excel でそのまま開けるよう UTF-8 の BOM を付ける。
+//   = + - @ タブ CR で始まる文字列は式として実行されないよう先頭に ' を付ける
+//
+// 出力中は DB 接続を1本使い続けるので、同時に出力できる数を max-concurrent で制限する。
+// 1回の出力の最長時間は timeout（この出力のリクエストだけに設定する。StaffOrderController）。
+@Service
+public class OrderCsvExportService {
+
+	private static final Logger log = LoggerFactory.getLogger(OrderCsvExportService.class);
+
+	private static final byte[] UTF8_BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+	private static final int WRITE_BUFFER_CHARS = 64 * 1024;
+	private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	private static final String HEADER = "注文ID,注文日時,ユーザーID,ユーザー名,メールアドレス,"
+			+ "商品ID,商品名,数量,合計金額,ステータス,追跡番号,配送予定日";
+
+	private static final String SELECT_SQL = "SELECT o.id, o.created_at, o.user_id, u.name AS user_name, u.email,"
+			+ " o.item_id, i.name AS item_name, o.quantity, o.total_price, o.status, o.tracking_number, o.delivery_date"
+			+ " FROM %s o LEFT JOIN users u ON u.id = o.user_id LEFT JOIN items i ON i.id = o.item_id";
+
+	private static final List<String> TABLES = List.of("orders", "orders_archive");
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate readOnlyTransaction;
+	private final int fetchSize;
+	private final Semaphore permits;
+	private final Duration timeout;
+
+	public OrderCsvExportService(
+			JdbcTemplate jdbcTemplate,
+			PlatformTransactionManager transactionManager,
+			@Value("${app.orders.export.fetch-size:1000}") int fetchSize,
+			@Value("${app.orders.export.max-concurrent:2}") int maxConcurrent,
+			@Value("${app.orders.export.timeout:30m}") Duration timeout) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+		this.readOnlyTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+		this.fetchSize = fetchSize;
+		this.permits = new Semaphore(maxConcurrent);
+		this.timeout = timeout;
+	}
+
+	// =====================
+	// 出力の枠を取る（取れなければ false。終わったら release を呼ぶ）
+	// =====================
+	public boolean tryAcquire() {
+		return permits.tryAcquire();
+	}
+
+	public void release() {
+		permits.release();
+	}
+
+	public Duration getTimeout() {
+		return timeout;
+	}
+
+	// =====================
+	// 書き出し（件数を返す）
+	// =====================
+	//
+	// out は呼び出し側が閉じる。gzip の場合は圧縮の終わりまでここで書く。
+	public long export(StaffOrderFilter filter, boolean gzip, OutputStream out) throws IOException {
+		long started = System.nanoTime();
+		GZIPOutputStream gzipOut = gzip ? new GZIPOutputStream(out, WRITE_BUFFER_CHARS) : null;
+		OutputStream target = gzip ? gzipOut : out;
+		target.write(UTF8_BOM);
+
+		Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), WRITE_BUFFER_CHARS);
+		writer.write(HEADER);
+		writer.write("\r\n");
+
+		long[] rows = { 0 };
+		try {
+			readOnlyTransaction.executeWithoutResult(status -> {
+				// トランザクション内なので、以下はすべて同じ接続で実行される
+				boolean h2 = Boolean.TRUE.equals(jdbcTemplate.execute(
+						(ConnectionCallback<Boolean>) con -> "H2".equals(con.getMetaData().getDatabaseProductName())));
+				if (h2) {
+					jdbcTemplate.execute("SET LAZY_QUERY_EXECUTION TRUE");
+				}
+				try {
+					for (String table : TABLES) {
+						jdbcTemplate.query(
+								con -> prepare(con, table, filter),
+								rs -> {
+									try {
+										writeRow(writer, rs);
+									} catch (IOException e) {
+										// ダウンロードが中断された等。結果セットを閉じて抜ける
+										throw new UncheckedIOException(e);
+									}
+									rows[0]++;
+								});
+					}
+				} finally {
+					if (h2) {
+						jdbcTemplate.execute("SET LAZY_QUERY_EXECUTION FALSE");
+					}
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		writer.flush();
+		if (gzipOut != null) {
+			gzipOut.finish();
+		}
+		log.info("注文を CSV 出力しました（{} 件, {} ms）", rows[0], (System.nanoTime() - started) / 1_000_000);
+		return rows[0];
+	}
+
+	// 前進のみ・読み取り専用・fetch-size 行ずつ
+	private PreparedStatement prepare(Connection con, String table, StaffOrderFilter filter) throws SQLException {
+		StringBuilder sql = new StringBuilder(String.format(SELECT_SQL, table)).append(" WHERE 1 = 1");
+		List<Object> args = new ArrayList<>();
+		if (filter.getStatus() != null) {
+			sql.append(" AND o.status = ?");
+			args.add(filter.getStatus());
+		}
+		if (filter.getFrom() != null) {
+			sql.append(" AND o.created_at >= ?");
+			args.add(Timestamp.valueOf(filter.getFrom().atStartOfDay()));
+		}
+		if (filter.getTo() != null) {
+			sql.append(" AND o.created_at < ?");
+			args.add(Timestamp.valueOf(filter.getTo().plusDays(1).atStartOfDay()));
+		}
+		// スタッフ注文管理と同じ並び（ステータス指定時は (status, created_at, id) のインデックス順）
+		sql.append(filter.getStatus() != null ? " ORDER BY o.status DESC," : " ORDER BY")
+				.append(" o.created_at DESC, o.id DESC");
+
+		PreparedStatement ps = con.prepareStatement(sql.toString(),
+				ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+		ps.setFetchSize(fetchSize);
+		for (int i = 0; i < args.size(); i++) {
+			ps.setObject(i + 1, args.get(i));
+		}
+		return ps;
+	}
+
+	private static void writeRow(Writer w, ResultSet rs) throws IOException, SQLException {
+		Timestamp createdAt = rs.getTimestamp("created_at");
+		Date deliveryDate = rs.getDate("delivery_date");
+
+		w.write(Long.toString(rs.getLong("id")));
+		w.write(',');
+		w.write(createdAt == null ? "" : DATE_TIME.format(createdAt.toLocalDateTime()));
+		w.write(',');
+		w.write(Long.toString(rs.getLong("user_id")));
+		w.write(',');
+		writeText(w, rs.getString("user_name"));
+		w.write(',');
+		writeText(w, rs.getString("email"));
+		w.write(',');
+		w.write(Long.toString(rs.getLong("item_id")));
+		w.write(',');
+		writeText(w, rs.getString("item_name"));
+		w.write(',');
+		w.write(Integer.toString(rs.getInt("quantity")));
+		w.write(',');
+		w.write(Integer.toString(rs.getInt("total_price")));
+		w.write(',');
+		writeText(w, Order.statusLabel(rs.getString("status")));
+		w.write(',');
+		writeText(w, rs.getString("tracking_number"));
+		w.write(',');
+		w.write(deliveryDate == null ? "" : deliveryDate.toLocalDate().toString());
+		w.write("\r\n");
+	}
+
+	// 文字列の列：カンマ・改行・" を含む時だけ " で囲む（" は "" に）
+	static void writeText(Writer w, String value) throws IOException {
+		if (value == null || value.isEmpty()) {
+			return;
+		}
+		char first = value.charAt(0);
+		if (first == '=' || first == '+' || first == '-' || first == '@' || first == '\t' || first == '\r') {
+			value = "'" + value;
+		}
+		boolean quote = false;
+		for (int i = 0; i < value.length() && !quote; i++) {
+			char c = value.charAt(i);
+			quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+		}
+		if (!quote) {
+			w.write(value);
+			return;
+		}
+		w.write('"');
+		w.write(value.replace("\"", "\"\""));
+		w.write('"');
+	}
+}
@@ -0,0 +1,284 @@
+package com.example.sunny.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.sunny.dto.StaffOrderRow;
+import com.example.sunny.event.OrderChangedEvent;
+
+import jakarta.annotation.PreDestroy;
+
+// =====================
+// スタッフ注文管理のライブ更新（Server-Sent Events の配信ハブ）
+// =====================
+//
+// 注文の作成・ステータス変更（OrderChangedEvent）をコミット後に受け取り、
+// /staff/orders/stream を開いている全ブラウザへ流す。
+//
+// 【遅いブラウザで詰まらせない】
+// ・購読者ごとに上限付きのキュー（buffer-size 件）を持ち、publish は offer するだけ（待たない）
+// ・実際の送信は送信用スレッドが購読者ごとに行う
+// ・キューが溢れた購読者は、溜まった分を捨てて "resync" を送る（ブラウザは一覧を読み直す）
+//
+// 【DB を読むのは見ている人がいる時だけ・まとめて】
+// イベントは注文IDだけなので、購読者がいれば送信用スレッドで行を読む。
+// 注文確定のリクエスト側は、注文IDを「読み込み待ち」に足すだけで戻る。
+// 読み込みは同時に1つだけ。読んでいる間に届いた変更は次の1回にまとめる（まとめ買い・一括変更が続いても、
+// イベントごとにクエリは出ない）。待ちが max-pending 件を超えたら、読まずに全員へ "resync" を送る。
+//
+// 【送信用スレッドのキューも上限付き】
+// 積まれるのは購読者ごとに最大1つの送信タスクと、読み込み1つだけなので、上限は購読者数＋余裕分。
+//
+// 接続の生存確認に heartbeat-seconds ごとにコメント行を送る（切れていれば購読者から外す）。
+// ※ 購読者はアプリ（JVM）ごと。複数台構成（app.session.store=jdbc）では、
+//   他のサーバーでの変更を ClusterChangeFeed が読んで OrderChangedEvent を publish し直す
+@Service
+public class OrderEventHub {
+
+	private static final Logger log = LoggerFactory.getLogger(OrderEventHub.class);
+
+	public static final String EVENT_CREATED = "order-created";
+	public static final String EVENT_STATUS_CHANGED = "order-status-changed";
+	public static final String EVENT_RESYNC = "resync";
+
+	private static final int SENDER_QUEUE_HEADROOM = 16;
+
+	private final StaffOrderBoardService staffOrderBoardService;
+	private final int bufferSize;
+	private final int maxSubscribers;
+	private final long timeoutMillis;
+	private final int maxPending;
+
+	// 読み込み待ちの注文ID → 送るイベント名（同じ注文が続けて変わっても1行にまとまる）
+	private final Map<Long, String> pending = new ConcurrentHashMap<>();
+	private final AtomicBoolean reloadScheduled = new AtomicBoolean();
+	// 待ちが max-pending 件を超えた（それ以上は溜めず、次の読み込みの代わりに resync を送る）
+	private final AtomicBoolean pendingOverflowed = new AtomicBoolean();
+
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+	private final ThreadPoolExecutor sender;
+	private final ScheduledExecutorService heartbeat;
+
+	public OrderEventHub(
+			StaffOrderBoardService staffOrderBoardService,
+			@Value("${app.staff-board.sse.buffer-size:256}") int bufferSize,
+			@Value("${app.staff-board.sse.max-subscribers:100}") int maxSubscribers,
+			@Value("${app.staff-board.sse.timeout-minutes:30}") long timeoutMinutes,
+			@Value("${app.staff-board.sse.heartbeat-seconds:20}") long heartbeatSeconds,
+			@Value("${app.staff-board.sse.threads:2}") int threads,
+			@Value("${app.staff-board.sse.max-pending:1000}") int maxPending) {
+		this.staffOrderBoardService = staffOrderBoardService;
+		this.bufferSize = bufferSize;
+		this.maxSubscribers = maxSubscribers;
+		this.timeoutMillis = TimeUnit.MINUTES.toMillis(timeoutMinutes);
+		this.maxPending = maxPending;
+
+		// 送信タスクは購読者ごとに最大1つ、読み込みは1つなので、キューは購読者数＋余裕分あれば足りる
+		// （溢れた時は積んだ側が諦める：購読者は次の offer で、読み込みは次の変更で積み直す）
+		AtomicInteger seq = new AtomicInteger();
+		this.sender = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(maxSubscribers + SENDER_QUEUE_HEADROOM),
+				r -> {
+					Thread t = new Thread(r, "staff-board-sse-" + seq.incrementAndGet());
+					t.setDaemon(true);
+					return t;
+				});
+		this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "staff-board-heartbeat");
+			t.setDaemon(true);
+			return t;
+		});
+		heartbeat.scheduleAtFixedRate(this::sendHeartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		heartbeat.shutdownNow();
+		sender.shutdownNow();
+		for (Subscriber s : subscribers) {
+			s.emitter.complete();
+		}
+	}
+
+	// =====================
+	// 購読を始める（上限を超えていれば null）
+	// =====================
+	public SseEmitter subscribe() {
+		if (subscribers.size() >= maxSubscribers) {
+			return null;
+		}
+		return register(new SseEmitter(timeoutMillis));
+	}
+
+	// 購読者として登録する（テストでは送った内容を記録する SseEmitter を渡す）
+	SseEmitter register(SseEmitter emitter) {
+		Subscriber subscriber = new Subscriber(emitter);
+		emitter.onCompletion(() -> subscribers.remove(subscriber));
+		emitter.onTimeout(() -> subscribers.remove(subscriber));
+		emitter.onError(e -> subscribers.remove(subscriber));
+		subscribers.add(subscriber);
+		return emitter;
+	}
+
+	public int getSubscriberCount() {
+		return subscribers.size();
+	}
+
+	// =====================
+	// 注文の変更（コミット後）
+	// =====================
+	//
+	// 読み込み待ちに足して、読み込みが動いていなければ1つ積むだけ
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onOrderChanged(OrderChangedEvent event) {
+		if (subscribers.isEmpty() || event.getOrderIds().isEmpty()) {
+			return;
+		}
+		String name = event.getType() == OrderChangedEvent.Type.CREATED ? EVENT_CREATED : EVENT_STATUS_CHANGED;
+		for (Long orderId : event.getOrderIds()) {
+			if (pending.size() >= maxPending) {
+				pendingOverflowed.set(true);
+				break;
+			}
+			// 作成とステータス変更がまとまった場合は作成として送る（画面に行が無いので追加してもらう）
+			pending.merge(orderId, name, (a, b) -> EVENT_CREATED.equals(a) ? a : b);
+		}
+		scheduleReload();
+	}
+
+	private void scheduleReload() {
+		if (!reloadScheduled.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			sender.execute(this::reload);
+		} catch (RuntimeException e) {
+			// 停止中・キューが一杯。待ちは残るので、次の変更で積み直す
+			reloadScheduled.set(false);
+			log.debug("ライブ更新の読み込みを積めませんでした: {}", e.getMessage());
+		}
+	}
+
+	// 送信用スレッド：待っている注文をまとめて1クエリで読み、配る
+	void reload() {
+		// 先に下ろしておく（ここから後に足された分は、もう1回積まれる）
+		reloadScheduled.set(false);
+
+		Map<Long, String> batch = new HashMap<>();
+		for (Long orderId : pending.keySet()) {
+			String name = pending.remove(orderId);
+			if (name != null) {
+				batch.put(orderId, name);
+			}
+		}
+		if (pendingOverflowed.getAndSet(false)) {
+			// 追いつけなかった：読まずに画面ごと読み直してもらう
+			publish(SseEmitter.event().name(EVENT_RESYNC).data("{}", MediaType.APPLICATION_JSON));
+			return;
+		}
+		if (batch.isEmpty()) {
+			return;
+		}
+		try {
+			List<StaffOrderRow> rows = staffOrderBoardService.findRows(new ArrayList<>(batch.keySet()));
+			for (StaffOrderRow row : rows) {
+				publish(SseEmitter.event().name(batch.get(row.getId())).data(row, MediaType.APPLICATION_JSON));
+			}
+		} catch (RuntimeException e) {
+			// 読めなかった分は画面ごと読み直してもらう
+			log.warn("ライブ更新の読み込みに失敗しました: {}", e.getMessage());
+			publish(SseEmitter.event().name(EVENT_RESYNC).data("{}", MediaType.APPLICATION_JSON));
+		}
+	}
+
+	// 全購読者のキューに積む（待たない）
+	private void publish(SseEmitter.SseEventBuilder message) {
+		for (Subscriber s : subscribers) {
+			s.offer(message);
+		}
+	}
+
+	private void sendHeartbeat() {
+		publish(SseEmitter.event().comment("keep-alive"));
+	}
+
+	// =====================
+	// 購読者（ブラウザ1つ分）
+	// =====================
+	private final class Subscriber {
+
+		final SseEmitter emitter;
+		final ArrayBlockingQueue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(bufferSize);
+		final AtomicBoolean scheduled = new AtomicBoolean();
+		volatile boolean overflowed;
+
+		Subscriber(SseEmitter emitter) {
+			this.emitter = emitter;
+		}
+
+		void offer(SseEmitter.SseEventBuilder message) {
+			if (!queue.offer(message)) {
+				overflowed = true;
+			}
+			if (scheduled.compareAndSet(false, true)) {
+				try {
+					sender.execute(this::drain);
+				} catch (RuntimeException e) {
+					scheduled.set(false);
+				}
+			}
+		}
+
+		// 送信用スレッド：溜まった分を送る
+		void drain() {
+			try {
+				if (overflowed) {
+					// 追いつけなかった：途中を捨てて、一覧の読み直しを頼む
+					overflowed = false;
+					queue.clear();
+					emitter.send(SseEmitter.event().name(EVENT_RESYNC).data("{}", MediaType.APPLICATION_JSON));
+				}
+				SseEmitter.SseEventBuilder message;
+				while ((message = queue.poll()) != null) {
+					emitter.send(message);
+				}
+			} catch (IOException | IllegalStateException e) {
+				// 切断済み
+				subscribers.remove(this);
+				emitter.completeWithError(e);
+				return;
+			} finally {
+				scheduled.set(false);
+			}
+			// 送っている間に積まれた分
+			if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+				try {
+					sender.execute(this::drain);
+				} catch (RuntimeException e) {
+					// 停止中・キューが一杯。次の offer で積み直す
+					scheduled.set(false);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,96 @@
+package com.example.sunny.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.sunny.dto.KeysetCursor;
+import com.example.sunny.dto.OrderHistoryPage;
+import com.example.sunny.dto.OrderHistoryRow;
+import com.example.sunny.entity.ArchivedOrder;
+import com.example.sunny.entity.Order;
+import com.example.sunny.repository.ArchivedOrderRepository;
+import com.example.sunny.repository.OrderRepository;
+
+// =====================
+// 注文の読み込み窓口（稼働中の orders ＋ 保管済みの orders_archive）
+// =====================
+//
+// 画面は「どちらの表にあるか」を気にせず、ここから読む。
+//
+// 【注文履歴のページ】新しい順・キーセット方式
+// ・まず orders から1ページ分（＋1件）を読む
+// ・次に、このユーザーの保管済みの注文で一番新しい注文日時を DB から読む（索引の端を読むだけ）。
+//   読んだ行の最後がそれより新しければ、このページに保管済みの注文が入る余地は無いので
+//   orders_archive は読まない（普段見る最初の数ページはこれで済む）
+//   どのサーバーが保管したかに関係なく、毎回 DB の値で判断する。
+//   orders を読んだ後に読むので、その間に保管された注文も取りこぼさない
+// ・そうでなければ orders_archive からも同じ条件で読み、新しい順に混ぜて1ページにする
+//   （まだ終わっていない古い注文も、保管済みの注文と正しい順番で並ぶ）
+//
+// 【注文1件】orders に無ければ orders_archive を見る（Order に詰め替えて返す）
+@Service
+@Transactional(readOnly = true)
+public class OrderHistoryService {
+
+	public static final int PAGE_SIZE = 20;
+
+	private static final Comparator<OrderHistoryRow> NEWEST_FIRST = Comparator
+			.comparing(OrderHistoryRow::getCreatedAt).thenComparing(OrderHistoryRow::getId).reversed();
+
+	private final OrderRepository orderRepository;
+	private final ArchivedOrderRepository archivedOrderRepository;
+
+	public OrderHistoryService(
+			OrderRepository orderRepository,
+			ArchivedOrderRepository archivedOrderRepository) {
+		this.orderRepository = orderRepository;
+		this.archivedOrderRepository = archivedOrderRepository;
+	}
+
+	// =====================
+	// 注文履歴（after より古い注文を1ページ）
+	// =====================
+	public OrderHistoryPage findPage(Long userId, String after) {
+		KeysetCursor cursor = KeysetCursor.decode(after);
+		Limit limit = Limit.of(PAGE_SIZE + 1);
+
+		List<OrderHistoryRow> rows = new ArrayList<>(cursor == null
+				? orderRepository.findHistory(userId, limit)
+				: orderRepository.findHistoryOlderThan(userId, cursor.getCreatedAt(), cursor.getId(), limit));
+
+		LocalDateTime newestArchived = archivedOrderRepository.findNewestCreatedAt(userId).orElse(null);
+		boolean archiveMayFollow = newestArchived != null
+				&& (rows.size() <= PAGE_SIZE || !rows.get(PAGE_SIZE).getCreatedAt().isAfter(newestArchived));
+		if (archiveMayFollow) {
+			rows.addAll(cursor == null
+					? archivedOrderRepository.findHistory(userId, limit)
+					: archivedOrderRepository.findHistoryOlderThan(userId, cursor.getCreatedAt(), cursor.getId(), limit));
+			rows.sort(NEWEST_FIRST);
+		}
+
+		boolean hasNext = rows.size() > PAGE_SIZE;
+		if (hasNext) {
+			rows = rows.subList(0, PAGE_SIZE);
+		}
+		String next = hasNext ? KeysetCursor.of(rows.get(rows.size() - 1)).encode() : null;
+		return new OrderHistoryPage(rows, next);
+	}
+
+	// =====================
+	// 注文1件（稼働中 → 保管済みの順に探す）
+	// =====================
+	public Optional<Order> findOrder(Long orderId) {
+		Optional<Order> order = orderRepository.findById(orderId);
+		if (order.isPresent()) {
+			return order;
+		}
+		return archivedOrderRepository.findById(orderId).map(ArchivedOrder::toOrder);
+	}
+}
@@ -0,0 +1,19 @@
+package com.example.sunny.service;
+
+// カート購入時、在庫が足りない商品があった場合の例外
+// （トランザクションごと取り消されるので、どの商品の在庫も減らない）
+public class OutOfStockException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final Long itemId;
+
+	public OutOfStockException(Long itemId, String itemName) {
+		super("在庫が足りません：" + itemName);
+		this.itemId = itemId;
+	}
+
+	public Long getItemId() {
+		return itemId;
+	}
+}
@@ -0,0 +1,265 @@
+package com.example.sunny.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.sunny.entity.OutboxEvent;
+import com.example.sunny.event.OutboxRecordedEvent;
+
+import jakarta.annotation.PreDestroy;
+
+// =====================
+// アウトボックスの配送（裏のスレッドでハンドラーを呼ぶ）
+// =====================
+//
+// 1. 取り出し：処理してよい行をまとめて（batch-size 件）PROCESSING にし、自分の印（claim_token）を付ける
+//    UPDATE 1文で印を付けるので、複数台で動かしても同じ行を2台が取ることはない
+// 2. 配送：行ごとに、その種類を受け取る全ハンドラーを順に呼ぶ
+// 3. 結果：成功 → DONE。失敗 → 待ち時間を倍々に延ばして PENDING に戻す
+//    （max-attempts 回失敗したら FAILED にして諦める。ログに出すので手で調べる）
+//
+// 動くタイミング：
+// ・アウトボックスに書いたトランザクションのコミット直後（OutboxRecordedEvent）
+// ・poll-interval-ms ごと（再実行待ちの行・起こし損ねた行の拾い上げ）
+//
+// 処理中に落ちた行は lease-seconds を過ぎたら取り出し直す。
+// DONE の行は retention-hours を過ぎたら消す。
+@Service
+public class OutboxDispatcher {
+
+	private static final Logger log = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+	private static final int MAX_ERROR_LENGTH = 500;
+
+	// 取り出し：サブクエリで選んだ行を、外側でも同じ条件を確かめてから更新する
+	// （同時に取り出そうとした他の dispatcher が先に更新していれば、条件に合わず飛ばされる）
+	private static final String CLAIM_SQL = "UPDATE outbox_events SET status = '" + OutboxEvent.PROCESSING + "',"
+			+ " claim_token = ?, claimed_at = ?"
+			+ " WHERE id IN (SELECT id FROM outbox_events"
+			+ "   WHERE (status = '" + OutboxEvent.PENDING + "' AND next_attempt_at <= ?)"
+			+ "      OR (status = '" + OutboxEvent.PROCESSING + "' AND claimed_at < ?)"
+			+ "   ORDER BY id LIMIT ?)"
+			+ " AND ((status = '" + OutboxEvent.PENDING + "' AND next_attempt_at <= ?)"
+			+ "   OR (status = '" + OutboxEvent.PROCESSING + "' AND claimed_at < ?))";
+
+	private static final String SELECT_CLAIMED_SQL = "SELECT id, event_type, aggregate_id, payload, status, attempts,"
+			+ " next_attempt_at, claim_token, claimed_at, created_at FROM outbox_events"
+			+ " WHERE claim_token = ? AND status = '" + OutboxEvent.PROCESSING + "' ORDER BY id";
+
+	private static final String DONE_SQL = "UPDATE outbox_events SET status = '" + OutboxEvent.DONE + "',"
+			+ " processed_at = ?, claim_token = NULL WHERE id = ? AND claim_token = ?";
+
+	private static final String RETRY_SQL = "UPDATE outbox_events SET status = ?, attempts = ?,"
+			+ " next_attempt_at = ?, last_error = ?, claim_token = NULL WHERE id = ? AND claim_token = ?";
+
+	private static final RowMapper<OutboxEvent> ROW_MAPPER = (rs, n) -> {
+		OutboxEvent e = new OutboxEvent();
+		e.setId(rs.getLong("id"));
+		e.setEventType(rs.getString("event_type"));
+		e.setAggregateId(rs.getLong("aggregate_id"));
+		e.setPayload(rs.getString("payload"));
+		e.setStatus(rs.getString("status"));
+		e.setAttempts(rs.getInt("attempts"));
+		e.setNextAttemptAt(rs.getTimestamp("next_attempt_at").toLocalDateTime());
+		e.setClaimToken(rs.getString("claim_token"));
+		e.setClaimedAt(rs.getTimestamp("claimed_at").toLocalDateTime());
+		e.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+		return e;
+	};
+
+	private final JdbcTemplate jdbcTemplate;
+	private final ObjectProvider<OutboxHandler> handlerProvider;
+	private final long pollIntervalMillis;
+	private final int batchSize;
+	private final int maxAttempts;
+	private final long backoffInitialMillis;
+	private final long backoffMaxMillis;
+	private final long leaseSeconds;
+	private final long retentionHours;
+
+	private final ScheduledExecutorService executor;
+
+	// 起こす合図が既に積まれているか（コミットのたびに積み増さない）
+	private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+	private List<OutboxHandler> handlers = List.of();
+
+	public OutboxDispatcher(
+			JdbcTemplate jdbcTemplate,
+			ObjectProvider<OutboxHandler> handlerProvider,
+			@Value("${app.outbox.poll-interval-ms:1000}") long pollIntervalMillis,
+			@Value("${app.outbox.batch-size:100}") int batchSize,
+			@Value("${app.outbox.max-attempts:10}") int maxAttempts,
+			@Value("${app.outbox.backoff-initial-ms:1000}") long backoffInitialMillis,
+			@Value("${app.outbox.backoff-max-ms:300000}") long backoffMaxMillis,
+			@Value("${app.outbox.lease-seconds:60}") long leaseSeconds,
+			@Value("${app.outbox.retention-hours:24}") long retentionHours) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.handlerProvider = handlerProvider;
+		this.pollIntervalMillis = pollIntervalMillis;
+		this.batchSize = batchSize;
+		this.maxAttempts = maxAttempts;
+		this.backoffInitialMillis = backoffInitialMillis;
+		this.backoffMaxMillis = backoffMaxMillis;
+		this.leaseSeconds = leaseSeconds;
+		this.retentionHours = retentionHours;
+		this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "outbox-dispatcher");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	// =====================
+	// 起動時：ハンドラーを集めてポーリングを始める
+	// =====================
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		handlers = handlerProvider.orderedStream().toList();
+		log.info("アウトボックスのハンドラー: {} 件", handlers.size());
+		executor.scheduleWithFixedDelay(this::drain, 0, pollIntervalMillis, TimeUnit.MILLISECONDS);
+		executor.scheduleWithFixedDelay(this::purge, 10, 10, TimeUnit.MINUTES);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	// =====================
+	// コミット直後：すぐに配送する
+	// =====================
+	//
+	// 注文のスレッドでは合図を積むだけ（ハンドラーの処理は待たない）。
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onRecorded(OutboxRecordedEvent event) {
+		if (wakeUpPending.compareAndSet(false, true)) {
+			try {
+				executor.execute(() -> {
+					wakeUpPending.set(false);
+					drain();
+				});
+			} catch (RuntimeException e) {
+				// 停止中など。次のポーリングで拾われる
+				wakeUpPending.set(false);
+			}
+		}
+	}
+
+	// =====================
+	// 取り出せる行が無くなるまで配送する
+	// =====================
+	void drain() {
+		try {
+			int claimed;
+			do {
+				claimed = dispatchBatch();
+			} while (claimed == batchSize);
+		} catch (RuntimeException e) {
+			// スレッドを止めないよう、ここで受けて次の回に任せる
+			log.warn("アウトボックスの配送に失敗しました: {}", e.getMessage());
+		}
+	}
+
+	// 1回分（最大 batch-size 件）を取り出して配送し、取り出した件数を返す
+	private int dispatchBatch() {
+		String token = UUID.randomUUID().toString();
+		LocalDateTime now = LocalDateTime.now();
+		Timestamp nowTs = Timestamp.valueOf(now);
+		Timestamp leaseExpired = Timestamp.valueOf(now.minusSeconds(leaseSeconds));
+
+		int claimed = jdbcTemplate.update(CLAIM_SQL,
+				token, nowTs, nowTs, leaseExpired, batchSize, nowTs, leaseExpired);
+		if (claimed == 0) {
+			return 0;
+		}
+
+		List<Object[]> done = new ArrayList<>();
+		for (OutboxEvent event : jdbcTemplate.query(SELECT_CLAIMED_SQL, ROW_MAPPER, token)) {
+			try {
+				deliver(event);
+				done.add(new Object[] { Timestamp.valueOf(LocalDateTime.now()), event.getId(), token });
+			} catch (Exception e) {
+				retryLater(event, token, e);
+			}
+		}
+		if (!done.isEmpty()) {
+			jdbcTemplate.batchUpdate(DONE_SQL, done);
+		}
+		return claimed;
+	}
+
+	private void deliver(OutboxEvent event) throws Exception {
+		for (OutboxHandler handler : handlers) {
+			if (handler.supports(event.getEventType())) {
+				handler.handle(event);
+			}
+		}
+	}
+
+	// ---------------------
+	// 失敗時：待ち時間を倍々に延ばして戻す（上限回数で FAILED）
+	// ---------------------
+	private void retryLater(OutboxEvent event, String token, Exception e) {
+		int attempts = event.getAttempts() + 1;
+		String error = String.valueOf(e);
+		if (error.length() > MAX_ERROR_LENGTH) {
+			error = error.substring(0, MAX_ERROR_LENGTH);
+		}
+
+		if (attempts >= maxAttempts) {
+			log.error("アウトボックスの配送を諦めました id={} type={} ({} 回失敗): {}",
+					event.getId(), event.getEventType(), attempts, error);
+			jdbcTemplate.update(RETRY_SQL, OutboxEvent.FAILED, attempts,
+					Timestamp.valueOf(LocalDateTime.now()), error, event.getId(), token);
+			return;
+		}
+
+		long delayMillis = backoffMillis(attempts);
+		log.warn("アウトボックスの配送に失敗しました id={} type={}（{} ms 後に再実行）: {}",
+				event.getId(), event.getEventType(), delayMillis, error);
+		jdbcTemplate.update(RETRY_SQL, OutboxEvent.PENDING, attempts,
+				Timestamp.valueOf(LocalDateTime.now().plusNanos(delayMillis * 1_000_000)),
+				error, event.getId(), token);
+	}
+
+	// 1回目 initial、2回目 initial×2、3回目 ×4 … 上限 backoff-max-ms
+	long backoffMillis(int attempts) {
+		int shift = Math.min(attempts - 1, 30);
+		return Math.min(backoffMaxMillis, backoffInitialMillis << shift);
+	}
+
+	// =====================
+	// 古い DONE の行を消す
+	// =====================
+	private void purge() {
+		try {
+			int deleted = jdbcTemplate.update(
+					"DELETE FROM outbox_events WHERE status = '" + OutboxEvent.DONE + "' AND processed_at < ?",
+					Timestamp.valueOf(LocalDateTime.now().minusHours(retentionHours)));
+			if (deleted > 0) {
+				log.info("処理済みのアウトボックスを {} 件削除しました", deleted);
+			}
+		} catch (RuntimeException e) {
+			log.warn("アウトボックスの削除に失敗しました: {}", e.getMessage());
+		}
+	}
+}
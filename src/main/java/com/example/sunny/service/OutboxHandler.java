@@ -0,0 +1,21 @@
+package com.example.sunny.service;
+
+import com.example.sunny.entity.OutboxEvent;
+
+// =====================
+// アウトボックスのイベントを受け取る処理（メール送信・売上集計など）
+// =====================
+//
+// @Service などで Bean にしておけば OutboxDispatcher が自動で見つけて呼ぶ。
+//
+// ・呼ばれるのはコミット後、dispatcher のスレッド（注文のリクエストとは別）
+// ・例外を投げると、そのイベントは間隔を空けて再実行される
+// ・再実行では同じイベントの全ハンドラーがもう一度呼ばれる（少なくとも1回の配送）。
+//   同じイベントを2回受け取っても結果が変わらないように作ること（event.getId() で重複判定など）
+public interface OutboxHandler {
+
+	// 受け取るイベントの種類か（OutboxEvent.ORDER_PLACED など）
+	boolean supports(String eventType);
+
+	void handle(OutboxEvent event) throws Exception;
+}
@@ -0,0 +1,86 @@
+package com.example.sunny.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.sunny.dto.OrderEventPayload;
+import com.example.sunny.entity.OutboxEvent;
+import com.example.sunny.event.OutboxRecordedEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// =====================
+// アウトボックスへの書き込み
+// =====================
+//
+// 注文の保存と同じトランザクションで呼ぶこと（MANDATORY：トランザクション外ではエラー）。
+// ここでは INSERT するだけで、ハンドラーは呼ばない。
+// 後続の処理が増えても、注文確定にかかる時間は INSERT 1行（一括購入ならバッチ1回）のまま。
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+public class OutboxService {
+
+	private static final String INSERT_SQL = "INSERT INTO outbox_events"
+			+ " (event_type, aggregate_id, payload, status, attempts, next_attempt_at, created_at)"
+			+ " VALUES (?, ?, ?, '" + OutboxEvent.PENDING + "', 0, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final ObjectMapper objectMapper;
+	private final ApplicationEventPublisher eventPublisher;
+
+	public OutboxService(
+			JdbcTemplate jdbcTemplate,
+			ObjectMapper objectMapper,
+			ApplicationEventPublisher eventPublisher) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.objectMapper = objectMapper;
+		this.eventPublisher = eventPublisher;
+	}
+
+	// 注文1件分のイベント（ORDER_PLACED / ORDER_CANCELLED）
+	public void recordOrderEvent(String eventType, OrderEventPayload payload) {
+		recordOrderEvents(eventType, List.of(payload));
+	}
+
+	// 複数の注文分をまとめて（カート一括購入）。JDBC バッチ1回で INSERT する。
+	public void recordOrderEvents(String eventType, List<OrderEventPayload> payloads) {
+		if (payloads.isEmpty()) {
+			return;
+		}
+		Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+		List<Object[]> args = new ArrayList<>(payloads.size());
+		for (OrderEventPayload payload : payloads) {
+			args.add(new Object[] { eventType, payload.getOrderId(), toJson(payload), now, now });
+		}
+		jdbcTemplate.batchUpdate(INSERT_SQL, args);
+
+		// コミット後に dispatcher を起こす（ロールバックされたら何も起きない）
+		eventPublisher.publishEvent(OutboxRecordedEvent.INSTANCE);
+	}
+
+	// ハンドラー用：payload を読み戻す
+	@Transactional(propagation = Propagation.SUPPORTS)
+	public <T> T readPayload(OutboxEvent event, Class<T> type) {
+		try {
+			return objectMapper.readValue(event.getPayload(), type);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("アウトボックスの内容を読めません id=" + event.getId(), e);
+		}
+	}
+
+	private String toJson(Object payload) {
+		try {
+			return objectMapper.writeValueAsString(payload);
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("アウトボックスの内容を JSON にできません", e);
+		}
+	}
+}
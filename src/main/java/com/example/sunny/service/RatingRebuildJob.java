@@ -0,0 +1,50 @@
+package com.example.sunny.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.sunny.repository.ItemRepository;
+
+// =====================
+// 商品のレビュー集計（rating_sum / rating_count）の作り直し
+// =====================
+//
+// 集計カラムを追加する前から存在するレビューを反映するための一回限りのジョブ。
+// 通常運用ではレビューの投稿・更新・削除時に加減算されるので不要。
+//
+// 実行方法：
+// ・app.rating.rebuild-on-startup=true にして起動する
+// ・または スタッフで POST /staff/catalog/ratings/rebuild
+@Service
+public class RatingRebuildJob implements ApplicationRunner {
+
+	private static final Logger log = LoggerFactory.getLogger(RatingRebuildJob.class);
+
+	private final ItemRepository itemRepository;
+
+	@Value("${app.rating.rebuild-on-startup:false}")
+	private boolean rebuildOnStartup;
+
+	public RatingRebuildJob(ItemRepository itemRepository) {
+		this.itemRepository = itemRepository;
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (rebuildOnStartup) {
+			rebuild();
+		}
+	}
+
+	@Transactional
+	public int rebuild() {
+		int updated = itemRepository.rebuildRatingAggregates();
+		log.info("レビュー集計を作り直しました（{} 商品）", updated);
+		return updated;
+	}
+}
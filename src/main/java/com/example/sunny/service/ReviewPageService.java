@@ -0,0 +1,48 @@
+package com.example.sunny.service;
+
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import com.example.sunny.dto.KeysetCursor;
+import com.example.sunny.dto.ReviewPage;
+import com.example.sunny.dto.ReviewView;
+import com.example.sunny.repository.ReviewRepository;
+
+// =====================
+// 商品詳細：レビュー一覧のページ取得
+// =====================
+//
+// 商品詳細の初回表示では最新 FIRST_PAGE_SIZE 件だけを出し、
+// 残りは「もっと見る」で GET /items/{id}/reviews?after=… から JSON で追加取得する。
+//
+// 1件多く取得して「続きがあるか」を判定するので COUNT は不要。
+@Service
+public class ReviewPageService {
+
+	public static final int FIRST_PAGE_SIZE = 10;
+	public static final int MAX_PAGE_SIZE = 50;
+
+	private final ReviewRepository reviewRepository;
+
+	public ReviewPageService(ReviewRepository reviewRepository) {
+		this.reviewRepository = reviewRepository;
+	}
+
+	public ReviewPage findPage(Long itemId, String after, int size) {
+		int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+		Limit limit = Limit.of(pageSize + 1);
+
+		KeysetCursor cursor = KeysetCursor.decode(after);
+		List<ReviewView> rows = cursor == null
+				? reviewRepository.findNewestViews(itemId, limit)
+				: reviewRepository.findOlderViews(itemId, cursor.getCreatedAt(), cursor.getId(), limit);
+
+		if (rows.size() > pageSize) {
+			rows = rows.subList(0, pageSize);
+			return new ReviewPage(rows, KeysetCursor.of(rows.get(rows.size() - 1)).encode());
+		}
+		return new ReviewPage(rows, null);
+	}
+}
@@ -0,0 +1,140 @@
+package com.example.sunny.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+// =====================
+// 売上の日次集計（daily_item_sales）の作り直し
+// =====================
+//
+// 集計テーブルを追加する前の注文を反映するため（初回移行）と、ずれた時の補正用。
+// 通常運用では SalesRollupService が注文ごとに加減算するので不要。
+// orders と保管済みの orders_archive を全件読むので、注文の少ない時間帯に実行すること。
+//
+// 台帳（sales_ledger）も orders から作り直すので、
+// 作り直しの後に届いた古いイベントは台帳を見て読み飛ばされる（二重に数えない）。
+//
+// 台帳と日次集計は別々の SELECT で orders / orders_archive を読むので、
+// トランザクションは REPEATABLE READ にして、2回とも同じ時点の内容を読む。
+// READ COMMITTED だと、間にキャンセルされた注文や保管（orders → orders_archive）へ
+// 移された注文が、台帳と集計で食い違う（集計から消える・二重に数えられる）。
+//
+// 実行方法：
+// ・app.sales.rebuild-on-startup=true にして起動する（起動の中で作り直す）
+// ・または スタッフで売上画面の「集計を作り直す」（POST /staff/sales/rebuild）
+//   リクエストのスレッドでは待たず、裏のスレッドで作り直す（requestRebuild）。
+//   同時に動くのは1つだけで、作り直し中にもう一度押しても受け付けない。
+@Service
+public class SalesRollupRebuildJob implements ApplicationRunner {
+
+	private static final Logger log = LoggerFactory.getLogger(SalesRollupRebuildJob.class);
+
+	private static final String CANCELLED = "status IN ('CANCELLED', 'CANCELED')";
+
+	// 稼働中の注文と保管済みの注文（OrderArchiveService）を合わせたもの
+	private static final String ALL_ORDERS = "(SELECT id, item_id, quantity, total_price, status, created_at FROM orders"
+			+ " UNION ALL SELECT id, item_id, quantity, total_price, status, created_at FROM orders_archive) o";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final ExecutorService executor;
+
+	// 裏のスレッドで作り直している最中か
+	private final AtomicBoolean running = new AtomicBoolean();
+
+	@Value("${app.sales.rebuild-on-startup:false}")
+	private boolean rebuildOnStartup;
+
+	public SalesRollupRebuildJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+		this.executor = Executors.newSingleThreadExecutor(r -> {
+			Thread t = new Thread(r, "sales-rollup-rebuild");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (rebuildOnStartup) {
+			rebuild();
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	// =====================
+	// 裏のスレッドで作り直す（既に作り直し中なら false）
+	// =====================
+	public boolean requestRebuild() {
+		if (!running.compareAndSet(false, true)) {
+			return false;
+		}
+		try {
+			executor.execute(() -> {
+				try {
+					rebuild();
+				} catch (RuntimeException e) {
+					log.error("売上の日次集計の作り直しに失敗しました", e);
+				} finally {
+					running.set(false);
+				}
+			});
+		} catch (RuntimeException e) {
+			// 停止中など
+			running.set(false);
+			throw e;
+		}
+		return true;
+	}
+
+	public boolean isRunning() {
+		return running.get();
+	}
+
+	// =====================
+	// 作り直し（REPEATABLE READ の1トランザクション。作った行数を返す）
+	// =====================
+	public int rebuild() {
+		return transactionTemplate.execute(status -> rebuildInTransaction());
+	}
+
+	private int rebuildInTransaction() {
+		jdbcTemplate.update("DELETE FROM daily_item_sales");
+		jdbcTemplate.update("DELETE FROM sales_ledger");
+
+		int orders = jdbcTemplate.update("INSERT INTO sales_ledger (order_id, counted)"
+				+ " SELECT id, CASE WHEN " + CANCELLED + " THEN FALSE ELSE TRUE END FROM " + ALL_ORDERS);
+
+		int rows = jdbcTemplate.update("INSERT INTO daily_item_sales"
+				+ " (sales_date, item_id, order_count, units, revenue, cancelled_count)"
+				+ " SELECT CAST(created_at AS DATE), item_id,"
+				+ "  SUM(CASE WHEN " + CANCELLED + " THEN 0 ELSE 1 END),"
+				+ "  SUM(CASE WHEN " + CANCELLED + " THEN 0 ELSE quantity END),"
+				+ "  SUM(CASE WHEN " + CANCELLED + " THEN 0 ELSE total_price END),"
+				+ "  SUM(CASE WHEN " + CANCELLED + " THEN 1 ELSE 0 END)"
+				+ " FROM " + ALL_ORDERS + " GROUP BY CAST(created_at AS DATE), item_id");
+
+		log.info("売上の日次集計を作り直しました（注文 {} 件 → {} 行）", orders, rows);
+		return rows;
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.sunny.service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.sunny.dto.OrderEventPayload;
+import com.example.sunny.entity.OutboxEvent;
+
+// =====================
+// 売上の日次集計（daily_item_sales）を注文ごとに加減算する
+// =====================
+//
+// アウトボックスのハンドラー。注文の確定（ORDER_PLACED）・キャンセル（ORDER_CANCELLED）を
+// コミット後に受け取り、その注文の「注文日 × 商品」の1行だけを UPDATE する。
+// 注文が何件溜まっていても、1イベントの処理は台帳1行＋集計1行で終わる。
+//
+// 同じイベントが2回届いても、キャンセルが先に届いても数がずれないよう、
+// sales_ledger（注文ごとの counted）を見てから加減算する。台帳の更新と集計の更新は同じトランザクション。
+//
+// 全件の作り直しは SalesRollupRebuildJob。
+@Service
+public class SalesRollupService implements OutboxHandler {
+
+	private static final String INSERT_LEDGER_SQL = "INSERT INTO sales_ledger (order_id, counted)"
+			+ " SELECT ?, ? WHERE NOT EXISTS (SELECT 1 FROM sales_ledger WHERE order_id = ?)";
+
+	private static final String UNCOUNT_LEDGER_SQL = "UPDATE sales_ledger SET counted = FALSE"
+			+ " WHERE order_id = ? AND counted = TRUE";
+
+	private static final String ADD_SQL = "UPDATE daily_item_sales SET order_count = order_count + ?,"
+			+ " units = units + ?, revenue = revenue + ?, cancelled_count = cancelled_count + ?"
+			+ " WHERE sales_date = ? AND item_id = ?";
+
+	private static final String INSERT_SQL = "INSERT INTO daily_item_sales"
+			+ " (sales_date, item_id, order_count, units, revenue, cancelled_count) VALUES (?, ?, ?, ?, ?, ?)";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final OutboxService outboxService;
+
+	public SalesRollupService(JdbcTemplate jdbcTemplate, OutboxService outboxService) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.outboxService = outboxService;
+	}
+
+	@Override
+	public boolean supports(String eventType) {
+		return OutboxEvent.ORDER_PLACED.equals(eventType) || OutboxEvent.ORDER_CANCELLED.equals(eventType);
+	}
+
+	@Override
+	@Transactional
+	public void handle(OutboxEvent event) {
+		OrderEventPayload order = outboxService.readPayload(event, OrderEventPayload.class);
+		LocalDate salesDate = order.getOrderedAt().toLocalDate();
+		Long orderId = order.getOrderId();
+
+		if (OutboxEvent.ORDER_PLACED.equals(event.getEventType())) {
+			// 台帳に初めて載った時だけ加算
+			if (jdbcTemplate.update(INSERT_LEDGER_SQL, orderId, true, orderId) == 1) {
+				add(salesDate, order.getItemId(), 1, order.getQuantity(), order.getTotalPrice(), 0);
+			}
+			return;
+		}
+
+		// ---------------------
+		// キャンセル
+		// ---------------------
+		if (jdbcTemplate.update(UNCOUNT_LEDGER_SQL, orderId) == 1) {
+			// 集計に入っていた注文：売上から引く
+			add(salesDate, order.getItemId(), -1, -order.getQuantity(), -order.getTotalPrice(), 1);
+		} else if (jdbcTemplate.update(INSERT_LEDGER_SQL, orderId, false, orderId) == 1) {
+			// 確定より先に届いた：キャンセル件数だけ数え、後から届く確定は加算されない
+			add(salesDate, order.getItemId(), 0, 0, 0, 1);
+		}
+	}
+
+	// 1行分を加減算（無ければ作る）
+	private void add(LocalDate salesDate, Long itemId, long orders, long units, long revenue, long cancelled) {
+		Date date = Date.valueOf(salesDate);
+		if (jdbcTemplate.update(ADD_SQL, orders, units, revenue, cancelled, date, itemId) == 0) {
+			jdbcTemplate.update(INSERT_SQL, date, itemId, orders, units, revenue, cancelled);
+		}
+	}
+}
@@ -0,0 +1,320 @@
+package com.example.sunny.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.sunny.dto.ItemSummary;
+import com.example.sunny.event.ItemChangedEvent;
+
+// =====================
+// 商品検索：メモリ上の転置インデックス
+// =====================
+//
+// 商品名・説明文をキーワード検索するためのインデックス。
+// SQL の LIKE '%…%' は全件スキャンになるので使わない。
+//
+// 【トークン分割】
+// ・日本語（漢字・ひらがな・カタカナ）は 2文字ずつ区切る（バイグラム）
+//   例：「太陽ニット」→「太陽」「陽ニ」「ニッ」「ット」
+// ・英数字は単語単位（小文字化）
+// ・全角/半角の揺れは NFKC で正規化する
+//
+// 【検索】
+// ・検索語のトークンを全て含む商品だけを返す（AND）
+// ・件数の少ないトークンから絞り込むので、商品数が増えても速い
+// ・上位 limit 件だけをヒープで残す（該当が多くても全件の並べ替えはしない）
+// ・スコア = Σ（出現回数 × 重み × IDF）、商品名は説明文の 3倍の重み
+//
+// 【更新】
+// ・起動時に CatalogCache のスナップショットから作る。
+//   作り直しは新しい表を別に作ってから、参照（volatile の index）1つを差し替える
+//   （作っている途中の空・作りかけの表が検索に見えることはない）
+// ・ItemChangedEvent を受けて1商品ずつ入れ替える
+//   ・商品名・説明文が変わっていなければ何もしない（在庫・ステータスだけの変更は注文のたびに届く）
+//   ・変わった時は、その商品に関係するトークンの一覧だけを写して作り直し、1つずつ差し替える
+//     （コピーオンライト。公開中の一覧は書き換えないので、検索中に「外してから入れる」途中が見えて
+//     商品が抜けることはない）
+@Service
+public class SearchIndex {
+
+	private static final int NAME_WEIGHT = 3;
+	private static final int DESCRIPTION_WEIGHT = 1;
+
+	private final CatalogCache catalogCache;
+
+	// インデックス本体（2つの表は必ず組で差し替える）
+	private static final class Index {
+		// トークン → (商品ID → 重み付き出現回数)
+		// 中の一覧は、公開後は書き換えず丸ごと差し替える
+		final Map<String, Map<Long, Integer>> postings = new ConcurrentHashMap<>();
+
+		// 商品ID → 登録した内容（更新時に変わったかを見る・postings から外すため）
+		final Map<Long, Indexed> byItem = new ConcurrentHashMap<>();
+	}
+
+	// 1商品分の登録内容
+	private static final class Indexed {
+		final String name;
+		final String description;
+		final Map<String, Integer> terms;
+
+		Indexed(String name, String description, Map<String, Integer> terms) {
+			this.name = name;
+			this.description = description;
+			this.terms = terms;
+		}
+
+		boolean sameText(ItemSummary item) {
+			return Objects.equals(name, item.getName()) && Objects.equals(description, item.getDescription());
+		}
+	}
+
+	private volatile Index index = new Index();
+
+	public SearchIndex(CatalogCache catalogCache) {
+		this.catalogCache = catalogCache;
+	}
+
+	// =====================
+	// 起動時に全商品を登録
+	// =====================
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		rebuild(catalogCache.snapshot().getItems());
+	}
+
+	// 作っている間も検索は前の表で動く。商品の変更は作り終わるまで待たせる（synchronized）
+	synchronized void rebuild(List<ItemSummary> items) {
+		Index fresh = new Index();
+		for (ItemSummary item : items) {
+			add(fresh, item);
+		}
+		index = fresh;
+	}
+
+	// =====================
+	// 商品の登録・更新・削除を反映
+	// =====================
+	@TransactionalEventListener(fallbackExecution = true)
+	public synchronized void onItemChanged(ItemChangedEvent event) {
+		Index current = index;
+		Indexed previous = current.byItem.get(event.getItemId());
+		if (event.isDeleted()) {
+			replace(current, event.getItemId(), previous, null);
+			return;
+		}
+		ItemSummary item = event.getItem();
+		if (previous != null && previous.sameText(item)) {
+			return;
+		}
+		replace(current, item.getId(), previous, indexed(item));
+	}
+
+	// =====================
+	// 検索（スコアの高い順に商品IDを返す）
+	// =====================
+	public List<Long> search(String query, int limit) {
+		List<String> queryTerms = new ArrayList<>(tokenize(query).keySet());
+		if (queryTerms.isEmpty()) {
+			return List.of();
+		}
+
+		// 1回の検索では同じ表だけを見る
+		Index current = index;
+
+		// 該当件数の少ないトークンから順に絞り込む
+		List<Map<Long, Integer>> lists = new ArrayList<>(queryTerms.size());
+		for (String term : queryTerms) {
+			Map<Long, Integer> list = current.postings.get(term);
+			if (list == null || list.isEmpty()) {
+				return List.of();
+			}
+			lists.add(list);
+		}
+		lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+		double totalDocs = Math.max(1, current.byItem.size());
+		double[] idf = new double[lists.size()];
+		for (int i = 0; i < idf.length; i++) {
+			idf[i] = Math.log(1 + totalDocs / lists.get(i).size());
+		}
+		if (limit <= 0) {
+			return List.of();
+		}
+
+		// 上位 limit 件だけを残す（先頭が一番下位）。候補を全部並べ替えることはしない
+		PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, Hit.WORST_FIRST);
+		Map<Long, Integer> smallest = lists.get(0);
+
+		candidates: for (Map.Entry<Long, Integer> entry : smallest.entrySet()) {
+			Long itemId = entry.getKey();
+			double score = entry.getValue() * idf[0];
+			for (int i = 1; i < lists.size(); i++) {
+				Integer tf = lists.get(i).get(itemId);
+				if (tf == null) {
+					continue candidates;
+				}
+				score += tf * idf[i];
+			}
+			if (top.size() < limit) {
+				top.add(new Hit(itemId, score));
+			} else if (Hit.beats(itemId, score, top.peek())) {
+				top.poll();
+				top.add(new Hit(itemId, score));
+			}
+		}
+
+		// スコアの高い順（同点は ID の大きい順）
+		Long[] result = new Long[top.size()];
+		for (int i = result.length - 1; i >= 0; i--) {
+			result[i] = top.poll().itemId;
+		}
+		return List.of(result);
+	}
+
+	// 検索結果の1件
+	private static final class Hit {
+
+		static final Comparator<Hit> WORST_FIRST = Comparator.<Hit> comparingDouble(h -> h.score)
+				.thenComparing(h -> h.itemId);
+
+		final Long itemId;
+		final double score;
+
+		Hit(Long itemId, double score) {
+			this.itemId = itemId;
+			this.score = score;
+		}
+
+		static boolean beats(Long itemId, double score, Hit other) {
+			return score > other.score || (score == other.score && itemId > other.itemId);
+		}
+	}
+
+	// =====================
+	// インデックスへの追加・入れ替え
+	// =====================
+
+	// 作り直し用（公開前の表なので、一覧にそのまま足す）
+	private static void add(Index index, ItemSummary item) {
+		Indexed indexed = indexed(item);
+		for (Map.Entry<String, Integer> e : indexed.terms.entrySet()) {
+			index.postings.computeIfAbsent(e.getKey(), k -> new HashMap<>()).put(item.getId(), e.getValue());
+		}
+		index.byItem.put(item.getId(), indexed);
+	}
+
+	// 公開中の表の1商品を入れ替える（next が null なら削除）。
+	// 関係するトークンの一覧だけを写して直し、差し替える。重みの変わらない一覧はそのまま
+	private static void replace(Index index, Long itemId, Indexed previous, Indexed next) {
+		Set<String> affected = new HashSet<>();
+		if (previous != null) {
+			affected.addAll(previous.terms.keySet());
+		}
+		if (next != null) {
+			affected.addAll(next.terms.keySet());
+		}
+		for (String term : affected) {
+			Map<Long, Integer> list = index.postings.get(term);
+			Integer weight = next == null ? null : next.terms.get(term);
+			if (list != null && Objects.equals(list.get(itemId), weight)) {
+				continue;
+			}
+			Map<Long, Integer> copy = list == null ? new HashMap<>() : new HashMap<>(list);
+			if (weight == null) {
+				copy.remove(itemId);
+			} else {
+				copy.put(itemId, weight);
+			}
+			if (copy.isEmpty()) {
+				index.postings.remove(term);
+			} else {
+				index.postings.put(term, copy);
+			}
+		}
+		if (next == null) {
+			index.byItem.remove(itemId);
+		} else {
+			index.byItem.put(itemId, next);
+		}
+	}
+
+	private static Indexed indexed(ItemSummary item) {
+		Map<String, Integer> terms = new HashMap<>();
+		tokenize(item.getName()).forEach((t, n) -> terms.merge(t, n * NAME_WEIGHT, Integer::sum));
+		tokenize(item.getDescription()).forEach((t, n) -> terms.merge(t, n * DESCRIPTION_WEIGHT, Integer::sum));
+		return new Indexed(item.getName(), item.getDescription(), Map.copyOf(terms));
+	}
+
+	// =====================
+	// トークン分割（トークン → 出現回数）
+	// =====================
+	static Map<String, Integer> tokenize(String text) {
+		Map<String, Integer> terms = new HashMap<>();
+		if (text == null || text.isBlank()) {
+			return terms;
+		}
+		String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase();
+
+		int i = 0;
+		int len = normalized.length();
+		while (i < len) {
+			int cp = normalized.codePointAt(i);
+
+			if (isCjk(cp)) {
+				// 日本語の連続部分を取り出してバイグラムにする
+				int start = i;
+				while (i < len && isCjk(normalized.codePointAt(i))) {
+					i += Character.charCount(normalized.codePointAt(i));
+				}
+				String run = normalized.substring(start, i);
+				int[] cps = run.codePoints().toArray();
+				if (cps.length == 1) {
+					terms.merge(run, 1, Integer::sum);
+				}
+				for (int k = 0; k + 1 < cps.length; k++) {
+					terms.merge(new String(cps, k, 2), 1, Integer::sum);
+				}
+
+			} else if (Character.isLetterOrDigit(cp)) {
+				// 英数字は単語単位
+				int start = i;
+				while (i < len) {
+					int c = normalized.codePointAt(i);
+					if (!Character.isLetterOrDigit(c) || isCjk(c)) {
+						break;
+					}
+					i += Character.charCount(c);
+				}
+				terms.merge(normalized.substring(start, i), 1, Integer::sum);
+
+			} else {
+				i += Character.charCount(cp);
+			}
+		}
+		return terms;
+	}
+
+	private static boolean isCjk(int cp) {
+		Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+		return script == Character.UnicodeScript.HAN
+				|| script == Character.UnicodeScript.HIRAGANA
+				|| script == Character.UnicodeScript.KATAKANA
+				// 長音記号「ー」は COMMON 扱いなので個別に含める
+				|| cp == 'ー';
+	}
+}
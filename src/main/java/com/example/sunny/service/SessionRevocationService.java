@@ -0,0 +1,194 @@
+package com.example.sunny.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.sunny.entity.UserStatus;
+import com.example.sunny.event.UserStatusChangedEvent;
+
+import jakarta.annotation.PreDestroy;
+
+// =====================
+// BAN / 停止されたユーザーのセッションを切る（切る対象をメモリに持つ）
+// =====================
+//
+// ステータスはログイン時にしか見ていないので、ログイン中に BAN されてもセッションが続いてしまう。
+// 毎リクエスト DB を見れば防げるが、全リクエストに1クエリ増える。
+// そこで「今 BAN / 停止中のユーザーID」だけをメモリに持ち、SessionRevocationFilter がそれと照らし合わせる。
+//
+// 【対象の更新】
+// ・このサーバーでの変更 … UserStatusChangedEvent をコミット後に受け取って即反映
+// ・他のサーバーでの変更 … user_status_changes を poll-interval-ms ごとに「前回読んだ id の続き」と
+//   「直近 lookback-seconds に入った行」を読む（後者は id の順にコミットされなかった行の拾い直し）
+// ・起動時 … users テーブルから BAN / 停止中のユーザーを読む（記録の古い行は要らない）
+//
+// 再び ACTIVE にすると対象から外れる（次のログインからまた使える）。
+// 対象が空の間、フィルタは何もしない（セッションも読まない）。
+@Service
+public class SessionRevocationService {
+
+	private static final Logger log = LoggerFactory.getLogger(SessionRevocationService.class);
+
+	private final JdbcTemplate jdbcTemplate;
+	private final long pollIntervalMs;
+	private final int batchSize;
+	private final long lookbackSeconds;
+	private final long retentionHours;
+
+	// BAN / 停止中のユーザーID → ステータス
+	private final Map<Long, UserStatus> revoked = new ConcurrentHashMap<>();
+
+	// user_status_changes をどこまで読んだか（poll の中だけで触る）
+	private long lastSeenId;
+
+	private final ScheduledExecutorService executor;
+
+	public SessionRevocationService(
+			JdbcTemplate jdbcTemplate,
+			@Value("${app.session.revocation.poll-interval-ms:1000}") long pollIntervalMs,
+			@Value("${app.session.revocation.batch-size:500}") int batchSize,
+			@Value("${app.session.revocation.lookback-seconds:300}") long lookbackSeconds,
+			@Value("${app.session.revocation.retention-hours:24}") long retentionHours) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.pollIntervalMs = pollIntervalMs;
+		this.batchSize = batchSize;
+		this.lookbackSeconds = lookbackSeconds;
+		this.retentionHours = retentionHours;
+		this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "session-revocation");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	// =====================
+	// 起動時：今の BAN / 停止中ユーザーを読み、記録の取り込みを始める
+	// =====================
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		// 先に目印を取ってから users を読む（間に入った変更は次の poll で拾う）
+		lastSeenId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM user_status_changes", Long.class);
+		jdbcTemplate.query("SELECT id, status FROM users WHERE status IN ('SUSPENDED', 'BANNED')",
+				(RowCallbackHandler) rs -> apply(rs.getLong("id"), UserStatus.valueOf(rs.getString("status"))));
+		executor.scheduleWithFixedDelay(this::pollSafely, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+		executor.scheduleWithFixedDelay(this::purgeSafely, 1, 1, TimeUnit.HOURS);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	// =====================
+	// フィルタから呼ぶ（毎リクエスト。DB は見ない）
+	// =====================
+
+	// 切る対象が1人もいないか
+	public boolean isEmpty() {
+		return revoked.isEmpty();
+	}
+
+	// 切る対象なら BANNED / SUSPENDED、そうでなければ null
+	public UserStatus revokedStatus(Long userId) {
+		return userId != null ? revoked.get(userId) : null;
+	}
+
+	// =====================
+	// このサーバーでの変更
+	// =====================
+
+	// 変更と同じトランザクションで記録する（ロールバックされれば記録も残らない）
+	@TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+	public void record(UserStatusChangedEvent event) {
+		jdbcTemplate.update("INSERT INTO user_status_changes (user_id, status, created_at) VALUES (?, ?, ?)",
+				event.getUserId(), event.getStatus().name(), Timestamp.valueOf(LocalDateTime.now()));
+	}
+
+	// コミット後すぐに反映（poll を待たない）
+	@TransactionalEventListener(fallbackExecution = true)
+	public void onStatusChanged(UserStatusChangedEvent event) {
+		apply(event.getUserId(), event.getStatus());
+	}
+
+	// =====================
+	// 他のサーバーでの変更：前回の続き＋直近の行を読む
+	// =====================
+	//
+	// id は INSERT 時に決まるが、コミットの順番は id の順とは限らない
+	// （2人の管理者が同時に変更すると、id N+1 が N より先に見えることがある）。
+	// 「id の続き」だけを読むと、遅れてコミットされた N を二度と読まない。
+	// そこで created_at が直近 lookback-seconds 以内の行も毎回読み直す。
+	//
+	// 読んだ行は id の順に当てはめるので、同じユーザーの変更は最後の行の状態になる
+	// （何度読み直しても同じ結果）。lookback はコミットの遅れとサーバー間の時計のずれより長くすること。
+	// 取り込んだ件数を返す。
+	public synchronized int poll() {
+		Timestamp recent = Timestamp.valueOf(LocalDateTime.now().minusSeconds(lookbackSeconds));
+		long cursor = 0;
+		int total = 0;
+		int read;
+		do {
+			List<Object[]> rows = jdbcTemplate.query(
+					"SELECT id, user_id, status FROM user_status_changes"
+							+ " WHERE id > ? AND (id > ? OR created_at > ?) ORDER BY id FETCH FIRST ? ROWS ONLY",
+					(rs, n) -> new Object[] { rs.getLong("id"), rs.getLong("user_id"), rs.getString("status") },
+					cursor, lastSeenId, recent, batchSize);
+			for (Object[] row : rows) {
+				apply((Long) row[1], UserStatus.valueOf((String) row[2]));
+				cursor = (Long) row[0];
+			}
+			lastSeenId = Math.max(lastSeenId, cursor);
+			read = rows.size();
+			total += read;
+		} while (read == batchSize);
+		return total;
+	}
+
+	private void pollSafely() {
+		try {
+			poll();
+		} catch (RuntimeException e) {
+			// 次の回に同じ所から読み直す
+			log.warn("ユーザーのステータス変更の取り込みに失敗しました: {}", e.getMessage());
+		}
+	}
+
+	// 取り込み済みの古い記録を消す（どのサーバーも起動時は users から読むので要らない）
+	public int purge() {
+		return jdbcTemplate.update("DELETE FROM user_status_changes WHERE created_at < ?",
+				Timestamp.valueOf(LocalDateTime.now().minusHours(retentionHours)));
+	}
+
+	private void purgeSafely() {
+		try {
+			purge();
+		} catch (RuntimeException e) {
+			log.warn("ユーザーのステータス変更の記録の削除に失敗しました: {}", e.getMessage());
+		}
+	}
+
+	private void apply(Long userId, UserStatus status) {
+		if (status == UserStatus.ACTIVE) {
+			revoked.remove(userId);
+		} else {
+			revoked.put(userId, status);
+		}
+	}
+}
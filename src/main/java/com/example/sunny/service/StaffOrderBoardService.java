@@ -0,0 +1,148 @@
+package com.example.sunny.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.sunny.dto.KeysetCursor;
+import com.example.sunny.dto.StaffOrderFilter;
+import com.example.sunny.dto.StaffOrderPage;
+import com.example.sunny.dto.StaffOrderRow;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+// =====================
+// スタッフ注文管理：注文一覧のページ取得
+// =====================
+//
+// 注文を「新しい順（createdAt DESC, id DESC）」に、キーセット方式で1ページずつ取得する。
+// トップページの商品一覧（CatalogService）と同じく after / before のカーソルで前後に進む。
+//
+// ・注文・ユーザー名・商品名をコンストラクタ式で1クエリで取る（N+1 にならない）
+// ・絞り込み（ステータス・注文日）は指定されたものだけ WHERE に足す
+//   （「:status IS NULL OR …」の形にすると、DB によってはインデックスを使わなくなるため）
+// ・インデックス：絞り込み無しは (created_at, id)、ステータス指定は (status, created_at, id)
+// ・1件多く取得して「その先があるか」を判定するので COUNT は不要
+// ・読むのは稼働中の注文（orders）だけ。保管済み（OrderArchiveService）の注文は CSV 出力に含まれる
+//
+// 【インデックスを辿らせるための書き方】（100万件で確認）
+// ・カーソル条件は「createdAt <= :c AND (createdAt < :c OR id < :id)」にする
+//   （OR だけの形だとインデックスの範囲が決まらず、全件を順に読む）
+// ・ステータス指定時は ORDER BY にも status を入れる（H2 は並び順とインデックスが
+//   先頭から一致しないと、条件に合う全件を読んでから並べ替える）
+// ・users / items は LEFT JOIN にする（必ず存在するので結果は同じ。
+//   INNER JOIN だと H2 が users を先に読む順番を選ぶことがある）
+@Service
+@Transactional(readOnly = true)
+public class StaffOrderBoardService {
+
+	public static final int DEFAULT_PAGE_SIZE = 50;
+	public static final int MAX_PAGE_SIZE = 200;
+
+	private static final String SELECT_ROW = "SELECT new com.example.sunny.dto.StaffOrderRow("
+			+ " o.id, o.createdAt, u.name, i.name, o.quantity, o.totalPrice, o.status, o.trackingNumber)"
+			+ " FROM Order o LEFT JOIN o.user u LEFT JOIN o.item i";
+
+	private final EntityManager entityManager;
+
+	public StaffOrderBoardService(EntityManager entityManager) {
+		this.entityManager = entityManager;
+	}
+
+	// 1ページの件数（1〜MAX_PAGE_SIZE に収める）
+	public static int pageSize(int size) {
+		return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+	}
+
+	public StaffOrderPage findPage(StaffOrderFilter filter, String after, String before, int size) {
+		int pageSize = pageSize(size);
+		KeysetCursor afterCursor = KeysetCursor.decode(after);
+		KeysetCursor beforeCursor = KeysetCursor.decode(before);
+
+		if (beforeCursor != null) {
+			// 前ページ：古い順で取ってから反転する
+			List<StaffOrderRow> rows = new ArrayList<>(query(filter, beforeCursor, false, pageSize + 1));
+			boolean hasPrev = rows.size() > pageSize;
+			if (hasPrev) {
+				rows = rows.subList(0, pageSize);
+			}
+			Collections.reverse(rows);
+			String next = rows.isEmpty() ? null : KeysetCursor.of(rows.get(rows.size() - 1)).encode();
+			String prev = hasPrev ? KeysetCursor.of(rows.get(0)).encode() : null;
+			return new StaffOrderPage(rows, next, prev);
+		}
+
+		List<StaffOrderRow> rows = query(filter, afterCursor, true, pageSize + 1);
+		boolean hasNext = rows.size() > pageSize;
+		if (hasNext) {
+			rows = rows.subList(0, pageSize);
+		}
+		String next = hasNext ? KeysetCursor.of(rows.get(rows.size() - 1)).encode() : null;
+		String prev = afterCursor != null && !rows.isEmpty() ? KeysetCursor.of(rows.get(0)).encode() : null;
+		return new StaffOrderPage(rows, next, prev);
+	}
+
+	// =====================
+	// 指定した注文の行（ライブ更新用。新しい順）
+	// =====================
+	public List<StaffOrderRow> findRows(List<Long> orderIds) {
+		if (orderIds.isEmpty()) {
+			return List.of();
+		}
+		return entityManager.createQuery(SELECT_ROW
+				+ " WHERE o.id IN :ids ORDER BY o.createdAt DESC, o.id DESC", StaffOrderRow.class)
+				.setParameter("ids", orderIds)
+				.getResultList();
+	}
+
+	// ---------------------
+	// クエリの組み立て
+	// ---------------------
+	//
+	// older=true  … カーソルより古い注文を新しい順に（1ページ目・次ページ）
+	// older=false … カーソルより新しい注文を古い順に（前ページ）
+	private List<StaffOrderRow> query(StaffOrderFilter filter, KeysetCursor cursor, boolean older, int limit) {
+		StringBuilder jpql = new StringBuilder(SELECT_ROW + " WHERE 1 = 1");
+
+		if (filter.getStatus() != null) {
+			jpql.append(" AND o.status = :status");
+		}
+		if (filter.getFrom() != null) {
+			jpql.append(" AND o.createdAt >= :from");
+		}
+		if (filter.getTo() != null) {
+			jpql.append(" AND o.createdAt < :toExclusive");
+		}
+		if (cursor != null) {
+			String cmp = older ? "<" : ">";
+			jpql.append(" AND o.createdAt ").append(cmp).append("= :createdAt")
+					.append(" AND (o.createdAt ").append(cmp).append(" :createdAt OR o.id ").append(cmp).append(" :id)");
+		}
+		String dir = older ? " DESC" : " ASC";
+		jpql.append(" ORDER BY ");
+		if (filter.getStatus() != null) {
+			jpql.append("o.status").append(dir).append(", ");
+		}
+		jpql.append("o.createdAt").append(dir).append(", o.id").append(dir);
+
+		TypedQuery<StaffOrderRow> query = entityManager.createQuery(jpql.toString(), StaffOrderRow.class);
+		if (filter.getStatus() != null) {
+			query.setParameter("status", filter.getStatus());
+		}
+		if (filter.getFrom() != null) {
+			query.setParameter("from", filter.getFrom().atStartOfDay());
+		}
+		if (filter.getTo() != null) {
+			query.setParameter("toExclusive", filter.getTo().plusDays(1).atStartOfDay());
+		}
+		if (cursor != null) {
+			query.setParameter("createdAt", cursor.getCreatedAt());
+			query.setParameter("id", cursor.getId());
+		}
+		return query.setMaxResults(limit).getResultList();
+	}
+}
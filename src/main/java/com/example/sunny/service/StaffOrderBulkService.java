@@ -0,0 +1,137 @@
+package com.example.sunny.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.sunny.dto.BulkStatusResult;
+import com.example.sunny.dto.BulkStatusResult.Outcome;
+
+// =====================
+// スタッフ注文管理：ステータスの一括変更
+// =====================
+//
+// チェックした注文をまとめて次のステータスへ進める（例：支払い待ち → 発送準備中＋追跡番号）。
+//
+// 1. 対象の注文を SELECT … FOR UPDATE で1回読む（行ロック。結果の判定に使う）
+// 2. UPDATE 1文で変更する。WHERE に「変更前として許されるステータス」を入れるので、
+//    許されない注文は DB 側で飛ばされる
+// 3. 1で読んだステータスから、1注文ごとの結果（更新・対象外・見つからない）を返す
+//
+// 追跡番号は CASE id WHEN … で同じ UPDATE 文の中で注文ごとに入れる。
+// キャンセルは一括変更の対象にしない。1件ずつの画面（StaffOrderController.updateStatus）で行い、
+// そこで在庫も戻す（OrderRepository.updateStatusIfOpen で変更できた時だけ）。
+@Service
+public class StaffOrderBulkService {
+
+	// 一度に変更できる件数（IN 句・CASE 式の大きさの上限）
+	public static final int MAX_ORDERS = 200;
+
+	// 変更後のステータス → 変更前として許されるステータス（画面の選択肢もこの順）
+	public static final Map<String, List<String>> ALLOWED_FROM;
+
+	static {
+		Map<String, List<String>> map = new LinkedHashMap<>();
+		map.put("PAID", List.of("CREATED"));
+		map.put("SHIPPING", List.of("CREATED", "PAID"));
+		map.put("DELIVERING", List.of("SHIPPING"));
+		map.put("COMPLETED", List.of("SHIPPING", "DELIVERING"));
+		ALLOWED_FROM = Collections.unmodifiableMap(map);
+	}
+
+	private static final int MAX_TRACKING_NUMBER_LENGTH = 64;
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public StaffOrderBulkService(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	// trackingNumbers：注文ID → 追跡番号（空欄の注文は今の追跡番号のまま）
+	@Transactional
+	public BulkStatusResult transition(List<Long> orderIds, String toStatus, Map<Long, String> trackingNumbers) {
+		List<String> allowedFrom = ALLOWED_FROM.get(toStatus);
+		if (allowedFrom == null) {
+			throw new IllegalArgumentException("一括変更できないステータスです：" + toStatus);
+		}
+		List<Long> ids = orderIds.stream().distinct().toList();
+		if (ids.isEmpty()) {
+			return new BulkStatusResult(toStatus, List.of());
+		}
+		if (ids.size() > MAX_ORDERS) {
+			throw new IllegalArgumentException("一度に変更できるのは " + MAX_ORDERS + " 件までです");
+		}
+
+		// ---------------------
+		// 1. 今のステータスを読む（行ロック）
+		// ---------------------
+		String inIds = placeholders(ids.size());
+		Map<Long, String> current = new HashMap<>();
+		jdbcTemplate.query("SELECT id, status FROM orders WHERE id IN (" + inIds + ") FOR UPDATE",
+				rs -> {
+					current.put(rs.getLong("id"), rs.getString("status"));
+				},
+				ids.toArray());
+
+		// ---------------------
+		// 2. UPDATE 1文（許されるステータスの注文だけ）
+		// ---------------------
+		List<Object> args = new ArrayList<>();
+		StringBuilder sql = new StringBuilder("UPDATE orders SET status = ?");
+		args.add(toStatus);
+
+		StringBuilder tracking = new StringBuilder();
+		for (Long id : ids) {
+			String number = normalizeTrackingNumber(trackingNumbers.get(id));
+			if (number != null) {
+				tracking.append(" WHEN ? THEN ?");
+				args.add(id);
+				args.add(number);
+			}
+		}
+		if (tracking.length() > 0) {
+			sql.append(", tracking_number = CASE id").append(tracking).append(" ELSE tracking_number END");
+		}
+
+		sql.append(" WHERE id IN (").append(inIds).append(")");
+		args.addAll(ids);
+		sql.append(" AND status IN (").append(placeholders(allowedFrom.size())).append(")");
+		args.addAll(allowedFrom);
+
+		jdbcTemplate.update(sql.toString(), args.toArray());
+
+		// ---------------------
+		// 3. 1注文ごとの結果（ロック中なので、1で読んだステータスのまま判定できる）
+		// ---------------------
+		List<BulkStatusResult.Row> rows = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			String before = current.get(id);
+			Outcome outcome = before == null ? Outcome.NOT_FOUND
+					: allowedFrom.contains(before) ? Outcome.UPDATED
+					: Outcome.SKIPPED;
+			rows.add(new BulkStatusResult.Row(id, before, outcome));
+		}
+		return new BulkStatusResult(toStatus, rows);
+	}
+
+	private static String normalizeTrackingNumber(String number) {
+		if (number == null || number.isBlank()) {
+			return null;
+		}
+		String trimmed = number.trim();
+		return trimmed.length() > MAX_TRACKING_NUMBER_LENGTH
+				? trimmed.substring(0, MAX_TRACKING_NUMBER_LENGTH)
+				: trimmed;
+	}
+
+	private static String placeholders(int n) {
+		return String.join(", ", Collections.nCopies(n, "?"));
+	}
+}
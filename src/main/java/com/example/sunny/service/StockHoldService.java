@@ -0,0 +1,440 @@
+package com.example.sunny.service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+// =====================
+// 在庫の一時確保（ホールド）
+// =====================
+//
+// 注文確認へ進んだ時点（POST /orders/confirm/{itemId}）で在庫を一定時間（app.stock-hold.ttl-seconds）確保し、
+// 確定ボタンを押すまでの間に他の人に買われないようにする。
+//
+// 【考え方】
+// ・購入できる数 ＝ 在庫 − 他の人の有効な確保数
+// ・確保は1ユーザー×1商品につき1つ（数量を変えて確認し直すと置き換わる）
+// ・注文確定時は ItemRepository.reserveStock に「他の人の確保数」を渡し、
+//   その分を残して在庫を減らす（売り越しは reserveStock の条件で防ぐ）
+// ・確保も注文確定も、まず商品の行をロック（SELECT ... FOR UPDATE）してから
+//   在庫と確保数を読む。注文確定のロックはコミットまで続くので、
+//   「確保数を数えた後・在庫を減らす前」に別の人の確保が割り込むことはなく、
+//   確保する側も注文確定のコミット後の在庫で判断する（同じ商品の確保・注文確定はここで1件ずつになる）
+// ・ロックの順番は「商品の行 → ストライプ」で統一する（ストライプを持ったまま行のロックを待たない）
+//
+// 【構造】app.stock-hold.store で選ぶ
+// ・memory（1台構成専用）
+//   ・確保の台帳はメモリ上。商品ID でロックを分け（ストライプ）、別商品の確保は並行して進む
+//   ・期限切れはタイマーホイールで検出し、1秒ごとにまとめて解放する
+//     （画面表示のたびに DB を掃除することはしない）
+//   ・stock_holds テーブルにも書いておき、再起動時に有効な確保を復元する
+//   ・他のサーバーの確保は見えないので、複数台では使えない。
+//     app.session.store=jdbc（複数台構成）と組み合わせたら起動を止める
+// ・jdbc（複数台構成）
+//   ・stock_holds テーブルそのものを台帳にし、どのサーバーからも同じ確保が見える
+//   ・確保する時は商品の行をロックしたまま、他の人の確保数の合計と在庫を比べて行を書く
+//   ・期限切れの行は読む時に条件で除き、削除は cleanup-interval-seconds ごとにまとめて行う
+@Service
+public class StockHoldService {
+
+	private static final Logger log = LoggerFactory.getLogger(StockHoldService.class);
+
+	private static final int STRIPES = 64;
+	private static final long TICK_MILLIS = 1000;
+	private static final int WHEEL_BUCKETS = 512;
+
+	// 確保1件分（変更不可）
+	public static final class Hold {
+		private final String id;
+		private final Long itemId;
+		private final String username;
+		private final int quantity;
+		private final long expiresAtMillis;
+
+		Hold(String id, Long itemId, String username, int quantity, long expiresAtMillis) {
+			this.id = id;
+			this.itemId = itemId;
+			this.username = username;
+			this.quantity = quantity;
+			this.expiresAtMillis = expiresAtMillis;
+		}
+
+		public String getId() {
+			return id;
+		}
+
+		public Long getItemId() {
+			return itemId;
+		}
+
+		public String getUsername() {
+			return username;
+		}
+
+		public int getQuantity() {
+			return quantity;
+		}
+
+		public LocalDateTime getExpiresAt() {
+			return LocalDateTime.ofInstant(Instant.ofEpochMilli(expiresAtMillis), ZoneId.systemDefault());
+		}
+	}
+
+	// 1商品分の確保（ストライプのロック内でだけ触る）
+	private static final class ItemHolds {
+		final Map<String, Hold> byUser = new HashMap<>();
+		int held;
+	}
+
+	private static final String LOCK_ITEM_SQL = "SELECT stock FROM items WHERE id = ? FOR UPDATE";
+	private static final String SELECT_OWN_SQL = "SELECT id, quantity, expires_at FROM stock_holds"
+			+ " WHERE item_id = ? AND username = ? AND expires_at > ?";
+	private static final String SUM_OTHERS_SQL = "SELECT COALESCE(SUM(quantity), 0) FROM stock_holds"
+			+ " WHERE item_id = ? AND username <> ? AND expires_at > ?";
+	private static final String SUM_ALL_SQL = "SELECT COALESCE(SUM(quantity), 0) FROM stock_holds"
+			+ " WHERE item_id = ? AND expires_at > ?";
+	private static final String DELETE_OWN_SQL = "DELETE FROM stock_holds WHERE item_id = ? AND username = ?";
+	private static final String INSERT_SQL = "INSERT INTO stock_holds (id, item_id, username, quantity, expires_at)"
+			+ " VALUES (?, ?, ?, ?, ?)";
+	private static final String SELECT_EXPIRED_SQL = "SELECT id FROM stock_holds WHERE expires_at <= ?"
+			+ " FETCH FIRST ? ROWS ONLY";
+
+	private final JdbcTemplate jdbcTemplate;
+	private final TransactionTemplate transactionTemplate;
+	private final long ttlMillis;
+	private final boolean shared;
+	private final long cleanupIntervalSeconds;
+	private final int cleanupBatchSize;
+
+	private final Object[] stripes = new Object[STRIPES];
+	private final Map<Long, ItemHolds> holdsByItem = new ConcurrentHashMap<>();
+	private final TimerWheel<Hold> wheel = new TimerWheel<>(TICK_MILLIS, WHEEL_BUCKETS, System.currentTimeMillis());
+	private final ScheduledExecutorService ticker;
+
+	public StockHoldService(
+			JdbcTemplate jdbcTemplate,
+			TransactionTemplate transactionTemplate,
+			@Value("${app.stock-hold.ttl-seconds:300}") long ttlSeconds,
+			@Value("${app.stock-hold.store:memory}") String store,
+			@Value("${app.stock-hold.cleanup-interval-seconds:60}") long cleanupIntervalSeconds,
+			@Value("${app.stock-hold.cleanup-batch-size:500}") int cleanupBatchSize,
+			@Value("${app.session.store:memory}") String sessionStore) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.transactionTemplate = transactionTemplate;
+		this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+		this.shared = "jdbc".equals(store);
+		this.cleanupIntervalSeconds = cleanupIntervalSeconds;
+		this.cleanupBatchSize = cleanupBatchSize;
+		if (!shared && "jdbc".equals(sessionStore)) {
+			// 複数台構成でメモリの台帳を使うと、他のサーバーの確保を無視して売ってしまう
+			throw new IllegalStateException(
+					"app.session.store=jdbc（複数台構成）では app.stock-hold.store=jdbc にしてください");
+		}
+		for (int i = 0; i < STRIPES; i++) {
+			stripes[i] = new Object();
+		}
+		this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "stock-hold-expiry");
+			t.setDaemon(true);
+			return t;
+		});
+	}
+
+	// =====================
+	// 起動時：有効な確保を復元し、期限切れの検出を始める
+	// =====================
+	@EventListener(ApplicationReadyEvent.class)
+	public void start() {
+		if (shared) {
+			// 台帳は DB。期限切れの行を消すだけ
+			ticker.scheduleWithFixedDelay(this::deleteExpired, 0, cleanupIntervalSeconds, TimeUnit.SECONDS);
+			return;
+		}
+		Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+		jdbcTemplate.update("DELETE FROM stock_holds WHERE expires_at <= ?", now);
+		List<Hold> restored = jdbcTemplate.query(
+				"SELECT id, item_id, username, quantity, expires_at FROM stock_holds",
+				(rs, n) -> new Hold(rs.getString("id"), rs.getLong("item_id"), rs.getString("username"),
+						rs.getInt("quantity"), rs.getTimestamp("expires_at").getTime()));
+		for (Hold hold : restored) {
+			synchronized (stripe(hold.getItemId())) {
+				put(hold);
+			}
+			wheel.schedule(hold, hold.expiresAtMillis);
+		}
+		if (!restored.isEmpty()) {
+			log.info("在庫の確保を {} 件復元しました", restored.size());
+		}
+		ticker.scheduleAtFixedRate(this::expire, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		ticker.shutdownNow();
+	}
+
+	// =====================
+	// 確保する（注文確認へ進むとき）
+	// =====================
+	//
+	// 購入できる数が足りなければ null。在庫は商品の行をロックして読み直す（画面に出した値より新しい）。
+	// 同じユーザーの前の確保は置き換える（数量を変えて確認し直した場合）。
+	public Hold hold(Long itemId, String username, int quantity) {
+		if (quantity <= 0) {
+			return null;
+		}
+		Hold hold = new Hold(UUID.randomUUID().toString(), itemId, username, quantity,
+				System.currentTimeMillis() + ttlMillis);
+		if (shared) {
+			return holdShared(hold);
+		}
+
+		Hold held = transactionTemplate.execute(status -> {
+			List<Integer> stock = jdbcTemplate.queryForList(LOCK_ITEM_SQL, Integer.class, itemId);
+			if (stock.isEmpty()) {
+				return null;
+			}
+			Hold previous;
+			synchronized (stripe(itemId)) {
+				ItemHolds holds = holdsByItem.get(itemId);
+				Hold own = holds == null ? null : holds.byUser.get(username);
+				int othersHeld = holds == null ? 0 : holds.held - (own == null ? 0 : own.getQuantity());
+				if (stock.get(0) - othersHeld < quantity) {
+					return null;
+				}
+				previous = put(hold);
+			}
+			if (previous != null) {
+				jdbcTemplate.update("DELETE FROM stock_holds WHERE id = ?", previous.getId());
+			}
+			jdbcTemplate.update(INSERT_SQL, hold.getId(), itemId, username, quantity,
+					Timestamp.valueOf(hold.getExpiresAt()));
+			return hold;
+		});
+		if (held != null) {
+			wheel.schedule(held, held.expiresAtMillis);
+		}
+		return held;
+	}
+
+	// =====================
+	// 自分の有効な確保（注文確認画面の表示用。無ければ null）
+	// =====================
+	public Hold find(Long itemId, String username) {
+		if (shared) {
+			List<Hold> own = jdbcTemplate.query(SELECT_OWN_SQL,
+					(rs, n) -> new Hold(rs.getString("id"), itemId, username, rs.getInt("quantity"),
+							rs.getTimestamp("expires_at").getTime()),
+					itemId, username, now());
+			return own.isEmpty() ? null : own.get(0);
+		}
+		synchronized (stripe(itemId)) {
+			ItemHolds holds = holdsByItem.get(itemId);
+			Hold own = holds == null ? null : holds.byUser.get(username);
+			return own != null && own.expiresAtMillis > System.currentTimeMillis() ? own : null;
+		}
+	}
+
+	// =====================
+	// 他の人が確保している数（注文確定・在庫表示用）
+	// =====================
+	public int heldByOthers(Long itemId, String username) {
+		if (shared) {
+			return username == null
+					? jdbcTemplate.queryForObject(SUM_ALL_SQL, Integer.class, itemId, now())
+					: jdbcTemplate.queryForObject(SUM_OTHERS_SQL, Integer.class, itemId, username, now());
+		}
+		synchronized (stripe(itemId)) {
+			ItemHolds holds = holdsByItem.get(itemId);
+			if (holds == null) {
+				return 0;
+			}
+			Hold own = username == null ? null : holds.byUser.get(username);
+			return holds.held - (own == null ? 0 : own.getQuantity());
+		}
+	}
+
+	// =====================
+	// 注文確定用：商品の行をロックしてから、他の人が確保している数を返す
+	// =====================
+	//
+	// 注文のトランザクションの中から呼び、続けて同じトランザクションで在庫を減らす。
+	// 行のロックはコミットまで続くので、その間の確保（hold）は待たされる。
+	public int lockAndCountHeldByOthers(Long itemId, String username) {
+		if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+			throw new IllegalStateException("注文のトランザクションの中から呼んでください");
+		}
+		jdbcTemplate.queryForList(LOCK_ITEM_SQL, Integer.class, itemId);
+		return heldByOthers(itemId, username);
+	}
+
+	// =====================
+	// 確保を外す（注文確定後）
+	// =====================
+	//
+	// 注文のトランザクションの中から呼ばれたら、コミットされてから外す。
+	// 先に外すと、コミット前の在庫（まだ減っていない）と確保なしの状態が他の人に見え、
+	// ロールバックした場合は確保だけが消えてしまう（ロールバック時は確保を残す）。
+	public void release(Long itemId, String username) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					releaseNow(itemId, username);
+				}
+			});
+			return;
+		}
+		releaseNow(itemId, username);
+	}
+
+	private void releaseNow(Long itemId, String username) {
+		if (shared) {
+			jdbcTemplate.update(DELETE_OWN_SQL, itemId, username);
+			return;
+		}
+		Hold removed;
+		synchronized (stripe(itemId)) {
+			removed = remove(itemId, username, null);
+		}
+		if (removed != null) {
+			jdbcTemplate.update("DELETE FROM stock_holds WHERE id = ?", removed.getId());
+		}
+	}
+
+	// =====================
+	// 期限切れの解放（1秒ごと）
+	// =====================
+	//
+	// 置き換え・確定で既に外れた確保もホイールには残っているので、
+	// 台帳にまだ同じ確保（同じ ID）が残っている場合だけ外す。
+	void expire() {
+		try {
+			List<Hold> candidates = wheel.advance(System.currentTimeMillis());
+			if (candidates.isEmpty()) {
+				return;
+			}
+			List<Object[]> expiredIds = new ArrayList<>();
+			for (Hold hold : candidates) {
+				synchronized (stripe(hold.getItemId())) {
+					if (remove(hold.getItemId(), hold.getUsername(), hold.getId()) != null) {
+						expiredIds.add(new Object[] { hold.getId() });
+					}
+				}
+			}
+			if (!expiredIds.isEmpty()) {
+				jdbcTemplate.batchUpdate("DELETE FROM stock_holds WHERE id = ?", expiredIds);
+			}
+		} catch (RuntimeException e) {
+			// 次の目盛りで続きを処理できるよう、スレッドは止めない
+			log.warn("在庫の確保の期限切れ処理に失敗しました: {}", e.getMessage());
+		}
+	}
+
+	// ---------------------
+	// jdbc：商品の行をロックして確保する
+	// ---------------------
+	// 在庫もロックした時点の値を使う（画面に出した値より新しい）
+	private Hold holdShared(Hold hold) {
+		Long itemId = hold.getItemId();
+		String username = hold.getUsername();
+		return transactionTemplate.execute(status -> {
+			List<Integer> stock = jdbcTemplate.queryForList(LOCK_ITEM_SQL, Integer.class, itemId);
+			if (stock.isEmpty()) {
+				return null;
+			}
+			int othersHeld = jdbcTemplate.queryForObject(SUM_OTHERS_SQL, Integer.class, itemId, username, now());
+			if (stock.get(0) - othersHeld < hold.getQuantity()) {
+				return null;
+			}
+			jdbcTemplate.update(DELETE_OWN_SQL, itemId, username);
+			jdbcTemplate.update(INSERT_SQL, hold.getId(), itemId, username, hold.getQuantity(),
+					Timestamp.valueOf(hold.getExpiresAt()));
+			return hold;
+		});
+	}
+
+	// ---------------------
+	// jdbc：期限切れの行を batch-size 件ずつ消す（複数台で同時に動いても問題ない）
+	// ---------------------
+	int deleteExpired() {
+		int total = 0;
+		try {
+			while (true) {
+				List<Object[]> ids = jdbcTemplate.query(SELECT_EXPIRED_SQL,
+						(rs, n) -> new Object[] { rs.getString(1) }, now(), cleanupBatchSize);
+				if (ids.isEmpty()) {
+					break;
+				}
+				jdbcTemplate.batchUpdate("DELETE FROM stock_holds WHERE id = ?", ids);
+				total += ids.size();
+				if (ids.size() < cleanupBatchSize) {
+					break;
+				}
+			}
+		} catch (RuntimeException e) {
+			// 次の実行で続きを消せるよう、スレッドは止めない
+			log.warn("期限切れの在庫の確保の削除に失敗しました: {}", e.getMessage());
+		}
+		return total;
+	}
+
+	private static Timestamp now() {
+		return new Timestamp(System.currentTimeMillis());
+	}
+
+	// ---------------------
+	// 台帳の操作（ストライプのロック内で呼ぶ）
+	// ---------------------
+	private Hold put(Hold hold) {
+		ItemHolds holds = holdsByItem.computeIfAbsent(hold.getItemId(), k -> new ItemHolds());
+		Hold previous = holds.byUser.put(hold.getUsername(), hold);
+		holds.held += hold.getQuantity() - (previous == null ? 0 : previous.getQuantity());
+		return previous;
+	}
+
+	// holdId が null 以外なら、その確保が残っている場合だけ外す
+	private Hold remove(Long itemId, String username, String holdId) {
+		ItemHolds holds = holdsByItem.get(itemId);
+		if (holds == null) {
+			return null;
+		}
+		Hold current = holds.byUser.get(username);
+		if (current == null || (holdId != null && !holdId.equals(current.getId()))) {
+			return null;
+		}
+		holds.byUser.remove(username);
+		holds.held -= current.getQuantity();
+		if (holds.byUser.isEmpty()) {
+			holdsByItem.remove(itemId);
+		}
+		return current;
+	}
+
+	private Object stripe(Long itemId) {
+		return stripes[Math.floorMod(itemId.hashCode(), STRIPES)];
+	}
+}
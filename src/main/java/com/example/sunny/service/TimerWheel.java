@@ -0,0 +1,75 @@
+package com.example.sunny.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+// =====================
+// タイマーホイール（期限切れの検出用）
+// =====================
+//
+// 時間を tickMillis ごとの「目盛り」に区切り、リング状に並べたバケツに
+// 期限の目盛りで登録しておく。advance() で現在時刻まで針を進め、
+// 通過したバケツの中身だけを見るので、登録件数が多くても1回の処理は軽い。
+//
+// バケツ数より先の期限は rounds（あと何周か）を持たせて同じバケツに入れる。
+// 取り消しは行わない（期限切れ時に呼び出し側で「まだ有効か」を確認する）。
+final class TimerWheel<T> {
+
+	private static final class Entry<T> {
+		final T value;
+		long rounds;
+
+		Entry(T value, long rounds) {
+			this.value = value;
+			this.rounds = rounds;
+		}
+	}
+
+	private final long tickMillis;
+	private final long startMillis;
+	private final List<ArrayDeque<Entry<T>>> buckets;
+
+	// 処理済みの目盛り
+	private long currentTick;
+
+	TimerWheel(long tickMillis, int bucketCount, long startMillis) {
+		this.tickMillis = tickMillis;
+		this.startMillis = startMillis;
+		this.buckets = new ArrayList<>(bucketCount);
+		for (int i = 0; i < bucketCount; i++) {
+			buckets.add(new ArrayDeque<>());
+		}
+	}
+
+	// 期限（epoch ミリ秒）に value を登録する。過去の期限は次の目盛りで期限切れになる。
+	synchronized void schedule(T value, long deadlineMillis) {
+		long tick = Math.max(currentTick + 1, ceilDiv(deadlineMillis - startMillis, tickMillis));
+		long rounds = (tick - currentTick - 1) / buckets.size();
+		buckets.get((int) (tick % buckets.size())).add(new Entry<>(value, rounds));
+	}
+
+	// nowMillis まで針を進め、期限切れになったものを返す
+	synchronized List<T> advance(long nowMillis) {
+		List<T> expired = new ArrayList<>();
+		long targetTick = Math.floorDiv(nowMillis - startMillis, tickMillis);
+		while (currentTick < targetTick) {
+			currentTick++;
+			ArrayDeque<Entry<T>> bucket = buckets.get((int) (currentTick % buckets.size()));
+			for (int n = bucket.size(); n > 0; n--) {
+				Entry<T> entry = bucket.poll();
+				if (entry.rounds == 0) {
+					expired.add(entry.value);
+				} else {
+					entry.rounds--;
+					bucket.add(entry);
+				}
+			}
+		}
+		return expired;
+	}
+
+	private static long ceilDiv(long x, long y) {
+		return -Math.floorDiv(-x, y);
+	}
+}
@@ -0,0 +1,107 @@
+package com.example.sunny.service;
+
+import java.security.SecureRandom;
+
+// =====================
+// 大きさ固定のトークンバケット表（キーごとの回数制限）
+// =====================
+//
+// キー（ログインID・IP アドレスなど）ごとに「capacity 個まで貯まり、毎秒 refillPerSecond 個ずつ増える」
+// トークンを持ち、1回ごとに1個使う。無ければ断る。
+//
+// ・キーはハッシュで slots 個の枠のどれかに入れる。表は起動時に作ったきりで、呼び出しごとの new は無い
+// ・枠をまたいだロックは stripes 本（枠番号で決まる）。別の枠なら並行して進む
+// ・近似：別のキーと同じ枠に当たった時は、先のキーのバケットが満タンに戻っていれば入れ替え、
+//   そうでなければ共有する（数え過ぎる方向にずれるだけで、制限が緩むことはない）
+// ・ハッシュは起動ごとの乱数を混ぜる（外から狙って同じ枠に当てられないように）
+final class TokenBucketTable {
+
+	private final double capacity;
+	private final double refillPerNano;
+	private final int slotMask;
+	private final int stripeMask;
+	private final long seed;
+
+	// 枠ごとの値（同じ添字で1つの枠）
+	private final long[] fingerprints;
+	private final double[] tokens;
+	private final long[] updatedAt;
+
+	private final Object[] locks;
+
+	TokenBucketTable(int capacity, double refillPerSecond, int slots, int stripes) {
+		if (capacity < 1 || refillPerSecond <= 0) {
+			throw new IllegalArgumentException("capacity / refill が不正です");
+		}
+		this.capacity = capacity;
+		this.refillPerNano = refillPerSecond / 1_000_000_000d;
+		int slotCount = powerOfTwo(slots);
+		int stripeCount = Math.min(powerOfTwo(stripes), slotCount);
+		this.slotMask = slotCount - 1;
+		this.stripeMask = stripeCount - 1;
+		this.seed = new SecureRandom().nextLong();
+		this.fingerprints = new long[slotCount];
+		this.tokens = new double[slotCount];
+		this.updatedAt = new long[slotCount];
+		this.locks = new Object[stripeCount];
+		for (int i = 0; i < stripeCount; i++) {
+			locks[i] = new Object();
+		}
+	}
+
+	// トークンを1個使えたら true（now は System.nanoTime()）
+	boolean tryAcquire(CharSequence key, long now) {
+		long hash = hash(key);
+		int slot = (int) hash & slotMask;
+		// 0 は「空の枠」の印なので使わない
+		long fingerprint = hash | 1L;
+
+		synchronized (locks[slot & stripeMask]) {
+			double available;
+			if (fingerprints[slot] == fingerprint) {
+				available = refilled(slot, now);
+			} else if (fingerprints[slot] == 0L) {
+				fingerprints[slot] = fingerprint;
+				available = capacity;
+			} else {
+				available = refilled(slot, now);
+				if (available >= capacity) {
+					// 先のキーは落ち着いているので枠を譲ってもらう
+					fingerprints[slot] = fingerprint;
+				}
+			}
+
+			updatedAt[slot] = now;
+			if (available < 1d) {
+				tokens[slot] = available;
+				return false;
+			}
+			tokens[slot] = available - 1d;
+			return true;
+		}
+	}
+
+	private double refilled(int slot, long now) {
+		return Math.min(capacity, tokens[slot] + Math.max(0L, now - updatedAt[slot]) * refillPerNano);
+	}
+
+	// 大文字・小文字を区別しないハッシュ（文字列を作らずに1文字ずつ混ぜる）
+	private long hash(CharSequence key) {
+		long h = seed;
+		for (int i = 0; i < key.length(); i++) {
+			h = (h ^ Character.toLowerCase(key.charAt(i))) * 0x100000001B3L;
+		}
+		// 下位ビットにも偏りが出ないよう混ぜる（MurmurHash3 の fmix64）
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	private static int powerOfTwo(int n) {
+		int p = Integer.highestOneBit(Math.max(1, n));
+		return p < n ? p << 1 : p;
+	}
+}
@@ -16,6 +16,12 @@ public class UploadService {
 	@Value("${app.upload.dir:uploads}")
 	private String uploadDir;
 
+	private final ImageVariantService imageVariantService;
+
+	public UploadService(ImageVariantService imageVariantService) {
+		this.imageVariantService = imageVariantService;
+	}
+
 	public String save(MultipartFile file) {
 		if (file == null || file.isEmpty()) {
 			return null;
@@ -39,6 +45,9 @@ public class UploadService {
 			Path savePath = dirPath.resolve(filename);
 			file.transferTo(savePath.toFile());
 
+			// 一覧・詳細用の縮小版は裏で作る（完成までは元画像が表示される）
+			imageVariantService.schedule(filename);
+
 			// DBに入れるのは Web から見えるパス
 			return "/uploads/" + filename;
 
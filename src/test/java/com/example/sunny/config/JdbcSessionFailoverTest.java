@@ -0,0 +1,295 @@
+package com.example.sunny.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.example.sunny.SunnyApplication;
+import com.example.sunny.dto.ItemSummary;
+import com.example.sunny.entity.Item;
+import com.example.sunny.event.ItemChangedEvent;
+import com.example.sunny.repository.ItemRepository;
+import com.example.sunny.service.CatalogCache;
+import com.example.sunny.service.ClusterChangeFeed;
+import com.example.sunny.service.JdbcSessionRepository;
+import com.example.sunny.service.SearchIndex;
+import com.example.sunny.service.StockHoldService;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+
+// セッションを DB に置いた2台構成で、どちらのサーバーに行ってもログインが続くことを確認する
+//
+// 同じ JVM に2つのアプリを起動し、同じ H2（メモリ DB）を共有させる。
+// ・A でログイン画面 → B でログイン → A で画面表示 → A を止めて B で画面表示
+// ・画面を見るだけのリクエストでは、セッションの行を書き換えない
+// ・期限切れのセッションは batch-size 件ずつまとめて消える
+// ・応答を flush した時点で、リクエストの終わりを待たずにセッションが DB に書かれる
+// ・在庫の一時確保（app.stock-hold.store=jdbc）も2台で共有される
+// ・A で変えた商品は、B のメモリ上のカタログ・検索索引にも反映される（ClusterChangeFeed）
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class JdbcSessionFailoverTest {
+
+	private static final String DB_URL = "jdbc:h2:mem:shared-sessions;DB_CLOSE_DELAY=-1";
+	private static final Pattern CSRF = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+
+	private static ConfigurableApplicationContext nodeA;
+	private static ConfigurableApplicationContext nodeB;
+
+	private final HttpClient client = HttpClient.newBuilder()
+			.followRedirects(HttpClient.Redirect.NEVER)
+			.build();
+
+	@BeforeAll
+	static void startNodes() {
+		nodeA = start(true);
+		// 初期データは1台目だけが入れる
+		nodeB = start(false);
+	}
+
+	@AfterAll
+	static void stopNodes() {
+		if (nodeA != null && nodeA.isActive()) {
+			nodeA.close();
+		}
+		if (nodeB != null) {
+			nodeB.close();
+		}
+	}
+
+	private static ConfigurableApplicationContext start(boolean seed) {
+		// application.properties より優先させるため、起動引数で渡す
+		return new SpringApplicationBuilder(SunnyApplication.class).run(
+				"--server.port=0",
+				"--spring.datasource.url=" + DB_URL,
+				"--spring.sql.init.mode=" + (seed ? "always" : "never"),
+				// data.sql の日本語をロケールに関係なく読む
+				"--spring.sql.init.encoding=UTF-8",
+				"--spring.jpa.show-sql=false",
+				"--app.session.store=jdbc",
+				"--app.stock-hold.store=jdbc",
+				"--app.session.jdbc.cleanup-batch-size=500");
+	}
+
+	// A を止める前に動かす
+	@Test
+	@Order(1)
+	void stockHoldsAreSharedBetweenNodes() {
+		StockHoldService holdsA = nodeA.getBean(StockHoldService.class);
+		StockHoldService holdsB = nodeB.getBean(StockHoldService.class);
+
+		// 商品2（在庫5）：A で 3 個確保すると、B では他の人は 2 個までしか確保できない
+		assertThat(holdsA.hold(2L, "a@example.com", 3)).isNotNull();
+		assertThat(holdsB.heldByOthers(2L, "b@example.com")).isEqualTo(3);
+		assertThat(holdsB.hold(2L, "b@example.com", 3)).isNull();
+		assertThat(holdsB.hold(2L, "b@example.com", 2)).isNotNull();
+
+		// A で確保した本人は B でも確認画面を出せる。B で外せば A からも消える
+		assertThat(holdsB.find(2L, "a@example.com").getQuantity()).isEqualTo(3);
+		holdsB.release(2L, "a@example.com");
+		assertThat(holdsA.find(2L, "a@example.com")).isNull();
+		assertThat(holdsA.heldByOthers(2L, null)).isEqualTo(2);
+
+		holdsA.release(2L, "b@example.com");
+	}
+
+	@Test
+	@Order(1)
+	void itemChangesReachOtherNode() {
+		ItemRepository itemsA = nodeA.getBean(ItemRepository.class);
+		Item item = itemsA.findById(1L).orElseThrow();
+		item.setName("クラスタ確認ニット");
+		item.setPrice(new BigDecimal("1234"));
+		Item saved = itemsA.save(item);
+		nodeA.publishEvent(ItemChangedEvent.saved(saved));
+
+		// B が記録を読む（裏の poll が先に読んでいても結果は同じ）
+		nodeB.getBean(ClusterChangeFeed.class).poll();
+
+		ItemSummary onB = nodeB.getBean(CatalogCache.class).snapshot().get(1L);
+		assertThat(onB.getName()).isEqualTo("クラスタ確認ニット");
+		assertThat(onB.getPrice()).isEqualByComparingTo("1234");
+		assertThat(nodeB.getBean(SearchIndex.class).search("クラスタ確認", 10)).containsExactly(1L);
+	}
+
+	@Test
+	@Order(2)
+	void sessionSurvivesFailoverToAnotherNode() throws Exception {
+		// A でログイン画面（セッションと CSRF トークンができる）
+		HttpResponse<String> loginPage = get(nodeA, "/login", null);
+		assertThat(loginPage.statusCode()).isEqualTo(200);
+		String anonymousSession = sessionCookie(loginPage);
+		String csrf = csrfToken(loginPage.body());
+		assertThat(anonymousSession).isNotNull();
+		// Tomcat のセッションは使わない
+		assertThat(loginPage.headers().allValues("Set-Cookie")).noneMatch(c -> c.startsWith("JSESSIONID="));
+
+		// B でログイン（CSRF トークンは DB のセッションから読まれる）
+		HttpResponse<String> login = post(nodeB, "/login", anonymousSession,
+				"username=customer@example.com&password=pass1234&_csrf=" + URLEncoder.encode(csrf, StandardCharsets.UTF_8));
+		assertThat(login.statusCode()).isEqualTo(302);
+		assertThat(login.headers().firstValue("Location")).hasValueSatisfying(l -> assertThat(l).endsWith("/"));
+
+		// ログイン時にセッション ID が変わる（セッション固定攻撃対策）
+		String session = sessionCookie(login);
+		assertThat(session).isNotNull().isNotEqualTo(anonymousSession);
+
+		// A でもログイン済み
+		HttpResponse<String> home = get(nodeA, "/", session);
+		assertThat(home.statusCode()).isEqualTo(200);
+		assertThat(home.body()).contains("一般ユーザー 太郎");
+
+		// 画面を見るだけなら、セッションの行は書き換えない
+		JdbcTemplate jdbc = nodeB.getBean(JdbcTemplate.class);
+		long lastAccess = jdbc.queryForObject(
+				"SELECT last_access_time FROM http_sessions WHERE session_id = ?", Long.class, session);
+		assertThat(get(nodeA, "/", session).statusCode()).isEqualTo(200);
+		assertThat(jdbc.queryForObject(
+				"SELECT last_access_time FROM http_sessions WHERE session_id = ?", Long.class, session))
+				.isEqualTo(lastAccess);
+
+		// A を止めても B で続けられる
+		nodeA.close();
+		HttpResponse<String> orders = get(nodeB, "/mypage/orders", session);
+		assertThat(orders.statusCode()).isEqualTo(200);
+		assertThat(orders.body()).contains("一般ユーザー 太郎");
+
+		// 古い（ログイン前の）セッション ID ではログイン済みにならない
+		HttpResponse<String> stale = get(nodeB, "/mypage/orders", anonymousSession);
+		assertThat(stale.statusCode()).isEqualTo(302);
+
+		// ログアウトするとセッションの行が消え、同じ ID ではもう入れない
+		HttpResponse<String> logout = post(nodeB, "/logout", session,
+				"_csrf=" + URLEncoder.encode(csrfToken(orders.body()), StandardCharsets.UTF_8));
+		assertThat(logout.statusCode()).isEqualTo(302);
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM http_sessions WHERE session_id = ?", Integer.class,
+				session)).isZero();
+		assertThat(get(nodeB, "/mypage/orders", session).statusCode()).isEqualTo(302);
+	}
+
+	@Test
+	void expiredSessionsAreDeletedInBatches() {
+		JdbcTemplate jdbc = nodeB.getBean(JdbcTemplate.class);
+		// 1時間前に最後のアクセス、30分で期限切れ
+		long past = System.currentTimeMillis() - 3_600_000;
+		List<Object[]> sessions = new ArrayList<>();
+		List<Object[]> attributes = new ArrayList<>();
+		for (int i = 0; i < 1_234; i++) {
+			String primaryId = UUID.randomUUID().toString();
+			sessions.add(new Object[] { primaryId, "expired-" + i, past, past, 1800, past + 1_800_000 });
+			attributes.add(new Object[] { primaryId, "attr", new byte[] { 1, 2, 3 } });
+		}
+		jdbc.batchUpdate("INSERT INTO http_sessions (primary_id, session_id, creation_time, last_access_time,"
+				+ " max_inactive_interval, expiry_time) VALUES (?, ?, ?, ?, ?, ?)", sessions);
+		jdbc.batchUpdate("INSERT INTO http_session_attributes (session_primary_id, attribute_name, attribute_bytes)"
+				+ " VALUES (?, ?, ?)", attributes);
+
+		int deleted = nodeB.getBean(JdbcSessionRepository.class).deleteExpired();
+
+		assertThat(deleted).isGreaterThanOrEqualTo(1_234);
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM http_sessions WHERE session_id LIKE 'expired-%'",
+				Integer.class)).isZero();
+		assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM http_session_attributes a WHERE NOT EXISTS"
+				+ " (SELECT 1 FROM http_sessions s WHERE s.primary_id = a.session_primary_id)", Integer.class)).isZero();
+	}
+
+	@Test
+	@Order(3)
+	void sessionIsSavedBeforeResponseIsFlushed() throws Exception {
+		JdbcTemplate jdbc = nodeB.getBean(JdbcTemplate.class);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		String[] sessionId = new String[1];
+
+		nodeB.getBean(JdbcSessionFilter.class).doFilter(new MockHttpServletRequest(), response, (req, res) -> {
+			HttpSession session = ((HttpServletRequest) req).getSession();
+			session.setAttribute("flushed", "yes");
+			sessionId[0] = session.getId();
+			res.getWriter().write("streaming");
+			assertThat(attributeCount(jdbc, sessionId[0])).isZero();
+
+			// 送り始めた時点で DB に入っている（リクエストの終わりを待たない）
+			res.getWriter().flush();
+			assertThat(attributeCount(jdbc, sessionId[0])).isEqualTo(1);
+		});
+
+		assertThat(response.getContentAsString()).isEqualTo("streaming");
+		assertThat(attributeCount(jdbc, sessionId[0])).isEqualTo(1);
+	}
+
+	private static int attributeCount(JdbcTemplate jdbc, String sessionId) {
+		return jdbc.queryForObject("SELECT COUNT(*) FROM http_session_attributes a JOIN http_sessions s"
+				+ " ON s.primary_id = a.session_primary_id WHERE s.session_id = ? AND a.attribute_name = 'flushed'",
+				Integer.class, sessionId);
+	}
+
+	// ---------------------
+	// HTTP（Cookie は手で受け渡す）
+	// ---------------------
+
+	private HttpResponse<String> get(ConfigurableApplicationContext node, String path, String session)
+			throws IOException, InterruptedException {
+		HttpRequest.Builder request = HttpRequest.newBuilder(uri(node, path)).GET();
+		if (session != null) {
+			request.header("Cookie", "SESSION=" + session);
+		}
+		return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+	}
+
+	private HttpResponse<String> post(ConfigurableApplicationContext node, String path, String session, String form)
+			throws IOException, InterruptedException {
+		HttpRequest request = HttpRequest.newBuilder(uri(node, path))
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.header("Cookie", "SESSION=" + session)
+				.POST(HttpRequest.BodyPublishers.ofString(form))
+				.build();
+		return client.send(request, HttpResponse.BodyHandlers.ofString());
+	}
+
+	private static URI uri(ConfigurableApplicationContext node, String path) {
+		int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+		return URI.create("http://localhost:" + port + path);
+	}
+
+	// 最後に設定された SESSION Cookie（消す指定なら null）
+	private static String sessionCookie(HttpResponse<?> response) {
+		String value = null;
+		for (String header : response.headers().allValues("Set-Cookie")) {
+			if (header.startsWith("SESSION=")) {
+				String v = header.substring("SESSION=".length(), header.indexOf(';'));
+				value = v.isEmpty() ? null : v;
+			}
+		}
+		return value;
+	}
+
+	private static String csrfToken(String html) {
+		Matcher m = CSRF.matcher(html);
+		assertThat(m.find()).isTrue();
+		return m.group(1);
+	}
+}
@@ -0,0 +1,80 @@
+package com.example.sunny.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import com.example.sunny.repository.UserRepository;
+import com.example.sunny.service.CustomUserDetails;
+
+import jakarta.persistence.EntityManagerFactory;
+
+// 商品詳細画面（最もアクセスが多い画面）の SQL 発行回数を確認する
+// （統計を有効にした別コンテキストになるので、DB も専用のものを使う）
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:item-detail-query-count",
+		"spring.jpa.properties.hibernate.generate_statistics=true" })
+@AutoConfigureMockMvc
+class ItemDetailQueryCountTest {
+
+	// 詳細画面：商品＋お気に入り＋集計（1）、最新レビュー（1）
+	// ログイン中ユーザー（ヘッダーの表示名・お気に入り判定）はログイン時の控えを使うので 0
+	private static final long EXPECTED_STATEMENTS = 2;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private Statistics statistics;
+
+	// 実際のログインと同じく CustomUserDetails を principal にする
+	private RequestPostProcessor customer;
+
+	@BeforeEach
+	void setUp() {
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		customer = user(new CustomUserDetails(userRepository.findByEmail("customer@example.com").orElseThrow()));
+	}
+
+	@Test
+	void itemDetailRunsFixedNumberOfStatements() throws Exception {
+		statistics.clear();
+
+		mockMvc.perform(get("/items/1").with(customer))
+				.andExpect(status().isOk())
+				.andExpect(model().attribute("isFavorite", false));
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(EXPECTED_STATEMENTS);
+	}
+
+	@Test
+	void favoriteFlagComesFromTheSameQuery() throws Exception {
+		mockMvc.perform(post("/favorites/add/2").with(csrf()).with(customer));
+		statistics.clear();
+
+		mockMvc.perform(get("/items/2").with(customer))
+				.andExpect(status().isOk())
+				.andExpect(model().attribute("isFavorite", true));
+
+		assertThat(statistics.getPrepareStatementCount()).isEqualTo(EXPECTED_STATEMENTS);
+	}
+}
@@ -0,0 +1,115 @@
+package com.example.sunny.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.sunny.repository.UserRepository;
+import com.example.sunny.service.CustomUserDetails;
+
+// 利用者のキャンセルが、同時に押されても・スタッフの変更と重なっても、在庫を1回だけ戻すことを確認する
+//
+// ・同じ注文のキャンセルを同時に 8 回 → CANCELLED になり、在庫は1回分だけ戻り、ORDER_CANCELLED も1件
+// ・スタッフが先に発送へ進めた注文はキャンセルできず、在庫も戻らない
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:order-cancel;LOCK_TIMEOUT=30000")
+@AutoConfigureMockMvc
+class OrderCancelConcurrencyTest {
+
+	private static final long ITEM_ID = 1L;
+	private static final int THREADS = 8;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void concurrentCancelsReleaseStockOnce() throws Exception {
+		long orderId = insertOrder("CREATED", 2);
+		int stockBefore = stock();
+
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		try {
+			CountDownLatch ready = new CountDownLatch(THREADS);
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> results = new ArrayList<>();
+			for (int i = 0; i < THREADS; i++) {
+				results.add(pool.submit(() -> {
+					ready.countDown();
+					start.await();
+					cancel(orderId);
+					return null;
+				}));
+			}
+			assertThat(ready.await(10, TimeUnit.SECONDS)).isTrue();
+			start.countDown();
+			for (Future<?> result : results) {
+				result.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertThat(status(orderId)).isEqualTo("CANCELLED");
+		assertThat(stock()).isEqualTo(stockBefore + 2);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events"
+				+ " WHERE event_type = 'ORDER_CANCELLED' AND aggregate_id = ?", Integer.class, orderId)).isEqualTo(1);
+	}
+
+	@Test
+	void orderAdvancedByStaffIsNotCancelled() throws Exception {
+		long orderId = insertOrder("CREATED", 1);
+		int stockBefore = stock();
+
+		// 確認画面を開いている間に、スタッフが発送準備へ進めた
+		jdbcTemplate.update("UPDATE orders SET status = 'SHIPPING' WHERE id = ?", orderId);
+		cancel(orderId);
+
+		assertThat(status(orderId)).isEqualTo("SHIPPING");
+		assertThat(stock()).isEqualTo(stockBefore);
+	}
+
+	private void cancel(long orderId) throws Exception {
+		mockMvc.perform(post("/mypage/orders/cancel/{id}", orderId)
+				.with(user(new CustomUserDetails(userRepository.findByEmail("customer@example.com").orElseThrow())))
+				.with(csrf()))
+				.andExpect(redirectedUrl("/mypage/orders"));
+	}
+
+	private long insertOrder(String status, int quantity) {
+		jdbcTemplate.update("INSERT INTO orders (user_id, item_id, quantity, total_price, status, created_at)"
+				+ " VALUES (1, ?, ?, 100, ?, ?)", ITEM_ID, quantity, status, Timestamp.valueOf(LocalDateTime.now()));
+		return jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+	}
+
+	private int stock() {
+		return jdbcTemplate.queryForObject("SELECT stock FROM items WHERE id = ?", Integer.class, ITEM_ID);
+	}
+
+	private String status(long orderId) {
+		return jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, orderId);
+	}
+}
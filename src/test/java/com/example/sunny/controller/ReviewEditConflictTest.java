@@ -0,0 +1,88 @@
+package com.example.sunny.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.sunny.entity.Review;
+import com.example.sunny.entity.User;
+import com.example.sunny.repository.ReviewRepository;
+import com.example.sunny.repository.UserRepository;
+import com.example.sunny.service.CustomUserDetails;
+
+// 同じレビューを2つの画面から同時に編集しても、商品のレビュー集計がずれないことを確認する
+//
+// 読んだ直後に他の画面で評価が 3 → 5 に書き換えられた場合、こちらの 3 → 4 の差分（+1）を
+// 集計に足してはいけない。編集は失敗させ、rating_sum はレビューの評価の合計のままにする。
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:review-edit-conflict")
+@AutoConfigureMockMvc
+class ReviewEditConflictTest {
+
+	private static final long ITEM_ID = 2L;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@MockitoSpyBean
+	private ReviewRepository reviewRepository;
+
+	@Test
+	void editAfterConcurrentEditKeepsRatingSum() throws Exception {
+		User customer = userRepository.findByEmail("customer@example.com").orElseThrow();
+		long reviewId = insertReview(customer.getId(), 3);
+
+		// 評価 3 を読んだ直後に、別の画面での 3 → 5 の編集がコミットされる
+		Review read = reviewRepository.findById(reviewId).orElseThrow();
+		doAnswer(invocation -> {
+			CompletableFuture.runAsync(() -> {
+				jdbcTemplate.update("UPDATE reviews SET rating = 5 WHERE id = ?", reviewId);
+				jdbcTemplate.update("UPDATE items SET rating_sum = rating_sum + 2 WHERE id = ?", ITEM_ID);
+			}).join();
+			return Optional.of(read);
+		}).when(reviewRepository).findById(anyLong());
+
+		mockMvc.perform(post("/reviews/update/{id}", reviewId)
+				.param("rating", "4")
+				.param("comment", "古い画面から")
+				.with(user(new CustomUserDetails(customer)))
+				.with(csrf()))
+				.andExpect(redirectedUrl("/reviews/edit/" + reviewId));
+
+		assertThat(jdbcTemplate.queryForObject("SELECT rating FROM reviews WHERE id = ?", Integer.class, reviewId))
+				.isEqualTo(5);
+		assertThat(jdbcTemplate.queryForObject("SELECT rating_sum FROM items WHERE id = ?", Long.class, ITEM_ID))
+				.isEqualTo(jdbcTemplate.queryForObject(
+						"SELECT COALESCE(SUM(rating), 0) FROM reviews WHERE item_id = ?", Long.class, ITEM_ID));
+	}
+
+	private long insertReview(long userId, int rating) {
+		jdbcTemplate.update("INSERT INTO reviews (user_id, item_id, rating, comment, created_at) VALUES (?, ?, ?, ?, ?)",
+				userId, ITEM_ID, rating, "最初の評価", Timestamp.valueOf(LocalDateTime.now()));
+		jdbcTemplate.update("UPDATE items SET rating_sum = rating_sum + ?, rating_count = rating_count + 1 WHERE id = ?",
+				rating, ITEM_ID);
+		return jdbcTemplate.queryForObject("SELECT MAX(id) FROM reviews", Long.class);
+	}
+}
@@ -0,0 +1,84 @@
+package com.example.sunny.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.is;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.example.sunny.entity.Item;
+import com.example.sunny.repository.ItemRepository;
+import com.example.sunny.repository.UserRepository;
+import com.example.sunny.service.CustomUserDetails;
+
+// スタッフが編集画面を開いている間に注文で在庫が動いた場合、
+// 古い在庫で上書きせずに（500 にもならずに）編集画面へ戻ることを確認する
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:staff-item-edit")
+@AutoConfigureMockMvc
+class StaffItemEditConflictTest {
+
+	private static final long ITEM_ID = 2L;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ItemRepository itemRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void staleEditIsReturnedToFormInsteadOfOverwritingStock() throws Exception {
+		Item opened = itemRepository.findById(ITEM_ID).orElseThrow();
+		long version = opened.getVersion();
+		int stock = opened.getStock();
+
+		// 編集中に1個売れた（ItemRepository.reserveStock と同じく version も進む）
+		jdbcTemplate.update("UPDATE items SET stock = stock - 1, version = version + 1 WHERE id = ?", ITEM_ID);
+
+		// 開いた時の在庫のまま保存 → 上書きしない
+		save(version, stock, "名前を変更")
+				.andExpect(view().name("staff_item_edit"))
+				.andExpect(model().attributeExists("errorMessage"))
+				.andExpect(model().attribute("itemForm", hasProperty("version", is(version + 1))));
+		Item afterConflict = itemRepository.findById(ITEM_ID).orElseThrow();
+		assertThat(afterConflict.getStock()).isEqualTo(stock - 1);
+		assertThat(afterConflict.getName()).isEqualTo(opened.getName());
+
+		// 最新の更新番号で保存し直せば通る
+		save(version + 1, stock - 1, "名前を変更").andExpect(redirectedUrl("/staff/items"));
+		Item saved = itemRepository.findById(ITEM_ID).orElseThrow();
+		assertThat(saved.getName()).isEqualTo("名前を変更");
+		assertThat(saved.getStock()).isEqualTo(stock - 1);
+	}
+
+	private ResultActions save(long version, int stock, String name) throws Exception {
+		Item item = itemRepository.findById(ITEM_ID).orElseThrow();
+		return mockMvc.perform(multipart("/staff/items/{id}/edit", ITEM_ID)
+				.param("name", name)
+				.param("description", item.getDescription())
+				.param("price", item.getPrice().toPlainString())
+				.param("stock", String.valueOf(stock))
+				.param("status", item.getStatus())
+				.param("imageUrl", item.getImageUrl() == null ? "" : item.getImageUrl())
+				.param("version", String.valueOf(version))
+				.with(user(new CustomUserDetails(userRepository.findByEmail("staff@example.com").orElseThrow())))
+				.with(csrf()));
+	}
+}
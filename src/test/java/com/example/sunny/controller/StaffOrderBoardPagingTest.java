@@ -0,0 +1,114 @@
+package com.example.sunny.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import com.example.sunny.dto.StaffOrderPage;
+import com.example.sunny.dto.StaffOrderRow;
+import com.example.sunny.repository.UserRepository;
+import com.example.sunny.service.CustomUserDetails;
+
+// スタッフ注文管理のページ送りで、件数（size）と見ていたページが保たれることを確認する
+//
+// ・前後のページへのリンクに size が付く（既定の件数なら付かない）
+// ・前ページ（before）から開いたページでステータスを変えても、同じページに戻る（1ページ目に飛ばない）
+// ・一括変更も同じ
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:staff-order-paging")
+@AutoConfigureMockMvc
+class StaffOrderBoardPagingTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void pagingAndUpdatesKeepSizeAndPage() throws Exception {
+		LocalDateTime now = LocalDateTime.now().withNano(0);
+		for (int i = 0; i < 6; i++) {
+			jdbcTemplate.update("INSERT INTO orders (user_id, item_id, quantity, total_price, status, created_at)"
+					+ " VALUES (1, 1, 1, 100, 'CREATED', ?)", Timestamp.valueOf(now.plusMinutes(10 + i)));
+		}
+
+		// 1ページ目 → 次のページへのリンクに size が付く
+		MvcResult first = board(get("/staff/orders").param("size", "2"));
+		StaffOrderPage firstPage = page(first);
+		assertThat(firstPage.getOrders()).hasSize(2);
+		assertThat(html(first)).contains("/staff/orders?size=2&amp;after=" + firstPage.getNextCursor());
+
+		// 3ページ目 → 前のページ（before）へのリンクにも size が付く
+		StaffOrderPage second = page(board(get("/staff/orders").param("size", "2")
+				.param("after", firstPage.getNextCursor())));
+		MvcResult third = board(get("/staff/orders").param("size", "2").param("after", second.getNextCursor()));
+		String before = page(third).getPrevCursor();
+		assertThat(html(third)).contains("/staff/orders?size=2&amp;before=" + before);
+
+		// before で開いた2ページ目。更新後の戻り先の hidden にも before と size が入っている
+		MvcResult back = board(get("/staff/orders").param("size", "2").param("before", before));
+		List<Long> ids = page(back).getOrders().stream().map(StaffOrderRow::getId).toList();
+		assertThat(ids).isEqualTo(second.getOrders().stream().map(StaffOrderRow::getId).toList());
+		assertThat(html(back)).contains("name=\"before\" value=\"" + before + "\"", "name=\"size\" value=\"2\"");
+
+		// 1件更新 → 同じページへ戻る
+		mockMvc.perform(post("/staff/orders/update/{id}", ids.get(0))
+				.param("status", "PAID")
+				.param("before", before)
+				.param("size", "2")
+				.with(staff())
+				.with(csrf()))
+				.andExpect(redirectedUrl("/staff/orders?size=2&before=" + before));
+
+		// 一括変更も同じ
+		mockMvc.perform(post("/staff/orders/bulk-status")
+				.param("orderIds", String.valueOf(ids.get(1)))
+				.param("toStatus", "PAID")
+				.param("before", before)
+				.param("size", "2")
+				.with(staff())
+				.with(csrf()))
+				.andExpect(redirectedUrl("/staff/orders?size=2&before=" + before));
+
+		// 既定の件数なら size は付けない
+		MvcResult defaultSize = board(get("/staff/orders"));
+		assertThat(html(defaultSize)).doesNotContain("size=");
+	}
+
+	private MvcResult board(MockHttpServletRequestBuilder request) throws Exception {
+		return mockMvc.perform(request.with(staff())).andExpect(status().isOk()).andReturn();
+	}
+
+	private static StaffOrderPage page(MvcResult result) {
+		return (StaffOrderPage) result.getModelAndView().getModel().get("page");
+	}
+
+	private static String html(MvcResult result) throws Exception {
+		return result.getResponse().getContentAsString();
+	}
+
+	private RequestPostProcessor staff() {
+		return user(new CustomUserDetails(userRepository.findByEmail("staff@example.com").orElseThrow()));
+	}
+}
@@ -0,0 +1,84 @@
+package com.example.sunny.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+// スタッフの1件ずつのステータス変更を確認する
+//
+// ・キャンセルにすると在庫が戻る。もう一度キャンセルしても（画面の二度押しなど）戻すのは1回だけ
+// ・変えるのはステータスだけ。一括変更で入った追跡番号を、読んだ時の値で上書きしない
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:staff-order-status")
+@AutoConfigureMockMvc
+class StaffOrderStatusUpdateTest {
+
+	private static final long ITEM_ID = 1L;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void cancelReleasesStockOnce() throws Exception {
+		long orderId = insertOrder("PAID", 3);
+		int stockBefore = stock();
+
+		update(orderId, "CANCELLED").andExpect(flash().attributeExists("successMessage"));
+		update(orderId, "CANCELLED").andExpect(flash().attributeExists("errorMessage"));
+
+		assertThat(status(orderId)).isEqualTo("CANCELLED");
+		assertThat(stock()).isEqualTo(stockBefore + 3);
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events"
+				+ " WHERE event_type = 'ORDER_CANCELLED' AND aggregate_id = ?", Integer.class, orderId)).isEqualTo(1);
+	}
+
+	@Test
+	void updateKeepsTrackingNumber() throws Exception {
+		long orderId = insertOrder("SHIPPING", 1);
+		jdbcTemplate.update("UPDATE orders SET tracking_number = 'TRK-1' WHERE id = ?", orderId);
+
+		update(orderId, "DELIVERING").andExpect(flash().attributeExists("successMessage"));
+
+		assertThat(status(orderId)).isEqualTo("DELIVERING");
+		assertThat(jdbcTemplate.queryForObject("SELECT tracking_number FROM orders WHERE id = ?", String.class, orderId))
+				.isEqualTo("TRK-1");
+	}
+
+	private ResultActions update(long orderId, String toStatus) throws Exception {
+		return mockMvc.perform(post("/staff/orders/update/{id}", orderId)
+				.param("status", toStatus)
+				.with(user("staff").roles("STAFF"))
+				.with(csrf()))
+				.andExpect(redirectedUrl("/staff/orders"));
+	}
+
+	private long insertOrder(String status, int quantity) {
+		jdbcTemplate.update("INSERT INTO orders (user_id, item_id, quantity, total_price, status, created_at)"
+				+ " VALUES (1, ?, ?, 100, ?, ?)", ITEM_ID, quantity, status, Timestamp.valueOf(LocalDateTime.now()));
+		return jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+	}
+
+	private int stock() {
+		return jdbcTemplate.queryForObject("SELECT stock FROM items WHERE id = ?", Integer.class, ITEM_ID);
+	}
+
+	private String status(long orderId) {
+		return jdbcTemplate.queryForObject("SELECT status FROM orders WHERE id = ?", String.class, orderId);
+	}
+}
@@ -0,0 +1,65 @@
+package com.example.sunny.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.example.sunny.dto.ItemPage;
+import com.example.sunny.repository.UserRepository;
+import com.example.sunny.service.CustomUserDetails;
+
+// トップページの商品一覧のページ送りで、件数（size）と絞り込みが保たれることを確認する
+//
+// ・前後のページへのリンクに size が付く
+// ・絞り込み中なら、その条件の後ろに size が付く
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:storefront-paging")
+@AutoConfigureMockMvc
+class StorefrontPagingTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Test
+	void pagingKeepsSizeAndFilter() throws Exception {
+		// 1ページ目 → 次のページへのリンクに size が付く
+		MvcResult first = home(get("/").param("size", "1"));
+		ItemPage firstPage = page(first);
+		assertThat(firstPage.getItems()).hasSize(1);
+		assertThat(html(first)).contains("/?size=1&amp;after=" + firstPage.getNextCursor());
+
+		// 2ページ目 → 前のページ（before）へのリンクにも size が付く
+		MvcResult second = home(get("/").param("size", "1").param("after", firstPage.getNextCursor()));
+		assertThat(html(second)).contains("/?size=1&amp;before=" + page(second).getPrevCursor());
+
+		// 絞り込み中
+		MvcResult filtered = home(get("/").param("stock", "IN_STOCK").param("size", "1"));
+		assertThat(html(filtered)).contains("/?stock=IN_STOCK&amp;size=1&amp;after=" + page(filtered).getNextCursor());
+	}
+
+	private MvcResult home(MockHttpServletRequestBuilder request) throws Exception {
+		return mockMvc.perform(request.with(user(new CustomUserDetails(
+				userRepository.findByEmail("customer@example.com").orElseThrow()))))
+				.andExpect(status().isOk())
+				.andReturn();
+	}
+
+	private static ItemPage page(MvcResult result) {
+		return (ItemPage) result.getModelAndView().getModel().get("page");
+	}
+
+	private static String html(MvcResult result) throws Exception {
+		return result.getResponse().getContentAsString();
+	}
+}
@@ -0,0 +1,87 @@
+package com.example.sunny.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.sunny.entity.Item;
+
+// 1つの人気商品に同時に注文が集中しても、在庫以上に売れないことを確認する
+// （1個ずつの予約を在庫の数倍、全スレッドそろえて一斉に始め、成功がちょうど在庫の数になること）
+// （同時更新で待ちが発生するので、行ロック待ちのタイムアウトを長めにした専用 DB を使う）
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:stock-reservation;LOCK_TIMEOUT=30000")
+class StockReservationConcurrencyTest {
+
+	private static final int INITIAL_STOCK = 100;
+	private static final int THREADS = 32;
+	private static final int ATTEMPTS_PER_THREAD = 20;
+
+	@Autowired
+	private ItemRepository itemRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void concurrentReservationsNeverOversell() throws Exception {
+		Item item = new Item();
+		item.setName("人気商品");
+		item.setDescription("同時購入テスト用");
+		item.setPrice(new BigDecimal("1000"));
+		item.setStock(INITIAL_STOCK);
+		item.setStatus("PUBLIC");
+		Long itemId = itemRepository.save(item).getId();
+
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch ready = new CountDownLatch(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Integer>> results = new ArrayList<>();
+
+		// 各スレッドが1個ずつ何度も買おうとする（合計の希望数は在庫の数倍）
+		for (int t = 0; t < THREADS; t++) {
+			results.add(pool.submit(() -> {
+				ready.countDown();
+				start.await();
+				int succeeded = 0;
+				for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+					Integer updated = transactionTemplate.execute(
+							status -> itemRepository.reserveStock(itemId, 1, 0));
+					if (updated != null && updated == 1) {
+						succeeded++;
+					}
+				}
+				return succeeded;
+			}));
+		}
+
+		// 全スレッドが揃ってから一斉に始める
+		assertThat(ready.await(10, TimeUnit.SECONDS)).isTrue();
+		start.countDown();
+
+		int totalSucceeded = 0;
+		for (Future<Integer> result : results) {
+			totalSucceeded += result.get(60, TimeUnit.SECONDS);
+		}
+		pool.shutdown();
+		assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+		Item after = itemRepository.findById(itemId).orElseThrow();
+
+		// 成功した予約はちょうど在庫の数（売り越しも売り残しも無い）
+		assertThat(totalSucceeded).isEqualTo(INITIAL_STOCK);
+		assertThat(after.getStock()).isZero();
+		assertThat(after.getStatus()).isEqualTo("SOLD");
+	}
+}
@@ -0,0 +1,87 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.sunny.entity.Item;
+import com.example.sunny.event.ItemChangedEvent;
+import com.example.sunny.repository.ItemRepository;
+
+// コミット後のイベントが前後して届いても、カタログが古い内容に戻らないことを確認する
+//
+// 同じ商品への2つの注文がほぼ同時にコミットされると、後の変更（version が大きい）の
+// イベントが先に届くことがある。後から届いた古い変更は捨てられなければならない。
+class CatalogCacheTest {
+
+	private final LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+	@Test
+	void olderChangeArrivingLateIsDropped() {
+		CatalogCache cache = cacheWith(item(1L, 10, "PUBLIC", 0), item(2L, 5, "PUBLIC", 0));
+		long before = cache.snapshot().getVersion();
+
+		cache.onItemChanged(ItemChangedEvent.saved(item(1L, 8, "PUBLIC", 2)));
+		cache.onItemChanged(ItemChangedEvent.saved(item(1L, 9, "PUBLIC", 1)));
+
+		CatalogSnapshot snapshot = cache.snapshot();
+		assertThat(snapshot.get(1L).getStock()).isEqualTo(8);
+		assertThat(snapshot.get(1L).getVersion()).isEqualTo(2);
+		assertThat(snapshot.getItems()).extracting(s -> s.getStock()).containsExactly(5, 8);
+		assertThat(snapshot.getVersion()).isEqualTo(before + 1);
+		assertThat(cache.getStats()).containsEntry("stalePatches", 1L);
+	}
+
+	@Test
+	void changeArrivingAfterDeleteDoesNotResurrectItem() {
+		CatalogCache cache = cacheWith(item(1L, 10, "PUBLIC", 0));
+
+		cache.onItemChanged(ItemChangedEvent.deleted(1L));
+		cache.onItemChanged(ItemChangedEvent.saved(item(1L, 9, "PUBLIC", 1)));
+
+		assertThat(cache.snapshot().get(1L)).isNull();
+		assertThat(cache.snapshot().size()).isZero();
+	}
+
+	@Test
+	void samePositionChangeKeepsOlderSnapshotReadable() {
+		CatalogCache cache = cacheWith(item(1L, 10, "PUBLIC", 0), item(2L, 5, "PUBLIC", 0));
+		CatalogSnapshot old = cache.snapshot();
+
+		cache.onItemChanged(ItemChangedEvent.saved(item(2L, 0, "SOLD", 1)));
+
+		CatalogSnapshot current = cache.snapshot();
+		assertThat(current.getVersion()).isEqualTo(old.getVersion() + 1);
+		assertThat(current.get(2L).getStatus()).isEqualTo("SOLD");
+		// 古いスナップショットを持っている読み手も、どちらかの状態の商品を読める
+		assertThat(old.get(2L).getId()).isEqualTo(2L);
+		assertThat(old.size()).isEqualTo(2);
+	}
+
+	private CatalogCache cacheWith(Item... items) {
+		ItemRepository repository = mock(ItemRepository.class);
+		when(repository.findAll()).thenReturn(List.of(items));
+		CatalogCache cache = new CatalogCache(repository);
+		cache.rebuild();
+		return cache;
+	}
+
+	// Item には version の setter が無いので、モックで作る
+	private Item item(Long id, int stock, String status, long version) {
+		Item item = mock(Item.class);
+		when(item.getId()).thenReturn(id);
+		when(item.getName()).thenReturn("商品" + id);
+		when(item.getPrice()).thenReturn(BigDecimal.valueOf(1_000));
+		when(item.getStock()).thenReturn(stock);
+		when(item.getStatus()).thenReturn(status);
+		when(item.getCreatedAt()).thenReturn(createdAt.plusMinutes(id));
+		when(item.getVersion()).thenReturn(version);
+		return item;
+	}
+}
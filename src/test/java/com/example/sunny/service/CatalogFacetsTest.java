@@ -0,0 +1,92 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.sunny.dto.FacetCount;
+import com.example.sunny.dto.FacetSelection;
+import com.example.sunny.dto.ItemSummary;
+
+// 1商品ずつ差分を当てた絞り込みインデックスが、全件から作り直した場合と同じになることを確認する
+//
+// 追加・在庫や状態の更新（同じ位置）・登録日時の変更（位置が動く）・削除をランダムに繰り返し、
+// 毎回すべての絞り込みの組み合わせで結果と件数を比べる。
+// 商品数は 64 をまたぐようにして、ワードの境目でのずらしも通す。
+class CatalogFacetsTest {
+
+	private static final String[] PRICES = { null, "UNDER_3000", "FROM_3000", "FROM_5000", "FROM_10000" };
+	private static final String[] STATUSES = { null, "PUBLIC", "SOLD", "HIDDEN" };
+	private static final String[] STOCKS = { null, CatalogFacets.IN_STOCK, CatalogFacets.SOLD_OUT };
+
+	private final Random random = new Random(42);
+	private final LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+	@Test
+	void incrementalChangesMatchFullRebuild() {
+		List<ItemSummary> initial = new ArrayList<>();
+		for (long id = 1; id <= 150; id++) {
+			initial.add(randomItem(id));
+		}
+		CatalogSnapshot snapshot = CatalogSnapshot.build(1, initial);
+		long nextId = 151;
+
+		for (int step = 0; step < 400; step++) {
+			List<ItemSummary> items = snapshot.getItems();
+			ItemSummary target = items.get(random.nextInt(items.size()));
+			switch (random.nextInt(4)) {
+			case 0 -> snapshot = snapshot.with(randomItem(nextId++));
+			case 1 -> snapshot = snapshot.with(new ItemSummary(target.getId(), target.getName(), null,
+					randomPrice(), random.nextInt(3), randomStatus(), null, target.getCreatedAt(), target.getVersion() + 1));
+			case 2 -> snapshot = snapshot.with(randomItem(target.getId()));
+			default -> snapshot = snapshot.without(target.getId());
+			}
+			assertSameAsRebuilt(snapshot);
+		}
+	}
+
+	private void assertSameAsRebuilt(CatalogSnapshot snapshot) {
+		CatalogFacets incremental = snapshot.getFacets();
+		CatalogFacets rebuilt = CatalogFacets.build(snapshot.getItems());
+		for (String price : PRICES) {
+			for (String status : STATUSES) {
+				for (String stock : STOCKS) {
+					FacetSelection selection = FacetSelection.of(price, status, stock);
+					assertThat(incremental.match(selection)).isEqualTo(rebuilt.match(selection));
+					assertThat(summary(incremental, selection)).isEqualTo(summary(rebuilt, selection));
+				}
+			}
+		}
+	}
+
+	// 件数表示を比べやすい文字列に
+	private static List<String> summary(CatalogFacets facets, FacetSelection selection) {
+		List<String> lines = new ArrayList<>();
+		facets.counts(selection).forEach((group, counts) -> {
+			for (FacetCount count : counts) {
+				lines.add(group + "=" + count.getValue() + ":" + count.getCount());
+			}
+		});
+		return lines;
+	}
+
+	private ItemSummary randomItem(long id) {
+		// 同じ登録日時の商品も作り、ID での並びも通す
+		LocalDateTime createdAt = base.plusMinutes(random.nextInt(100));
+		return new ItemSummary(id, "商品" + id, null, randomPrice(), random.nextInt(3), randomStatus(), null, createdAt, 0);
+	}
+
+	private BigDecimal randomPrice() {
+		return random.nextInt(10) == 0 ? null : BigDecimal.valueOf(random.nextInt(15_000));
+	}
+
+	private String randomStatus() {
+		return STATUSES[random.nextInt(STATUSES.length)];
+	}
+}
@@ -0,0 +1,221 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.sunny.dto.LoginUser;
+import com.example.sunny.entity.CartItem;
+import com.example.sunny.entity.Item;
+import com.example.sunny.entity.Order;
+import com.example.sunny.entity.User;
+import com.example.sunny.entity.UserStatus;
+import com.example.sunny.repository.CartItemRepository;
+import com.example.sunny.repository.ItemRepository;
+import com.example.sunny.repository.OrderRepository;
+import com.example.sunny.repository.UserRepository;
+
+// カートの一括購入（CheckoutService）の JDBC バッチ INSERT と取り消しを確認する
+//
+// ・JDBC で直接 INSERT した注文を OrderRepository で読み直すと、JPA で保存した注文と同じ内容になる
+// ・1商品でも在庫が足りなければ全部取り消される（在庫も注文もカートも元のまま）
+// ・数量が不正な行があれば、カート画面へエラー付きで戻る
+// ・同じ商品を含むカートを複数ユーザーが同時に購入しても、デッドロックせず在庫が合う
+// （従来の「1商品ずつ注文確定」との速さの比較は CheckoutThroughputBenchmark）
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:checkout-batch-insert;LOCK_TIMEOUT=30000",
+		"spring.jpa.show-sql=false" })
+@AutoConfigureMockMvc
+class CheckoutBatchInsertTest {
+
+	private static final int ITEMS_PER_CART = 5;
+	private static final int STOCK = 1_000_000;
+
+	@Autowired
+	private CheckoutService checkoutService;
+
+	@Autowired
+	private ItemRepository itemRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private CartItemRepository cartItemRepository;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	private List<Item> items;
+
+	@BeforeEach
+	void setUp() {
+		items = new ArrayList<>();
+		for (int i = 0; i < ITEMS_PER_CART; i++) {
+			Item item = new Item();
+			item.setName("まとめ買い商品" + i);
+			item.setDescription("一括購入テスト用");
+			item.setPrice(new BigDecimal("1000"));
+			item.setStock(STOCK);
+			item.setStatus("PUBLIC");
+			items.add(itemRepository.save(item));
+		}
+	}
+
+	@Test
+	void batchedInsertMatchesOrderMapping() {
+		User user = createUser("mapping");
+		fillCart(user, items);
+
+		LocalDateTime before = LocalDateTime.now().minusSeconds(1);
+		assertThat(checkoutService.checkout(LoginUser.of(user))).isEqualTo(ITEMS_PER_CART);
+
+		List<Order> orders = orderRepository.findByUserOrderByCreatedAtDesc(user);
+		assertThat(orders).hasSize(ITEMS_PER_CART);
+		assertThat(orders).extracting(order -> order.getItem().getId())
+				.containsExactlyInAnyOrderElementsOf(items.stream().map(Item::getId).toList());
+		for (Order order : orders) {
+			assertThat(order.getUser().getId()).isEqualTo(user.getId());
+			assertThat(order.getQuantity()).isEqualTo(1);
+			assertThat(order.getTotalPrice()).isEqualTo(1000);
+			assertThat(order.getStatus()).isEqualTo("CREATED");
+			assertThat(order.getCreatedAt()).isAfter(before);
+			assertThat(order.getDeliveryDate()).isNull();
+			assertThat(order.getTrackingNumber()).isNull();
+			assertThat(order.getIdempotencyKey()).isNull();
+		}
+		for (Item item : items) {
+			assertThat(itemRepository.findById(item.getId()).orElseThrow().getStock()).isEqualTo(STOCK - 1);
+		}
+	}
+
+	@Test
+	void outOfStockRollsBackEverything() {
+		User user = createUser("rollback");
+		Item soldOut = new Item();
+		soldOut.setName("在庫切れ商品");
+		soldOut.setDescription("一括購入テスト用");
+		soldOut.setPrice(new BigDecimal("1000"));
+		soldOut.setStock(0);
+		soldOut.setStatus("SOLD");
+		soldOut = itemRepository.save(soldOut);
+		List<Item> cart = new ArrayList<>(items);
+		cart.add(soldOut);
+		fillCart(user, cart);
+
+		Long soldOutId = soldOut.getId();
+		assertThatThrownBy(() -> checkoutService.checkout(LoginUser.of(user)))
+				.isInstanceOfSatisfying(OutOfStockException.class, e -> assertThat(e.getItemId()).isEqualTo(soldOutId));
+
+		assertThat(orderRepository.findByUserOrderByCreatedAtDesc(user)).isEmpty();
+		assertThat(cartItemRepository.findWithItemByUserId(user.getId())).hasSize(ITEMS_PER_CART + 1);
+		for (Item item : items) {
+			assertThat(itemRepository.findById(item.getId()).orElseThrow().getStock()).isEqualTo(STOCK);
+		}
+	}
+
+	@Test
+	void invalidQuantityReturnsToCartWithError() throws Exception {
+		User user = createUser("invalid-quantity");
+		fillCart(user, items);
+		CartItem line = cartItemRepository.findWithItemByUserId(user.getId()).get(0);
+		line.setQuantity(0);
+		cartItemRepository.save(line);
+
+		mockMvc.perform(post("/cart/checkout").with(user(new CustomUserDetails(user))).with(csrf()))
+				.andExpect(redirectedUrl("/cart"))
+				.andExpect(flash().attribute("errorMessage", startsWith("数量が不正です")));
+
+		assertThat(orderRepository.findByUserOrderByCreatedAtDesc(user)).isEmpty();
+	}
+
+	@Test
+	void concurrentCheckoutsOfOverlappingCartsDoNotDeadlock() throws Exception {
+		int threads = 8;
+		int checkoutsPerThread = 25;
+
+		List<User> users = new ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			users.add(createUser("concurrent" + t));
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<Integer>> results = new ArrayList<>();
+		for (User user : users) {
+			results.add(pool.submit(() -> {
+				start.await();
+				int ordered = 0;
+				for (int i = 0; i < checkoutsPerThread; i++) {
+					// カートへの追加順はばらばらでも、確保は商品ID順になる
+					List<Item> shuffled = new ArrayList<>(items);
+					Collections.shuffle(shuffled);
+					fillCart(user, shuffled);
+					ordered += checkoutService.checkout(LoginUser.of(user));
+				}
+				return ordered;
+			}));
+		}
+		start.countDown();
+
+		int totalOrdered = 0;
+		for (Future<Integer> result : results) {
+			totalOrdered += result.get(60, TimeUnit.SECONDS);
+		}
+		pool.shutdown();
+
+		assertThat(totalOrdered).isEqualTo(threads * checkoutsPerThread * ITEMS_PER_CART);
+		for (Item item : items) {
+			assertThat(itemRepository.findById(item.getId()).orElseThrow().getStock())
+					.isEqualTo(STOCK - threads * checkoutsPerThread);
+		}
+	}
+
+	private void fillCart(User user, List<Item> cartItems) {
+		for (Item item : cartItems) {
+			CartItem line = new CartItem();
+			line.setUser(user);
+			line.setItem(item);
+			line.setQuantity(1);
+			line.setCreatedAt(LocalDateTime.now());
+			cartItemRepository.save(line);
+		}
+	}
+
+	private User createUser(String name) {
+		User user = new User();
+		user.setName(name);
+		user.setEmail(name + "@example.com");
+		user.setPassword("{noop}pass1234");
+		user.setRole("CUSTOMER");
+		user.setStatus(UserStatus.ACTIVE);
+		user.setEnabled(true);
+		return userRepository.save(user);
+	}
+}
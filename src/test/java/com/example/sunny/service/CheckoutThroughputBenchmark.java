@@ -0,0 +1,132 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.sunny.dto.LoginUser;
+import com.example.sunny.entity.CartItem;
+import com.example.sunny.entity.Item;
+import com.example.sunny.entity.Order;
+import com.example.sunny.entity.User;
+import com.example.sunny.entity.UserStatus;
+import com.example.sunny.repository.CartItemRepository;
+import com.example.sunny.repository.ItemRepository;
+import com.example.sunny.repository.OrderRepository;
+import com.example.sunny.repository.UserRepository;
+
+// カートの一括購入（CheckoutService）と、従来の「1商品ずつ注文確定」の速さを比べる
+//
+// 同じ5商品を何回も購入し、1秒あたりに購入できるカート数をログに出す。
+// 値はマシン・JIT の状態で揺れるので、通常のテストでは動かさない（mvn test -Pbenchmark で実行）。
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:checkout-benchmark",
+		"spring.jpa.show-sql=false" })
+class CheckoutThroughputBenchmark {
+
+	private static final Logger log = LoggerFactory.getLogger(CheckoutThroughputBenchmark.class);
+
+	private static final int ITEMS_PER_CART = 5;
+	private static final int WARMUP = 50;
+	private static final int ROUNDS = 500;
+	private static final int STOCK = 1_000_000;
+
+	@Autowired
+	private CheckoutService checkoutService;
+
+	@Autowired
+	private ItemRepository itemRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private CartItemRepository cartItemRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void batchedCheckoutAgainstPerItemOrders() {
+		List<Item> items = new ArrayList<>();
+		for (int i = 0; i < ITEMS_PER_CART; i++) {
+			Item item = new Item();
+			item.setName("まとめ買い商品" + i);
+			item.setDescription("一括購入の計測用");
+			item.setPrice(new BigDecimal("1000"));
+			item.setStock(STOCK);
+			item.setStatus("PUBLIC");
+			items.add(itemRepository.save(item));
+		}
+		User user = new User("benchmark", "benchmark@example.com", "{noop}pass1234", "CUSTOMER");
+		user.setStatus(UserStatus.ACTIVE);
+		userRepository.save(user);
+
+		// 暖機（JIT・コネクションプール）
+		perItemOrders(user, items, WARMUP);
+		cartCheckouts(user, items, WARMUP);
+
+		long perItemNanos = perItemOrders(user, items, ROUNDS);
+		long cartNanos = cartCheckouts(user, items, ROUNDS);
+
+		log.info("1商品ずつ注文確定: {} 回 × {} 商品 = {} ms（{} カート/秒）",
+				ROUNDS, ITEMS_PER_CART, perItemNanos / 1_000_000, ROUNDS * 1_000_000_000L / perItemNanos);
+		log.info("カート一括購入   : {} 回 × {} 商品 = {} ms（{} カート/秒）",
+				ROUNDS, ITEMS_PER_CART, cartNanos / 1_000_000, ROUNDS * 1_000_000_000L / cartNanos);
+	}
+
+	// 従来の方式：商品ごとに1トランザクション（在庫確保 → 商品読み直し → 注文保存）
+	private long perItemOrders(User user, List<Item> items, int rounds) {
+		long start = System.nanoTime();
+		for (int r = 0; r < rounds; r++) {
+			for (Item cartItem : items) {
+				transactionTemplate.executeWithoutResult(status -> {
+					itemRepository.reserveStock(cartItem.getId(), 1, 0);
+					Item item = itemRepository.findById(cartItem.getId()).orElseThrow();
+					Order order = new Order();
+					order.setUser(user);
+					order.setItem(item);
+					order.setQuantity(1);
+					order.setTotalPrice(item.getPrice().intValue());
+					order.setStatus("CREATED");
+					order.setCreatedAt(LocalDateTime.now());
+					orderRepository.save(order);
+				});
+			}
+		}
+		return System.nanoTime() - start;
+	}
+
+	// 新しい方式：カートに入れておき、1トランザクションでまとめて購入
+	// （カートへの追加は買い物中に済んでいるので計測に含めない）
+	private long cartCheckouts(User user, List<Item> items, int rounds) {
+		long total = 0;
+		for (int r = 0; r < rounds; r++) {
+			for (Item item : items) {
+				CartItem line = new CartItem();
+				line.setUser(user);
+				line.setItem(item);
+				line.setQuantity(1);
+				line.setCreatedAt(LocalDateTime.now());
+				cartItemRepository.save(line);
+			}
+			long start = System.nanoTime();
+			assertThat(checkoutService.checkout(LoginUser.of(user))).isEqualTo(ITEMS_PER_CART);
+			total += System.nanoTime() - start;
+		}
+		return total;
+	}
+}
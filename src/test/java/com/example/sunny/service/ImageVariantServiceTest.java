@@ -0,0 +1,61 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// 起動時の補完が、キューより多い画像でも1枚も捨てずに作り終えることを確認する
+// （スレッド1本・キュー1つに対して 40 枚）
+class ImageVariantServiceTest {
+
+	private static final int IMAGES = 40;
+
+	@TempDir
+	Path uploadDir;
+
+	@Test
+	void backfillWaitsForQueueInsteadOfDropping() throws Exception {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < IMAGES; i++) {
+			String name = "image" + i + ".png";
+			ImageIO.write(new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB), "png",
+					uploadDir.resolve(name).toFile());
+			names.add(name);
+		}
+
+		ImageVariantService service = new ImageVariantService(uploadDir.toString(), 1, 1, true);
+		try {
+			service.backfill();
+
+			long deadline = System.currentTimeMillis() + 30_000;
+			while (System.currentTimeMillis() < deadline && !allGenerated(names)) {
+				Thread.sleep(50);
+			}
+			assertThat(allGenerated(names)).isTrue();
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	private boolean allGenerated(List<String> names) {
+		for (String name : names) {
+			for (ImageVariantService.Variant variant : ImageVariantService.Variant.values()) {
+				Path path = uploadDir.resolve(ImageVariantService.VARIANTS_DIR).resolve(variant.getDir())
+						.resolve(name + ".jpg");
+				if (!Files.exists(path)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,103 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+// ログイン試行の回数制限を確認する
+//
+// ・同じアカウントへの試行は account.capacity 回まで。超えたらパスワード照合の前に断る
+// ・同じ IP からの試行は ip.capacity 回まで（アカウントを変えても同じ）
+// ・断られていない IP・アカウントには影響しない
+// ・数える表は呼び出しごとにメモリを確保しない
+// （テスト中に回復しないよう、回復は10分に1回にしてある）
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:login-throttle",
+		"app.login-throttle.account.capacity=5",
+		"app.login-throttle.account.refill-per-minute=0.1",
+		"app.login-throttle.ip.capacity=20",
+		"app.login-throttle.ip.refill-per-minute=0.1" })
+@AutoConfigureMockMvc
+class LoginThrottleTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockitoSpyBean
+	private PasswordEncoder passwordEncoder;
+
+	@Test
+	void throttlesPerAccountBeforePasswordCheck() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			login("10.0.0.1", "customer@example.com", "wrong").andExpect(redirectedUrl("/login?error=true"));
+		}
+
+		// 6回目は正しいパスワードでも照合せずに断る（別の IP からでも同じ）
+		clearInvocations(passwordEncoder);
+		login("10.0.0.1", "customer@example.com", "pass1234").andExpect(redirectedUrl("/login?throttled=true"));
+		login("10.0.0.9", "CUSTOMER@example.com", "pass1234").andExpect(redirectedUrl("/login?throttled=true"));
+		verify(passwordEncoder, never()).matches(any(), anyString());
+
+		// 他のアカウントは影響を受けない
+		login("10.0.0.1", "staff@example.com", "pass1234").andExpect(redirectedUrl("/"));
+	}
+
+	@Test
+	void throttlesPerIpAcrossAccounts() throws Exception {
+		for (int i = 0; i < 20; i++) {
+			login("10.0.0.2", "nobody" + i + "@example.com", "wrong").andExpect(redirectedUrl("/login?error=true"));
+		}
+		login("10.0.0.2", "admin@example.com", "pass1234").andExpect(redirectedUrl("/login?throttled=true"));
+		login("10.0.0.3", "admin@example.com", "pass1234").andExpect(redirectedUrl("/"));
+	}
+
+	@Test
+	void tableDoesNotAllocatePerAttempt() {
+		TokenBucketTable table = new TokenBucketTable(5, 1, 1024, 16);
+		String[] keys = new String[4096];
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = "user" + i + "@example.com";
+		}
+		// JIT が落ち着くまで回してから測る
+		for (int i = 0; i < 200_000; i++) {
+			table.tryAcquire(keys[i & 4095], System.nanoTime());
+		}
+
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		long before = threads.getCurrentThreadAllocatedBytes();
+		for (int i = 0; i < 1_000_000; i++) {
+			table.tryAcquire(keys[i & 4095], System.nanoTime());
+		}
+		long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+		assertThat(allocated).isLessThan(64 * 1024);
+	}
+
+	private ResultActions login(String ip, String username, String password) throws Exception {
+		return mockMvc.perform(post("/login")
+				.param("username", username)
+				.param("password", password)
+				.with(csrf())
+				.with(request -> {
+					request.setRemoteAddr(ip);
+					return request;
+				}));
+	}
+}
@@ -0,0 +1,173 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.example.sunny.dto.StaffOrderFilter;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+
+// 注文の CSV 出力を確認する
+//
+// ・文字列の列：必要な時だけ " で囲み、式として読まれる先頭文字（= + - @ タブ CR）には ' を付ける
+// ・出力の枠（max-concurrent=1）は、書き出しが終わらないうちにタイムアウトしても返る
+// ・タイムアウトは app.orders.export.timeout がこのリクエストだけに設定される
+// ・orders を出した後に保管（orders → orders_archive）へ移された注文も、1回だけ出る
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:order-csv-export",
+		"app.orders.export.max-concurrent=1",
+		"app.orders.export.timeout=5m" })
+@AutoConfigureMockMvc
+class OrderCsvExportServiceTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockitoSpyBean
+	private OrderCsvExportService orderCsvExportService;
+
+	@MockitoSpyBean
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void writeTextQuotesAndGuardsFormulas() throws IOException {
+		assertThat(text(null)).isEmpty();
+		assertThat(text("")).isEmpty();
+		assertThat(text("山田 太郎")).isEqualTo("山田 太郎");
+		assertThat(text("a,b")).isEqualTo("\"a,b\"");
+		assertThat(text("say \"hi\"")).isEqualTo("\"say \"\"hi\"\"\"");
+		assertThat(text("1行目\n2行目")).isEqualTo("\"1行目\n2行目\"");
+		assertThat(text("=HYPERLINK(\"x\")")).isEqualTo("\"'=HYPERLINK(\"\"x\"\")\"");
+		assertThat(text("+1")).isEqualTo("'+1");
+		assertThat(text("-1")).isEqualTo("'-1");
+		assertThat(text("@SUM(A1)")).isEqualTo("'@SUM(A1)");
+		assertThat(text("\t=1+1")).isEqualTo("'\t=1+1");
+		assertThat(text("\r=1+1")).isEqualTo("\"'\r=1+1\"");
+		assertThat(text("a=1")).isEqualTo("a=1");
+	}
+
+	@Test
+	void permitIsReturnedAfterEachExport() throws Exception {
+		for (int i = 0; i < 3; i++) {
+			MvcResult started = mockMvc.perform(get("/staff/orders/export.csv").with(user("staff").roles("STAFF")))
+					.andExpect(request().asyncStarted())
+					.andReturn();
+			assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(5 * 60 * 1000L);
+			mockMvc.perform(asyncDispatch(started)).andExpect(status().isOk());
+		}
+	}
+
+	@Test
+	void permitIsReturnedWhenExportTimesOut() throws Exception {
+		CountDownLatch writing = new CountDownLatch(1);
+		CountDownLatch finish = new CountDownLatch(1);
+		// 割り込まれても止まらない書き出し（ソケットへの書き込みで止まっている状態）
+		doAnswer(invocation -> {
+			writing.countDown();
+			boolean done = false;
+			while (!done) {
+				try {
+					finish.await(10, TimeUnit.SECONDS);
+					done = true;
+				} catch (InterruptedException e) {
+					// 続けて待つ
+				}
+			}
+			return 0L;
+		}).when(orderCsvExportService).export(any(), anyBoolean(), any());
+
+		try {
+			MvcResult started = mockMvc.perform(get("/staff/orders/export.csv").with(user("staff").roles("STAFF")))
+					.andExpect(request().asyncStarted())
+					.andReturn();
+			assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+			// 書き出しが終わらないままタイムアウトし、非同期処理が終わる
+			MockAsyncContext context = (MockAsyncContext) started.getRequest().getAsyncContext();
+			for (AsyncListener listener : context.getListeners()) {
+				listener.onTimeout(new AsyncEvent(context));
+			}
+			context.complete();
+
+			// 書き出しはまだ止まっているが、枠は返っている
+			assertThat(orderCsvExportService.tryAcquire()).isTrue();
+			orderCsvExportService.release();
+		} finally {
+			finish.countDown();
+		}
+	}
+
+	@Test
+	void orderMovedToArchiveDuringExportIsWrittenOnce() throws Exception {
+		jdbcTemplate.update("INSERT INTO orders (user_id, item_id, quantity, total_price, status, created_at)"
+				+ " VALUES (1, 1, 1, 100, 'COMPLETED', ?)", Timestamp.valueOf(LocalDateTime.of(2020, 1, 1, 0, 0)));
+		long orderId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+
+		// orders を出し終えた直後（orders_archive を読む前）に、別のトランザクションで保管へ移す
+		ExecutorService other = Executors.newSingleThreadExecutor();
+		boolean[] moved = { false };
+		try {
+			doAnswer(invocation -> {
+				Object result = invocation.callRealMethod();
+				if (!moved[0]) {
+					moved[0] = true;
+					other.submit(() -> {
+						jdbcTemplate.update("INSERT INTO orders_archive (id, user_id, item_id, quantity, total_price,"
+								+ " status, created_at, archived_at) SELECT id, user_id, item_id, quantity, total_price,"
+								+ " status, created_at, CURRENT_TIMESTAMP FROM orders WHERE id = ?", orderId);
+						jdbcTemplate.update("DELETE FROM orders WHERE id = ?", orderId);
+					}).get(10, TimeUnit.SECONDS);
+				}
+				return result;
+			}).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			orderCsvExportService.export(StaffOrderFilter.of(null, null, null), false, out);
+
+			assertThat(moved[0]).isTrue();
+			assertThat(out.toString(StandardCharsets.UTF_8).lines().filter(line -> line.startsWith(orderId + ",")))
+					.hasSize(1);
+		} finally {
+			reset(jdbcTemplate);
+			other.shutdownNow();
+		}
+	}
+
+	private static String text(String value) throws IOException {
+		StringWriter out = new StringWriter();
+		OrderCsvExportService.writeText(out, value);
+		return out.toString();
+	}
+}
@@ -0,0 +1,136 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.sunny.dto.StaffOrderRow;
+import com.example.sunny.event.OrderChangedEvent;
+
+// ライブ更新の配信ハブで、注文の変更が続いても DB の読み込みがまとまることを確認する
+//
+// ・読み込み中に届いた変更は、次の1回の読み込みにまとまる（イベントごとにクエリを出さない）
+// ・作成とステータス変更が同じ注文でまとまったら、作成として送る
+// ・待ちが max-pending を超えたら、読まずに resync を送る
+class OrderEventHubTest {
+
+	private final StaffOrderBoardService boardService = mock(StaffOrderBoardService.class);
+	private final CountDownLatch firstReload = new CountDownLatch(1);
+	private final CountDownLatch releaseFirst = new CountDownLatch(1);
+
+	private OrderEventHub hub;
+
+	@AfterEach
+	void tearDown() {
+		releaseFirst.countDown();
+		hub.shutdown();
+	}
+
+	@Test
+	void changesDuringReloadAreCoalescedIntoOneQuery() throws Exception {
+		hub = new OrderEventHub(boardService, 256, 10, 30, 3600, 1, 1000);
+		RecordingEmitter emitter = new RecordingEmitter();
+		hub.register(emitter);
+		blockFirstReload();
+
+		// 1件目の読み込みが止まっている間に 100 件の変更（2件目は作成の後にステータス変更）
+		hub.onOrderChanged(OrderChangedEvent.created(List.of(1L)));
+		assertThat(firstReload.await(5, TimeUnit.SECONDS)).isTrue();
+		hub.onOrderChanged(OrderChangedEvent.created(List.of(2L)));
+		for (long id = 2; id <= 101; id++) {
+			hub.onOrderChanged(OrderChangedEvent.statusChanged(List.of(id)));
+		}
+		releaseFirst.countDown();
+
+		// 読み込みは2回だけ。2回目に 2〜101 がまとめて入る
+		@SuppressWarnings("unchecked")
+		ArgumentCaptor<List<Long>> ids = ArgumentCaptor.forClass(List.class);
+		verify(boardService, timeout(5_000).times(2)).findRows(ids.capture());
+		verify(boardService, after(300).times(2)).findRows(anyList());
+		assertThat(ids.getAllValues().get(1))
+				.containsExactlyInAnyOrderElementsOf(LongStream.rangeClosed(2, 101).boxed().toList());
+
+		awaitEvents(emitter, 101);
+		assertThat(emitter.events).filteredOn(e -> e.contains("event:" + OrderEventHub.EVENT_CREATED)).hasSize(2);
+		assertThat(emitter.events).filteredOn(e -> e.contains("event:" + OrderEventHub.EVENT_STATUS_CHANGED))
+				.hasSize(99);
+	}
+
+	@Test
+	void tooManyPendingChangesBecomeResync() throws Exception {
+		hub = new OrderEventHub(boardService, 256, 10, 30, 3600, 1, 10);
+		RecordingEmitter emitter = new RecordingEmitter();
+		hub.register(emitter);
+		blockFirstReload();
+
+		hub.onOrderChanged(OrderChangedEvent.created(List.of(1L)));
+		assertThat(firstReload.await(5, TimeUnit.SECONDS)).isTrue();
+		for (long id = 2; id <= 51; id++) {
+			hub.onOrderChanged(OrderChangedEvent.created(List.of(id)));
+		}
+		releaseFirst.countDown();
+
+		// 溢れた分は読まずに resync
+		awaitEvents(emitter, 2);
+		verify(boardService, after(300).times(1)).findRows(anyList());
+		assertThat(emitter.events).anyMatch(e -> e.contains("event:" + OrderEventHub.EVENT_RESYNC));
+	}
+
+	// 1回目の読み込みだけ止める。行は渡された ID の分だけ返す
+	private void blockFirstReload() {
+		when(boardService.findRows(anyList())).thenAnswer(invocation -> {
+			if (firstReload.getCount() > 0) {
+				firstReload.countDown();
+				releaseFirst.await(5, TimeUnit.SECONDS);
+			}
+			List<Long> ids = invocation.getArgument(0);
+			List<StaffOrderRow> rows = new ArrayList<>();
+			for (Long id : ids) {
+				rows.add(new StaffOrderRow(id, LocalDateTime.now(), "user", "item", 1, 100, "CREATED", null));
+			}
+			return rows;
+		});
+	}
+
+	private static void awaitEvents(RecordingEmitter emitter, int count) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (emitter.events.size() < count && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+	}
+
+	// 送った内容（event: 行を含む文字列部分）を記録する
+	private static final class RecordingEmitter extends SseEmitter {
+
+		final List<String> events = Collections.synchronizedList(new ArrayList<>());
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			StringBuilder text = new StringBuilder();
+			builder.build().forEach(part -> {
+				if (part.getData() instanceof String s) {
+					text.append(s);
+				}
+			});
+			events.add(text.toString());
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.sunny.dto.OrderHistoryPage;
+import com.example.sunny.dto.OrderHistoryRow;
+
+// 注文履歴が orders と orders_archive を正しく混ぜてページ分けすることを確認する
+//
+// このサーバーでは保管を動かさず（enabled=false）、保管済みの行は直接 INSERT する
+// （別のサーバーが保管した状態）。それでも保管済みの注文が履歴に出ること。
+// ・稼働中の注文がちょうど1ページ分 → 1ページ目の終わりが hot / cold の境目
+// ・まだ終わっていない古い注文は、保管済みの注文の間に正しい順番で並ぶ
+// ・全ページをたどると、重複も抜けもなく新しい順
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:order-history",
+		"app.orders.archive.enabled=false" })
+class OrderHistoryServiceTest {
+
+	private static final int HOT = OrderHistoryService.PAGE_SIZE;
+	private static final int ARCHIVED = 25;
+
+	@Autowired
+	private OrderHistoryService orderHistoryService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void mergesActiveAndArchivedOrdersAcrossPageBoundaries() {
+		Long userId = createUser("history@example.com");
+		LocalDateTime now = LocalDateTime.now().withNano(0);
+		LocalDateTime old = now.minusDays(200);
+
+		// 期待する並び（新しい順）
+		List<Long> expected = new ArrayList<>();
+
+		// 稼働中：最近の注文をちょうど1ページ分
+		for (int i = 0; i < HOT; i++) {
+			expected.add(insertOrder("orders", null, userId, now.minusHours(i), "CREATED"));
+		}
+
+		// 保管済み（別のサーバーが移した）：200日前から1時間おき
+		// 12件目と13件目の間に、まだ終わっていない古い注文（稼働中に残っている）を挟む
+		for (int i = 0; i < ARCHIVED; i++) {
+			if (i == 12) {
+				expected.add(insertOrder("orders", null, userId, old.minusHours(i).plusMinutes(30), "SHIPPING"));
+			}
+			expected.add(insertOrder("orders_archive", 1_000_000L + i, userId, old.minusHours(i), "COMPLETED"));
+		}
+
+		// 他のユーザーの保管済みの注文は混ざらない
+		Long other = createUser("other@example.com");
+		insertOrder("orders_archive", 2_000_000L, other, now.plusHours(1), "COMPLETED");
+
+		List<Long> actual = new ArrayList<>();
+		List<Integer> pageSizes = new ArrayList<>();
+		String after = null;
+		do {
+			OrderHistoryPage page = orderHistoryService.findPage(userId, after);
+			page.getOrders().stream().map(OrderHistoryRow::getId).forEach(actual::add);
+			pageSizes.add(page.getOrders().size());
+			after = page.getNextCursor();
+		} while (after != null);
+
+		assertThat(actual).containsExactlyElementsOf(expected);
+		assertThat(pageSizes).containsExactly(20, 20, 6);
+	}
+
+	private Long createUser(String email) {
+		jdbcTemplate.update("INSERT INTO users (name, email, password, role, status, enabled, created_at)"
+				+ " VALUES (?, ?, '{noop}pass1234', 'CUSTOMER', 'ACTIVE', true, CURRENT_TIMESTAMP)", email, email);
+		return jdbcTemplate.queryForObject("SELECT id FROM users WHERE email = ?", Long.class, email);
+	}
+
+	private Long insertOrder(String table, Long id, Long userId, LocalDateTime createdAt, String status) {
+		if (id == null) {
+			jdbcTemplate.update("INSERT INTO orders (user_id, item_id, quantity, total_price, status, created_at)"
+					+ " VALUES (?, 1, 1, 100, ?, ?)", userId, status, Timestamp.valueOf(createdAt));
+			return jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+		}
+		jdbcTemplate.update("INSERT INTO " + table + " (id, user_id, item_id, quantity, total_price, status,"
+				+ " created_at, archived_at) VALUES (?, ?, 1, 1, 100, ?, ?, CURRENT_TIMESTAMP)",
+				id, userId, status, Timestamp.valueOf(createdAt));
+		return id;
+	}
+}
@@ -0,0 +1,264 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.sunny.dto.OrderEventPayload;
+import com.example.sunny.entity.OutboxEvent;
+
+// アウトボックスの書き込みと配送を確認する
+//
+// ・書き込みは注文と同じトランザクションの中だけ。ロールバックされたら行も残らず、配送もされない
+// ・同時に drain しても、1行を配送するのは1回だけ（claim_token で取り合わない）
+// ・失敗したら backoff-initial-ms × 2^(回数-1) 後まで取り出さず、max-attempts 回で FAILED
+// ・処理中のまま lease-seconds を過ぎた行（落ちた dispatcher が取っていた行）は取り出し直す
+//
+// 自動のポーリングは起動直後の1回だけ（poll-interval-ms を長くしてある）。
+// 行は直接 INSERT し、配送は drain() を呼んで進める。種類は TEST_ で始まるものだけを使う（売上集計は反応しない）。
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:outbox-dispatcher",
+		"app.outbox.poll-interval-ms=3600000",
+		"app.outbox.batch-size=7",
+		"app.outbox.max-attempts=3",
+		"app.outbox.backoff-initial-ms=60000",
+		"app.outbox.backoff-max-ms=100000",
+		"app.outbox.lease-seconds=60" })
+class OutboxDispatcherTest {
+
+	@Autowired
+	private OutboxDispatcher dispatcher;
+
+	@Autowired
+	private OutboxService outboxService;
+
+	@Autowired
+	private TestHandler handler;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void recordsOnlyInsideCommittedTransactions() throws Exception {
+		OrderEventPayload payload = new OrderEventPayload(900_001L, 1L, 1L, 2, 200, LocalDateTime.now());
+
+		assertThatThrownBy(() -> outboxService.recordOrderEvent("TEST_RECORDED", payload))
+				.isInstanceOf(IllegalTransactionStateException.class);
+
+		transactionTemplate.executeWithoutResult(status -> {
+			outboxService.recordOrderEvent("TEST_RECORDED", payload);
+			status.setRollbackOnly();
+		});
+		assertThat(count("TEST_RECORDED")).isZero();
+
+		// コミットされたら、ポーリングを待たずに配送される
+		transactionTemplate.executeWithoutResult(status -> outboxService.recordOrderEvent("TEST_RECORDED", payload));
+		assertThat(awaitStatus("TEST_RECORDED", OutboxEvent.DONE)).isEqualTo(1);
+		OutboxEvent delivered = handler.delivered("TEST_RECORDED").peek();
+		assertThat(outboxService.readPayload(delivered, OrderEventPayload.class).getQuantity()).isEqualTo(2);
+	}
+
+	@Test
+	void concurrentDrainsDeliverEachEventOnce() throws Exception {
+		int events = 50;
+		for (int i = 0; i < events; i++) {
+			insert("TEST_CLAIM", i, OutboxEvent.PENDING, LocalDateTime.now().minusSeconds(1), null);
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> drains = new ArrayList<>();
+			for (int i = 0; i < 4; i++) {
+				drains.add(pool.submit(() -> {
+					start.await();
+					dispatcher.drain();
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> drain : drains) {
+				drain.get(30, TimeUnit.SECONDS);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertThat(handler.delivered("TEST_CLAIM")).hasSize(events)
+				.extracting(OutboxEvent::getId).doesNotHaveDuplicates();
+		assertThat(countWithStatus("TEST_CLAIM", OutboxEvent.DONE)).isEqualTo(events);
+		assertThat(jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM outbox_events WHERE event_type = 'TEST_CLAIM' AND claim_token IS NOT NULL",
+				Integer.class)).isZero();
+	}
+
+	@Test
+	void failuresBackOffAndGiveUpAfterMaxAttempts() {
+		// 1行目は2回失敗してから成功、2行目はずっと失敗
+		handler.failTimes(1L, 2);
+		handler.failTimes(2L, Integer.MAX_VALUE);
+		insert("TEST_RETRY", 1L, OutboxEvent.PENDING, LocalDateTime.now().minusSeconds(1), null);
+		insert("TEST_RETRY", 2L, OutboxEvent.PENDING, LocalDateTime.now().minusSeconds(1), null);
+
+		// 1回目の失敗：60秒後まで待つ
+		dispatcher.drain();
+		assertRetry(1L, OutboxEvent.PENDING, 1, 60_000);
+		assertRetry(2L, OutboxEvent.PENDING, 1, 60_000);
+
+		// 待ち時間の間は取り出さない
+		dispatcher.drain();
+		assertThat(handler.delivered("TEST_RETRY")).hasSize(2);
+
+		// 2回目の失敗：倍の120秒…ではなく上限の100秒
+		makeDue("TEST_RETRY");
+		dispatcher.drain();
+		assertRetry(1L, OutboxEvent.PENDING, 2, 100_000);
+		assertRetry(2L, OutboxEvent.PENDING, 2, 100_000);
+
+		// 3回目：1行目は成功、2行目は max-attempts に達して諦める
+		makeDue("TEST_RETRY");
+		dispatcher.drain();
+		assertThat(status("TEST_RETRY", 1L)).isEqualTo(OutboxEvent.DONE);
+		assertThat(status("TEST_RETRY", 2L)).isEqualTo(OutboxEvent.FAILED);
+		assertThat(jdbcTemplate.queryForObject("SELECT last_error FROM outbox_events"
+				+ " WHERE event_type = 'TEST_RETRY' AND aggregate_id = 2", String.class)).contains("失敗させる");
+
+		// FAILED の行はもう取り出さない
+		makeDue("TEST_RETRY");
+		dispatcher.drain();
+		assertThat(handler.delivered("TEST_RETRY")).hasSize(6);
+		assertThat(dispatcher.backoffMillis(1)).isEqualTo(60_000);
+		assertThat(dispatcher.backoffMillis(40)).isEqualTo(100_000);
+	}
+
+	@Test
+	void expiredLeaseIsReclaimed() {
+		LocalDateTime now = LocalDateTime.now();
+		// 落ちた dispatcher が2分前に取ったまま
+		insert("TEST_LEASE", 1L, OutboxEvent.PROCESSING, now.minusMinutes(5), now.minusMinutes(2));
+		// 他の dispatcher が10秒前に取って処理中
+		insert("TEST_LEASE", 2L, OutboxEvent.PROCESSING, now.minusMinutes(5), now.minusSeconds(10));
+
+		dispatcher.drain();
+
+		assertThat(handler.delivered("TEST_LEASE")).extracting(OutboxEvent::getAggregateId).containsExactly(1L);
+		assertThat(status("TEST_LEASE", 1L)).isEqualTo(OutboxEvent.DONE);
+		assertThat(status("TEST_LEASE", 2L)).isEqualTo(OutboxEvent.PROCESSING);
+		assertThat(jdbcTemplate.queryForObject("SELECT claim_token FROM outbox_events"
+				+ " WHERE event_type = 'TEST_LEASE' AND aggregate_id = 2", String.class)).isEqualTo("other");
+	}
+
+	private void insert(String type, long aggregateId, String status, LocalDateTime nextAttemptAt,
+			LocalDateTime claimedAt) {
+		jdbcTemplate.update("INSERT INTO outbox_events (event_type, aggregate_id, payload, status, attempts,"
+				+ " next_attempt_at, claim_token, claimed_at, created_at) VALUES (?, ?, '{}', ?, 0, ?, ?, ?, ?)",
+				type, aggregateId, status, Timestamp.valueOf(nextAttemptAt),
+				claimedAt == null ? null : "other", claimedAt == null ? null : Timestamp.valueOf(claimedAt),
+				Timestamp.valueOf(LocalDateTime.now()));
+	}
+
+	private void makeDue(String type) {
+		jdbcTemplate.update("UPDATE outbox_events SET next_attempt_at = ? WHERE event_type = ? AND status = ?",
+				Timestamp.valueOf(LocalDateTime.now().minusSeconds(1)), type, OutboxEvent.PENDING);
+	}
+
+	private void assertRetry(long aggregateId, String expectedStatus, int attempts, long delayMillis) {
+		Map<String, Object> row = jdbcTemplate.queryForMap("SELECT status, attempts, next_attempt_at"
+				+ " FROM outbox_events WHERE event_type = 'TEST_RETRY' AND aggregate_id = ?", aggregateId);
+		assertThat(row.get("STATUS")).isEqualTo(expectedStatus);
+		assertThat(row.get("ATTEMPTS")).isEqualTo(attempts);
+		assertThat(((Timestamp) row.get("NEXT_ATTEMPT_AT")).toLocalDateTime())
+				.isCloseTo(LocalDateTime.now().plusNanos(delayMillis * 1_000_000), within(5, ChronoUnit.SECONDS));
+	}
+
+	private String status(String type, long aggregateId) {
+		return jdbcTemplate.queryForObject("SELECT status FROM outbox_events WHERE event_type = ? AND aggregate_id = ?",
+				String.class, type, aggregateId);
+	}
+
+	private int count(String type) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE event_type = ?",
+				Integer.class, type);
+	}
+
+	private int countWithStatus(String type, String status) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_events WHERE event_type = ? AND status = ?",
+				Integer.class, type, status);
+	}
+
+	private int awaitStatus(String type, String status) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5_000;
+		while (countWithStatus(type, status) == 0 && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		return countWithStatus(type, status);
+	}
+
+	@TestConfiguration
+	static class Config {
+
+		@Bean
+		TestHandler testHandler() {
+			return new TestHandler();
+		}
+	}
+
+	// TEST_ で始まる種類を受け取り、受け取った行を種類ごとに記録する。
+	// failTimes で指定した aggregate_id は、その回数だけ失敗する
+	static class TestHandler implements OutboxHandler {
+
+		private final Map<String, Queue<OutboxEvent>> delivered = new ConcurrentHashMap<>();
+		private final Map<Long, Integer> failuresLeft = new ConcurrentHashMap<>();
+
+		@Override
+		public boolean supports(String eventType) {
+			return eventType.startsWith("TEST_");
+		}
+
+		@Override
+		public void handle(OutboxEvent event) {
+			delivered(event.getEventType()).add(event);
+			Integer left = "TEST_RETRY".equals(event.getEventType())
+					? failuresLeft.computeIfPresent(event.getAggregateId(), (id, n) -> n - 1)
+					: null;
+			if (left != null && left >= 0) {
+				throw new IllegalStateException("失敗させる");
+			}
+		}
+
+		void failTimes(Long aggregateId, int times) {
+			failuresLeft.put(aggregateId, times);
+		}
+
+		Queue<OutboxEvent> delivered(String eventType) {
+			return delivered.computeIfAbsent(eventType, t -> new ConcurrentLinkedQueue<>());
+		}
+	}
+}
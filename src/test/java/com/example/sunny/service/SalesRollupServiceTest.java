@@ -0,0 +1,214 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.reset;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.sunny.dto.OrderEventPayload;
+import com.example.sunny.entity.OutboxEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+// 売上の日次集計（daily_item_sales）と台帳（sales_ledger）を確認する
+//
+// ・同じ確定イベントが2回届いても1回分だけ数える
+// ・キャンセルが確定より先に届いたら、キャンセル件数だけ数え、後の確定は数えない
+// ・確定 → キャンセルなら、売上から引いてキャンセル件数に足す
+// ・作り直しは orders と orders_archive から作り、台帳も作るので、後から届いた古いイベントは数えない
+// ・作り直しの途中で注文がキャンセルされても、台帳と集計は同じ時点の内容で作られる
+// ・売上画面の「作り直す」は裏のスレッドで動き、リクエストはすぐに戻る
+//
+// イベントはハンドラーを直接呼んで届ける。テストごとに日付を変えて、互いの行に触らない。
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:sales-rollup")
+@AutoConfigureMockMvc
+class SalesRollupServiceTest {
+
+	private static final long ITEM_ID = 2L;
+
+	@Autowired
+	private SalesRollupService rollupService;
+
+	@Autowired
+	private SalesRollupRebuildJob rebuildJob;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@MockitoSpyBean
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void duplicatePlacedEventIsCountedOnce() throws Exception {
+		LocalDateTime orderedAt = LocalDateTime.of(2020, 1, 10, 12, 0);
+		OrderEventPayload order = payload(810_001L, 3, 900, orderedAt);
+
+		deliver(OutboxEvent.ORDER_PLACED, order);
+		deliver(OutboxEvent.ORDER_PLACED, order);
+
+		assertThat(sales(orderedAt.toLocalDate())).containsExactly(1L, 3L, 900L, 0L);
+	}
+
+	@Test
+	void placedThenCancelledIsSubtracted() throws Exception {
+		LocalDateTime orderedAt = LocalDateTime.of(2020, 1, 11, 12, 0);
+		OrderEventPayload kept = payload(811_001L, 1, 300, orderedAt);
+		OrderEventPayload cancelled = payload(811_002L, 2, 600, orderedAt);
+
+		deliver(OutboxEvent.ORDER_PLACED, kept);
+		deliver(OutboxEvent.ORDER_PLACED, cancelled);
+		deliver(OutboxEvent.ORDER_CANCELLED, cancelled);
+		// キャンセルが2回届いても1回分
+		deliver(OutboxEvent.ORDER_CANCELLED, cancelled);
+
+		assertThat(sales(orderedAt.toLocalDate())).containsExactly(1L, 1L, 300L, 1L);
+	}
+
+	@Test
+	void cancelBeforePlacedIsNotCountedAsSale() throws Exception {
+		LocalDateTime orderedAt = LocalDateTime.of(2020, 1, 12, 12, 0);
+		OrderEventPayload order = payload(812_001L, 2, 600, orderedAt);
+
+		deliver(OutboxEvent.ORDER_CANCELLED, order);
+		deliver(OutboxEvent.ORDER_PLACED, order);
+		deliver(OutboxEvent.ORDER_CANCELLED, order);
+
+		assertThat(sales(orderedAt.toLocalDate())).containsExactly(0L, 0L, 0L, 1L);
+		assertThat(jdbcTemplate.queryForObject("SELECT counted FROM sales_ledger WHERE order_id = ?",
+				Boolean.class, 812_001L)).isFalse();
+	}
+
+	@Test
+	void rebuildMatchesOrdersAndLedgerSkipsOldEvents() throws Exception {
+		LocalDateTime orderedAt = LocalDateTime.of(2020, 2, 3, 9, 0);
+		long placed = insertOrder("orders", null, 2, 400, "PAID", orderedAt);
+		long cancelled = insertOrder("orders", null, 1, 200, "CANCELLED", orderedAt.plusHours(1));
+		insertOrder("orders_archive", 813_001L, 5, 1000, "COMPLETED", orderedAt.plusHours(2));
+
+		// 集計がずれている（作り直しで正しい値に戻る）
+		jdbcTemplate.update("INSERT INTO daily_item_sales (sales_date, item_id, order_count, units, revenue,"
+				+ " cancelled_count) VALUES (?, ?, 99, 99, 99, 99)", Date.valueOf(orderedAt.toLocalDate()), ITEM_ID);
+
+		rebuildJob.rebuild();
+		assertThat(sales(orderedAt.toLocalDate())).containsExactly(2L, 7L, 1400L, 1L);
+
+		// 作り直しの前に出ていたイベントが後から届いても、二重に数えない
+		deliver(OutboxEvent.ORDER_PLACED, payload(placed, 2, 400, orderedAt));
+		deliver(OutboxEvent.ORDER_CANCELLED, payload(cancelled, 1, 200, orderedAt.plusHours(1)));
+		assertThat(sales(orderedAt.toLocalDate())).containsExactly(2L, 7L, 1400L, 1L);
+	}
+
+	@Test
+	void rebuildReadsLedgerAndTotalsFromOneSnapshot() throws Exception {
+		LocalDateTime orderedAt = LocalDateTime.of(2020, 2, 20, 9, 0);
+		long orderId = insertOrder("orders", null, 3, 600, "PAID", orderedAt);
+
+		// 台帳を作った直後（集計を作る前）に、別のトランザクションでキャンセルされる
+		ExecutorService other = Executors.newSingleThreadExecutor();
+		try {
+			doAnswer(invocation -> {
+				Object inserted = invocation.callRealMethod();
+				other.submit(() -> jdbcTemplate.update("UPDATE orders SET status = 'CANCELLED' WHERE id = ?", orderId))
+						.get(10, TimeUnit.SECONDS);
+				return inserted;
+			}).when(jdbcTemplate).update(startsWith("INSERT INTO sales_ledger"));
+
+			rebuildJob.rebuild();
+		} finally {
+			reset(jdbcTemplate);
+			other.shutdownNow();
+		}
+
+		// 台帳も集計も、作り直しを始めた時点の「確定」で揃っている
+		assertThat(jdbcTemplate.queryForObject("SELECT counted FROM sales_ledger WHERE order_id = ?",
+				Boolean.class, orderId)).isTrue();
+		assertThat(sales(orderedAt.toLocalDate())).containsExactly(1L, 3L, 600L, 0L);
+
+		// 後から届いたキャンセルで、1回だけ引かれる
+		deliver(OutboxEvent.ORDER_CANCELLED, payload(orderId, 3, 600, orderedAt));
+		assertThat(sales(orderedAt.toLocalDate())).containsExactly(0L, 0L, 0L, 1L);
+	}
+
+	@Test
+	void rebuildFromSalesPageRunsInBackground() throws Exception {
+		LocalDateTime orderedAt = LocalDateTime.of(2020, 3, 4, 9, 0);
+		insertOrder("orders", null, 4, 800, "PAID", orderedAt);
+
+		mockMvc.perform(post("/staff/sales/rebuild").with(user("staff").roles("STAFF")).with(csrf()))
+				.andExpect(redirectedUrl("/staff/sales"))
+				.andExpect(flash().attributeExists("successMessage"));
+
+		awaitRebuild();
+		assertThat(sales(orderedAt.toLocalDate())).containsExactly(1L, 4L, 800L, 0L);
+
+		// 作り直しが終わっていれば、また受け付ける
+		assertThat(rebuildJob.requestRebuild()).isTrue();
+		awaitRebuild();
+	}
+
+	private void awaitRebuild() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 10_000;
+		while (rebuildJob.isRunning() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(20);
+		}
+		assertThat(rebuildJob.isRunning()).isFalse();
+	}
+
+	private void deliver(String type, OrderEventPayload payload) throws Exception {
+		OutboxEvent event = new OutboxEvent();
+		event.setId(0L);
+		event.setEventType(type);
+		event.setAggregateId(payload.getOrderId());
+		event.setPayload(objectMapper.writeValueAsString(payload));
+		rollupService.handle(event);
+	}
+
+	private static OrderEventPayload payload(long orderId, int quantity, int totalPrice, LocalDateTime orderedAt) {
+		return new OrderEventPayload(orderId, 1L, ITEM_ID, quantity, totalPrice, orderedAt);
+	}
+
+	private long insertOrder(String table, Long id, int quantity, int totalPrice, String status,
+			LocalDateTime createdAt) {
+		if (id == null) {
+			jdbcTemplate.update("INSERT INTO orders (user_id, item_id, quantity, total_price, status, created_at)"
+					+ " VALUES (1, ?, ?, ?, ?, ?)", ITEM_ID, quantity, totalPrice, status, Timestamp.valueOf(createdAt));
+			return jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+		}
+		jdbcTemplate.update("INSERT INTO " + table + " (id, user_id, item_id, quantity, total_price, status,"
+				+ " created_at, archived_at) VALUES (?, 1, ?, ?, ?, ?, ?, CURRENT_TIMESTAMP)",
+				id, ITEM_ID, quantity, totalPrice, status, Timestamp.valueOf(createdAt));
+		return id;
+	}
+
+	// { 注文数, 数量, 売上, キャンセル数 }
+	private List<Long> sales(LocalDate date) {
+		return jdbcTemplate.queryForObject("SELECT order_count, units, revenue, cancelled_count FROM daily_item_sales"
+				+ " WHERE sales_date = ? AND item_id = ?",
+				(rs, n) -> List.of(rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getLong(4)),
+				Date.valueOf(date), ITEM_ID);
+	}
+}
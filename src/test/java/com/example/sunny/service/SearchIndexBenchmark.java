@@ -0,0 +1,97 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.example.sunny.dto.ItemSummary;
+
+// 商品 10万件の検索インデックスで、検索1回あたりの時間を測る
+//
+// ・商品名・説明文は、よくある語を組み合わせた合成データ（同じ語を含む商品が多い＝絞り込みが重い方に寄せる）
+// ・検索語ごとに何回も検索し、中央値と 99 パーセンタイルをログに出す
+// ・作り直し（rebuild）の時間と、作り直し中も検索が前の表で答え続けることも確かめる
+// 値はマシン・JIT の状態で揺れるので、通常のテストでは動かさない（mvn test -Pbenchmark で実行）。
+class SearchIndexBenchmark {
+
+	private static final Logger log = LoggerFactory.getLogger(SearchIndexBenchmark.class);
+
+	private static final int ITEMS = 100_000;
+	private static final int WARMUP = 2_000;
+	private static final int REPEAT = 2_000;
+
+	private static final String[] COLORS = { "ブラック", "ホワイト", "ネイビー", "グレー", "ベージュ", "レッド", "グリーン" };
+	private static final String[] KINDS = { "ニット", "シャツ", "パンツ", "スカート", "コート", "ジャケット", "バッグ", "スニーカー" };
+	private static final String[] MATERIALS = { "ウール", "コットン", "リネン", "レザー", "カシミヤ", "ポリエステル" };
+	private static final String[] WORDS = { "太陽", "春夏", "秋冬", "定番", "限定", "軽量", "防水", "手洗い可能", "日本製", "oversize",
+			"slim", "vintage" };
+
+	private static final String[] QUERIES = { "ニット", "ウール ニット", "ネイビー カシミヤ コート", "日本製 レザー バッグ", "太陽",
+			"vintage slim", "存在しない言葉" };
+
+	@Test
+	void searchLatencyAt100kItems() throws Exception {
+		List<ItemSummary> items = syntheticItems();
+		SearchIndex index = new SearchIndex(null);
+
+		long buildStart = System.nanoTime();
+		index.rebuild(items);
+		long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+		log.info("{} 件の作成: {} ms", ITEMS, buildMillis);
+
+		for (String query : QUERIES) {
+			for (int i = 0; i < WARMUP; i++) {
+				index.search(query, 20);
+			}
+			long[] nanos = new long[REPEAT];
+			int hits = 0;
+			for (int i = 0; i < REPEAT; i++) {
+				long start = System.nanoTime();
+				hits = index.search(query, 20).size();
+				nanos[i] = System.nanoTime() - start;
+			}
+			Arrays.sort(nanos);
+			log.info("「{}」: 中央値 {} µs / 99% {} µs（上位 {} 件）", query, nanos[REPEAT / 2] / 1_000,
+					nanos[REPEAT * 99 / 100] / 1_000, hits);
+		}
+
+		// 作り直している間も、検索は前の表で同じ結果を返す
+		List<Long> expected = index.search("ウール ニット", 20);
+		Thread rebuild = new Thread(() -> index.rebuild(items));
+		rebuild.start();
+		int during = 0;
+		while (rebuild.isAlive()) {
+			assertThat(index.search("ウール ニット", 20)).isEqualTo(expected);
+			during++;
+		}
+		rebuild.join();
+		log.info("作り直し中の検索 {} 回、すべて前の表で応答", during);
+	}
+
+	private static List<ItemSummary> syntheticItems() {
+		Random random = new Random(7);
+		LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+		List<ItemSummary> items = new ArrayList<>(ITEMS);
+		for (int i = 1; i <= ITEMS; i++) {
+			String name = pick(random, COLORS) + " " + pick(random, MATERIALS) + pick(random, KINDS);
+			String description = pick(random, WORDS) + "の" + pick(random, KINDS) + "。" + pick(random, WORDS) + "、"
+					+ pick(random, MATERIALS) + "素材。" + pick(random, WORDS) + " " + pick(random, WORDS);
+			items.add(new ItemSummary((long) i, name, description, BigDecimal.valueOf(1_000 + random.nextInt(20_000)),
+					random.nextInt(5), "PUBLIC", null, base.plusMinutes(i), 0));
+		}
+		return items;
+	}
+
+	private static String pick(Random random, String[] values) {
+		return values[random.nextInt(values.length)];
+	}
+}
@@ -0,0 +1,73 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.sunny.dto.ItemSummary;
+import com.example.sunny.entity.Item;
+import com.example.sunny.event.ItemChangedEvent;
+
+// 検索インデックスの1商品ずつの入れ替えを確認する
+//
+// ・説明文を書き換え続けている間も、変わらない商品名での検索から商品が抜けない
+// ・書き換えた後は、新しい語で見つかり、消えた語では見つからない
+class SearchIndexTest {
+
+	private final LocalDateTime createdAt = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+	@Test
+	void itemStaysSearchableWhileBeingUpdated() throws Exception {
+		SearchIndex index = new SearchIndex(null);
+		index.rebuild(List.of(summary(1L, "ウールニット", "定番"), summary(2L, "コットンシャツ", "定番")));
+
+		ItemChangedEvent[] edits = {
+				ItemChangedEvent.saved(item(1L, "ウールニット", "限定")),
+				ItemChangedEvent.saved(item(1L, "ウールニット", "定番")) };
+		AtomicBoolean running = new AtomicBoolean(true);
+		AtomicInteger updates = new AtomicInteger();
+		Thread writer = new Thread(() -> {
+			while (running.get()) {
+				index.onItemChanged(edits[updates.incrementAndGet() % 2]);
+			}
+		});
+		writer.start();
+		try {
+			long deadline = System.currentTimeMillis() + 300;
+			while (System.currentTimeMillis() < deadline) {
+				assertThat(index.search("ウールニット", 10)).containsExactly(1L);
+			}
+		} finally {
+			running.set(false);
+			writer.join();
+		}
+		assertThat(updates.get()).isPositive();
+
+		index.onItemChanged(ItemChangedEvent.saved(item(1L, "ウールニット", "限定")));
+		assertThat(index.search("限定", 10)).containsExactly(1L);
+		assertThat(index.search("定番", 10)).containsExactly(2L);
+	}
+
+	private ItemSummary summary(Long id, String name, String description) {
+		return ItemSummary.of(item(id, name, description));
+	}
+
+	private Item item(Long id, String name, String description) {
+		Item item = mock(Item.class);
+		when(item.getId()).thenReturn(id);
+		when(item.getName()).thenReturn(name);
+		when(item.getDescription()).thenReturn(description);
+		when(item.getPrice()).thenReturn(BigDecimal.valueOf(1_000));
+		when(item.getStatus()).thenReturn("PUBLIC");
+		when(item.getCreatedAt()).thenReturn(createdAt.plusMinutes(id));
+		return item;
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.sunny.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+
+import com.example.sunny.service.SessionPrincipalFootprintTest.EntityPrincipal;
+
+// 1セッションあたりのヒープ使用量を、以前の principal（User エンティティを丸ごと持つ）と比べる
+//
+// GC の後のヒープの差で測るので、JVM・GC の設定や他のスレッドで値が揺れる。
+// そのため通常のテストでは動かさない（mvn test -Pbenchmark で実行）。
+class SessionPrincipalFootprintBenchmark {
+
+	private static final Logger log = LoggerFactory.getLogger(SessionPrincipalFootprintBenchmark.class);
+
+	private static final int SESSIONS = 20_000;
+
+	@Test
+	void retainedHeapPerSession() {
+		String passwordHash = PasswordEncoderFactories.createDelegatingPasswordEncoder().encode("pass1234");
+
+		long legacyBytes = retainedBytesPerSession(i -> SessionPrincipalFootprintTest.context(
+				new EntityPrincipal(SessionPrincipalFootprintTest.loadedUser(i, passwordHash)), "CUSTOMER"));
+		long slimBytes = retainedBytesPerSession(i -> {
+			CustomUserDetails principal = new CustomUserDetails(SessionPrincipalFootprintTest.loadedUser(i, passwordHash));
+			principal.eraseCredentials();
+			return SessionPrincipalFootprintTest.context(principal, "CUSTOMER");
+		});
+
+		log.info("1セッションあたりのヒープ: 以前 {} バイト → 現在 {} バイト（{} セッションで計測）",
+				legacyBytes, slimBytes, SESSIONS);
+	}
+
+	// SESSIONS 個の SecurityContext を持った状態で、GC 後のヒープの増え方を測る
+	private static long retainedBytesPerSession(Function<Integer, SecurityContext> factory) {
+		List<SecurityContext> sessions = new ArrayList<>(SESSIONS);
+		long before = usedHeapAfterGc();
+		for (int i = 0; i < SESSIONS; i++) {
+			sessions.add(factory.apply(i));
+		}
+		long after = usedHeapAfterGc();
+		long perSession = (after - before) / sessions.size();
+		sessions.clear();
+		return perSession;
+	}
+
+	private static long usedHeapAfterGc() {
+		Runtime runtime = Runtime.getRuntime();
+		long used = Long.MAX_VALUE;
+		for (int i = 0; i < 5; i++) {
+			System.gc();
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+		}
+		return used;
+	}
+}
@@ -0,0 +1,171 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.sunny.entity.User;
+import com.example.sunny.entity.UserStatus;
+
+// セッションに入る principal（CustomUserDetails）の大きさを確認する
+//
+// ・実際にログインして、セッションの principal にパスワードが残っていないこと、
+//   シリアライズして戻せること（セッションの保存・複製ができること）
+// ・シリアライズ後のサイズが小さいこと（以前の principal はシリアライズできなかった）
+// ・名前・ロールが未設定のユーザーでもシリアライズできること
+// （1セッションあたりのヒープ使用量の比較は SessionPrincipalFootprintBenchmark）
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:session-principal")
+@AutoConfigureMockMvc
+class SessionPrincipalFootprintTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void loggedInSessionHoldsSlimSerializablePrincipal() throws Exception {
+		MockHttpSession session = (MockHttpSession) mockMvc.perform(post("/login")
+				.param("username", "customer@example.com")
+				.param("password", "pass1234")
+				.with(csrf()))
+				.andReturn().getRequest().getSession(false);
+
+		SecurityContext context = (SecurityContext) session.getAttribute(
+				HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+		CustomUserDetails principal = (CustomUserDetails) context.getAuthentication().getPrincipal();
+
+		// 認証後はパスワードが消えている
+		assertThat(principal.getPassword()).isNull();
+		assertThat(principal.getLoginUser().getEmail()).isEqualTo("customer@example.com");
+
+		// セッションごとシリアライズして戻せる
+		byte[] bytes = serialize(context);
+		SecurityContext restored = (SecurityContext) deserialize(bytes);
+		CustomUserDetails restoredPrincipal = (CustomUserDetails) restored.getAuthentication().getPrincipal();
+		assertThat(restoredPrincipal).isEqualTo(principal);
+		assertThat(restoredPrincipal.getLoginUser().getName()).isEqualTo(principal.getName());
+		assertThat(restoredPrincipal.getLoginUser().getRole()).isEqualTo("CUSTOMER");
+		assertThat(restoredPrincipal.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+				.containsExactly("ROLE_CUSTOMER");
+	}
+
+	@Test
+	void principalSerializesCompactly() throws Exception {
+		String passwordHash = PasswordEncoderFactories.createDelegatingPasswordEncoder().encode("pass1234");
+		CustomUserDetails principal = new CustomUserDetails(loadedUser(0, passwordHash));
+		principal.eraseCredentials();
+
+		// 値だけを書くので、クラスの説明を含めても 200 バイトに収まる
+		assertThat(serialize(principal).length).isLessThan(200);
+
+		// 以前の principal（User を丸ごと持つ）はそもそもシリアライズできなかった
+		assertThatThrownBy(() -> serialize(new EntityPrincipal(loadedUser(0, passwordHash))))
+				.isInstanceOf(NotSerializableException.class);
+	}
+
+	@Test
+	void principalWithoutNameOrRoleSerializes() throws Exception {
+		User user = new User(null, "noname@example.com", "{noop}pass1234", null);
+		ReflectionTestUtils.setField(user, "id", 42L);
+		user.setEnabled(true);
+		CustomUserDetails principal = new CustomUserDetails(user);
+
+		CustomUserDetails restored = (CustomUserDetails) deserialize(serialize(principal));
+
+		assertThat(restored).isEqualTo(principal);
+		assertThat(restored.getLoginUser().getEmail()).isEqualTo("noname@example.com");
+		assertThat(restored.getLoginUser().getName()).isNull();
+		assertThat(restored.getLoginUser().getRole()).isNull();
+	}
+
+	// ---------------------
+	// テスト用のデータ（SessionPrincipalFootprintBenchmark でも使う）
+	// ---------------------
+
+	// DB から読んだ直後のユーザー（文字列はセッションごとに別インスタンス）
+	static User loadedUser(int i, String passwordHash) {
+		User user = new User(fresh("一般ユーザー" + i), fresh("customer" + i + "@example.com"), fresh(passwordHash),
+				fresh("CUSTOMER"));
+		ReflectionTestUtils.setField(user, "id", 1_000_000L + i);
+		user.setStatus(UserStatus.ACTIVE);
+		user.setEnabled(true);
+		user.setCreatedAt(LocalDateTime.of(2025, 1, 1, 0, 0).plusSeconds(i));
+		return user;
+	}
+
+	private static String fresh(String s) {
+		return new String(s.toCharArray());
+	}
+
+	static SecurityContext context(UserDetails principal, String role) {
+		List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(fresh("ROLE_" + role)));
+		return new SecurityContextImpl(UsernamePasswordAuthenticationToken.authenticated(principal, null, authorities));
+	}
+
+	private static byte[] serialize(Object o) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(o);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+			return in.readObject();
+		}
+	}
+
+	// 以前の principal：User エンティティを丸ごと持つ
+	static final class EntityPrincipal implements UserDetails {
+
+		private static final long serialVersionUID = 1L;
+
+		private final User user;
+
+		EntityPrincipal(User user) {
+			this.user = user;
+		}
+
+		@Override
+		public String getUsername() {
+			return user.getEmail();
+		}
+
+		@Override
+		public String getPassword() {
+			return user.getPassword();
+		}
+
+		@Override
+		public Collection<? extends GrantedAuthority> getAuthorities() {
+			return List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole()));
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.sunny.entity.User;
+import com.example.sunny.entity.UserStatus;
+import com.example.sunny.repository.UserRepository;
+
+// ログイン中に BAN / 停止されたユーザーのセッションが、次のリクエストで切れることを確認する
+//
+// ・このサーバーの管理画面で停止 → すぐに切れる
+// ・他のサーバーで BAN（user_status_changes に行が入る）→ poll で取り込んだ後に切れる
+// ・ACTIVE に戻せばまたログインして使える
+// ・id の順にコミットされなかった変更（後の id が先に見えた）も取りこぼさない
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:session-revocation")
+@AutoConfigureMockMvc
+class SessionRevocationTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private SessionRevocationService revocationService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void statusChangeRevokesLiveSessions() throws Exception {
+		User customer = userRepository.findByEmail("customer@example.com").orElseThrow();
+		User admin = userRepository.findByEmail("admin@example.com").orElseThrow();
+
+		// ログイン中
+		MockHttpSession session = login();
+		mockMvc.perform(get("/mypage/orders").session(session)).andExpect(status().isOk());
+
+		// 管理者が停止 → 次のリクエストでログイン画面へ、セッションも無効
+		mockMvc.perform(post("/admin/users/{id}/status", customer.getId())
+				.param("status", "SUSPENDED")
+				.with(user(new CustomUserDetails(admin)))
+				.with(csrf()))
+				.andExpect(status().is3xxRedirection());
+		mockMvc.perform(get("/mypage/orders").session(session))
+				.andExpect(redirectedUrl("/login?suspended=true"));
+		assertThat(session.isInvalid()).isTrue();
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_status_changes WHERE user_id = ?",
+				Integer.class, customer.getId())).isEqualTo(1);
+
+		// ACTIVE に戻せばまたログインできる
+		mockMvc.perform(post("/admin/users/{id}/status", customer.getId())
+				.param("status", "ACTIVE")
+				.with(user(new CustomUserDetails(admin)))
+				.with(csrf()));
+		MockHttpSession again = login();
+		mockMvc.perform(get("/mypage/orders").session(again)).andExpect(status().isOk());
+
+		// 他のサーバーで BAN された（記録の行だけが入る）→ 取り込んだら切れる
+		jdbcTemplate.update("UPDATE users SET status = 'BANNED' WHERE id = ?", customer.getId());
+		jdbcTemplate.update("INSERT INTO user_status_changes (user_id, status, created_at) VALUES (?, ?, ?)",
+				customer.getId(), UserStatus.BANNED.name(), Timestamp.valueOf(LocalDateTime.now()));
+		assertThat(revocationService.poll()).isGreaterThanOrEqualTo(1);
+		mockMvc.perform(get("/mypage/orders").session(again))
+				.andExpect(redirectedUrl("/login?banned=true"));
+
+		// 後片付け
+		jdbcTemplate.update("UPDATE users SET status = 'ACTIVE' WHERE id = ?", customer.getId());
+		jdbcTemplate.update("INSERT INTO user_status_changes (user_id, status, created_at) VALUES (?, ?, ?)",
+				customer.getId(), UserStatus.ACTIVE.name(), Timestamp.valueOf(LocalDateTime.now()));
+		revocationService.poll();
+		assertThat(revocationService.isEmpty()).isTrue();
+	}
+
+	@Test
+	void pollPicksUpChangesCommittedOutOfIdOrder() {
+		long base = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM user_status_changes", Long.class)
+				+ 1_000;
+		long early = 900_001L;
+		long late = 900_002L;
+
+		// id base+2 の変更が先にコミットされ、取り込まれる
+		insertChange(base + 2, late, UserStatus.BANNED);
+		revocationService.poll();
+		assertThat(revocationService.revokedStatus(late)).isEqualTo(UserStatus.BANNED);
+
+		// その後に id base+1（先に INSERT されたがコミットが遅れた変更）が見えるようになる
+		insertChange(base + 1, early, UserStatus.SUSPENDED);
+		revocationService.poll();
+		assertThat(revocationService.revokedStatus(early)).isEqualTo(UserStatus.SUSPENDED);
+		assertThat(revocationService.revokedStatus(late)).isEqualTo(UserStatus.BANNED);
+
+		// 読み直しても、同じユーザーは id の大きい方（新しい変更）の状態になる
+		insertChange(base + 3, early, UserStatus.ACTIVE);
+		insertChange(base + 4, late, UserStatus.ACTIVE);
+		revocationService.poll();
+		revocationService.poll();
+		assertThat(revocationService.revokedStatus(early)).isNull();
+		assertThat(revocationService.revokedStatus(late)).isNull();
+
+		jdbcTemplate.update("DELETE FROM user_status_changes WHERE id > ?", base);
+	}
+
+	private void insertChange(long id, long userId, UserStatus status) {
+		jdbcTemplate.update("INSERT INTO user_status_changes (id, user_id, status, created_at) VALUES (?, ?, ?, ?)",
+				id, userId, status.name(), Timestamp.valueOf(LocalDateTime.now()));
+	}
+
+	private MockHttpSession login() throws Exception {
+		return (MockHttpSession) mockMvc.perform(post("/login")
+				.param("username", "customer@example.com")
+				.param("password", "pass1234")
+				.with(csrf()))
+				.andExpect(redirectedUrl("/"))
+				.andReturn().getRequest().getSession(false);
+	}
+}
@@ -0,0 +1,110 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.sunny.dto.StaffOrderFilter;
+import com.example.sunny.dto.StaffOrderPage;
+
+// 注文 100万件で、スタッフ注文管理の1ページの取得時間を測る
+//
+// ・注文は約1年分（30秒おき）、ステータスは6種類に散らす
+// ・絞り込みの組み合わせごとに、1ページ目・10ページ先・前ページ（before）を何回も取り、中央値と最大をログに出す
+// ・どの組み合わせも、インデックスを辿っていれば 1 ms 前後で返る
+//   （全件を読んで並べ替える形に戻ると数百 ms 以上かかり、下の上限 100 ms に引っかかる）
+// H2 は同じクエリの結果を使い回す（表が変わっていなければ）ので、測る間は切ってある（OPTIMIZE_REUSE_RESULTS）。
+// 値はマシン・JIT の状態で揺れるので、通常のテストでは動かさない（mvn test -Pbenchmark で実行）。
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:staff-order-board-benchmark;OPTIMIZE_REUSE_RESULTS=FALSE",
+		"spring.jpa.show-sql=false" })
+class StaffOrderBoardBenchmark {
+
+	private static final Logger log = LoggerFactory.getLogger(StaffOrderBoardBenchmark.class);
+
+	private static final int ORDERS = 1_000_000;
+	private static final int WARMUP = 5;
+	private static final int REPEAT = 20;
+	private static final int DEEP_PAGES = 10;
+
+	// 中央値の上限（インデックスを使わない形に戻ったことに気付くための、ゆるい上限）
+	private static final long MEDIAN_LIMIT_MICROS = 100_000;
+
+	@Autowired
+	private StaffOrderBoardService boardService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void pageLatencyAt1MOrders() {
+		long insertStart = System.nanoTime();
+		jdbcTemplate.update("INSERT INTO orders (user_id, item_id, quantity, total_price, status, created_at)"
+				+ " SELECT MOD(X, 3) + 1, MOD(X, 2) + 1, 1, 100,"
+				+ " CASE MOD(X * 7919, 6) WHEN 0 THEN 'CREATED' WHEN 1 THEN 'PAID' WHEN 2 THEN 'SHIPPING'"
+				+ "   WHEN 3 THEN 'DELIVERING' WHEN 4 THEN 'COMPLETED' ELSE 'CANCELLED' END,"
+				+ " DATEADD('SECOND', -X * 30, CURRENT_TIMESTAMP) FROM SYSTEM_RANGE(1, ?)", ORDERS);
+		jdbcTemplate.execute("ANALYZE");
+		log.info("注文 {} 件の投入: {} ms", ORDERS, (System.nanoTime() - insertStart) / 1_000_000);
+
+		LocalDate today = LocalDate.now();
+		Map<String, StaffOrderFilter> filters = new LinkedHashMap<>();
+		filters.put("絞り込み無し", StaffOrderFilter.of(null, null, null));
+		filters.put("ステータス", StaffOrderFilter.of("SHIPPING", null, null));
+		filters.put("注文日（半年前の1か月）", StaffOrderFilter.of(null, today.minusMonths(7), today.minusMonths(6)));
+		filters.put("ステータス＋注文日", StaffOrderFilter.of("PAID", today.minusMonths(7), today.minusMonths(6)));
+		filters.put("該当なし", StaffOrderFilter.of("CREATED", today.plusYears(1), null));
+
+		for (Map.Entry<String, StaffOrderFilter> entry : filters.entrySet()) {
+			StaffOrderFilter filter = entry.getValue();
+
+			// 10ページ先のカーソルと、そこから前ページへのカーソル
+			String after = null;
+			for (int i = 0; i < DEEP_PAGES && (i == 0 || after != null); i++) {
+				after = boardService.findPage(filter, after, null, StaffOrderBoardService.DEFAULT_PAGE_SIZE)
+						.getNextCursor();
+			}
+			String deepAfter = after;
+			String before = deepAfter == null ? null
+					: boardService.findPage(filter, deepAfter, null, StaffOrderBoardService.DEFAULT_PAGE_SIZE)
+							.getPrevCursor();
+
+			long[] firstPage = measure(filter, null, null);
+			long[] deepPage = measure(filter, deepAfter, null);
+			long[] prevPage = measure(filter, null, before);
+			log.info("{}: 1ページ目 中央値 {} µs / 最大 {} µs, {}ページ先 {} / {} µs, 前ページ {} / {} µs",
+					entry.getKey(), firstPage[0], firstPage[1], DEEP_PAGES, deepPage[0], deepPage[1],
+					prevPage[0], prevPage[1]);
+
+			assertThat(firstPage[0]).isLessThan(MEDIAN_LIMIT_MICROS);
+			assertThat(deepPage[0]).isLessThan(MEDIAN_LIMIT_MICROS);
+			assertThat(prevPage[0]).isLessThan(MEDIAN_LIMIT_MICROS);
+		}
+	}
+
+	// { 中央値, 最大 }（µs）
+	private long[] measure(StaffOrderFilter filter, String after, String before) {
+		for (int i = 0; i < WARMUP; i++) {
+			boardService.findPage(filter, after, before, StaffOrderBoardService.DEFAULT_PAGE_SIZE);
+		}
+		long[] nanos = new long[REPEAT];
+		for (int i = 0; i < REPEAT; i++) {
+			long start = System.nanoTime();
+			StaffOrderPage page = boardService.findPage(filter, after, before, StaffOrderBoardService.DEFAULT_PAGE_SIZE);
+			nanos[i] = System.nanoTime() - start;
+			assertThat(page.getOrders().size()).isLessThanOrEqualTo(StaffOrderBoardService.DEFAULT_PAGE_SIZE);
+		}
+		Arrays.sort(nanos);
+		return new long[] { nanos[REPEAT / 2] / 1_000, nanos[REPEAT - 1] / 1_000 };
+	}
+}
@@ -0,0 +1,113 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import com.example.sunny.dto.BulkStatusResult;
+import com.example.sunny.dto.BulkStatusResult.Outcome;
+
+// スタッフ注文管理の一括変更を確認する
+//
+// ・UPDATE は1文だけ（注文ごとに UPDATE しない）
+// ・変更前として許されないステータスの注文は DB 側で飛ばされ、SKIPPED になる（追跡番号も入らない）
+// ・存在しない注文は NOT_FOUND、同じ注文が2回選ばれても1回として扱う
+// ・追跡番号は前後の空白を取り、64文字で切る。空欄なら今の追跡番号のまま
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:staff-order-bulk")
+class StaffOrderBulkServiceTest {
+
+	@Autowired
+	private StaffOrderBulkService bulkService;
+
+	@MockitoSpyBean
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void updatesEligibleOrdersInOneStatementAndSkipsTheRest() {
+		long created = insertOrder("CREATED", null);
+		long paid = insertOrder("PAID", "OLD-PAID");
+		long shipping = insertOrder("SHIPPING", "OLD-SHIPPING");
+		long cancelled = insertOrder("CANCELLED", null);
+		long completed = insertOrder("COMPLETED", "OLD-COMPLETED");
+		long missing = 999_999L;
+
+		Map<Long, String> tracking = new HashMap<>();
+		tracking.put(created, "  TRK-001  ");
+		tracking.put(paid, " ");
+		tracking.put(shipping, "TRK-SKIPPED");
+		tracking.put(completed, "TRK-SKIPPED");
+		tracking.put(missing, "TRK-MISSING");
+
+		clearInvocations(jdbcTemplate);
+		BulkStatusResult result = bulkService.transition(
+				List.of(created, paid, shipping, cancelled, completed, missing, created), "SHIPPING", tracking);
+
+		// UPDATE は1文だけ
+		verify(jdbcTemplate, times(1)).update(startsWith("UPDATE orders"), any(Object[].class));
+
+		assertThat(result.getRows())
+				.extracting(BulkStatusResult.Row::getOrderId, BulkStatusResult.Row::getPreviousStatus,
+						BulkStatusResult.Row::getOutcome)
+				.containsExactly(
+						tuple(created, "CREATED", Outcome.UPDATED),
+						tuple(paid, "PAID", Outcome.UPDATED),
+						tuple(shipping, "SHIPPING", Outcome.SKIPPED),
+						tuple(cancelled, "CANCELLED", Outcome.SKIPPED),
+						tuple(completed, "COMPLETED", Outcome.SKIPPED),
+						tuple(missing, null, Outcome.NOT_FOUND));
+		assertThat(result.getUpdatedCount()).isEqualTo(2);
+
+		// 許される注文だけが進み、追跡番号が入る（空欄は今のまま）
+		assertOrder(created, "SHIPPING", "TRK-001");
+		assertOrder(paid, "SHIPPING", "OLD-PAID");
+		// 飛ばされた注文はステータスも追跡番号もそのまま
+		assertOrder(shipping, "SHIPPING", "OLD-SHIPPING");
+		assertOrder(cancelled, "CANCELLED", null);
+		assertOrder(completed, "COMPLETED", "OLD-COMPLETED");
+	}
+
+	@Test
+	void trackingNumberIsTruncatedAndCancelIsNotBulk() {
+		long order = insertOrder("PAID", null);
+		bulkService.transition(List.of(order), "SHIPPING", Map.of(order, "X".repeat(100)));
+		assertOrder(order, "SHIPPING", "X".repeat(64));
+
+		assertThatThrownBy(() -> bulkService.transition(List.of(order), "CANCELLED", Map.of()))
+				.isInstanceOf(IllegalArgumentException.class);
+		List<Long> tooMany = LongStream.rangeClosed(1, StaffOrderBulkService.MAX_ORDERS + 1).boxed().toList();
+		assertThatThrownBy(() -> bulkService.transition(tooMany, "PAID", Map.of()))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertOrder(order, "SHIPPING", "X".repeat(64));
+	}
+
+	private long insertOrder(String status, String trackingNumber) {
+		jdbcTemplate.update("INSERT INTO orders (user_id, item_id, quantity, total_price, status, tracking_number,"
+				+ " created_at) VALUES (1, 1, 1, 100, ?, ?, ?)", status, trackingNumber,
+				Timestamp.valueOf(LocalDateTime.now()));
+		return jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+	}
+
+	private void assertOrder(long id, String status, String trackingNumber) {
+		Map<String, Object> row = jdbcTemplate.queryForMap("SELECT status, tracking_number FROM orders WHERE id = ?", id);
+		assertThat(row.get("STATUS")).isEqualTo(status);
+		assertThat(row.get("TRACKING_NUMBER")).isEqualTo(trackingNumber);
+	}
+}
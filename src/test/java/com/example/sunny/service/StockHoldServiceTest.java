@@ -0,0 +1,90 @@
+package com.example.sunny.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.sunny.repository.ItemRepository;
+
+// 在庫の一時確保を確認する
+//
+// ・注文のトランザクションの中で外しても、コミットまでは他の人から見て確保されたまま
+// ・ロールバックしたら確保は残る
+// ・注文確定が商品の行をロックしている間の確保は待たされ、確定後の在庫で判断される
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:stock-hold;LOCK_TIMEOUT=30000")
+class StockHoldServiceTest {
+
+	@Autowired
+	private StockHoldService stockHoldService;
+
+	@Autowired
+	private ItemRepository itemRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void releaseInsideTransactionWaitsForCommit() {
+		assertThat(stockHoldService.hold(1L, "a@example.com", 3)).isNotNull();
+
+		// ロールバック → 確保は残る
+		transactionTemplate.executeWithoutResult(status -> {
+			stockHoldService.release(1L, "a@example.com");
+			assertThat(stockHoldService.heldByOthers(1L, "b@example.com")).isEqualTo(3);
+			status.setRollbackOnly();
+		});
+		assertThat(stockHoldService.find(1L, "a@example.com")).isNotNull();
+
+		// コミット → 外れる（コミットまでは確保されたまま）
+		transactionTemplate.executeWithoutResult(status -> {
+			stockHoldService.release(1L, "a@example.com");
+			assertThat(stockHoldService.heldByOthers(1L, "b@example.com")).isEqualTo(3);
+		});
+		assertThat(stockHoldService.find(1L, "a@example.com")).isNull();
+		assertThat(stockHoldService.heldByOthers(1L, "b@example.com")).isZero();
+	}
+
+	@Test
+	void holdWaitsForOrderInProgress() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		CountDownLatch reserved = new CountDownLatch(1);
+		CountDownLatch commit = new CountDownLatch(1);
+		try {
+			// 商品2（在庫5）を全部買う注文を、コミット直前で止めておく
+			Future<?> order = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+				int held = stockHoldService.lockAndCountHeldByOthers(2L, "a@example.com");
+				assertThat(itemRepository.reserveStock(2L, 5, held)).isEqualTo(1);
+				reserved.countDown();
+				try {
+					commit.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}));
+			assertThat(reserved.await(10, TimeUnit.SECONDS)).isTrue();
+
+			// その間の確保は待たされる（コミット前の在庫 5 で確保してはいけない）
+			Future<StockHoldService.Hold> hold = executor.submit(() -> stockHoldService.hold(2L, "b@example.com", 1));
+			assertThatThrownBy(() -> hold.get(300, TimeUnit.MILLISECONDS)).isInstanceOf(TimeoutException.class);
+
+			commit.countDown();
+			order.get(10, TimeUnit.SECONDS);
+			assertThat(hold.get(10, TimeUnit.SECONDS)).isNull();
+			assertThat(stockHoldService.heldByOthers(2L, null)).isZero();
+		} finally {
+			commit.countDown();
+			executor.shutdownNow();
+		}
+	}
+}